@@ -75,6 +75,32 @@ public interface ActiveRecord {
 	 */
 	int update(Object entity);
 
+	/**
+	 * 批量插入，在一个事务中分批执行 自动处理主键
+	 *
+	 * @param entities
+	 *            the entities
+	 * @return 生成的主键，驱动不支持时为空
+	 */
+	<T extends Serializable> List<T> insertBatch(List<?> entities);
+
+	/**
+	 * 批量保存，在一个事务中分批执行，不处理主键
+	 *
+	 * @param entities
+	 *            the entities
+	 */
+	void saveBatch(List<?> entities);
+
+	/**
+	 * 批量根据实体更新，在一个事务中分批执行
+	 *
+	 * @param entities
+	 *            the entities
+	 * @return 更新的记录数
+	 */
+	int updateBatch(List<?> entities);
+
 	/**
 	 * 根据Criteria删除
 	 *
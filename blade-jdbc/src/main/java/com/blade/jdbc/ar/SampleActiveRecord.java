@@ -12,12 +12,16 @@ import com.blade.jdbc.utils.Utils;
 import com.blade.kit.CollectionKit;
 import com.blade.kit.StringKit;
 import org.sql2o.Connection;
+import org.sql2o.Query;
 import org.sql2o.Sql2o;
 
 import javax.sql.DataSource;
 import java.io.Serializable;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 /**
  * ActiveRecord default implement
@@ -35,6 +39,9 @@ public class SampleActiveRecord implements ActiveRecord {
 
 	private Object[] EMPTY = new Object[] {};
 
+	/** 批量操作每批的记录数 */
+	private int batchSize = 1000;
+
 	public SampleActiveRecord() {
 	}
 
@@ -61,18 +68,7 @@ public class SampleActiveRecord implements ActiveRecord {
 	 */
 	@SuppressWarnings("unchecked")
 	private <T extends Serializable> T insert(Object entity, Take take) {
-		Class<?> entityClass = SqlAssembleUtils.getEntityClass(entity, take);
-		NameHandler handler = this.getNameHandler();
-		String pkValue = handler.getPKValue(entityClass, this.dialect);
-		if (StringKit.isNotBlank(pkValue)) {
-			String primaryName = handler.getPKName(entityClass);
-			if (take == null) {
-				take = Take.create(entityClass);
-			}
-			take.setPKValueName(NameUtils.getCamelName(primaryName), pkValue);
-		}
-
-		final BoundSql boundSql = SqlAssembleUtils.buildInsertSql(entity, take, handler);
+		final BoundSql boundSql = this.buildInsertSql(entity, take);
 
 		String sql = boundSql.getSql();
 		Object[] params = boundSql.getParams().toArray();
@@ -92,6 +88,23 @@ public class SampleActiveRecord implements ActiveRecord {
 		}
 	}
 
+	/**
+	 * 构建insert语句，需要时加入主键序列
+	 */
+	private BoundSql buildInsertSql(Object entity, Take take) {
+		Class<?> entityClass = SqlAssembleUtils.getEntityClass(entity, take);
+		NameHandler handler = this.getNameHandler();
+		String pkValue = handler.getPKValue(entityClass, this.dialect);
+		if (StringKit.isNotBlank(pkValue)) {
+			String primaryName = handler.getPKName(entityClass);
+			if (take == null) {
+				take = Take.create(entityClass);
+			}
+			take.setPKValueName(NameUtils.getCamelName(primaryName), pkValue);
+		}
+		return SqlAssembleUtils.buildInsertSql(entity, take, handler);
+	}
+
 	@Override
 	public <T extends Serializable> T insert(Object entity) {
 		return this.insert(entity, null);
@@ -155,6 +168,117 @@ public class SampleActiveRecord implements ActiveRecord {
 		return executeAtomic(sql, boundSql.getParams().toArray());
 	}
 
+	@SuppressWarnings("unchecked")
+	@Override
+	public <T extends Serializable> List<T> insertBatch(List<?> entities) {
+		List<Object> keys = CollectionKit.newArrayList();
+		this.executeBatch(entities, entity -> this.buildInsertSql(entity, null), keys);
+		return (List<T>) (List<?>) keys;
+	}
+
+	@Override
+	public void saveBatch(List<?> entities) {
+		this.executeBatch(entities, entity -> SqlAssembleUtils.buildInsertSql(entity, null, this.getNameHandler()),
+				null);
+	}
+
+	@Override
+	public int updateBatch(List<?> entities) {
+		return this.executeBatch(entities,
+				entity -> SqlAssembleUtils.buildUpdateSql(entity, null, this.getNameHandler()), null);
+	}
+
+	/**
+	 * 在一个事务中分批执行，sql相同的记录合为一批，每条sql只预编译一次
+	 *
+	 * @param keys
+	 *            收集生成的主键，为null时不获取
+	 * @return 影响的记录数
+	 */
+	private int executeBatch(List<?> entities, Function<Object, BoundSql> builder, List<Object> keys) {
+		if (CollectionKit.isEmpty(entities)) {
+			return 0;
+		}
+		JdbcTx jdbcTx = Tx.jdbcTx();
+		if (null != jdbcTx) {
+			try {
+				return executeBatch(jdbcTx.getConnection(), entities, builder, keys);
+			} catch (RuntimeException e) {
+				Tx.rollback();
+				throw e;
+			}
+		}
+		try (Connection con = sql2o.beginTransaction()) {
+			int count = executeBatch(con, entities, builder, keys);
+			con.commit(true);
+			return count;
+		}
+	}
+
+	private int executeBatch(Connection con, List<?> entities, Function<Object, BoundSql> builder,
+			List<Object> keys) {
+		boolean returnKeys = null != keys && supportsGeneratedKeys(con);
+		// 按sql分组，记下每条记录的下标
+		BoundSql[] boundSqls = new BoundSql[entities.size()];
+		Map<String, List<Integer>> groups = CollectionKit.newLinkedHashMap();
+		int index = 0;
+		for (Object entity : entities) {
+			BoundSql boundSql = builder.apply(entity);
+			boundSqls[index] = boundSql;
+			groups.computeIfAbsent(boundSql.getSql(), sql -> CollectionKit.newArrayList()).add(index++);
+		}
+		// 生成的主键按记录的顺序放置
+		Object[] generated = returnKeys ? new Object[boundSqls.length] : null;
+		int count = 0;
+		for (Map.Entry<String, List<Integer>> group : groups.entrySet()) {
+			List<Integer> indexes = group.getValue();
+			try (Query query = con.createQuery(group.getKey(), returnKeys)) {
+				for (int from = 0; from < indexes.size(); from += batchSize) {
+					List<Integer> batch = indexes.subList(from, Math.min(from + batchSize, indexes.size()));
+					for (int i : batch) {
+						query.withParams(boundSqls[i].getParams().toArray()).addToBatch();
+					}
+					count += flush(con, query, batch, generated);
+				}
+			}
+		}
+		if (returnKeys) {
+			for (Object key : generated) {
+				if (null != key) {
+					keys.add(key);
+				}
+			}
+		}
+		return count;
+	}
+
+	private static int flush(Connection con, Query query, List<Integer> batch, Object[] generated) {
+		query.executeBatch();
+		if (null != generated) {
+			Object[] batchKeys = con.getKeys();
+			for (int i = 0; null != batchKeys && i < batchKeys.length && i < batch.size(); i++) {
+				generated[batch.get(i)] = batchKeys[i];
+			}
+		}
+		int count = 0;
+		for (int result : con.getBatchResult()) {
+			if (result > 0) {
+				count += result;
+			} else if (result == Statement.SUCCESS_NO_INFO) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private static boolean supportsGeneratedKeys(Connection con) {
+		try {
+			return con.getJdbcConnection().getMetaData().supportsGetGeneratedKeys();
+		} catch (SQLException | RuntimeException e) {
+			return false;
+		}
+	}
+
 	private int executeAtomic(String sql, Object[] params) {
 		JdbcTx jdbcTx = Tx.jdbcTx();
 		if (null != jdbcTx) {
@@ -222,11 +346,7 @@ public class SampleActiveRecord implements ActiveRecord {
 	}
 
 	private String dealSQL(String sql) {
-		int pindex = 1;
-		while (sql.contains(" ?")) {
-			sql = sql.replaceFirst(" \\?", " :p" + pindex++);
-		}
-		return sql;
+		return new BoundSql(sql, null, null).getSql();
 	}
 
 	private Object[] dealArgs(Object... args) {
@@ -507,4 +627,11 @@ public class SampleActiveRecord implements ActiveRecord {
 	public void setDialect(String dialect) {
 		this.dialect = dialect;
 	}
+
+	/**
+	 * 批量操作每批的记录数，默认1000
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = batchSize;
+	}
 }
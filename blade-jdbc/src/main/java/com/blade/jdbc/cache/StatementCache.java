@@ -4,41 +4,175 @@ import com.blade.jdbc.utils.Utils;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
-import java.util.HashMap;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 
-public enum StatementCache {
-	INSTANCE;
+/**
+ * Prepared statements of one physical connection, least recently used
+ * evicted and closed beyond the size.
+ * <p>
+ * A statement is taken out while in use and offered back when closed, so a
+ * statement is never handed to two users at once.
+ */
+public class StatementCache {
 
-	private final ConcurrentMap<Connection, Map<String, PreparedStatement>> statementCache = new ConcurrentHashMap<Connection, Map<String, PreparedStatement>>();
+	private final int maxSize;
+	private final LinkedHashMap<Key, PreparedStatement> statements;
+	private boolean closed;
+	private long hits;
+	private long misses;
 
-	private StatementCache() {
+	public StatementCache(int maxSize) {
+		this.maxSize = maxSize;
+		this.statements = new LinkedHashMap<>(16, 0.75f, true);
 	}
 
-	public static StatementCache instance() {
-		return INSTANCE;
+	/**
+	 * @return the cached statement, removed from the cache, or null
+	 */
+	public synchronized PreparedStatement take(Key key) {
+		PreparedStatement statement = statements.remove(key);
+		if (null != statement) {
+			hits++;
+		} else {
+			misses++;
+		}
+		return statement;
+	}
+
+	/**
+	 * @return whether the statement was cached, otherwise the caller closes it
+	 */
+	public boolean offer(Key key, PreparedStatement statement) {
+		PreparedStatement eldest = null;
+		synchronized (this) {
+			if (closed || statements.containsKey(key)) {
+				return false;
+			}
+			statements.put(key, statement);
+			if (statements.size() > maxSize) {
+				Iterator<PreparedStatement> it = statements.values().iterator();
+				eldest = it.next();
+				it.remove();
+			}
+		}
+		Utils.closeQuietly(eldest);
+		return true;
 	}
 
-	PreparedStatement getPreparedStatement(Connection connection, String query) {
-		if (!statementCache.containsKey(connection)) {
-			statementCache.put(connection, new HashMap<String, PreparedStatement>());
+	/**
+	 * Close the cached statements, nothing is cached afterwards
+	 */
+	public void clean() {
+		List<PreparedStatement> list;
+		synchronized (this) {
+			closed = true;
+			list = new ArrayList<>(statements.values());
+			statements.clear();
 		}
-		return statementCache.get(connection).get(query);
+		list.forEach(Utils::closeQuietly);
+	}
+
+	public synchronized int size() {
+		return statements.size();
 	}
 
-	public void cache(Connection connection, String query, PreparedStatement ps) {
-		statementCache.get(connection).put(query, ps);
+	public synchronized long getHits() {
+		return hits;
 	}
 
-	public void cleanStatementCache(Connection connection) {
-		Map<String, PreparedStatement> stmsMap = statementCache.remove(connection);
-		if (stmsMap != null) { // Close prepared statements to release cursors
-								// on connection pools
-			for (PreparedStatement stmt : stmsMap.values()) {
-				Utils.closeQuietly(stmt);
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Sql of a statement along with the flags it was prepared with, -1 for
+	 * the flags not given
+	 */
+	public static final class Key {
+
+		private final String sql;
+		private final boolean call;
+		private final int resultSetType;
+		private final int resultSetConcurrency;
+		private final int resultSetHoldability;
+		private final int autoGeneratedKeys;
+		private final int hash;
+
+		public Key(String sql, boolean call, int resultSetType, int resultSetConcurrency,
+				   int resultSetHoldability, int autoGeneratedKeys) {
+			this.sql = sql;
+			this.call = call;
+			this.resultSetType = resultSetType;
+			this.resultSetConcurrency = resultSetConcurrency;
+			this.resultSetHoldability = resultSetHoldability;
+			this.autoGeneratedKeys = autoGeneratedKeys;
+			int h = sql.hashCode();
+			h = 31 * h + (call ? 1 : 0);
+			h = 31 * h + resultSetType;
+			h = 31 * h + resultSetConcurrency;
+			h = 31 * h + resultSetHoldability;
+			this.hash = 31 * h + autoGeneratedKeys;
+		}
+
+		public static Key of(String sql) {
+			return new Key(sql, false, -1, -1, -1, -1);
+		}
+
+		/**
+		 * Prepare a statement for this key on the connection
+		 */
+		public PreparedStatement prepare(Connection connection) throws SQLException {
+			if (call) {
+				if (resultSetHoldability != -1) {
+					return connection.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+				}
+				if (resultSetType != -1) {
+					return connection.prepareCall(sql, resultSetType, resultSetConcurrency);
+				}
+				return connection.prepareCall(sql);
+			}
+			if (resultSetHoldability != -1) {
+				return connection.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability);
+			}
+			if (resultSetType != -1) {
+				return connection.prepareStatement(sql, resultSetType, resultSetConcurrency);
+			}
+			if (autoGeneratedKeys != -1) {
+				return connection.prepareStatement(sql, autoGeneratedKeys);
+			}
+			return connection.prepareStatement(sql);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
 			}
+			if (!(o instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) o;
+			return hash == key.hash && call == key.call && resultSetType == key.resultSetType
+					&& resultSetConcurrency == key.resultSetConcurrency
+					&& resultSetHoldability == key.resultSetHoldability
+					&& autoGeneratedKeys == key.autoGeneratedKeys && sql.equals(key.sql);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
 		}
+
+		@Override
+		public String toString() {
+			return sql;
+		}
+
 	}
-}
\ No newline at end of file
+
+}
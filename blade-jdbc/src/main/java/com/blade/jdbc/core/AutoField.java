@@ -21,6 +21,9 @@ public class AutoField {
 
 	private SqlOpts type;
 
+	/** 列名，为空时由名称处理器转换 */
+	private String columnName;
+
 	public String getName() {
 		return name;
 	}
@@ -61,4 +64,12 @@ public class AutoField {
 		this.fieldOperator = fieldOperator;
 	}
 
+	public String getColumnName() {
+		return columnName;
+	}
+
+	public void setColumnName(String columnName) {
+		this.columnName = columnName;
+	}
+
 }
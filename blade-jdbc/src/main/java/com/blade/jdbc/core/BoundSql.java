@@ -36,9 +36,18 @@ public class BoundSql {
     }
 
     public String getSql() {
-        int pindex = 1;
-        while(sql.contains(" ?")){
-            sql = sql.replaceFirst(" \\?", " :p" + pindex++);
+        // " ?" 依次替换为 " :p1"、" :p2"，只替换一次
+        int index = sql.indexOf(" ?");
+        if (index != -1) {
+            StringBuilder named = new StringBuilder(sql.length() + 16);
+            int from = 0;
+            int pindex = 1;
+            while (index != -1) {
+                named.append(sql, from, index).append(" :p").append(pindex++);
+                from = index + 2;
+                index = sql.indexOf(" ?", from);
+            }
+            sql = named.append(sql, from, sql.length()).toString();
         }
         return sql;
     }
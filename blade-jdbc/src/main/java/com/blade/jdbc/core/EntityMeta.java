@@ -0,0 +1,312 @@
+package com.blade.jdbc.core;
+
+import com.blade.jdbc.annotation.Column;
+import com.blade.jdbc.exceptions.AssistantException;
+import com.blade.jdbc.model.SqlOpts;
+import com.blade.kit.CollectionKit;
+import com.blade.kit.StringKit;
+import com.blade.kit.reflect.ReflectKit;
+
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongFunction;
+
+/**
+ * 实体类的映射信息，每个实体类和名称处理器只解析一次：
+ * 表名、主键、列及其属性访问器，以及固定部分的sql。
+ * <p>
+ * insert、update和where按非空列的组合生成，用位掩码缓存，
+ * 参数已是 :p1 形式，不必再由 {@link BoundSql} 替换
+ */
+public final class EntityMeta {
+
+	/** 每种组合最多缓存的sql数 */
+	private static final int MAX_TEMPLATES = 256;
+
+	/** 默认名称处理器无状态，所有实例共用 */
+	private static final Map<Class<?>, EntityMeta> DEFAULT_CACHE = new ConcurrentHashMap<>();
+
+	/** 其他名称处理器可能带有配置，按实例区分 */
+	private static final Map<NameHandler, Map<Class<?>, EntityMeta>> CACHE = Collections
+			.synchronizedMap(new IdentityHashMap<>());
+
+	private final Class<?> type;
+	private final String tableName;
+	private final String pkName;
+	private final Property[] properties;
+	/** 主键列的下标，没有时为-1 */
+	private final int pkIndex;
+	private final String columnSql;
+	private final String selectPrefix;
+	private final String countPrefix;
+	private final String selectByIdSql;
+	private final String deleteByIdSql;
+
+	private final Map<Long, String> insertSqls = new ConcurrentHashMap<>();
+	private final Map<Long, String> updateSqls = new ConcurrentHashMap<>();
+	private final Map<Long, String> whereSqls = new ConcurrentHashMap<>();
+
+	private EntityMeta(Class<?> type, NameHandler nameHandler) {
+		this.type = type;
+		this.tableName = nameHandler.getTableName(type);
+		this.pkName = nameHandler.getPKName(type);
+
+		List<Property> list = CollectionKit.newArrayList();
+		Class<?> clazz = type;
+		do {
+			for (Field field : clazz.getDeclaredFields()) {
+				if (!ReflectKit.isAvailable(field)) {
+					continue;
+				}
+				Column column = field.getAnnotation(Column.class);
+				if (null != column && column.ignore()) {
+					continue;
+				}
+				ReflectKit.forceAccess(field);
+				String columnName = null != column && StringKit.isNotEmpty(column.name()) ? column.name()
+						: nameHandler.getColumnName(field.getName());
+				list.add(new Property(field, columnName));
+			}
+			clazz = clazz.getSuperclass();
+		} while (null != clazz && !Object.class.equals(clazz));
+		this.properties = list.toArray(new Property[list.size()]);
+
+		int pk = -1;
+		StringBuilder columns = new StringBuilder();
+		for (int i = 0; i < properties.length; i++) {
+			if (pk == -1 && pkName.equalsIgnoreCase(properties[i].column)) {
+				pk = i;
+			}
+			if (i > 0) {
+				columns.append(',');
+			}
+			columns.append(properties[i].column);
+		}
+		this.pkIndex = pk;
+		this.columnSql = columns.toString();
+		this.selectPrefix = "select " + columnSql + " from " + tableName;
+		this.countPrefix = "select count(0) from " + tableName;
+		this.selectByIdSql = selectPrefix + " where " + pkName + " = :p1";
+		this.deleteByIdSql = "delete from " + tableName + " where " + pkName + " = :p1";
+	}
+
+	/**
+	 * 获取实体类的映射信息，第一次使用时解析
+	 */
+	public static EntityMeta of(Class<?> type, NameHandler nameHandler) {
+		Map<Class<?>, EntityMeta> metas = nameHandler.getClass() == DefaultNameHandler.class ? DEFAULT_CACHE
+				: CACHE.computeIfAbsent(nameHandler, h -> new ConcurrentHashMap<>());
+		EntityMeta meta = metas.get(type);
+		return null != meta ? meta : metas.computeIfAbsent(type, t -> new EntityMeta(t, nameHandler));
+	}
+
+	public Class<?> getType() {
+		return type;
+	}
+
+	public String getTableName() {
+		return tableName;
+	}
+
+	public String getPkName() {
+		return pkName;
+	}
+
+	public String getColumnSql() {
+		return columnSql;
+	}
+
+	/**
+	 * @return select 所有列 from 表名
+	 */
+	public String getSelectPrefix() {
+		return selectPrefix;
+	}
+
+	/**
+	 * @return select count(0) from 表名
+	 */
+	public String getCountPrefix() {
+		return countPrefix;
+	}
+
+	public String getSelectByIdSql() {
+		return selectByIdSql;
+	}
+
+	public String getDeleteByIdSql() {
+		return deleteByIdSql;
+	}
+
+	int size() {
+		return properties.length;
+	}
+
+	/**
+	 * 列数不超过64时才能用位掩码缓存sql
+	 */
+	boolean isCacheable() {
+		return properties.length <= 64;
+	}
+
+	/**
+	 * 读取实体所有列的值
+	 */
+	Object[] values(Object entity) {
+		Object[] values = new Object[properties.length];
+		for (int i = 0; i < properties.length; i++) {
+			try {
+				values[i] = properties[i].field.get(entity);
+			} catch (IllegalAccessException e) {
+				throw new AssistantException("获取属性失败：" + properties[i].field.getName());
+			}
+		}
+		return values;
+	}
+
+	/**
+	 * 非空值的位掩码
+	 */
+	static long mask(Object[] values) {
+		long mask = 0;
+		for (int i = 0; i < values.length; i++) {
+			if (null != values[i]) {
+				mask |= 1L << i;
+			}
+		}
+		return mask;
+	}
+
+	long pkMask() {
+		return pkIndex == -1 ? 0 : 1L << pkIndex;
+	}
+
+	Object pkValue(Object[] values) {
+		return pkIndex == -1 ? null : values[pkIndex];
+	}
+
+	/**
+	 * 实体非空列转换为操作属性，列名已确定
+	 */
+	List<AutoField> autoFields(Object entity, SqlOpts operateType) {
+		List<AutoField> autoFields = CollectionKit.newArrayList();
+		Object[] values = values(entity);
+		for (int i = 0; i < properties.length; i++) {
+			if (null != values[i]) {
+				AutoField autoField = new AutoField();
+				autoField.setName(properties[i].field.getName());
+				autoField.setColumnName(properties[i].column);
+				autoField.setSqlOperator(SqlOpts.AND.getValue());
+				autoField.setFieldOperator(SqlOpts.EQ.getValue());
+				autoField.setValues(new Object[]{values[i]});
+				autoField.setType(operateType);
+				autoFields.add(autoField);
+			}
+		}
+		return autoFields;
+	}
+
+	/**
+	 * insert into 表名(非空列) values (参数)
+	 */
+	String insertSql(long mask) {
+		return template(insertSqls, mask, m -> {
+			StringBuilder sql = new StringBuilder(SqlOpts.INSERT_INTO.getValue()).append(tableName).append("(");
+			StringBuilder args = new StringBuilder("(");
+			int index = 1;
+			for (int i = 0; i < properties.length; i++) {
+				if ((m & (1L << i)) == 0) {
+					continue;
+				}
+				if (index > 1) {
+					sql.append(",");
+					args.append(",");
+				}
+				sql.append(properties[i].column);
+				args.append(" :p").append(index++);
+			}
+			return sql.append(") values ").append(args).append(")").toString();
+		});
+	}
+
+	/**
+	 * update 表名 set 非空的非主键列 where 主键 = 参数，参数依次为各列的值和主键值
+	 */
+	String updateSql(long mask) {
+		return template(updateSqls, mask, m -> {
+			StringBuilder sql = new StringBuilder("update ").append(tableName).append(" set ");
+			int index = 1;
+			for (int i = 0; i < properties.length; i++) {
+				if (i == pkIndex || (m & (1L << i)) == 0) {
+					continue;
+				}
+				if (index > 1) {
+					sql.append(",");
+				}
+				sql.append(properties[i].column).append(" = :p").append(index++);
+			}
+			return sql.append(" where ").append(pkName).append(" = :p").append(index).toString();
+		});
+	}
+
+	/**
+	 * 非空列 = 参数，以 and 连接
+	 */
+	String whereSql(long mask) {
+		return template(whereSqls, mask, m -> {
+			StringBuilder sql = new StringBuilder();
+			int index = 1;
+			for (int i = 0; i < properties.length; i++) {
+				if ((m & (1L << i)) == 0) {
+					continue;
+				}
+				if (index > 1) {
+					sql.append(" ").append(SqlOpts.AND.getValue()).append(" ");
+				}
+				sql.append(properties[i].column).append(" = :p").append(index++);
+			}
+			return sql.toString();
+		});
+	}
+
+	/**
+	 * 按掩码的顺序取出非空值
+	 */
+	static List<Object> params(Object[] values, long mask) {
+		List<Object> params = CollectionKit.newArrayList(Long.bitCount(mask));
+		for (int i = 0; i < values.length; i++) {
+			if ((mask & (1L << i)) != 0) {
+				params.add(values[i]);
+			}
+		}
+		return params;
+	}
+
+	private static String template(Map<Long, String> templates, long mask, LongFunction<String> builder) {
+		String sql = templates.get(mask);
+		if (null == sql) {
+			sql = builder.apply(mask);
+			if (templates.size() < MAX_TEMPLATES) {
+				templates.put(mask, sql);
+			}
+		}
+		return sql;
+	}
+
+	private static final class Property {
+
+		private final Field field;
+		private final String column;
+
+		Property(Field field, String column) {
+			this.field = field;
+			this.column = column;
+		}
+
+	}
+
+}
@@ -1,26 +1,21 @@
 package com.blade.jdbc.core;
 
-import com.blade.jdbc.annotation.Column;
 import com.blade.jdbc.exceptions.AssistantException;
 import com.blade.jdbc.model.SqlOpts;
 import com.blade.kit.CollectionKit;
 import com.blade.kit.StringKit;
-import com.blade.kit.reflect.FieldCallback;
-import com.blade.kit.reflect.ReflectKit;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
-import java.lang.reflect.Field;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
+/**
+ * 组装sql，表名、列名和固定部分的sql取自缓存的 {@link EntityMeta}，
+ * 只有实体时直接使用缓存的sql，有Take时where条件追加在其后
+ */
 public class SqlAssembleUtils {
 
-	/** 日志对象 */
-	private static final Logger LOG = LoggerFactory.getLogger(SqlAssembleUtils.class);
-
 	/**
 	 * 获取实体类对象
 	 */
@@ -41,16 +36,26 @@ public class SqlAssembleUtils {
 	 */
 	public static BoundSql buildInsertSql(Object entity, Take take, NameHandler nameHandler) {
 
-		Class<?> entityClass = getEntityClass(entity, take);
+		EntityMeta meta = EntityMeta.of(getEntityClass(entity, take), nameHandler);
+		String pkName = meta.getPkName();
+
+		// 只有实体，使用缓存的sql
+		if (take == null && meta.isCacheable()) {
+			Object[] values = meta.values(entity);
+			long mask = EntityMeta.mask(values);
+			if (mask != 0) {
+				return new BoundSql(meta.insertSql(mask), pkName, EntityMeta.params(values, mask));
+			}
+		}
+
 		List<AutoField> autoFields = (take != null ? take.getAutoFields() : CollectionKit.newArrayList());
 
-		List<AutoField> entityAutoField = getEntityAutoField(entity, SqlOpts.UPDATE);
+		List<AutoField> entityAutoField = getEntityAutoField(meta, entity, SqlOpts.UPDATE);
 
 		// 添加到后面
 		autoFields.addAll(entityAutoField);
 
-		String tableName = nameHandler.getTableName(entityClass);
-		String pkName = nameHandler.getPKName(entityClass);
+		String tableName = meta.getTableName();
 
 		StringBuilder sql = new StringBuilder(SqlOpts.INSERT_INTO.getValue());
 		List<Object> params = CollectionKit.newArrayList();
@@ -65,7 +70,7 @@ public class SqlAssembleUtils {
 			if (autoField.getType() != SqlOpts.UPDATE && autoField.getType() != SqlOpts.PK_VALUE_NAME) {
 				continue;
 			}
-			String columnName = nameHandler.getColumnName(autoField.getName());
+			String columnName = columnName(autoField, nameHandler);
 			Object value = autoField.getValues()[0];
 
 			sql.append(columnName);
@@ -94,18 +99,34 @@ public class SqlAssembleUtils {
 	 */
 	public static BoundSql buildUpdateSql(Object entity, Take take, NameHandler nameHandler) {
 
-		Class<?> entityClass = getEntityClass(entity, take);
+		EntityMeta meta = EntityMeta.of(getEntityClass(entity, take), nameHandler);
+
+		// 只有实体且有主键值，使用缓存的sql
+		if (take == null && meta.isCacheable()) {
+			Object[] values = meta.values(entity);
+			long mask = EntityMeta.mask(values) & ~meta.pkMask();
+			Object primaryValue = meta.pkValue(values);
+			if (primaryValue != null && mask != 0) {
+				if (StringKit.isBlank(primaryValue.toString())) {
+					throw new AssistantException("primary key not is null");
+				}
+				List<Object> params = EntityMeta.params(values, mask);
+				params.add(primaryValue);
+				return new BoundSql(meta.updateSql(mask), meta.getPkName(), params);
+			}
+		}
+
 		List<AutoField> autoFields = (take != null ? take.getAutoFields() : CollectionKit.newArrayList());
 
-		List<AutoField> entityAutoField = getEntityAutoField(entity, SqlOpts.UPDATE);
+		List<AutoField> entityAutoField = getEntityAutoField(meta, entity, SqlOpts.UPDATE);
 
 		// 添加到后面，防止or等操作被覆盖
 		autoFields.addAll(entityAutoField);
 
 		StringBuilder sql = new StringBuilder();
 		List<Object> params = CollectionKit.newArrayList();
-		String tableName = nameHandler.getTableName(entityClass);
-		String primaryName = nameHandler.getPKName(entityClass);
+		String tableName = meta.getTableName();
+		String primaryName = meta.getPkName();
 
 		sql.append("update ").append(tableName).append(" set ");
 
@@ -120,7 +141,7 @@ public class SqlAssembleUtils {
 				continue;
 			}
 
-			String columnName = nameHandler.getColumnName(autoField.getName());
+			String columnName = columnName(autoField, nameHandler);
 
 			// 如果是主键
 			if (primaryName.equalsIgnoreCase(columnName)) {
@@ -166,56 +187,19 @@ public class SqlAssembleUtils {
 	/**
 	 * 获取所有的操作属性，entity非null字段将被转换到列表
 	 */
-	private static List<AutoField> getEntityAutoField(Object entity, SqlOpts operateType) {
-
-		// 汇总的所有操作属性
-		List<AutoField> autoFieldList = CollectionKit.newArrayList();
-
+	private static List<AutoField> getEntityAutoField(EntityMeta meta, Object entity, SqlOpts operateType) {
 		if (entity == null) {
-			return autoFieldList;
-		}
-
-		// 获取属性信息
-		Class<? extends Object> clazz = entity.getClass();
-		FieldCallback callback = new FieldCallback() {
-
-			@Override
-			public void callBack(Field field) throws Exception {
-				Column column = field.getAnnotation(Column.class);
-				if (null == column) {
-					String fieldName = field.getName();
-					buildAutoField(entity, operateType, autoFieldList, field, fieldName);
-				} else {
-					if (!column.ignore()) {
-						String name = column.name();
-						String fieldName = StringKit.isEmpty(name) ? name : field.getName();
-						buildAutoField(entity, operateType, autoFieldList, field, fieldName);
-					}
-				}
-			}
-
-			private void buildAutoField(Object entity, SqlOpts operateType, List<AutoField> autoFieldList, Field field,
-					String fieldName) throws Exception {
-				AutoField autoField = new AutoField();
-				Object value = ReflectKit.getFieldValue(entity, field);
-				if (null != value) {
-					autoField.setName(fieldName);
-					autoField.setSqlOperator(SqlOpts.AND.getValue());
-					autoField.setFieldOperator(SqlOpts.EQ.getValue());
-					autoField.setValues(new Object[] { value });
-					autoField.setType(operateType);
-					autoFieldList.add(autoField);
-				}
-			}
-		};
-		try {
-			callback.callBackField(clazz);
-		} catch (Exception e) {
-			e.printStackTrace();
-			LOG.error("获取属性失败：" + e);
+			return CollectionKit.newArrayList();
 		}
+		return meta.autoFields(entity, operateType);
+	}
 
-		return autoFieldList;
+	/**
+	 * 属性的列名，实体属性的列名已确定
+	 */
+	private static String columnName(AutoField autoField, NameHandler nameHandler) {
+		String columnName = autoField.getColumnName();
+		return null != columnName ? columnName : nameHandler.getColumnName(autoField.getName());
 	}
 
 	/**
@@ -236,7 +220,7 @@ public class SqlAssembleUtils {
 			if (sql.length() > 0) {
 				sql.append(" ").append(autoField.getSqlOperator()).append(" ");
 			}
-			String columnName = nameHandler.getColumnName(autoField.getName());
+			String columnName = columnName(autoField, nameHandler);
 			Object[] values = autoField.getValues();
 
 			String fieldOperator = autoField.getFieldOperator();
@@ -282,13 +266,10 @@ public class SqlAssembleUtils {
 	 */
 	public static BoundSql buildDeleteSql(Class<?> clazz, Serializable id, NameHandler nameHandler) {
 
+		EntityMeta meta = EntityMeta.of(clazz, nameHandler);
 		List<Object> params = CollectionKit.newArrayList();
 		params.add(id);
-		String tableName = nameHandler.getTableName(clazz);
-		String primaryName = nameHandler.getPKName(clazz);
-		StringBuilder sql = new StringBuilder("delete from ").append(tableName).append(" where ").append(primaryName)
-				.append(" = ?");
-		return new BoundSql(sql.toString(), primaryName, params);
+		return new BoundSql(meta.getDeleteByIdSql(), meta.getPkName(), params);
 	}
 
 	/**
@@ -296,17 +277,23 @@ public class SqlAssembleUtils {
 	 */
 	public static BoundSql buildDeleteSql(Object entity, Take take, NameHandler nameHandler) {
 
-		Class<?> entityClass = getEntityClass(entity, take);
+		EntityMeta meta = EntityMeta.of(getEntityClass(entity, take), nameHandler);
+		String primaryName = meta.getPkName();
+		StringBuilder sql = new StringBuilder("delete from ").append(meta.getTableName()).append(" where ");
+
+		if (take == null && meta.isCacheable()) {
+			Object[] values = meta.values(entity);
+			long mask = EntityMeta.mask(values);
+			return new BoundSql(sql.append(meta.whereSql(mask)).toString(), primaryName,
+					EntityMeta.params(values, mask));
+		}
+
 		List<AutoField> autoFields = (take != null ? take.getAutoFields() : CollectionKit.newArrayList());
 
-		List<AutoField> entityAutoField = getEntityAutoField(entity, SqlOpts.WHERE);
+		List<AutoField> entityAutoField = getEntityAutoField(meta, entity, SqlOpts.WHERE);
 
 		autoFields.addAll(entityAutoField);
 
-		String tableName = nameHandler.getTableName(entityClass);
-		String primaryName = nameHandler.getPKName(entityClass);
-
-		StringBuilder sql = new StringBuilder("delete from ").append(tableName).append(" where ");
 		BoundSql boundSql = SqlAssembleUtils.builderWhereSql(autoFields, nameHandler);
 		boundSql.setSql(sql.append(boundSql.getSql()).toString());
 		boundSql.setPrimaryKey(primaryName);
@@ -320,15 +307,11 @@ public class SqlAssembleUtils {
 	public static BoundSql buildByIdSql(Class<?> clazz, Serializable pk, Take take, NameHandler nameHandler) {
 
 		Class<?> entityClass = (clazz == null ? take.getEntityClass() : clazz);
-		String tableName = nameHandler.getTableName(entityClass);
-		String primaryName = nameHandler.getPKName(entityClass);
-		String columns = SqlAssembleUtils.buildColumnSql(entityClass, nameHandler);
-		StringBuilder sql = new StringBuilder("select ").append(columns).append(" from ").append(tableName)
-				.append(" where ").append(primaryName).append(" = ?");
+		EntityMeta meta = EntityMeta.of(entityClass, nameHandler);
 		List<Object> params = CollectionKit.newArrayList();
 		params.add(pk);
 
-		return new BoundSql(sql.toString(), primaryName, params);
+		return new BoundSql(meta.getSelectByIdSql(), meta.getPkName(), params);
 	}
 
 	/**
@@ -336,19 +319,25 @@ public class SqlAssembleUtils {
 	 */
 	public static BoundSql buildQuerySql(Object entity, Take take, NameHandler nameHandler) {
 
-		Class<?> entityClass = getEntityClass(entity, take);
+		EntityMeta meta = EntityMeta.of(getEntityClass(entity, take), nameHandler);
+		String primaryName = meta.getPkName();
 
-		List<AutoField> autoFields = (take != null ? take.getAutoFields() : CollectionKit.newArrayList());
+		if (take == null && meta.isCacheable()) {
+			Object[] values = meta.values(entity);
+			long mask = EntityMeta.mask(values);
+			if (mask == 0) {
+				return new BoundSql(meta.getSelectPrefix(), primaryName, Collections.emptyList());
+			}
+			return new BoundSql(meta.getSelectPrefix() + " where " + meta.whereSql(mask), primaryName,
+					EntityMeta.params(values, mask));
+		}
 
-		String tableName = nameHandler.getTableName(entityClass);
-		String primaryName = nameHandler.getPKName(entityClass);
+		List<AutoField> autoFields = (take != null ? take.getAutoFields() : CollectionKit.newArrayList());
 
-		List<AutoField> entityAutoField = getEntityAutoField(entity, SqlOpts.WHERE);
+		List<AutoField> entityAutoField = getEntityAutoField(meta, entity, SqlOpts.WHERE);
 		autoFields.addAll(entityAutoField);
 
-		String columns = SqlAssembleUtils.buildColumnSql(entityClass, nameHandler);
-		StringBuilder querySql = new StringBuilder("select ").append(columns).append(" from ");
-		querySql.append(tableName);
+		StringBuilder querySql = new StringBuilder(meta.getSelectPrefix());
 
 		List<Object> params = Collections.emptyList();
 		if (null != take && take.hasWhere() || autoFields.size() > 0) {
@@ -372,7 +361,7 @@ public class SqlAssembleUtils {
 		StringBuilder sb = new StringBuilder(" order by ");
 		if (take != null) {
 			for (AutoField autoField : take.getOrderByFields()) {
-				sb.append(nameHandler.getColumnName(autoField.getName())).append(" ")
+				sb.append(columnName(autoField, nameHandler)).append(" ")
 						.append(autoField.getFieldOperator()).append(",");
 			}
 
@@ -393,15 +382,24 @@ public class SqlAssembleUtils {
 	 */
 	public static BoundSql buildCountSql(Object entity, Take take, NameHandler nameHandler) {
 
-		Class<?> entityClass = getEntityClass(entity, take);
+		EntityMeta meta = EntityMeta.of(getEntityClass(entity, take), nameHandler);
+
+		if (take == null && meta.isCacheable()) {
+			Object[] values = meta.values(entity);
+			long mask = EntityMeta.mask(values);
+			if (mask == 0) {
+				return new BoundSql(meta.getCountPrefix(), null, Collections.emptyList());
+			}
+			return new BoundSql(meta.getCountPrefix() + " where " + meta.whereSql(mask), null,
+					EntityMeta.params(values, mask));
+		}
+
 		List<AutoField> autoFields = (take != null ? take.getAutoFields() : CollectionKit.newArrayList());
 
-		List<AutoField> entityAutoField = getEntityAutoField(entity, SqlOpts.WHERE);
+		List<AutoField> entityAutoField = getEntityAutoField(meta, entity, SqlOpts.WHERE);
 		autoFields.addAll(entityAutoField);
 
-		String tableName = nameHandler.getTableName(entityClass);
-		StringBuilder countSql = new StringBuilder("select count(0) from ");
-		countSql.append(tableName);
+		StringBuilder countSql = new StringBuilder(meta.getCountPrefix());
 
 		List<Object> params = Collections.emptyList();
 		if (!CollectionKit.isEmpty(autoFields)) {
@@ -418,38 +416,7 @@ public class SqlAssembleUtils {
 	 * 构建查询的列sql
 	 */
 	public static String buildColumnSql(Class<?> clazz, NameHandler nameHandler) {
-
-		StringBuilder columns = new StringBuilder();
-
-		FieldCallback callBack = new FieldCallback() {
-
-			@Override
-			public void callBack(Field field) throws Exception {
-				Column column = field.getAnnotation(Column.class);
-				if (null == column) {
-					String fieldName = field.getName();
-					String columnName = nameHandler.getColumnName(fieldName);
-					columns.append(columnName);
-					columns.append(",");
-				} else {
-					if (!column.ignore()) {
-						String name = column.name();
-						String columnName = StringKit.isEmpty(name) ? name : nameHandler.getColumnName(field.getName());
-						columns.append(columnName);
-						columns.append(",");
-					}
-				}
-			}
-
-		};
-		try {
-			callBack.callBackField(clazz);
-		} catch (Exception e) {
-			e.printStackTrace();
-			LOG.error("获取属性失败：" + e);
-		}
-		columns.deleteCharAt(columns.length() - 1);
-		return columns.toString();
+		return EntityMeta.of(clazz, nameHandler).getColumnSql();
 	}
 
 	/**
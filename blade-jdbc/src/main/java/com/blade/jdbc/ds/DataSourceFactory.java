@@ -1,6 +1,7 @@
 package com.blade.jdbc.ds;
 
 import com.blade.jdbc.pool.BasicDataSourceImpl;
+import com.blade.jdbc.pool.PoolConfig;
 
 import javax.sql.DataSource;
 import java.io.IOException;
@@ -20,7 +21,7 @@ public class DataSourceFactory {
 		String url = props.getProperty("jdbc.url");
 		String username = props.getProperty("jdbc.username");
 		String password = props.getProperty("jdbc.password");
-		return new BasicDataSourceImpl(DEFAULT_DS_NAME, driver, url, username, password);
+		return new BasicDataSourceImpl(DEFAULT_DS_NAME, driver, url, username, password, PoolConfig.of(props));
 	}
 	
 	public static DataSource createDataSource(String driver, String url, String username, String password) throws IOException {
@@ -13,5 +13,7 @@ public interface BasicDataSource {
 	long getBorrowTimeout();
 	
 	long getLockTimeout();
+
+	PoolMetrics getMetrics();
 	
 }
\ No newline at end of file
@@ -7,59 +7,112 @@ import javax.sql.DataSource;
 import java.io.PrintWriter;
 import java.sql.*;
 import java.util.ArrayList;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
-
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.blade.jdbc.pool.ConnectionWrapper.*;
+
+/**
+ * Connection pool in the style of a concurrent bag.
+ * <p>
+ * A borrow first tries the connections the calling thread released last,
+ * then scans the shared list of all connections; either way an idle
+ * connection is taken by a compare and set of its state, without a lock.
+ * When the pool is full the borrower waits on a {@link SynchronousQueue}, to
+ * which releasing threads hand their connection while someone is waiting.
+ * Idle timeout, max lifetime and validation are taken care of by a
+ * background housekeeper, off the borrow path.
+ * <p>
+ * Every borrow and release is measured into {@link PoolMetrics} and told to
+ * the {@link PoolListener}s. With a leak detection threshold, the stack of
+ * each borrow is kept and connections held longer are logged with it.
+ */
 public class BasicDataSourceImpl implements DataSource, BasicDataSource {
-	
+
     private static final Logger log = LoggerFactory.getLogger(BasicDataSourceImpl.class);
-    
-    private final LinkedList<ConnectionWrapper> pool = new LinkedList<ConnectionWrapper>();
-    
+
+    // connections each thread remembers for reuse
+    private static final int THREAD_LOCAL_SIZE = 16;
+    // waiters look at the shared list this often, in case a release found nobody polling
+    private static final long WAIT_SLICE = TimeUnit.MILLISECONDS.toNanos(100);
+    // a release waits this long for a waiter to poll the connection
+    private static final long HANDOFF_TIMEOUT = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final CopyOnWriteArrayList<ConnectionWrapper> connections = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<List<ConnectionWrapper>> released = ThreadLocal.withInitial(ArrayList::new);
+    private final SynchronousQueue<ConnectionWrapper> handoff = new SynchronousQueue<>(true);
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger waiters = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private final PoolMetrics metrics = new PoolMetrics(this);
+    private volatile PoolListener[] listeners = new PoolListener[0];
+
     private int loginTimeout = 10;
     private PrintWriter logWriter;
-    
+
     private final String name;
     private final Driver driver;
     private final String url;
     private final String user;
     private final String password;
-    private final long keepAlive;
-    private final long borrowTimeout;
+    private final PoolConfig config;
     private final int lockTimeout;
-    private final int poolSize;
-    
-    private long checkIdleConnectionsTime;
-    private int activeCount;
-    private int waitingThreads;
-    private boolean closed;
+
+    private volatile boolean closed;
 
     public BasicDataSourceImpl(String name, String driver, String url, String user, String pass) {
+        this(name, driver, url, user, pass, new PoolConfig());
+    }
+
+    public BasicDataSourceImpl(String name, String driver, String url, String user, String pass, PoolConfig config) {
         try {
-            this.name = name;
             this.driver = (Driver) Class.forName(driver).newInstance();
-            this.url = url;
-            this.user = user;
-            this.password = pass;
-            this.keepAlive = 1800 * 1000L;
-            this.borrowTimeout = 3 * 1000L;
-            this.lockTimeout = -1;
-            this.poolSize = 10;
         } catch (Exception e) {
             throw new IllegalArgumentException("Invalid DataSource descriptor for " + name, e);
         }
+        if (config.getMaxSize() <= 0 || config.getMinIdle() > config.getMaxSize()) {
+            throw new IllegalArgumentException("Invalid pool size for " + name + ": " + config);
+        }
+        this.name = name;
+        this.url = url;
+        this.user = user;
+        this.password = pass;
+        this.config = config;
+        this.lockTimeout = -1;
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "blade-jdbc-housekeeper-" + name);
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = config.getHousekeepingPeriod();
+        this.housekeeper.scheduleWithFixedDelay(this::housekeep, period, period, TimeUnit.MILLISECONDS);
+        if (config.getLeakDetectionThreshold() > 0) {
+            long leakPeriod = Math.max(10, Math.min(period, config.getLeakDetectionThreshold() / 2));
+            this.housekeeper.scheduleWithFixedDelay(this::detectLeaks, leakPeriod, leakPeriod, TimeUnit.MILLISECONDS);
+        }
+        if (config.getMinIdle() > 0) {
+            this.housekeeper.execute(this::fillPool);
+        }
     }
-    
+
+    /**
+     * Close the idle connections, the ones in use are closed when released
+     */
     public void close() {
-        synchronized (pool) {
-            for (ConnectionWrapper connection : pool) {
-                connection.closeUnderlyingConnection();
+        closed = true;
+        housekeeper.shutdownNow();
+        for (ConnectionWrapper connection : connections) {
+            if (connection.compareAndSetState(STATE_IDLE, STATE_REMOVED)) {
+                remove(connection, PoolListener.EvictReason.CLOSED);
             }
-            activeCount = 0;
-            closed = true;
-            pool.clear();
-            pool.notifyAll();
         }
     }
 
@@ -67,6 +120,24 @@ public class BasicDataSourceImpl implements DataSource, BasicDataSource {
         return name;
     }
 
+    public PoolConfig getConfig() {
+        return config;
+    }
+
+    public void addListener(PoolListener listener) {
+        synchronized (metrics) {
+            PoolListener[] copy = Arrays.copyOf(listeners, listeners.length + 1);
+            copy[listeners.length] = listener;
+            listeners = copy;
+        }
+    }
+
+    public void removeListener(PoolListener listener) {
+        synchronized (metrics) {
+            listeners = Arrays.stream(listeners).filter(l -> l != listener).toArray(PoolListener[]::new);
+        }
+    }
+
     @Override
     public String toString() {
         return "DataSourceImpl{" + name + '}';
@@ -101,7 +172,7 @@ public class BasicDataSourceImpl implements DataSource, BasicDataSource {
     public int getLoginTimeout() {
         return loginTimeout;
     }
-    
+
     public <T> T unwrap(Class<T> iface) throws SQLException {
         throw new SQLException("Impossible to unwrap");
     }
@@ -111,43 +182,136 @@ public class BasicDataSourceImpl implements DataSource, BasicDataSource {
     }
 
     private ConnectionWrapper borrowConnection() throws SQLException {
-        long accessTime = System.currentTimeMillis();
-        long waited = 0;
+        long start = System.nanoTime();
+        ConnectionWrapper connection = acquire(start);
+        long now = System.nanoTime();
+        connection.lastAccessTime = System.currentTimeMillis();
+        connection.borrowedNanos = now;
+        connection.leakReported = false;
+        if (config.getLeakDetectionThreshold() > 0) {
+            connection.borrowStack = new Throwable("Connection borrowed by " + Thread.currentThread().getName());
+        }
+        metrics.borrowed(now - start);
+        for (PoolListener listener : listeners) {
+            try {
+                listener.onBorrow(now - start);
+            } catch (Exception e) {
+                log.error("Pool listener failed", e);
+            }
+        }
+        return connection;
+    }
 
-        if (accessTime > checkIdleConnectionsTime) {
-            checkIdleConnectionsTime = accessTime + keepAlive / 10;
-            closeIdleConnections(accessTime - keepAlive);
+    private ConnectionWrapper acquire(long start) throws SQLException {
+        if (closed) {
+            throw new SQLException("DataSource is closed");
         }
 
-        reuse:
-        synchronized (pool) {
-            while (!closed) {
-                // First try to get an idle object from the queue
-                ConnectionWrapper connection = pool.pollFirst();
-                if (connection != null) {
-                    connection.lastAccessTime = accessTime;
-                    return connection;
-                }
+        // First the connections this thread released, most recent first
+        List<ConnectionWrapper> list = released.get();
+        for (int i = list.size() - 1; i >= 0; i--) {
+            ConnectionWrapper connection = list.remove(i);
+            if (connection.compareAndSetState(STATE_IDLE, STATE_IN_USE)) {
+                return connection;
+            }
+        }
 
-                // If capacity permits, create a new object out of the lock
-                if (activeCount < poolSize) {
-                	activeCount++;
-                    break reuse;
-                }
+        // Then any idle one
+        ConnectionWrapper connection = pollShared();
+        if (connection != null) {
+            return connection;
+        }
+
+        // If capacity permits, a new one
+        connection = tryCreate();
+        if (connection != null) {
+            return connection;
+        }
+
+        // Lastly wait until an existing connection becomes free
+        return waitForFreeConnection(start);
+    }
 
-                // Lastly wait until an existing connection becomes free
-                waitForFreeConnection(borrowTimeout - waited);
-                waited = System.currentTimeMillis() - accessTime;
+    private ConnectionWrapper pollShared() {
+        for (ConnectionWrapper connection : connections) {
+            if (connection.compareAndSetState(STATE_IDLE, STATE_IN_USE)) {
+                return connection;
             }
-            throw new SQLException("DataSource is closed");
         }
+        return null;
+    }
 
+    /**
+     * @return a new connection in use, null if the pool is full
+     */
+    private ConnectionWrapper tryCreate() throws SQLException {
+        for (; ; ) {
+            int count = total.get();
+            if (count >= config.getMaxSize()) {
+                return null;
+            }
+            if (total.compareAndSet(count, count + 1)) {
+                break;
+            }
+        }
         ConnectionWrapper connection = null;
         try {
-            return connection = new ConnectionWrapper(getRawConnection(), this, accessTime);
+            connection = new ConnectionWrapper(getRawConnection(), this, System.currentTimeMillis(),
+                    config.getStatementCacheSize());
+            connections.add(connection);
+            metrics.created();
+            for (PoolListener listener : listeners) {
+                try {
+                    listener.onCreate();
+                } catch (Exception e) {
+                    log.error("Pool listener failed", e);
+                }
+            }
+            return connection;
+        } finally {
+            if (connection == null) total.decrementAndGet();
+        }
+    }
+
+    private ConnectionWrapper waitForFreeConnection(long start) throws SQLException {
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(config.getBorrowTimeout());
+        waiters.incrementAndGet();
+        try {
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > 0) {
+                ConnectionWrapper connection = handoff.poll(Math.min(remaining, WAIT_SLICE), TimeUnit.NANOSECONDS);
+                if (connection != null && connection.compareAndSetState(STATE_IDLE, STATE_IN_USE)) {
+                    return connection;
+                }
+                if (closed) {
+                    throw new SQLException("DataSource is closed");
+                }
+                // released while nobody polled, or room left by an evicted connection
+                connection = pollShared();
+                if (connection != null) {
+                    return connection;
+                }
+                connection = tryCreate();
+                if (connection != null) {
+                    return connection;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a free connection");
         } finally {
-            if (connection == null) decreaseCount();
+            waiters.decrementAndGet();
         }
+        long waited = System.nanoTime() - start;
+        metrics.timedOut();
+        for (PoolListener listener : listeners) {
+            try {
+                listener.onTimeout(waited);
+            } catch (Exception e) {
+                log.error("Pool listener failed", e);
+            }
+        }
+        throw new SQLException("DataSource timed out waiting for a free connection");
     }
 
     private Connection getRawConnection() throws SQLException {
@@ -180,64 +344,189 @@ public class BasicDataSourceImpl implements DataSource, BasicDataSource {
         }
     }
 
-    private void closeIdleConnections(long closeTime) {
-        ArrayList<ConnectionWrapper> idleConnections = new ArrayList<ConnectionWrapper>();
-
-        synchronized (pool) {
-            for (Iterator<ConnectionWrapper> iterator = pool.iterator(); iterator.hasNext(); ) {
-                ConnectionWrapper connection = iterator.next();
-                if (connection.lastAccessTime < closeTime) {
-                    idleConnections.add(connection);
-                    iterator.remove();
-                    decreaseCount();
+    /**
+     * Evict idle connections that timed out, expired or fail validation, then
+     * top the pool up to minIdle. Connections are reserved while checked, so
+     * borrowers pass them by.
+     */
+    private void housekeep() {
+        try {
+            long now = System.currentTimeMillis();
+            int evictable = total.get() - config.getMinIdle();
+            int evicted = 0;
+            for (ConnectionWrapper connection : connections) {
+                if (!connection.compareAndSetState(STATE_IDLE, STATE_RESERVED)) {
+                    continue;
+                }
+                PoolListener.EvictReason reason = null;
+                if (config.getIdleTimeout() > 0 && evictable > 0
+                        && now - connection.lastAccessTime > config.getIdleTimeout()) {
+                    reason = PoolListener.EvictReason.IDLE;
+                    evictable--;
+                } else if (isExpired(connection, now)) {
+                    reason = PoolListener.EvictReason.EXPIRED;
+                } else if (!isValid(connection)) {
+                    reason = PoolListener.EvictReason.INVALID;
                 }
+                if (null != reason) {
+                    connection.state = STATE_REMOVED;
+                    remove(connection, reason);
+                    evicted++;
+                } else {
+                    connection.state = STATE_IDLE;
+                }
+            }
+            if (evicted > 0) {
+                log.debug("Closed " + evicted + " idle connections on " + toString());
             }
+            fillPool();
+        } catch (Throwable e) {
+            log.error("Housekeeping failed on " + toString(), e);
         }
+    }
 
-        if (!idleConnections.isEmpty()) {
-            log.debug("Closing " + idleConnections.size() + " idle connections on " + toString());
-            for (ConnectionWrapper connection : idleConnections) {
-                connection.closeUnderlyingConnection();
+    /**
+     * Report the connections held longer than the leak detection threshold,
+     * once per borrow
+     */
+    private void detectLeaks() {
+        try {
+            long threshold = TimeUnit.MILLISECONDS.toNanos(config.getLeakDetectionThreshold());
+            long now = System.nanoTime();
+            for (ConnectionWrapper connection : connections) {
+                long borrowed = connection.borrowedNanos;
+                Throwable stack = connection.borrowStack;
+                if (connection.state != STATE_IN_USE || borrowed == 0 || null == stack
+                        || connection.leakReported || now - borrowed < threshold) {
+                    continue;
+                }
+                connection.leakReported = true;
+                if (connection.borrowedNanos != borrowed) {
+                    // released and borrowed again meanwhile
+                    connection.leakReported = false;
+                    continue;
+                }
+                long heldMillis = TimeUnit.NANOSECONDS.toMillis(now - borrowed);
+                metrics.leaked();
+                log.warn("Connection leak detected on " + toString() + ", held for " + heldMillis + "ms", stack);
+                for (PoolListener listener : listeners) {
+                    try {
+                        listener.onLeak(heldMillis, stack);
+                    } catch (Exception e) {
+                        log.error("Pool listener failed", e);
+                    }
+                }
             }
+        } catch (Throwable e) {
+            log.error("Leak detection failed on " + toString(), e);
         }
     }
 
-    private void waitForFreeConnection(long waitTime) throws SQLException {
-        if (waitTime <= 0) {
-            throw new SQLException("DataSource timed out waiting for a free connection");
+    private void fillPool() {
+        try {
+            while (!closed && total.get() < config.getMinIdle()) {
+                ConnectionWrapper connection = tryCreate();
+                if (connection == null) {
+                    return;
+                }
+                releaseConnection(connection);
+            }
+        } catch (SQLException e) {
+            log.error("Cannot open idle connections on " + toString(), e);
         }
+    }
 
-        waitingThreads++;
+    private boolean isExpired(ConnectionWrapper connection, long now) {
+        return config.getMaxLifetime() > 0 && now - connection.createdTime >= config.getMaxLifetime();
+    }
+
+    private boolean isValid(ConnectionWrapper connection) {
+        if (config.getValidationTimeoutSeconds() <= 0) {
+            return true;
+        }
         try {
-            pool.wait(waitTime);
-        } catch (InterruptedException e) {
-            throw new SQLException("Interrupted while waiting for a free connection");
+            return connection.delegate.isValid(config.getValidationTimeoutSeconds());
+        } catch (SQLFeatureNotSupportedException | AbstractMethodError e) {
+            // the driver cannot tell
+            return true;
+        } catch (SQLException e) {
+            return false;
         }
-        waitingThreads--;
     }
 
-    private void decreaseCount() {
-        synchronized (pool) {
-            if (!closed) {
-            	activeCount--;
-                if (waitingThreads > 0) pool.notify();
+    private void remove(ConnectionWrapper connection, PoolListener.EvictReason reason) {
+        connections.remove(connection);
+        total.decrementAndGet();
+        connection.closeUnderlyingConnection();
+        metrics.evicted();
+        for (PoolListener listener : listeners) {
+            try {
+                listener.onEvict(reason);
+            } catch (Exception e) {
+                log.error("Pool listener failed", e);
             }
         }
     }
-    
+
     void releaseConnection(ConnectionWrapper connection) {
-        if (connection.invalidate) {
-            decreaseCount();
-        } else {
-            synchronized (pool) {
-                if (!closed) {
-                    pool.addFirst(connection);
-                    if (waitingThreads > 0) pool.notify();
+        if (connection.state != STATE_IN_USE) {
+            // closed twice
+            return;
+        }
+        long borrowed = connection.borrowedNanos;
+        if (borrowed != 0) {
+            connection.borrowedNanos = 0;
+            long usage = System.nanoTime() - borrowed;
+            metrics.released(usage);
+            for (PoolListener listener : listeners) {
+                try {
+                    listener.onRelease(usage);
+                } catch (Exception e) {
+                    log.error("Pool listener failed", e);
+                }
+            }
+            if (connection.leakReported) {
+                log.info("Connection reported as leaked returned to " + toString() + " after "
+                        + TimeUnit.NANOSECONDS.toMillis(usage) + "ms");
+            }
+            connection.borrowStack = null;
+        }
+        long now = System.currentTimeMillis();
+        PoolListener.EvictReason reason = connection.invalidate ? PoolListener.EvictReason.BROKEN
+                : closed ? PoolListener.EvictReason.CLOSED
+                : isExpired(connection, now) ? PoolListener.EvictReason.EXPIRED : null;
+        if (null != reason) {
+            if (connection.compareAndSetState(STATE_IN_USE, STATE_REMOVED)) {
+                remove(connection, reason);
+            }
+            return;
+        }
+        connection.lastAccessTime = now;
+        if (!connection.compareAndSetState(STATE_IN_USE, STATE_IDLE)) {
+            return;
+        }
+        if (closed && connection.compareAndSetState(STATE_IDLE, STATE_REMOVED)) {
+            // missed by close()
+            remove(connection, PoolListener.EvictReason.CLOSED);
+            return;
+        }
+
+        // Hand it to a waiting borrower, unless someone already took it. A waiter
+        // not polling meanwhile takes it from the shared list after its poll.
+        if (waiters.get() > 0 && connection.state == STATE_IDLE) {
+            try {
+                if (handoff.offer(connection, HANDOFF_TIMEOUT, TimeUnit.NANOSECONDS)) {
                     return;
                 }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
             }
         }
-        connection.closeUnderlyingConnection();
+
+        List<ConnectionWrapper> list = released.get();
+        if (list.size() < THREAD_LOCAL_SIZE) {
+            list.add(connection);
+        }
     }
 
     @Override
@@ -247,33 +536,49 @@ public class BasicDataSourceImpl implements DataSource, BasicDataSource {
 
     @Override
     public int activeCount() {
-        return activeCount;
+        return total.get();
     }
 
     @Override
     public int getIdleConnections() {
-        synchronized (pool) {
-            return pool.size();
+        int idle = 0;
+        for (ConnectionWrapper connection : connections) {
+            if (connection.state == STATE_IDLE) {
+                idle++;
+            }
         }
+        return idle;
+    }
+
+    /**
+     * @return borrowers waiting for a connection to be released
+     */
+    public int getPendingWaiters() {
+        return waiters.get();
     }
-    
+
+    @Override
+    public PoolMetrics getMetrics() {
+        return metrics;
+    }
+
     @Override
     public int getMaxConnections() {
-        return poolSize;
+        return config.getMaxSize();
     }
 
     @Override
     public long getBorrowTimeout() {
-        return borrowTimeout;
+        return config.getBorrowTimeout();
     }
 
     @Override
     public long getLockTimeout() {
         return lockTimeout;
     }
-    
+
 	public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
 		return null;
 	}
-    
-}
\ No newline at end of file
+
+}
@@ -1,23 +1,54 @@
 package com.blade.jdbc.pool;
 
+import com.blade.jdbc.cache.StatementCache;
+
 import java.sql.*;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 class ConnectionWrapper implements Connection {
+
+	// states in the pool, only changed by compare and set
+	static final int STATE_IDLE = 0;
+	static final int STATE_IN_USE = 1;
+	static final int STATE_RESERVED = 2;
+	static final int STATE_REMOVED = -1;
+
+	private static final AtomicIntegerFieldUpdater<ConnectionWrapper> STATE =
+			AtomicIntegerFieldUpdater.newUpdater(ConnectionWrapper.class, "state");
+
 	final Connection delegate;
 	final BasicDataSourceImpl dataSource;
-	long lastAccessTime;
+	final long createdTime;
+	volatile long lastAccessTime;
+	volatile int state = STATE_IN_USE;
+	// System.nanoTime() of the borrow, 0 while never borrowed
+	volatile long borrowedNanos;
+	// set only when leak detection is on
+	volatile Throwable borrowStack;
+	volatile boolean leakReported;
 	boolean invalidate;
+	// prepared statements of the physical connection, null when disabled
+	final StatementCache statementCache;
 
-	ConnectionWrapper(Connection delegate, BasicDataSourceImpl dataSource, long accessTime) {
+	ConnectionWrapper(Connection delegate, BasicDataSourceImpl dataSource, long accessTime, int statementCacheSize) {
 		this.delegate = delegate;
 		this.dataSource = dataSource;
+		this.createdTime = accessTime;
 		this.lastAccessTime = accessTime;
+		this.statementCache = statementCacheSize > 0 ? new StatementCache(statementCacheSize) : null;
+	}
+
+	boolean compareAndSetState(int expect, int update) {
+		return STATE.compareAndSet(this, expect, update);
 	}
 
 	void closeUnderlyingConnection() {
+		if (null != statementCache) {
+			statementCache.clean();
+		}
 		try {
 			delegate.close();
 		} catch (SQLException e) {
@@ -403,6 +434,33 @@ class ConnectionWrapper implements Connection {
 		return true;
 	}
 
+	private StatementWrapper prepare(StatementCache.Key key) throws SQLException {
+		PreparedStatement statement = statementCache.take(key);
+		if (null == statement) {
+			statement = key.prepare(delegate);
+		}
+		return new StatementWrapper(statement, this, key);
+	}
+
+	/**
+	 * Put a closed statement back in the cache, cleared of its parameters
+	 *
+	 * @return false when it should be closed instead
+	 */
+	boolean returnStatement(StatementCache.Key key, PreparedStatement statement) {
+		if (invalidate || state == STATE_REMOVED) {
+			return false;
+		}
+		try {
+			statement.clearParameters();
+			statement.clearBatch();
+			statement.clearWarnings();
+		} catch (SQLException e) {
+			return false;
+		}
+		return statementCache.offer(key, statement);
+	}
+
 	@Override
 	public Statement createStatement() throws SQLException {
 		checkValid();
@@ -417,7 +475,8 @@ class ConnectionWrapper implements Connection {
 	public PreparedStatement prepareStatement(String sql) throws SQLException {
 		checkValid();
 		try {
-			return new StatementWrapper(delegate.prepareStatement(sql), this);
+			return null != statementCache ? prepare(StatementCache.Key.of(sql))
+					: new StatementWrapper(delegate.prepareStatement(sql), this);
 		} catch (Throwable e) {
 			throw handleException(e);
 		}
@@ -427,7 +486,8 @@ class ConnectionWrapper implements Connection {
 	public CallableStatement prepareCall(String sql) throws SQLException {
 		checkValid();
 		try {
-			return new StatementWrapper(delegate.prepareCall(sql), this);
+			return null != statementCache ? prepare(new StatementCache.Key(sql, true, -1, -1, -1, -1))
+					: new StatementWrapper(delegate.prepareCall(sql), this);
 		} catch (Throwable e) {
 			throw handleException(e);
 		}
@@ -448,7 +508,9 @@ class ConnectionWrapper implements Connection {
 			throws SQLException {
 		checkValid();
 		try {
-			return new StatementWrapper(delegate.prepareStatement(sql, resultSetType, resultSetConcurrency), this);
+			return null != statementCache
+					? prepare(new StatementCache.Key(sql, false, resultSetType, resultSetConcurrency, -1, -1))
+					: new StatementWrapper(delegate.prepareStatement(sql, resultSetType, resultSetConcurrency), this);
 		} catch (Throwable e) {
 			throw handleException(e);
 		}
@@ -458,7 +520,9 @@ class ConnectionWrapper implements Connection {
 	public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
 		checkValid();
 		try {
-			return new StatementWrapper(delegate.prepareCall(sql, resultSetType, resultSetConcurrency), this);
+			return null != statementCache
+					? prepare(new StatementCache.Key(sql, true, resultSetType, resultSetConcurrency, -1, -1))
+					: new StatementWrapper(delegate.prepareCall(sql, resultSetType, resultSetConcurrency), this);
 		} catch (Throwable e) {
 			throw handleException(e);
 		}
@@ -481,7 +545,8 @@ class ConnectionWrapper implements Connection {
 			int resultSetHoldability) throws SQLException {
 		checkValid();
 		try {
-			return new StatementWrapper(
+			return null != statementCache ? prepare(new StatementCache.Key(sql, false, resultSetType,
+					resultSetConcurrency, resultSetHoldability, -1)) : new StatementWrapper(
 					delegate.prepareStatement(sql, resultSetType, resultSetConcurrency, resultSetHoldability), this);
 		} catch (Throwable e) {
 			throw handleException(e);
@@ -493,7 +558,8 @@ class ConnectionWrapper implements Connection {
 			int resultSetHoldability) throws SQLException {
 		checkValid();
 		try {
-			return new StatementWrapper(
+			return null != statementCache ? prepare(new StatementCache.Key(sql, true, resultSetType,
+					resultSetConcurrency, resultSetHoldability, -1)) : new StatementWrapper(
 					delegate.prepareCall(sql, resultSetType, resultSetConcurrency, resultSetHoldability), this);
 		} catch (Throwable e) {
 			throw handleException(e);
@@ -504,7 +570,9 @@ class ConnectionWrapper implements Connection {
 	public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
 		checkValid();
 		try {
-			return new StatementWrapper(delegate.prepareStatement(sql, autoGeneratedKeys), this);
+			return null != statementCache
+					? prepare(new StatementCache.Key(sql, false, -1, -1, -1, autoGeneratedKeys))
+					: new StatementWrapper(delegate.prepareStatement(sql, autoGeneratedKeys), this);
 		} catch (Throwable e) {
 			throw handleException(e);
 		}
@@ -0,0 +1,152 @@
+package com.blade.jdbc.pool;
+
+import java.util.Properties;
+
+/**
+ * Sizing and timeouts of a {@link BasicDataSourceImpl}, all durations in milliseconds
+ */
+public class PoolConfig {
+
+    /**
+     * connections kept open even when idle
+     */
+    private int minIdle = 0;
+    private int maxSize = 10;
+    /**
+     * how long to wait for a free connection before giving up
+     */
+    private long borrowTimeout = 3 * 1000L;
+    /**
+     * idle connections above minIdle are closed after this long, 0 to keep them
+     */
+    private long idleTimeout = 1800 * 1000L;
+    /**
+     * connections are retired once this old, when next idle, 0 for no limit
+     */
+    private long maxLifetime = 0;
+    /**
+     * how often idle connections are evicted and validated in the background
+     */
+    private long housekeepingPeriod = 30 * 1000L;
+    /**
+     * timeout of the validation of idle connections, 0 not to validate them
+     */
+    private int validationTimeoutSeconds = 5;
+    /**
+     * connections held longer than this are reported as leaks, with the stack
+     * that borrowed them, 0 not to track them
+     */
+    private long leakDetectionThreshold = 0;
+    /**
+     * prepared statements cached per connection, 0 not to cache them
+     */
+    private int statementCacheSize = 32;
+
+    public PoolConfig() {
+    }
+
+    /**
+     * Read from jdbc.pool.minIdle, jdbc.pool.maxSize, jdbc.pool.borrowTimeout,
+     * jdbc.pool.idleTimeout, jdbc.pool.maxLifetime, jdbc.pool.housekeepingPeriod
+     * jdbc.pool.validationTimeoutSeconds, jdbc.pool.leakDetectionThreshold and
+     * jdbc.pool.statementCacheSize, defaults for the others
+     */
+    public static PoolConfig of(Properties props) {
+        PoolConfig config = new PoolConfig();
+        config.setMinIdle(Integer.parseInt(props.getProperty("jdbc.pool.minIdle", "" + config.minIdle)));
+        config.setMaxSize(Integer.parseInt(props.getProperty("jdbc.pool.maxSize", "" + config.maxSize)));
+        config.setBorrowTimeout(Long.parseLong(props.getProperty("jdbc.pool.borrowTimeout", "" + config.borrowTimeout)));
+        config.setIdleTimeout(Long.parseLong(props.getProperty("jdbc.pool.idleTimeout", "" + config.idleTimeout)));
+        config.setMaxLifetime(Long.parseLong(props.getProperty("jdbc.pool.maxLifetime", "" + config.maxLifetime)));
+        config.setHousekeepingPeriod(Long.parseLong(props.getProperty("jdbc.pool.housekeepingPeriod",
+                "" + config.housekeepingPeriod)));
+        config.setValidationTimeoutSeconds(Integer.parseInt(props.getProperty("jdbc.pool.validationTimeoutSeconds",
+                "" + config.validationTimeoutSeconds)));
+        config.setLeakDetectionThreshold(Long.parseLong(props.getProperty("jdbc.pool.leakDetectionThreshold",
+                "" + config.leakDetectionThreshold)));
+        config.setStatementCacheSize(Integer.parseInt(props.getProperty("jdbc.pool.statementCacheSize",
+                "" + config.statementCacheSize)));
+        return config;
+    }
+
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    public void setMinIdle(int minIdle) {
+        this.minIdle = minIdle;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public long getBorrowTimeout() {
+        return borrowTimeout;
+    }
+
+    public void setBorrowTimeout(long borrowTimeout) {
+        this.borrowTimeout = borrowTimeout;
+    }
+
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public long getMaxLifetime() {
+        return maxLifetime;
+    }
+
+    public void setMaxLifetime(long maxLifetime) {
+        this.maxLifetime = maxLifetime;
+    }
+
+    public long getHousekeepingPeriod() {
+        return housekeepingPeriod;
+    }
+
+    public void setHousekeepingPeriod(long housekeepingPeriod) {
+        this.housekeepingPeriod = housekeepingPeriod;
+    }
+
+    public int getValidationTimeoutSeconds() {
+        return validationTimeoutSeconds;
+    }
+
+    public void setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+    }
+
+    public long getLeakDetectionThreshold() {
+        return leakDetectionThreshold;
+    }
+
+    public void setLeakDetectionThreshold(long leakDetectionThreshold) {
+        this.leakDetectionThreshold = leakDetectionThreshold;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public void setStatementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    @Override
+    public String toString() {
+        return "PoolConfig{minIdle=" + minIdle + ", maxSize=" + maxSize + ", borrowTimeout=" + borrowTimeout
+                + ", idleTimeout=" + idleTimeout + ", maxLifetime=" + maxLifetime
+                + ", leakDetectionThreshold=" + leakDetectionThreshold
+                + ", statementCacheSize=" + statementCacheSize + '}';
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.blade.jdbc.pool;
+
+/**
+ * Told about the life of the connections of a {@link BasicDataSourceImpl}.
+ * <p>
+ * Borrows and releases are reported on the calling thread, evictions and
+ * leaks on the housekeeper, so every method should be quick. All of them do
+ * nothing by default.
+ */
+public interface PoolListener {
+
+    enum EvictReason {
+        // idle longer than the idle timeout
+        IDLE,
+        // older than the max lifetime
+        EXPIRED,
+        // failed validation
+        INVALID,
+        // broken while in use
+        BROKEN,
+        // the pool was closed
+        CLOSED
+    }
+
+    /**
+     * @param waitNanos time spent getting the connection
+     */
+    default void onBorrow(long waitNanos) {
+    }
+
+    /**
+     * @param usageNanos time the connection was held
+     */
+    default void onRelease(long usageNanos) {
+    }
+
+    /**
+     * @param waitNanos time spent waiting before giving up
+     */
+    default void onTimeout(long waitNanos) {
+    }
+
+    default void onCreate() {
+    }
+
+    default void onEvict(EvictReason reason) {
+    }
+
+    /**
+     * @param heldMillis  time the connection has been held so far
+     * @param borrowStack where it was borrowed
+     */
+    default void onLeak(long heldMillis, Throwable borrowStack) {
+    }
+
+}
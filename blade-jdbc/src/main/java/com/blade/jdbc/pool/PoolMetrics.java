@@ -0,0 +1,105 @@
+package com.blade.jdbc.pool;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of a {@link BasicDataSourceImpl}, recorded without locks on every
+ * borrow and release: how long borrowers waited and connections were held,
+ * timeouts, creations, evictions and leaks, along with gauges of the pool.
+ */
+public class PoolMetrics {
+
+    private final BasicDataSourceImpl dataSource;
+    private final DurationHistogram borrowWait = new DurationHistogram();
+    private final DurationHistogram usage = new DurationHistogram();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder creations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder leaks = new LongAdder();
+
+    PoolMetrics(BasicDataSourceImpl dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    void borrowed(long waitNanos) {
+        borrowWait.record(waitNanos);
+    }
+
+    void released(long usageNanos) {
+        usage.record(usageNanos);
+    }
+
+    void timedOut() {
+        timeouts.increment();
+    }
+
+    void created() {
+        creations.increment();
+    }
+
+    void evicted() {
+        evictions.increment();
+    }
+
+    void leaked() {
+        leaks.increment();
+    }
+
+    /**
+     * @return time to get a connection, timeouts excluded
+     */
+    public DurationHistogram getBorrowWait() {
+        return borrowWait;
+    }
+
+    /**
+     * @return time connections were held by their borrowers
+     */
+    public DurationHistogram getUsage() {
+        return usage;
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    public long getCreations() {
+        return creations.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getLeaks() {
+        return leaks.sum();
+    }
+
+    public int getTotalConnections() {
+        return dataSource.activeCount();
+    }
+
+    public int getIdleConnections() {
+        return dataSource.getIdleConnections();
+    }
+
+    public int getPendingWaiters() {
+        return dataSource.getPendingWaiters();
+    }
+
+    @Override
+    public String toString() {
+        return "PoolMetrics{" + dataSource.getName() +
+                ", total=" + getTotalConnections() +
+                ", idle=" + getIdleConnections() +
+                ", waiters=" + getPendingWaiters() +
+                ", borrows=" + borrowWait.count() +
+                ", waitP99Micros=" + borrowWait.percentile(99) +
+                ", usageP99Micros=" + usage.percentile(99) +
+                ", timeouts=" + getTimeouts() +
+                ", creations=" + getCreations() +
+                ", evictions=" + getEvictions() +
+                ", leaks=" + getLeaks() + '}';
+    }
+
+}
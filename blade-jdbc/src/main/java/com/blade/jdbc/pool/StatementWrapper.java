@@ -1,5 +1,8 @@
 package com.blade.jdbc.pool;
 
+import com.blade.jdbc.cache.StatementCache;
+import com.blade.jdbc.utils.Utils;
+
 import java.io.InputStream;
 import java.io.Reader;
 import java.math.BigDecimal;
@@ -12,10 +15,23 @@ class StatementWrapper implements CallableStatement {
     
 	final Statement delegate;
     final ConnectionWrapper connection;
+    // key of the statement in the cache of the connection, null when not cached
+    final StatementCache.Key key;
+    private boolean closed;
+    // settings changed by the user, a cached statement would carry them to the next user
+    private boolean configured;
+    // result sets handed out, closed before the statement goes back to the cache
+    private ResultSet resultSet;
+    private ResultSet generatedKeys;
     
     StatementWrapper(Statement delegate, ConnectionWrapper connection) {
+        this(delegate, connection, null);
+    }
+
+    StatementWrapper(Statement delegate, ConnectionWrapper connection, StatementCache.Key key) {
         this.delegate = delegate;
         this.connection = connection;
+        this.key = key;
     }
     
     @Override
@@ -974,7 +990,7 @@ class StatementWrapper implements CallableStatement {
 
     public ResultSet executeQuery() throws SQLException {
         try {
-            return ((PreparedStatement) delegate).executeQuery();
+            return resultSet = ((PreparedStatement) delegate).executeQuery();
         } catch (Throwable e) {
             throw handleException(e);
         }
@@ -1417,7 +1433,7 @@ class StatementWrapper implements CallableStatement {
 
     public ResultSet executeQuery(String sql) throws SQLException {
         try {
-            return delegate.executeQuery(sql);
+            return resultSet = delegate.executeQuery(sql);
         } catch (Throwable e) {
             throw handleException(e);
         }
@@ -1432,6 +1448,18 @@ class StatementWrapper implements CallableStatement {
     }
 
     public void close() throws SQLException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        // back to the cache rather than closed, unless its settings were changed
+        if (null != key && !configured) {
+            Utils.closeQuietly(resultSet);
+            Utils.closeQuietly(generatedKeys);
+            if (connection.returnStatement(key, (PreparedStatement) delegate)) {
+                return;
+            }
+        }
         try {
             delegate.close();
         } catch (Throwable e) {
@@ -1448,6 +1476,7 @@ class StatementWrapper implements CallableStatement {
     }
 
     public void setMaxFieldSize(int max) throws SQLException {
+        configured = true;
         try {
             delegate.setMaxFieldSize(max);
         } catch (Throwable e) {
@@ -1464,6 +1493,7 @@ class StatementWrapper implements CallableStatement {
     }
 
     public void setMaxRows(int max) throws SQLException {
+        configured = true;
         try {
             delegate.setMaxRows(max);
         } catch (Throwable e) {
@@ -1472,6 +1502,7 @@ class StatementWrapper implements CallableStatement {
     }
 
     public void setEscapeProcessing(boolean enable) throws SQLException {
+        configured = true;
         try {
             delegate.setEscapeProcessing(enable);
         } catch (Throwable e) {
@@ -1488,6 +1519,7 @@ class StatementWrapper implements CallableStatement {
     }
 
     public void setQueryTimeout(int seconds) throws SQLException {
+        configured = true;
         try {
             delegate.setQueryTimeout(seconds);
         } catch (Throwable e) {
@@ -1520,6 +1552,7 @@ class StatementWrapper implements CallableStatement {
     }
 
     public void setCursorName(String name) throws SQLException {
+        configured = true;
         try {
             delegate.setCursorName(name);
         } catch (Throwable e) {
@@ -1537,7 +1570,7 @@ class StatementWrapper implements CallableStatement {
 
     public ResultSet getResultSet() throws SQLException {
         try {
-            return delegate.getResultSet();
+            return resultSet = delegate.getResultSet();
         } catch (Throwable e) {
             throw handleException(e);
         }
@@ -1560,6 +1593,7 @@ class StatementWrapper implements CallableStatement {
     }
 
     public void setFetchDirection(int direction) throws SQLException {
+        configured = true;
         try {
             delegate.setFetchDirection(direction);
         } catch (Throwable e) {
@@ -1576,6 +1610,7 @@ class StatementWrapper implements CallableStatement {
     }
 
     public void setFetchSize(int rows) throws SQLException {
+        configured = true;
         try {
             delegate.setFetchSize(rows);
         } catch (Throwable e) {
@@ -1649,7 +1684,7 @@ class StatementWrapper implements CallableStatement {
 
     public ResultSet getGeneratedKeys() throws SQLException {
         try {
-            return delegate.getGeneratedKeys();
+            return generatedKeys = delegate.getGeneratedKeys();
         } catch (Throwable e) {
             throw handleException(e);
         }
@@ -1713,13 +1748,14 @@ class StatementWrapper implements CallableStatement {
 
     public boolean isClosed() throws SQLException {
         try {
-            return delegate.isClosed();
+            return closed || delegate.isClosed();
         } catch (Throwable e) {
             throw handleException(e);
         }
     }
 
     public void setPoolable(boolean poolable) throws SQLException {
+        configured = true;
         try {
             delegate.setPoolable(poolable);
         } catch (Throwable e) {
@@ -0,0 +1,306 @@
+package com.blade.jdbc.test;
+
+import com.blade.jdbc.pool.BasicDataSourceImpl;
+import com.blade.jdbc.pool.PoolConfig;
+import com.blade.jdbc.pool.PoolListener;
+import com.blade.jdbc.pool.PoolMetrics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+public class BasicDataSourceTest {
+
+    private BasicDataSourceImpl dataSource;
+
+    @Before
+    public void before() {
+        StubDriver.reset();
+    }
+
+    @After
+    public void after() {
+        if (null != dataSource) {
+            dataSource.close();
+        }
+    }
+
+    private BasicDataSourceImpl create(PoolConfig config) {
+        dataSource = new BasicDataSourceImpl("test", StubDriver.class.getName(), "jdbc:stub:test", "sa", "", config);
+        return dataSource;
+    }
+
+    @Test
+    public void testReuse() throws Exception {
+        create(new PoolConfig());
+        Connection first = dataSource.getConnection();
+        first.close();
+        first.close();
+        Connection second = dataSource.getConnection();
+        assertSame(first, second);
+        assertEquals(1, StubDriver.OPENED.get());
+        assertEquals(0, dataSource.getIdleConnections());
+        second.close();
+        assertEquals(1, dataSource.getIdleConnections());
+    }
+
+    @Test
+    public void testMaxSizeAndTimeout() throws Exception {
+        PoolConfig config = new PoolConfig();
+        config.setMaxSize(2);
+        config.setBorrowTimeout(200);
+        create(config);
+
+        Connection c1 = dataSource.getConnection();
+        Connection c2 = dataSource.getConnection();
+        long start = System.currentTimeMillis();
+        try {
+            dataSource.getConnection();
+            fail("pool should be exhausted");
+        } catch (SQLException e) {
+            assertTrue(e.getMessage().contains("timed out"));
+        }
+        assertTrue(System.currentTimeMillis() - start >= 200);
+        assertEquals(2, dataSource.activeCount());
+        c1.close();
+        c2.close();
+    }
+
+    @Test
+    public void testHandoff() throws Exception {
+        PoolConfig config = new PoolConfig();
+        config.setMaxSize(4);
+        create(config);
+
+        int threads = 32;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                int borrowed = 0;
+                for (int j = 0; j < 500; j++) {
+                    try (Connection connection = dataSource.getConnection()) {
+                        assertNotNull(connection);
+                        borrowed++;
+                    }
+                }
+                return borrowed;
+            }));
+        }
+        start.countDown();
+        int borrowed = 0;
+        for (Future<Integer> future : futures) {
+            borrowed += future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(threads * 500, borrowed);
+        assertTrue(StubDriver.OPENED.get() <= 4);
+        assertEquals(StubDriver.OPENED.get(), dataSource.getIdleConnections());
+    }
+
+    @Test
+    public void testHousekeeping() throws Exception {
+        PoolConfig config = new PoolConfig();
+        config.setMinIdle(2);
+        config.setMaxSize(5);
+        config.setIdleTimeout(50);
+        config.setHousekeepingPeriod(50);
+        create(config);
+
+        List<Connection> connections = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            connections.add(dataSource.getConnection());
+        }
+        for (Connection connection : connections) {
+            connection.close();
+        }
+        assertEquals(5, dataSource.getIdleConnections());
+
+        // idle ones above minIdle are evicted
+        waitFor(() -> dataSource.activeCount() == 2);
+        assertEquals(3, StubDriver.CLOSED.get());
+
+        // invalid ones are replaced
+        StubDriver.valid = false;
+        waitFor(() -> StubDriver.CLOSED.get() >= 5);
+        StubDriver.valid = true;
+        waitFor(() -> dataSource.getIdleConnections() == 2);
+    }
+
+    @Test
+    public void testMaxLifetime() throws Exception {
+        PoolConfig config = new PoolConfig();
+        config.setMaxLifetime(50);
+        create(config);
+
+        Connection connection = dataSource.getConnection();
+        Thread.sleep(60);
+        connection.close();
+        assertEquals(1, StubDriver.CLOSED.get());
+        assertEquals(0, dataSource.activeCount());
+        assertNotSame(connection, dataSource.getConnection());
+    }
+
+    @Test
+    public void testMetrics() throws Exception {
+        PoolConfig config = new PoolConfig();
+        config.setMaxSize(1);
+        config.setBorrowTimeout(50);
+        create(config);
+        AtomicInteger borrows = new AtomicInteger();
+        AtomicInteger timeouts = new AtomicInteger();
+        List<PoolListener.EvictReason> evictions = new ArrayList<>();
+        dataSource.addListener(new PoolListener() {
+            @Override
+            public void onBorrow(long waitNanos) {
+                borrows.incrementAndGet();
+            }
+
+            @Override
+            public void onTimeout(long waitNanos) {
+                timeouts.incrementAndGet();
+            }
+
+            @Override
+            public void onEvict(EvictReason reason) {
+                evictions.add(reason);
+            }
+        });
+
+        Connection connection = dataSource.getConnection();
+        Thread.sleep(5);
+        try {
+            dataSource.getConnection();
+            fail("pool should be exhausted");
+        } catch (SQLException e) {
+            // expected
+        }
+        connection.close();
+        dataSource.close();
+
+        PoolMetrics metrics = dataSource.getMetrics();
+        assertEquals(1, borrows.get());
+        assertEquals(1, timeouts.get());
+        assertEquals(1, metrics.getBorrowWait().count());
+        assertEquals(1, metrics.getTimeouts());
+        assertEquals(1, metrics.getCreations());
+        assertEquals(1, metrics.getEvictions());
+        assertEquals(PoolListener.EvictReason.CLOSED, evictions.get(0));
+        assertTrue(metrics.getUsage().max() >= 5000);
+        assertEquals(0, metrics.getPendingWaiters());
+    }
+
+    @Test
+    public void testLeakDetection() throws Exception {
+        PoolConfig config = new PoolConfig();
+        config.setLeakDetectionThreshold(50);
+        create(config);
+        AtomicReference<Throwable> leak = new AtomicReference<>();
+        dataSource.addListener(new PoolListener() {
+            @Override
+            public void onLeak(long heldMillis, Throwable borrowStack) {
+                assertTrue(heldMillis >= 50);
+                leak.set(borrowStack);
+            }
+        });
+
+        Connection quick = dataSource.getConnection();
+        quick.close();
+        Connection leaked = dataSource.getConnection();
+        waitFor(() -> leak.get() != null);
+        assertTrue(java.util.Arrays.stream(leak.get().getStackTrace())
+                .anyMatch(e -> e.getMethodName().equals("testLeakDetection")));
+        assertEquals(1, dataSource.getMetrics().getLeaks());
+        leaked.close();
+    }
+
+    @Test
+    public void testStatementCache() throws Exception {
+        PoolConfig config = new PoolConfig();
+        config.setStatementCacheSize(2);
+        create(config);
+
+        Connection connection = dataSource.getConnection();
+        PreparedStatement first = connection.prepareStatement("select 1");
+        first.close();
+        assertTrue(first.isClosed());
+        connection.close();
+
+        // same physical statement for the same sql and flags
+        connection = dataSource.getConnection();
+        PreparedStatement second = connection.prepareStatement("select 1");
+        PreparedStatement other = connection.prepareStatement("select 1", Statement.RETURN_GENERATED_KEYS);
+        assertEquals(2, StubDriver.PREPARED.get());
+        // the cached one is in use, so it is prepared again
+        connection.prepareStatement("select 1").close();
+        assertEquals(3, StubDriver.PREPARED.get());
+        assertEquals(0, StubDriver.STATEMENTS_CLOSED.get());
+        second.close();
+        assertEquals(1, StubDriver.STATEMENTS_CLOSED.get());
+
+        // least recently used evicted
+        other.close();
+        connection.prepareStatement("select 2").close();
+        connection.prepareStatement("select 1", ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY).close();
+        assertEquals(5, StubDriver.PREPARED.get());
+        assertEquals(3, StubDriver.STATEMENTS_CLOSED.get());
+        connection.close();
+
+        // closed along with the physical connection
+        dataSource.close();
+        assertEquals(5, StubDriver.STATEMENTS_CLOSED.get());
+    }
+
+    @Test
+    public void testStatementCacheReuse() throws Exception {
+        PoolConfig config = new PoolConfig();
+        config.setStatementCacheSize(2);
+        create(config);
+
+        Connection connection = dataSource.getConnection();
+        // an open result set is closed before the statement is cached
+        PreparedStatement statement = connection.prepareStatement("select 1");
+        statement.executeQuery();
+        statement.close();
+        assertEquals(1, StubDriver.RESULT_SETS_CLOSED.get());
+        assertEquals(0, StubDriver.STATEMENTS_CLOSED.get());
+
+        // changed settings are not passed on, the statement is closed instead
+        statement = connection.prepareStatement("select 1");
+        assertEquals(1, StubDriver.PREPARED.get());
+        statement.setMaxRows(10);
+        statement.close();
+        assertEquals(1, StubDriver.STATEMENTS_CLOSED.get());
+        connection.prepareStatement("select 1").close();
+        assertEquals(2, StubDriver.PREPARED.get());
+        connection.close();
+    }
+
+    private static void waitFor(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue("timed out", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+}
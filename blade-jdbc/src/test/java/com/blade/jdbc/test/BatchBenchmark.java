@@ -0,0 +1,82 @@
+package com.blade.jdbc.test;
+
+import com.blade.jdbc.ar.SampleActiveRecord;
+import com.blade.jdbc.pool.BasicDataSourceImpl;
+import com.blade.jdbc.pool.PoolConfig;
+import com.blade.jdbc.test.model.Person;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Rows per second of single saves against saveBatch.
+ * <p>
+ * Runs against an embedded H2 database when it is on the classpath, or the
+ * url given as argument, otherwise against the stub driver with a simulated
+ * round trip of 100us.
+ */
+public class BatchBenchmark {
+
+    private static final int ROWS = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        String driver;
+        String url;
+        if (args.length > 1) {
+            driver = args[0];
+            url = args[1];
+        } else if (isPresent("org.h2.Driver")) {
+            driver = "org.h2.Driver";
+            url = "jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1";
+        } else {
+            driver = StubDriver.class.getName();
+            url = "jdbc:stub:bench";
+            StubDriver.latencyMicros = 100;
+        }
+        System.out.println("Running against " + url);
+
+        BasicDataSourceImpl dataSource = new BasicDataSourceImpl("bench", driver, url, "sa", "", new PoolConfig());
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("create table if not exists person (id int primary key, name varchar(64), "
+                    + "last_name varchar(64), dob timestamp, created_at timestamp)");
+        }
+        SampleActiveRecord activeRecord = new SampleActiveRecord(dataSource);
+
+        for (int round = 0; round < 3; round++) {
+            List<Person> persons = BatchTest.persons(ROWS);
+
+            activeRecord.execute("delete from person");
+            long start = System.nanoTime();
+            for (Person person : persons) {
+                activeRecord.save(person);
+            }
+            report("save", start);
+
+            activeRecord.execute("delete from person");
+            start = System.nanoTime();
+            activeRecord.saveBatch(persons);
+            report("saveBatch", start);
+
+            start = System.nanoTime();
+            activeRecord.updateBatch(persons);
+            report("updateBatch", start);
+        }
+        dataSource.close();
+    }
+
+    private static void report(String name, long start) {
+        long nanos = System.nanoTime() - start;
+        System.out.printf("%-12s %,10d rows/s%n", name, ROWS * 1_000_000_000L / nanos);
+    }
+
+    private static boolean isPresent(String className) {
+        try {
+            Class.forName(className);
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+}
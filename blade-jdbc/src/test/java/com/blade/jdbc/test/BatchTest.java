@@ -0,0 +1,97 @@
+package com.blade.jdbc.test;
+
+import com.blade.jdbc.ar.SampleActiveRecord;
+import com.blade.jdbc.pool.BasicDataSourceImpl;
+import com.blade.jdbc.pool.PoolConfig;
+import com.blade.jdbc.test.model.Person;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BatchTest {
+
+    private BasicDataSourceImpl dataSource;
+    private SampleActiveRecord activeRecord;
+
+    @Before
+    public void before() {
+        StubDriver.reset();
+        dataSource = new BasicDataSourceImpl("batch", StubDriver.class.getName(), "jdbc:stub:batch", "sa", "",
+                new PoolConfig());
+        activeRecord = new SampleActiveRecord(dataSource);
+    }
+
+    @After
+    public void after() {
+        dataSource.close();
+    }
+
+    static List<Person> persons(int count) {
+        List<Person> persons = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Person person = new Person();
+            person.setId(i + 1);
+            person.setName("name" + i);
+            person.setLast_name("last" + i);
+            persons.add(person);
+        }
+        return persons;
+    }
+
+    @Test
+    public void testSaveBatch() {
+        activeRecord.setBatchSize(1000);
+        activeRecord.saveBatch(persons(2500));
+        assertEquals(3, StubDriver.EXECUTIONS.get());
+        assertEquals(1, StubDriver.COMMITS.get());
+        assertEquals(1, StubDriver.PREPARED.get());
+    }
+
+    @Test
+    public void testUpdateBatch() {
+        assertEquals(2500, activeRecord.updateBatch(persons(2500)));
+        assertEquals(3, StubDriver.EXECUTIONS.get());
+        assertEquals(1, StubDriver.COMMITS.get());
+    }
+
+    @Test
+    public void testMixedColumns() {
+        List<Person> persons = persons(10);
+        for (int i = 1; i < persons.size(); i += 2) {
+            persons.get(i).setLast_name(null);
+        }
+        // rows are grouped by their columns, each statement prepared once
+        activeRecord.saveBatch(persons);
+        assertEquals(2, StubDriver.EXECUTIONS.get());
+        assertEquals(2, StubDriver.PREPARED.get());
+        assertEquals(1, StubDriver.COMMITS.get());
+
+        // the statements were closed, back to the statement cache
+        activeRecord.saveBatch(persons);
+        assertEquals(2, StubDriver.PREPARED.get());
+    }
+
+    @Test
+    public void testInsertBatchWithoutKeys() {
+        // the stub driver does not support generated keys
+        assertEquals(Collections.emptyList(), activeRecord.insertBatch(persons(10)));
+        assertEquals(1, StubDriver.EXECUTIONS.get());
+        assertEquals(0, activeRecord.updateBatch(Collections.emptyList()));
+    }
+
+    @Test
+    public void testSingleRows() {
+        for (Person person : persons(10)) {
+            activeRecord.save(person);
+        }
+        assertEquals(10, StubDriver.EXECUTIONS.get());
+        assertEquals(10, StubDriver.COMMITS.get());
+    }
+
+}
@@ -0,0 +1,67 @@
+package com.blade.jdbc.test;
+
+import com.blade.jdbc.pool.BasicDataSourceImpl;
+import com.blade.jdbc.pool.PoolConfig;
+
+import java.sql.Connection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Borrow and release throughput of the pool over connections that do nothing,
+ * run with threads counts as arguments, 1 8 64 by default
+ */
+public class PoolBenchmark {
+
+    private static final long WARMUP_MILLIS = 2000;
+    private static final long MEASURE_MILLIS = 5000;
+
+    public static void main(String[] args) throws Exception {
+        int[] threads = {1, 8, 64};
+        if (args.length > 0) {
+            threads = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                threads[i] = Integer.parseInt(args[i]);
+            }
+        }
+        for (int count : threads) {
+            PoolConfig config = new PoolConfig();
+            config.setMaxSize(10);
+            config.setBorrowTimeout(TimeUnit.SECONDS.toMillis(30));
+            BasicDataSourceImpl dataSource = new BasicDataSourceImpl("bench", StubDriver.class.getName(),
+                    "jdbc:stub:bench", "sa", "", config);
+            run(dataSource, count, WARMUP_MILLIS);
+            long ops = run(dataSource, count, MEASURE_MILLIS);
+            System.out.printf("threads=%-3d %,12d ops/s%n", count, ops * 1000 / MEASURE_MILLIS);
+            dataSource.close();
+        }
+    }
+
+    private static long run(BasicDataSourceImpl dataSource, int threads, long millis) throws InterruptedException {
+        LongAdder ops = new LongAdder();
+        CountDownLatch done = new CountDownLatch(threads);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis);
+        for (int i = 0; i < threads; i++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    long local = 0;
+                    while (System.nanoTime() < deadline) {
+                        try (Connection connection = dataSource.getConnection()) {
+                            local++;
+                        }
+                    }
+                    ops.add(local);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                } finally {
+                    done.countDown();
+                }
+            });
+            thread.start();
+        }
+        done.await();
+        return ops.sum();
+    }
+
+}
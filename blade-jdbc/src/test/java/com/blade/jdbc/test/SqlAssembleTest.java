@@ -0,0 +1,118 @@
+package com.blade.jdbc.test;
+
+import com.blade.jdbc.core.BoundSql;
+import com.blade.jdbc.core.DefaultNameHandler;
+import com.blade.jdbc.core.EntityMeta;
+import com.blade.jdbc.core.NameHandler;
+import com.blade.jdbc.core.SqlAssembleUtils;
+import com.blade.jdbc.core.Take;
+import com.blade.jdbc.exceptions.AssistantException;
+import com.blade.jdbc.test.model.Person;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+public class SqlAssembleTest {
+
+    private final NameHandler nameHandler = new DefaultNameHandler();
+
+    private static Person person(Integer id, String name) {
+        Person person = new Person();
+        person.setId(id);
+        person.setName(name);
+        return person;
+    }
+
+    @Test
+    public void testMeta() {
+        EntityMeta meta = EntityMeta.of(Person.class, nameHandler);
+        assertSame(meta, EntityMeta.of(Person.class, new DefaultNameHandler()));
+        assertEquals("person", meta.getTableName());
+        assertEquals("id,name,last_name,dob,created_at", meta.getColumnSql());
+        assertEquals("select id,name,last_name,dob,created_at from person where id = :p1",
+                SqlAssembleUtils.buildByIdSql(Person.class, 1, null, nameHandler).getSql());
+        assertEquals("delete from person where id = :p1",
+                SqlAssembleUtils.buildDeleteSql(Person.class, 1, nameHandler).getSql());
+    }
+
+    @Test
+    public void testConfiguredNameHandlers() {
+        // instances of a handler with settings do not share the mapping
+        assertEquals("t_person", EntityMeta.of(Person.class, new PrefixNameHandler("t_")).getTableName());
+        assertEquals("x_person", EntityMeta.of(Person.class, new PrefixNameHandler("x_")).getTableName());
+    }
+
+    private static class PrefixNameHandler extends DefaultNameHandler {
+
+        private final String prefix;
+
+        PrefixNameHandler(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public String getTableName(Class<?> entityClass) {
+            return prefix + super.getTableName(entityClass);
+        }
+
+    }
+
+    @Test
+    public void testInsert() {
+        BoundSql boundSql = SqlAssembleUtils.buildInsertSql(person(null, "jack"), null, nameHandler);
+        assertEquals("insert into person(name) values ( :p1)", boundSql.getSql());
+        assertEquals(Collections.singletonList("jack"), boundSql.getParams());
+
+        boundSql = SqlAssembleUtils.buildInsertSql(person(1, "jack"), null, nameHandler);
+        assertEquals("insert into person(id,name) values ( :p1, :p2)", boundSql.getSql());
+        assertEquals(Arrays.asList(1, "jack"), boundSql.getParams());
+    }
+
+    @Test
+    public void testUpdate() {
+        Person person = person(7, "jack");
+        person.setLast_name("ma");
+        BoundSql boundSql = SqlAssembleUtils.buildUpdateSql(person, null, nameHandler);
+        assertEquals("update person set name = :p1,last_name = :p2 where id = :p3", boundSql.getSql());
+        assertEquals(Arrays.asList("jack", "ma", 7), boundSql.getParams());
+    }
+
+    @Test(expected = AssistantException.class)
+    public void testUpdateBlankKey() {
+        SqlAssembleUtils.buildUpdateSql(null, Take.create(Person.class).set("id", " ").set("name", "jack"), nameHandler);
+    }
+
+    @Test
+    public void testQuery() {
+        BoundSql boundSql = SqlAssembleUtils.buildQuerySql(person(null, "jack"), null, nameHandler);
+        assertEquals("select id,name,last_name,dob,created_at from person where name = :p1", boundSql.getSql());
+        assertEquals(Collections.singletonList("jack"), boundSql.getParams());
+
+        boundSql = SqlAssembleUtils.buildListSql(new Person(), null, nameHandler);
+        assertEquals("select id,name,last_name,dob,created_at from person order by id desc", boundSql.getSql());
+
+        boundSql = SqlAssembleUtils.buildCountSql(person(3, "jack"), null, nameHandler);
+        assertEquals("select count(0) from person where id = :p1 and name = :p2", boundSql.getSql());
+        assertEquals(Arrays.asList(3, "jack"), boundSql.getParams());
+
+        boundSql = SqlAssembleUtils.buildDeleteSql(person(3, null), null, nameHandler);
+        assertEquals("delete from person where id = :p1", boundSql.getSql());
+    }
+
+    @Test
+    public void testTake() {
+        Take take = Take.create(Person.class).eq("name", "jack").gt("id", 2);
+        BoundSql boundSql = SqlAssembleUtils.buildQuerySql(null, take, nameHandler);
+        assertEquals("select id,name,last_name,dob,created_at from person where name = :p1 and id > :p2",
+                boundSql.getSql());
+        assertEquals(Arrays.asList("jack", 2), boundSql.getParams());
+
+        take = Take.create(Person.class).eq("lastName", "ma");
+        boundSql = SqlAssembleUtils.buildCountSql(person(null, "jack"), take, nameHandler);
+        assertEquals("select count(0) from person where last_name = :p1 and name = :p2", boundSql.getSql());
+    }
+
+}
@@ -0,0 +1,179 @@
+package com.blade.jdbc.test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.Driver;
+import java.sql.DriverPropertyInfo;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Properties;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * Driver of connections that do nothing, to test and measure the pool alone
+ */
+public class StubDriver implements Driver {
+
+    public static final AtomicInteger OPENED = new AtomicInteger();
+    public static final AtomicInteger CLOSED = new AtomicInteger();
+    public static final AtomicInteger PREPARED = new AtomicInteger();
+    public static final AtomicInteger STATEMENTS_CLOSED = new AtomicInteger();
+    public static final AtomicInteger RESULT_SETS_CLOSED = new AtomicInteger();
+    // statements executed and commits, each a round trip to the database
+    public static final AtomicInteger EXECUTIONS = new AtomicInteger();
+    public static final AtomicInteger COMMITS = new AtomicInteger();
+    public static volatile boolean valid = true;
+    // simulated time of a round trip
+    public static volatile long latencyMicros;
+
+    public static void reset() {
+        OPENED.set(0);
+        CLOSED.set(0);
+        PREPARED.set(0);
+        STATEMENTS_CLOSED.set(0);
+        RESULT_SETS_CLOSED.set(0);
+        EXECUTIONS.set(0);
+        COMMITS.set(0);
+        latencyMicros = 0;
+        valid = true;
+    }
+
+    @Override
+    public Connection connect(String url, Properties info) {
+        OPENED.incrementAndGet();
+        return (Connection) Proxy.newProxyInstance(StubDriver.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "close":
+                            CLOSED.incrementAndGet();
+                            return null;
+                        case "isValid":
+                            return valid;
+                        case "commit":
+                            COMMITS.incrementAndGet();
+                            roundTrip();
+                            return null;
+                        case "getMetaData":
+                            return Proxy.newProxyInstance(StubDriver.class.getClassLoader(),
+                                    new Class<?>[]{DatabaseMetaData.class},
+                                    (meta, m, a) -> defaultValue(meta, m, a, "StubMetaData"));
+                        case "createStatement":
+                            return statement(PreparedStatement.class, null);
+                        case "prepareStatement":
+                            return statement(PreparedStatement.class, (String) args[0]);
+                        case "prepareCall":
+                            return statement(CallableStatement.class, (String) args[0]);
+                        default:
+                            return defaultValue(proxy, method, args, "StubConnection");
+                    }
+                });
+    }
+
+    private static Object statement(Class<?> type, String sql) {
+        if (null != sql) {
+            PREPARED.incrementAndGet();
+        }
+        AtomicInteger batch = new AtomicInteger();
+        InvocationHandler handler = (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "close":
+                    STATEMENTS_CLOSED.incrementAndGet();
+                    return null;
+                case "addBatch":
+                    batch.incrementAndGet();
+                    return null;
+                case "clearBatch":
+                    batch.set(0);
+                    return null;
+                case "executeBatch":
+                    EXECUTIONS.incrementAndGet();
+                    roundTrip();
+                    int[] result = new int[batch.getAndSet(0)];
+                    Arrays.fill(result, 1);
+                    return result;
+                case "executeUpdate":
+                    EXECUTIONS.incrementAndGet();
+                    roundTrip();
+                    return 1;
+                case "executeQuery":
+                    EXECUTIONS.incrementAndGet();
+                    roundTrip();
+                    return Proxy.newProxyInstance(StubDriver.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                            (rs, m, a) -> {
+                                if ("close".equals(m.getName())) {
+                                    RESULT_SETS_CLOSED.incrementAndGet();
+                                    return null;
+                                }
+                                return defaultValue(rs, m, a, "StubResultSet{" + sql + '}');
+                            });
+                default:
+                    return defaultValue(proxy, method, args, "StubStatement{" + sql + '}');
+            }
+        };
+        return Proxy.newProxyInstance(StubDriver.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static void roundTrip() {
+        long latency = latencyMicros;
+        if (latency > 0) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(latency));
+        }
+    }
+
+    private static Object defaultValue(Object proxy, Method method, Object[] args, String name) {
+        switch (method.getName()) {
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "equals":
+                return proxy == args[0];
+            case "toString":
+                return name;
+            default:
+                Class<?> type = method.getReturnType();
+                if (type == boolean.class) {
+                    return false;
+                }
+                return type.isPrimitive() && type != void.class ? 0 : null;
+        }
+    }
+
+    @Override
+    public boolean acceptsURL(String url) {
+        return url.startsWith("jdbc:stub:");
+    }
+
+    @Override
+    public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+        return new DriverPropertyInfo[0];
+    }
+
+    @Override
+    public int getMajorVersion() {
+        return 1;
+    }
+
+    @Override
+    public int getMinorVersion() {
+        return 0;
+    }
+
+    @Override
+    public boolean jdbcCompliant() {
+        return false;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+}
@@ -7,9 +7,12 @@ import com.blade.ioc.Ioc;
 import com.blade.ioc.SimpleIoc;
 import com.blade.kit.Assert;
 import com.blade.kit.CollectionKit;
+import com.blade.metric.RequestTracer;
+import com.blade.metric.TraceListener;
 import com.blade.mvc.hook.WebHook;
 import com.blade.mvc.http.HttpMethod;
 import com.blade.mvc.http.SessionManager;
+import com.blade.mvc.http.session.SessionStore;
 import com.blade.mvc.route.RouteHandler;
 import com.blade.mvc.route.RouteMatcher;
 import com.blade.mvc.ui.template.DefaultEngine;
@@ -20,6 +23,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.*;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Consumer;
 
 import static com.blade.mvc.Const.*;
@@ -51,6 +55,7 @@ public class Blade {
 
 	private EventManager eventManager = new EventManager();
 	private SessionManager sessionManager = new SessionManager();
+	private ExecutorService executor;
 
 	private Consumer<Exception> startupExceptionHandler = (e) -> log.error("Failed to start Blade", e);
 
@@ -146,6 +151,32 @@ public class Blade {
 		return this;
 	}
 
+	public Blade staticCache(boolean cacheEnable) {
+		this.environment(ENV_KEY_STATIC_CACHE_ENABLE, cacheEnable);
+		return this;
+	}
+
+	/**
+	 * Run every route on the business executor unless it asks for the event loop
+	 */
+	public Blade useExecutor(boolean executorEnable) {
+		this.environment(ENV_KEY_EXECUTOR_ENABLE, executorEnable);
+		return this;
+	}
+
+	/**
+	 * Use your own business executor, it is not shut down with the server
+	 */
+	public Blade executor(ExecutorService executor) {
+		Assert.notNull(executor, "executor not is null.");
+		this.executor = executor;
+		return this;
+	}
+
+	public ExecutorService executor() {
+		return executor;
+	}
+
 	public Blade gzip(boolean gzipEnable) {
 		this.environment(ENV_KEY_GZIP_ENABLE, gzipEnable);
 		return this;
@@ -254,6 +285,24 @@ public class Blade {
 		return sessionManager;
 	}
 
+	/**
+	 * Keep sessions in the given store, e.g. off-heap or shared by several nodes
+	 */
+	public Blade sessionStore(SessionStore sessionStore) {
+		Assert.notNull(sessionStore, "session store not is null.");
+		this.sessionManager = new SessionManager(sessionStore);
+		return this;
+	}
+
+	/**
+	 * Receive the phase timings of every request, this turns request tracing on
+	 */
+	public Blade traceListener(TraceListener traceListener) {
+		Assert.notNull(traceListener, "trace listener not is null.");
+		RequestTracer.addListener(traceListener);
+		return this;
+	}
+
 	public Blade disableSession() {
 		this.sessionManager = null;
 		return this;
@@ -3,7 +3,9 @@ package com.blade.kit;
 import org.objectweb.asm.*;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.Map;
 
 /**
@@ -39,21 +41,36 @@ public final class AsmKit {
 
     /**
      * <p>
-     * 获取方法的参数名
+     * 获取方法的参数名, 读取 class 文件中的局部变量表, 没有调试信息时对应位置为 null
      * </p>
      */
     public static String[] getMethodParamNames(final Method m) throws IOException {
-        if (pool.containsKey(m)) {
-            return pool.get(m);
+        String[] cached = pool.get(m);
+        if (null != cached) {
+            return cached;
         }
 
-        final String[] paramNames = new String[m.getParameterTypes().length];
-        final String n = m.getDeclaringClass().getName();
+        final Class<?>[] parameterTypes = m.getParameterTypes();
+        final String[] paramNames = new String[parameterTypes.length];
+
+        // 局部变量槽位 -> 参数下标, 非静态方法的第 0 个槽位是 this, long 和 double 占两个槽位
+        final int[] slots = new int[parameterTypes.length];
+        int slot = Modifier.isStatic(m.getModifiers()) ? 0 : 1;
+        for (int i = 0; i < parameterTypes.length; i++) {
+            slots[i] = slot;
+            slot += parameterTypes[i] == long.class || parameterTypes[i] == double.class ? 2 : 1;
+        }
+
+        Class<?> declaringClass = m.getDeclaringClass();
+        String resource = declaringClass.getName().replace('.', '/') + ".class";
+        ClassLoader classLoader = null != declaringClass.getClassLoader() ? declaringClass.getClassLoader()
+                : ClassLoader.getSystemClassLoader();
         ClassReader cr;
-        try {
-            cr = new ClassReader(n);
-        } catch (IOException e) {
-            return null;
+        try (InputStream in = classLoader.getResourceAsStream(resource)) {
+            if (null == in) {
+                return paramNames;
+            }
+            cr = new ClassReader(in);
         }
         cr.accept(new ClassVisitor(Opcodes.ASM5) {
             @Override
@@ -61,30 +78,27 @@ public final class AsmKit {
                                              final String signature, final String[] exceptions) {
                 final Type[] args = Type.getArgumentTypes(desc);
                 MethodVisitor v = super.visitMethod(access, name, desc, signature, exceptions);
-                // 方法名相同并且参数个数相同
-                if (!name.equals(m.getName()) || !sameType(args, m.getParameterTypes())) {
+                // 方法名相同并且参数类型相同
+                if (!name.equals(m.getName()) || !sameType(args, parameterTypes)) {
                     return v;
                 }
                 return new MethodVisitor(Opcodes.ASM5, v) {
                     @Override
                     public void visitLocalVariable(String name, String desc, String signature, Label start, Label end,
                                                    int index) {
-//                        int i = index - 1;
-//                        // 如果是静态方法，则第一就是参数
-//                        // 如果不是静态方法，则第一个是"this"，然后才是方法的参数
-//                        if (Modifier.isStatic(m.getModifiers())) {
-//                            i = index;
-//                        }
-//                        if (i >= 0 && i < paramNames.length) {
-//                            paramNames[i] = name;
-//                        }
+                        for (int i = 0; i < slots.length; i++) {
+                            if (slots[i] == index && null == paramNames[i]) {
+                                paramNames[i] = name;
+                                break;
+                            }
+                        }
                         super.visitLocalVariable(name, desc, signature, start, end, index);
                     }
                 };
             }
         }, 0);
-        pool.put(m, paramNames);
-        return paramNames;
+        String[] previous = pool.putIfAbsent(m, paramNames);
+        return null != previous ? previous : paramNames;
     }
 
 }
@@ -17,6 +17,10 @@ import java.util.Locale;
  */
 public final class DateKit {
 
+	private static final ZoneId GMT = ZoneId.of("GMT");
+	private static final DateTimeFormatter GMT_FORMATTER = DateTimeFormatter.ofPattern(Const.HTTP_DATE_FORMAT,
+			Locale.US);
+
 	/**
 	 * return current unix time
 	 */
@@ -85,20 +89,15 @@ public final class DateKit {
 	}
 
 	public static String gmtDate() {
-		ZoneId zone = ZoneId.of("GMT");
-		return DateTimeFormatter.ofPattern(Const.HTTP_DATE_FORMAT, Locale.US).format(LocalDateTime.now().atZone(zone));
+		return GMT_FORMATTER.format(Instant.now().atZone(GMT));
 	}
 
 	public static String gmtDate(LocalDateTime localDateTime) {
-		ZoneId zone = ZoneId.of("GMT");
-		return DateTimeFormatter.ofPattern(Const.HTTP_DATE_FORMAT, Locale.US).format(localDateTime.atZone(zone));
+		return GMT_FORMATTER.format(localDateTime.atZone(GMT));
 	}
 
 	public static String gmtDate(Date date) {
-		ZoneId zone = ZoneId.of("GMT");
-		return DateTimeFormatter.ofPattern(Const.HTTP_DATE_FORMAT, Locale.US)
-				.format(LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault()).atZone(zone));
-
+		return GMT_FORMATTER.format(date.toInstant().atZone(GMT));
 	}
 
 }
@@ -1,9 +1,7 @@
 package com.blade.kit;
 
 import com.blade.kit.ason.Ason;
-
-import java.util.AbstractList;
-import java.util.List;
+import com.blade.kit.ason.AsonWriter;
 
 /**
  * @author biezhi 2017/6/2
@@ -13,19 +11,8 @@ public final class JsonKit {
 	private JsonKit() {
 	}
 
-	@SuppressWarnings("unchecked")
 	public static String toString(Object object) {
-		Class<?> cls = object.getClass();
-		if (cls.isArray()) {
-			return Ason.serializeArray(object).toString();
-		}
-		if (ClassKit.hasInterface(cls, List.class)) {
-			return Ason.serializeList((List<? extends Object>) object).toString();
-		}
-		if (cls.getSuperclass().equals(AbstractList.class)) {
-			return Ason.serializeList((List<? extends Object>) object).toString();
-		}
-		return Ason.serialize(object).toString();
+		return AsonWriter.toString(object);
 	}
 
 	public static String toString(Object object, int spaces) {
@@ -0,0 +1,557 @@
+package com.blade.kit.ason;
+
+import com.blade.kit.ClassKit;
+import com.blade.kit.json.JSONArray;
+import com.blade.kit.json.JSONObject;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.CharsetUtil;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binds UTF-8 encoded JSON straight from a {@link ByteBuf} to an object.
+ * <p>
+ * The counterpart of {@link AsonWriter}: a pull parser that reads the buffer
+ * once and sets the fields through the {@link ClassPlan} of the target type,
+ * without building a String of the whole input or a {@link JSONObject} tree.
+ * Keys are matched against the field names as bytes, unknown keys are skipped.
+ * The size of the input and the nesting depth are bounded, so a hostile body
+ * can neither exhaust the heap nor the stack.
+ */
+public final class AsonReader {
+
+    public static final int DEFAULT_MAX_DEPTH = 64;
+
+    private final ByteBuf buf;
+    private final int maxDepth;
+    private final int end;
+    private int pos;
+    private int depth;
+
+    private AsonReader(ByteBuf buf, int maxDepth) {
+        this.buf = buf;
+        this.maxDepth = maxDepth;
+        this.pos = buf.readerIndex();
+        this.end = buf.writerIndex();
+    }
+
+    /**
+     * Read a value, nested at most {@link #DEFAULT_MAX_DEPTH} levels
+     *
+     * @param buf  JSON, its reader index is left untouched
+     * @param type class, map, collection, array or plain type to bind to
+     * @return the value, null for empty input or a JSON null
+     */
+    public static <T> T read(ByteBuf buf, Class<T> type) {
+        return read(buf, type, DEFAULT_MAX_DEPTH, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Read a value
+     *
+     * @param buf      JSON, its reader index is left untouched
+     * @param type     class, map, collection, array or plain type to bind to
+     * @param maxDepth deepest nesting of objects and arrays accepted
+     * @param maxSize  largest input accepted, in bytes
+     * @return the value, null for empty input or a JSON null
+     * @throws InvalidJsonException if the input is malformed, too large or too deep
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T read(ByteBuf buf, Class<T> type, int maxDepth, int maxSize) {
+        if (buf.readableBytes() > maxSize) {
+            throw new InvalidJsonException("body of " + buf.readableBytes() + " bytes exceeds the limit of " + maxSize);
+        }
+        AsonReader reader = new AsonReader(buf, maxDepth);
+        if (!reader.skipWhitespace()) {
+            return null;
+        }
+        Object value = reader.readValue(type, Object.class);
+        if (reader.skipWhitespace()) {
+            throw reader.error("unexpected trailing content");
+        }
+        return (T) value;
+    }
+
+    private Object readValue(Class<?> type, Class<?> itemType) {
+        skipWhitespace();
+        byte b = peek();
+        if (b == 'n') {
+            expect("null");
+            return null;
+        }
+        if (type == Ason.class || type == JSONObject.class || type == AsonArray.class || type == JSONArray.class) {
+            return readRaw(type);
+        }
+        switch (b) {
+            case '{':
+                if (type == Object.class || Map.class.isAssignableFrom(type)) {
+                    return readMap();
+                }
+                if (ClassKit.isPrimitive(type) || type.isArray() || Collection.class.isAssignableFrom(type)) {
+                    throw error("can not bind an object to " + type.getName());
+                }
+                return readObject(type);
+            case '[':
+                if (type.isArray()) {
+                    return readArray(type.getComponentType());
+                }
+                if (type == Object.class || type.isAssignableFrom(ArrayList.class)) {
+                    return readList(itemType);
+                }
+                throw error("can not bind an array to " + type.getName());
+            case '"':
+                return convert(readString(), type);
+            case 't':
+                expect("true");
+                return convert(Boolean.TRUE, type);
+            case 'f':
+                expect("false");
+                return convert(Boolean.FALSE, type);
+            default:
+                return readNumber(type);
+        }
+    }
+
+    private Object readObject(Class<?> type) {
+        ClassPlan plan = ClassPlan.of(type);
+        Object object = plan.newInstance();
+        ClassPlan.Property[] properties = plan.properties();
+        // fields usually come in declaration order, start looking after the previous one
+        int hint = 0;
+        enter();
+        pos++;
+        if (!nextIs('}')) {
+            do {
+                int index = readKey(plan, hint);
+                if (index < 0) {
+                    skipValue();
+                    continue;
+                }
+                ClassPlan.Property property = properties[index];
+                Class<?> itemType = property.listItemType();
+                property.set(object, readValue(property.type(), null != itemType ? itemType : Object.class));
+                hint = index + 1;
+            } while (nextIs(','));
+            expectNext('}');
+        }
+        depth--;
+        return object;
+    }
+
+    /**
+     * Read a key and the colon after it
+     *
+     * @return index of the matching property, -1 if there is none
+     */
+    private int readKey(ClassPlan plan, int hint) {
+        skipWhitespace();
+        if (peek() != '"') {
+            throw error("expected a key");
+        }
+        int start = pos + 1;
+        int close = scanString(start);
+        int index;
+        if (close >= 0) {
+            index = plan.indexOf(buf, start, close - start, hint);
+            pos = close + 1;
+        } else {
+            index = plan.indexOf(readString());
+        }
+        expectNext(':');
+        return index;
+    }
+
+    private Map<String, Object> readMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        enter();
+        pos++;
+        if (!nextIs('}')) {
+            do {
+                skipWhitespace();
+                if (peek() != '"') {
+                    throw error("expected a key");
+                }
+                String key = readString();
+                expectNext(':');
+                map.put(key, readValue(Object.class, Object.class));
+            } while (nextIs(','));
+            expectNext('}');
+        }
+        depth--;
+        return map;
+    }
+
+    private List<Object> readList(Class<?> itemType) {
+        List<Object> list = new ArrayList<>();
+        enter();
+        pos++;
+        if (!nextIs(']')) {
+            do {
+                list.add(readValue(itemType, Object.class));
+            } while (nextIs(','));
+            expectNext(']');
+        }
+        depth--;
+        return list;
+    }
+
+    private Object readArray(Class<?> componentType) {
+        List<Object> items = readList(componentType);
+        Object array = Array.newInstance(componentType, items.size());
+        for (int i = 0; i < items.size(); i++) {
+            Object item = items.get(i);
+            if (null == item && componentType.isPrimitive()) {
+                item = ClassKit.defaultPrimitiveValue(componentType);
+            }
+            Array.set(array, i, item);
+        }
+        return array;
+    }
+
+    /**
+     * Ason and stock JSON types are parsed by themselves from the text of the value
+     */
+    private Object readRaw(Class<?> type) {
+        int start = pos;
+        skipValue();
+        String json = buf.toString(start, pos - start, CharsetUtil.UTF_8);
+        if (type == Ason.class) {
+            return new Ason(json);
+        }
+        if (type == AsonArray.class) {
+            return new AsonArray<>(json);
+        }
+        return type == JSONObject.class ? new JSONObject(json) : new JSONArray(json);
+    }
+
+    private Object readNumber(Class<?> type) {
+        int start = pos;
+        boolean integral = true;
+        while (pos < end) {
+            byte b = buf.getByte(pos);
+            if (b == '.' || b == 'e' || b == 'E') {
+                integral = false;
+            } else if ((b < '0' || b > '9') && b != '-' && b != '+') {
+                break;
+            }
+            pos++;
+        }
+        int length = pos - start;
+        if (length == 0) {
+            throw error("unexpected character '" + (char) buf.getByte(start) + "'");
+        }
+        if (integral && length <= 18) {
+            return convert(parseLong(start, length), type);
+        }
+        String text = buf.toString(start, length, CharsetUtil.US_ASCII);
+        try {
+            if (type == BigDecimal.class) {
+                return new BigDecimal(text);
+            }
+            if (integral) {
+                BigInteger value = new BigInteger(text);
+                return type == BigInteger.class ? value : convert(value, type);
+            }
+            return convert(Double.valueOf(text), type);
+        } catch (NumberFormatException e) {
+            throw error("malformed number " + text);
+        }
+    }
+
+    private long parseLong(int start, int length) {
+        boolean negative = buf.getByte(start) == '-';
+        int i = negative ? start + 1 : start;
+        if (i == start + length) {
+            throw error("malformed number");
+        }
+        long value = 0;
+        for (; i < start + length; i++) {
+            byte b = buf.getByte(i);
+            if (b < '0' || b > '9') {
+                throw error("malformed number");
+            }
+            value = value * 10 + (b - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    private Object convert(long value, Class<?> type) {
+        if (type == int.class || type == Integer.class) {
+            return (int) value;
+        }
+        if (type == long.class || type == Long.class) {
+            return value;
+        }
+        if (type == Object.class || type == Number.class) {
+            return value == (int) value ? (Object) (int) value : (Object) value;
+        }
+        return convert((Object) value, type);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object convert(Object value, Class<?> type) {
+        if (type.isInstance(value)) {
+            return value;
+        }
+        if (value instanceof Number) {
+            Number number = (Number) value;
+            if (type == int.class || type == Integer.class) {
+                return number.intValue();
+            } else if (type == long.class || type == Long.class) {
+                return number.longValue();
+            } else if (type == double.class || type == Double.class) {
+                return number.doubleValue();
+            } else if (type == float.class || type == Float.class) {
+                return number.floatValue();
+            } else if (type == short.class || type == Short.class) {
+                return number.shortValue();
+            } else if (type == byte.class || type == Byte.class) {
+                return number.byteValue();
+            } else if (type == BigDecimal.class) {
+                return new BigDecimal(number.toString());
+            } else if (type == BigInteger.class) {
+                return BigInteger.valueOf(number.longValue());
+            } else if (type == String.class) {
+                return number.toString();
+            }
+        } else if (value instanceof Boolean) {
+            if (type == boolean.class) {
+                return value;
+            } else if (type == String.class) {
+                return value.toString();
+            }
+        } else if (value instanceof String) {
+            String string = (String) value;
+            if (type.isEnum()) {
+                return Enum.valueOf((Class<? extends Enum>) type, string);
+            } else if ((type == char.class || type == Character.class) && string.length() == 1) {
+                return string.charAt(0);
+            } else if (ClassKit.isPrimitive(type)) {
+                try {
+                    Object converted = ClassKit.convert(type, string);
+                    if (null != converted) {
+                        return converted;
+                    }
+                } catch (NumberFormatException e) {
+                    throw error("can not bind \"" + string + "\" to " + type.getName());
+                }
+            }
+        }
+        throw error("can not bind " + value.getClass().getSimpleName() + " to " + type.getName());
+    }
+
+    /**
+     * Read a string starting at the opening quote
+     */
+    private String readString() {
+        int start = pos + 1;
+        int close = scanString(start);
+        if (close >= 0) {
+            pos = close + 1;
+            return buf.toString(start, close - start, CharsetUtil.UTF_8);
+        }
+        StringBuilder sb = new StringBuilder();
+        int i = start;
+        while (true) {
+            int chunk = i;
+            byte b;
+            while ((b = byteAt(i)) != '"' && b != '\\') {
+                if (b >= 0 && b < 0x20) {
+                    throw error("control character in string");
+                }
+                i++;
+            }
+            if (i > chunk) {
+                sb.append(buf.toString(chunk, i - chunk, CharsetUtil.UTF_8));
+            }
+            if (b == '"') {
+                pos = i + 1;
+                return sb.toString();
+            }
+            byte escaped = byteAt(i + 1);
+            i += 2;
+            switch (escaped) {
+                case 'b':
+                    sb.append('\b');
+                    break;
+                case 't':
+                    sb.append('\t');
+                    break;
+                case 'n':
+                    sb.append('\n');
+                    break;
+                case 'f':
+                    sb.append('\f');
+                    break;
+                case 'r':
+                    sb.append('\r');
+                    break;
+                case 'u':
+                    if (i + 4 > end) {
+                        throw error("unterminated string");
+                    }
+                    String hex = buf.toString(i, 4, CharsetUtil.US_ASCII);
+                    try {
+                        sb.append((char) Integer.parseInt(hex, 16));
+                    } catch (NumberFormatException e) {
+                        throw error("illegal escape \\u" + hex);
+                    }
+                    i += 4;
+                    break;
+                case '"':
+                case '\\':
+                case '/':
+                    sb.append((char) escaped);
+                    break;
+                default:
+                    throw error("illegal escape \\" + (char) escaped);
+            }
+        }
+    }
+
+    /**
+     * @param start index after the opening quote
+     * @return index of the closing quote, -1 if the string has escapes
+     */
+    private int scanString(int start) {
+        for (int i = start; ; i++) {
+            byte b = byteAt(i);
+            if (b == '"') {
+                return i;
+            }
+            if (b == '\\') {
+                return -1;
+            }
+            if (b >= 0 && b < 0x20) {
+                throw error("control character in string");
+            }
+        }
+    }
+
+    private void skipValue() {
+        skipWhitespace();
+        switch (peek()) {
+            case '{':
+                enter();
+                pos++;
+                if (!nextIs('}')) {
+                    do {
+                        skipWhitespace();
+                        if (peek() != '"') {
+                            throw error("expected a key");
+                        }
+                        skipString();
+                        expectNext(':');
+                        skipValue();
+                    } while (nextIs(','));
+                    expectNext('}');
+                }
+                depth--;
+                break;
+            case '[':
+                enter();
+                pos++;
+                if (!nextIs(']')) {
+                    do {
+                        skipValue();
+                    } while (nextIs(','));
+                    expectNext(']');
+                }
+                depth--;
+                break;
+            case '"':
+                skipString();
+                break;
+            case 't':
+                expect("true");
+                break;
+            case 'f':
+                expect("false");
+                break;
+            case 'n':
+                expect("null");
+                break;
+            default:
+                readNumber(Object.class);
+        }
+    }
+
+    private void skipString() {
+        int i = pos + 1;
+        byte b;
+        while ((b = byteAt(i)) != '"') {
+            i += b == '\\' ? 2 : 1;
+        }
+        pos = i + 1;
+    }
+
+    private void enter() {
+        if (++depth > maxDepth) {
+            throw error("nesting deeper than " + maxDepth);
+        }
+    }
+
+    /**
+     * @return false at the end of the input
+     */
+    private boolean skipWhitespace() {
+        while (pos < end) {
+            byte b = buf.getByte(pos);
+            if (b != ' ' && b != '\n' && b != '\r' && b != '\t') {
+                return true;
+            }
+            pos++;
+        }
+        return false;
+    }
+
+    /**
+     * Consume the next non whitespace character if it is the given one
+     */
+    private boolean nextIs(char c) {
+        skipWhitespace();
+        if (pos < end && buf.getByte(pos) == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expectNext(char c) {
+        if (!nextIs(c)) {
+            throw error("expected '" + c + "'");
+        }
+    }
+
+    private void expect(String literal) {
+        for (int i = 0; i < literal.length(); i++) {
+            if (byteAt(pos + i) != literal.charAt(i)) {
+                throw error("expected " + literal);
+            }
+        }
+        pos += literal.length();
+    }
+
+    private byte peek() {
+        return byteAt(pos);
+    }
+
+    private byte byteAt(int index) {
+        if (index >= end) {
+            throw error("unexpected end of input");
+        }
+        return buf.getByte(index);
+    }
+
+    private InvalidJsonException error(String message) {
+        return new InvalidJsonException(message + " at offset " + (pos - buf.readerIndex()));
+    }
+
+}
@@ -7,30 +7,28 @@ import com.blade.kit.json.JSONObject;
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import static com.blade.kit.ason.Util.*;
 
 /**
+ * Converts objects to and from Ason.
+ * <p>
+ * Stateless apart from the shared {@link ClassPlan} cache, the single
+ * instance is safe to use from any thread.
+ *
  * @author Aidan Follestad (afollestad)
  */
 @SuppressWarnings({ "unchecked" })
 public class AsonSerializer {
 
-	private static AsonSerializer serializer;
-	@SuppressWarnings("rawtypes")
-	private Map<String, ClassCacheEntry> classCache;
+	private static final AsonSerializer serializer = new AsonSerializer();
 
 	AsonSerializer() {
-		classCache = new HashMap<>(0);
 	}
 
 	public static AsonSerializer get() {
-		if (serializer == null) {
-			serializer = new AsonSerializer();
-		}
 		return serializer;
 	}
 
@@ -56,15 +54,9 @@ public class AsonSerializer {
 			map.forEach((k, v) -> ason.put(k.toString(), v));
 			return ason;
 		} else {
-			final Field[] fields = object.getClass().getDeclaredFields();
 			final Ason ason = new Ason();
-			for (Field field : fields) {
-				field.setAccessible(true);
-				if (shouldIgnore(field)) {
-					continue;
-				}
-				Object result = serializeField(field, object);
-				ason.put(fieldName(field), result);
+			for (ClassPlan.Property property : ClassPlan.of(object.getClass()).properties()) {
+				ason.put(property.name(), serializeValue(property.get(object)));
 			}
 			return ason;
 		}
@@ -117,12 +109,14 @@ public class AsonSerializer {
 
 	public Object serializeField(final Field field, final Object object) {
 		field.setAccessible(true);
-		final Object fieldValue;
 		try {
-			fieldValue = field.get(object);
+			return serializeValue(field.get(object));
 		} catch (IllegalAccessException e) {
 			throw new RuntimeException(e);
 		}
+	}
+
+	private Object serializeValue(final Object fieldValue) {
 		if (isNull(fieldValue)) {
 			return null;
 		}
@@ -157,33 +151,29 @@ public class AsonSerializer {
 			return (T) ason;
 		}
 
-		ClassCacheEntry<T> cacheEntry = classCache.get(cls.getName());
-		if (isNull(cacheEntry)) {
-			cacheEntry = new ClassCacheEntry<>(cls);
-			classCache.put(cls.getName(), cacheEntry);
-		}
-		final T newObject = cacheEntry.newInstance();
+		final ClassPlan plan = ClassPlan.of(cls);
+		final T newObject = (T) plan.newInstance();
 
-		for (String name : cacheEntry.fields()) {
-			final Class<?> type = cacheEntry.fieldType(name);
+		for (ClassPlan.Property property : plan.properties()) {
+			final String name = property.name();
+			final Class<?> type = property.type();
 			if (ClassKit.isPrimitive(type) || type == JSONObject.class || type == JSONArray.class || type == Ason.class
 					|| type == AsonArray.class) {
-				cacheEntry.set(newObject, name, ason.get(name));
+				property.set(newObject, ason.get(name));
 			} else if (type.isArray()) {
 				AsonArray<?> asonArray = ason.get(name);
-				cacheEntry.set(newObject, name, deserializeArray(asonArray, type));
+				property.set(newObject, deserializeArray(asonArray, type));
 			} else if (isList(type)) {
 				AsonArray<?> asonArray = ason.get(name);
-				Class<?> listItemType = cacheEntry.listItemType(name);
-				cacheEntry.set(newObject, name, deserializeList(asonArray, listItemType));
+				property.set(newObject, deserializeList(asonArray, property.listItemType()));
 			} else {
 				Object value = ason.get(name);
 				if (value instanceof Ason) {
 					Ason asonObject = (Ason) value;
-					cacheEntry.set(newObject, name, deserialize(asonObject, type));
+					property.set(newObject, deserialize(asonObject, type));
 				} else {
 					AsonArray<?> asonArray = (AsonArray<?>) value;
-					cacheEntry.set(newObject, name, deserializeArray(asonArray, type));
+					property.set(newObject, deserializeArray(asonArray, type));
 				}
 			}
 		}
@@ -0,0 +1,291 @@
+package com.blade.kit.ason;
+
+import com.blade.kit.json.JSONArray;
+import com.blade.kit.json.JSONObject;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
+
+import java.lang.reflect.Array;
+import java.util.Map;
+
+/**
+ * Streams an object as JSON, UTF-8 encoded, straight into a {@link ByteBuf}.
+ * <p>
+ * Unlike {@link Ason#serialize(Object)} no intermediate {@link JSONObject} tree
+ * or String is built: objects are written field by field through their
+ * {@link ClassPlan}, lists and arrays item by item. The output matches the one
+ * of Ason, except that fields keep their declaration order and static fields
+ * are left out.
+ */
+public final class AsonWriter {
+
+    /**
+     * Deeper nesting is most likely a circular reference
+     */
+    private static final int MAX_DEPTH = 256;
+
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] HEX = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+    private AsonWriter() {
+    }
+
+    /**
+     * Write a value as JSON
+     *
+     * @param buf   target buffer
+     * @param value object, map, collection, array or plain value
+     */
+    public static void write(ByteBuf buf, Object value) {
+        writeValue(buf, value, 0);
+    }
+
+    /**
+     * @param value object, map, collection, array or plain value
+     * @return the value as a JSON string
+     */
+    public static String toString(Object value) {
+        ByteBuf buf = Unpooled.buffer();
+        writeValue(buf, value, 0);
+        return buf.toString(CharsetUtil.UTF_8);
+    }
+
+    private static void writeValue(ByteBuf buf, Object value, int depth) {
+        if (depth > MAX_DEPTH) {
+            throw new IllegalStateException("JSON nesting deeper than " + MAX_DEPTH + ", circular reference?");
+        }
+        if (Util.isNull(value)) {
+            buf.writeBytes(NULL);
+        } else if (value instanceof String) {
+            writeString(buf, (String) value);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short
+                || value instanceof Byte) {
+            writeLong(buf, ((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            writeDecimal(buf, (Number) value);
+        } else if (value instanceof Number) {
+            buf.writeCharSequence(value.toString(), CharsetUtil.US_ASCII);
+        } else if (value instanceof Boolean) {
+            buf.writeBytes((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Character || value instanceof Enum) {
+            writeString(buf, value instanceof Enum ? ((Enum<?>) value).name() : value.toString());
+        } else if (value instanceof Ason || value instanceof AsonArray || value instanceof JSONObject
+                || value instanceof JSONArray) {
+            ByteBufUtil.writeUtf8(buf, value.toString());
+        } else if (value instanceof Map) {
+            writeMap(buf, (Map<?, ?>) value, depth);
+        } else if (value instanceof Iterable) {
+            writeIterable(buf, (Iterable<?>) value, depth);
+        } else if (value.getClass().isArray()) {
+            writeArray(buf, value, depth);
+        } else if (isJdkType(value.getClass())) {
+            writeString(buf, value.toString());
+        } else {
+            writeObject(buf, value, depth);
+        }
+    }
+
+    private static void writeObject(ByteBuf buf, Object value, int depth) {
+        buf.writeByte('{');
+        ClassPlan.Property[] properties = ClassPlan.of(value.getClass()).properties();
+        for (int i = 0; i < properties.length; i++) {
+            if (i > 0) {
+                buf.writeByte(',');
+            }
+            buf.writeBytes(properties[i].key());
+            writeValue(buf, properties[i].get(value), depth + 1);
+        }
+        buf.writeByte('}');
+    }
+
+    private static void writeMap(ByteBuf buf, Map<?, ?> map, int depth) {
+        buf.writeByte('{');
+        boolean first = true;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (!first) {
+                buf.writeByte(',');
+            }
+            first = false;
+            writeString(buf, String.valueOf(entry.getKey()));
+            buf.writeByte(':');
+            writeValue(buf, entry.getValue(), depth + 1);
+        }
+        buf.writeByte('}');
+    }
+
+    private static void writeIterable(ByteBuf buf, Iterable<?> iterable, int depth) {
+        buf.writeByte('[');
+        boolean first = true;
+        for (Object item : iterable) {
+            if (!first) {
+                buf.writeByte(',');
+            }
+            first = false;
+            writeValue(buf, item, depth + 1);
+        }
+        buf.writeByte(']');
+    }
+
+    private static void writeArray(ByteBuf buf, Object array, int depth) {
+        buf.writeByte('[');
+        if (array instanceof Object[]) {
+            Object[] items = (Object[]) array;
+            for (int i = 0; i < items.length; i++) {
+                if (i > 0) {
+                    buf.writeByte(',');
+                }
+                writeValue(buf, items[i], depth + 1);
+            }
+        } else if (array instanceof int[]) {
+            int[] items = (int[]) array;
+            for (int i = 0; i < items.length; i++) {
+                if (i > 0) {
+                    buf.writeByte(',');
+                }
+                writeLong(buf, items[i]);
+            }
+        } else if (array instanceof long[]) {
+            long[] items = (long[]) array;
+            for (int i = 0; i < items.length; i++) {
+                if (i > 0) {
+                    buf.writeByte(',');
+                }
+                writeLong(buf, items[i]);
+            }
+        } else {
+            for (int i = 0, len = Array.getLength(array); i < len; i++) {
+                if (i > 0) {
+                    buf.writeByte(',');
+                }
+                writeValue(buf, Array.get(array, i), depth + 1);
+            }
+        }
+        buf.writeByte(']');
+    }
+
+    private static void writeLong(ByteBuf buf, long value) {
+        if (value == Long.MIN_VALUE) {
+            buf.writeCharSequence(Long.toString(value), CharsetUtil.US_ASCII);
+            return;
+        }
+        if (value < 0) {
+            buf.writeByte('-');
+            value = -value;
+        }
+        int digits = 1;
+        for (long pow = 10; digits < 19 && value >= pow; pow *= 10) {
+            digits++;
+        }
+        buf.ensureWritable(digits);
+        int index = buf.writerIndex();
+        for (int i = digits - 1; i >= 0; i--) {
+            buf.setByte(index + i, (int) ('0' + value % 10));
+            value /= 10;
+        }
+        buf.writerIndex(index + digits);
+    }
+
+    /**
+     * Like {@link JSONObject#numberToString(Number)}: trailing zeros are shaved off,
+     * NaN and infinities, which JSON can not express, are written as null
+     */
+    private static void writeDecimal(ByteBuf buf, Number value) {
+        double d = value.doubleValue();
+        if (Double.isNaN(d) || Double.isInfinite(d)) {
+            buf.writeBytes(NULL);
+            return;
+        }
+        String string = value.toString();
+        int end = string.length();
+        if (string.indexOf('.') > 0 && string.indexOf('e') < 0 && string.indexOf('E') < 0) {
+            while (string.charAt(end - 1) == '0') {
+                end--;
+            }
+            if (string.charAt(end - 1) == '.') {
+                end--;
+            }
+        }
+        for (int i = 0; i < end; i++) {
+            buf.writeByte(string.charAt(i));
+        }
+    }
+
+    /**
+     * Write a quoted string, escaped like {@link JSONObject#quote(String)}
+     */
+    static void writeString(ByteBuf buf, String value) {
+        buf.writeByte('"');
+        int start = 0;
+        char previous = 0;
+        for (int i = 0, len = value.length(); i < len; i++) {
+            char c = value.charAt(i);
+            if (needsEscape(c, previous)) {
+                if (i > start) {
+                    ByteBufUtil.writeUtf8(buf, value.substring(start, i));
+                }
+                writeEscape(buf, c);
+                start = i + 1;
+            }
+            previous = c;
+        }
+        if (start == 0) {
+            ByteBufUtil.writeUtf8(buf, value);
+        } else if (start < value.length()) {
+            ByteBufUtil.writeUtf8(buf, value.substring(start));
+        }
+        buf.writeByte('"');
+    }
+
+    private static boolean needsEscape(char c, char previous) {
+        return c < 0x20 || c == '"' || c == '\\' || (c == '/' && previous == '<')
+                || (c >= 0x80 && c < 0xa0) || (c >= 0x2000 && c < 0x2100);
+    }
+
+    private static void writeEscape(ByteBuf buf, char c) {
+        buf.writeByte('\\');
+        switch (c) {
+            case '"':
+            case '\\':
+            case '/':
+                buf.writeByte(c);
+                break;
+            case '\b':
+                buf.writeByte('b');
+                break;
+            case '\t':
+                buf.writeByte('t');
+                break;
+            case '\n':
+                buf.writeByte('n');
+                break;
+            case '\f':
+                buf.writeByte('f');
+                break;
+            case '\r':
+                buf.writeByte('r');
+                break;
+            default:
+                buf.writeByte('u');
+                buf.writeByte(HEX[(c >> 12) & 0xF]);
+                buf.writeByte(HEX[(c >> 8) & 0xF]);
+                buf.writeByte(HEX[(c >> 4) & 0xF]);
+                buf.writeByte(HEX[c & 0xF]);
+        }
+    }
+
+    /**
+     * Types of the jdk are written as their string form, like {@link JSONObject#wrap(Object)} does
+     */
+    private static boolean isJdkType(Class<?> cls) {
+        if (null == cls.getClassLoader()) {
+            return true;
+        }
+        String name = cls.getName();
+        return name.startsWith("java.") || name.startsWith("javax.");
+    }
+
+}
@@ -0,0 +1,205 @@
+package com.blade.kit.ason;
+
+import com.blade.kit.CollectionKit;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.blade.kit.ason.Util.*;
+
+/**
+ * How the fields of a class are serialized and deserialized, computed once per class.
+ * <p>
+ * Holds the fields in declaration order with their json names from
+ * {@link AsonName}, without the ones marked {@link AsonIgnore}, along with
+ * their accessors, the item type of list fields and the encoded names
+ * {@link AsonWriter} writes and {@link AsonReader} matches keys against.
+ * Plans are shared by all threads, so reading or writing an object neither
+ * walks its fields again nor calls {@code setAccessible}.
+ */
+final class ClassPlan {
+
+    private static final ConcurrentHashMap<Class<?>, ClassPlan> PLANS = CollectionKit.newConcurrentMap();
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private final Class<?> cls;
+    private final Property[] properties;
+
+    /**
+     * Default constructor, looked up on first deserialization since serialized
+     * classes do not need one
+     */
+    private volatile Constructor<?> constructor;
+
+    private ClassPlan(Class<?> cls) {
+        this.cls = cls;
+        List<Property> properties = new ArrayList<>();
+        for (Field field : cls.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || shouldIgnore(field)) {
+                continue;
+            }
+            properties.add(new Property(field));
+        }
+        this.properties = properties.toArray(new Property[properties.size()]);
+    }
+
+    static ClassPlan of(Class<?> cls) {
+        ClassPlan plan = PLANS.get(cls);
+        return null != plan ? plan : PLANS.computeIfAbsent(cls, ClassPlan::new);
+    }
+
+    Property[] properties() {
+        return properties;
+    }
+
+    /**
+     * Find a property by its UTF-8 encoded name
+     *
+     * @param hint index to start looking at, wrapping around
+     * @return index of the property, -1 if there is none
+     */
+    int indexOf(ByteBuf buf, int index, int length, int hint) {
+        int count = properties.length;
+        for (int n = 0, i = hint; n < count; n++, i++) {
+            if (i >= count) {
+                i = 0;
+            }
+            if (properties[i].nameEquals(buf, index, length)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return index of the property with the given name, -1 if there is none
+     */
+    int indexOf(String name) {
+        for (int i = 0; i < properties.length; i++) {
+            if (properties[i].name.equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    Object newInstance() {
+        Constructor<?> ctor = this.constructor;
+        if (null == ctor) {
+            ctor = getDefaultConstructor(cls);
+            this.constructor = ctor;
+        }
+        try {
+            return ctor.newInstance();
+        } catch (Throwable t) {
+            throw new RuntimeException("Failed to instantiate " + cls.getName(), t);
+        }
+    }
+
+    static final class Property {
+
+        private final Field field;
+        private final String name;
+        private final byte[] nameBytes;
+        private final byte[] key;
+        private final MethodHandle getter;
+        private final Class<?> listItemType;
+
+        Property(Field field) {
+            this.field = field;
+            this.name = fieldName(field);
+            this.nameBytes = name.getBytes(CharsetUtil.UTF_8);
+            try {
+                field.setAccessible(true);
+                this.getter = MethodHandles.lookup().unreflectGetter(field).asType(GETTER_TYPE);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Can not read field " + field, e);
+            }
+            this.listItemType = isList(field.getType()) ? listItemType(field) : null;
+
+            ByteBuf key = Unpooled.buffer(name.length() + 3);
+            AsonWriter.writeString(key, name);
+            this.key = ByteBufUtil.getBytes(key.writeByte(':'));
+        }
+
+        String name() {
+            return name;
+        }
+
+        Class<?> type() {
+            return field.getType();
+        }
+
+        /**
+         * @return item type of a list field, Object for raw lists, null for other fields
+         */
+        Class<?> listItemType() {
+            return listItemType;
+        }
+
+        /**
+         * @return the quoted name followed by a colon, UTF-8 encoded
+         */
+        byte[] key() {
+            return key;
+        }
+
+        boolean nameEquals(ByteBuf buf, int index, int length) {
+            if (nameBytes.length != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (nameBytes[i] != buf.getByte(index + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        Object get(Object object) {
+            try {
+                return (Object) getter.invokeExact(object);
+            } catch (Throwable t) {
+                throw new IllegalStateException("Can not read " + name + " of " + object.getClass().getName(), t);
+            }
+        }
+
+        /**
+         * Set the field, null values are skipped. Goes through {@link Field#set}
+         * for its widening of boxed numbers, e.g. an Integer into a long field.
+         */
+        void set(Object object, Object value) {
+            setFieldValue(field, object, value);
+        }
+
+        private static Class<?> listItemType(Field field) {
+            Type type = field.getGenericType();
+            if (type instanceof ParameterizedType) {
+                Type item = ((ParameterizedType) type).getActualTypeArguments()[0];
+                if (item instanceof Class) {
+                    return (Class<?>) item;
+                }
+                if (item instanceof ParameterizedType) {
+                    return (Class<?>) ((ParameterizedType) item).getRawType();
+                }
+            }
+            return Object.class;
+        }
+
+    }
+
+}
@@ -10,4 +10,8 @@ public class InvalidJsonException extends IllegalArgumentException {
 	InvalidJsonException(String json, Exception inner) {
 		super("Invalid JSON: " + json, inner);
 	}
+
+	InvalidJsonException(String message) {
+		super("Invalid JSON: " + message);
+	}
 }
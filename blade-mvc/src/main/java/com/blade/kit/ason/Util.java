@@ -10,7 +10,6 @@ import java.lang.reflect.ParameterizedType;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Stream;
 
 /**
  * @author Aidan Follestad (afollestad)
@@ -208,7 +207,7 @@ public class Util {
 	}
 
 	public static boolean isMap(Class<?> cls) {
-		return Stream.of(cls.getInterfaces()).filter(Map.class::equals).count() > 0;
+		return Map.class.isAssignableFrom(cls);
 	}
 
 	public static Class<?> listGenericType(Field field) {
@@ -3,18 +3,20 @@ package com.blade.metric;
 import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 public class Connection implements Serializable {
 
 	private static final long serialVersionUID = 1L;
+	// the first uris requested are kept, a keep-alive connection may request any number
+	private static final int MAX_URIS = 16;
 	private final long connectionId = 0;
 	private LocalDateTime established;
 	private LocalDateTime closed;
 	private String ip;
 
-	private Set<String> uris = new HashSet<>();
+	private Set<String> uris = new LinkedHashSet<>();
 
 	private long bytesSent;
 	private long bytesReceived;
@@ -77,7 +79,7 @@ public class Connection implements Serializable {
 	}
 
 	public synchronized void addUri(String uri) {
-		if (uri != null) {
+		if (uri != null && uris.size() < MAX_URIS) {
 			uris.add(uri);
 		}
 	}
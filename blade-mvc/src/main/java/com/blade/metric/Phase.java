@@ -0,0 +1,33 @@
+package com.blade.metric;
+
+/**
+ * Phases of a request, as timed by a {@link RequestTrace}
+ */
+public enum Phase {
+
+    /**
+     * decoding the request and looking up its route
+     */
+    ROUTE,
+    /**
+     * waiting for the business executor
+     */
+    QUEUE,
+    BEFORE,
+    MIDDLEWARE,
+    /**
+     * binding the route method arguments
+     */
+    BIND,
+    INVOKE,
+    /**
+     * rendering a template or serializing json
+     */
+    RENDER,
+    AFTER,
+    /**
+     * writing the response to the channel
+     */
+    WRITE
+
+}
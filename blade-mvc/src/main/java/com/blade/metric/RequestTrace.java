@@ -0,0 +1,139 @@
+package com.blade.metric;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Nanosecond timings of the phases of one request.
+ * <p>
+ * A connection serves one request at a time, so each connection keeps a
+ * single trace and starts it over for every request: tracing allocates
+ * nothing. Time always belongs to the current phase, {@link #enter(Phase)}
+ * switches to another one and returns the phase to switch back to, so nested
+ * phases, e.g. a render inside a route, are not counted twice and the phases
+ * add up to the total. A trace that has not been started ignores everything.
+ */
+public class RequestTrace {
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final long[] nanos = new long[PHASES.length];
+
+    private boolean active;
+    private Phase current;
+    private long mark;
+    private long start;
+    private long total;
+
+    private String method;
+    private String uri;
+    private String route;
+    private int status;
+
+    public void start() {
+        for (int i = 0; i < nanos.length; i++) {
+            nanos[i] = 0;
+        }
+        this.method = null;
+        this.uri = null;
+        this.route = null;
+        this.status = 0;
+        this.total = 0;
+        this.current = Phase.ROUTE;
+        this.start = this.mark = System.nanoTime();
+        this.active = true;
+    }
+
+    /**
+     * @param phase phase to time from now on
+     * @return the phase timed until now, null if the trace is not started
+     */
+    public Phase enter(Phase phase) {
+        if (!active || null == phase) {
+            return null;
+        }
+        long now = System.nanoTime();
+        Phase previous = current;
+        nanos[previous.ordinal()] += now - mark;
+        mark = now;
+        current = phase;
+        return previous;
+    }
+
+    public void request(String method, String uri, String route) {
+        this.method = method;
+        this.uri = uri;
+        this.route = route;
+    }
+
+    /**
+     * Stop timing, the trace can be read until it is started again
+     */
+    public void finish(int status) {
+        if (!active) {
+            return;
+        }
+        enter(current);
+        this.status = status;
+        this.total = mark - start;
+        this.active = false;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public long nanos(Phase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    public long total() {
+        return total;
+    }
+
+    public String method() {
+        return method;
+    }
+
+    public String uri() {
+        return uri;
+    }
+
+    /**
+     * @return path of the matched route, null for static files and 404
+     */
+    public String route() {
+        return route;
+    }
+
+    public int status() {
+        return status;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(method).append(' ').append(uri);
+        if (null != route) {
+            sb.append(" (").append(route).append(')');
+        }
+        sb.append(' ').append(status).append(' ').append(millis(total)).append("ms [");
+        boolean first = true;
+        for (Phase phase : PHASES) {
+            long value = nanos[phase.ordinal()];
+            if (value == 0) {
+                continue;
+            }
+            if (!first) {
+                sb.append(", ");
+            }
+            sb.append(phase.name().toLowerCase()).append('=').append(millis(value));
+            first = false;
+        }
+        return sb.append(']').toString();
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.3f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+
+}
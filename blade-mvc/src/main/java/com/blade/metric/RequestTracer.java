@@ -0,0 +1,71 @@
+package com.blade.metric;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Switches request tracing at runtime and hands finished traces to the
+ * slow request log and the {@link TraceListener}s.
+ * <p>
+ * Tracing is off by default; it is turned on by app.trace.enable, a slow
+ * request threshold or a listener, and can be turned off again at any time.
+ * Requests already running finish their trace.
+ */
+public final class RequestTracer {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestTracer.class);
+
+    private static volatile boolean enabled;
+    private static volatile long slowNanos;
+    private static volatile TraceListener[] listeners = new TraceListener[0];
+
+    private RequestTracer() {
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void enable(boolean enable) {
+        enabled = enable;
+    }
+
+    /**
+     * Log the phases of requests taking at least the given time, 0 to log none
+     */
+    public static void slowThreshold(long time, TimeUnit unit) {
+        slowNanos = unit.toNanos(time);
+        if (slowNanos > 0) {
+            enabled = true;
+        }
+    }
+
+    public static synchronized void addListener(TraceListener listener) {
+        TraceListener[] copy = Arrays.copyOf(listeners, listeners.length + 1);
+        copy[listeners.length] = listener;
+        listeners = copy;
+        enabled = true;
+    }
+
+    public static synchronized void removeListener(TraceListener listener) {
+        listeners = Arrays.stream(listeners).filter(l -> l != listener).toArray(TraceListener[]::new);
+    }
+
+    public static void completed(RequestTrace trace) {
+        long slow = slowNanos;
+        if (slow > 0 && trace.total() >= slow) {
+            log.warn("Slow request {}", trace);
+        }
+        for (TraceListener listener : listeners) {
+            try {
+                listener.onRequest(trace);
+            } catch (Exception e) {
+                log.error("Trace listener failed", e);
+            }
+        }
+    }
+
+}
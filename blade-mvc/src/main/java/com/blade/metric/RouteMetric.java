@@ -0,0 +1,45 @@
+package com.blade.metric;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Requests, server errors and latency of one route
+ */
+public class RouteMetric {
+
+    private final String name;
+    private final LongAdder errors = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    public RouteMetric(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @param status response status
+     * @param nanos  time taken to handle the request
+     */
+    public void record(int status, long nanos) {
+        latency.record(nanos);
+        if (status >= 500) {
+            errors.increment();
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public long count() {
+        return latency.count();
+    }
+
+    public long errors() {
+        return errors.sum();
+    }
+
+    public LatencyHistogram latency() {
+        return latency;
+    }
+
+}
@@ -0,0 +1,129 @@
+package com.blade.metric;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Approximate heaviest hitters among an unbounded set of keys, e.g. client
+ * ips or request uris, in bounded memory.
+ * <p>
+ * Counts are estimated by a count-min sketch of atomic counters, which may
+ * over count but never under counts. Keys whose estimate reaches the current
+ * top are kept as candidates; when there are more than twice as many as
+ * asked for, the lowest are dropped by whichever thread gets the trim lock,
+ * the others carry on. Adding a key never blocks, and once a key is a
+ * candidate it only costs the counter increments and a set lookup.
+ */
+public class TopN {
+
+    private static final int DEPTH = 4;
+    private static final int[] SEEDS = {0x9e3779b9, 0x85ebca6b, 0xc2b2ae35, 0x27d4eb2f};
+
+    private final int size;
+    private final int width;
+    private final AtomicLongArray counters;
+    private final Set<String> candidates = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock trimLock = new ReentrantLock();
+
+    // smallest estimate still among the candidates after the last trim
+    private volatile long threshold;
+
+    /**
+     * @param size  number of keys reported
+     * @param width counters per row of the sketch, a power of two; more is
+     *              more accurate
+     */
+    public TopN(int size, int width) {
+        if (Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("width must be a power of two");
+        }
+        this.size = size;
+        this.width = width;
+        this.counters = new AtomicLongArray(DEPTH * width);
+    }
+
+    public TopN(int size) {
+        this(size, 1024);
+    }
+
+    public void add(String key) {
+        int hash = key.hashCode();
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(row * width + slot(hash, row)));
+        }
+        if (estimate >= threshold && !candidates.contains(key) && candidates.add(key)
+                && candidates.size() > size * 2) {
+            trim();
+        }
+    }
+
+    /**
+     * @return up to size keys with their estimated counts, highest first
+     */
+    public Map<String, Long> top() {
+        List<Map.Entry<String, Long>> entries = estimates();
+        Map<String, Long> top = new LinkedHashMap<>();
+        for (int i = entries.size() - 1; i >= 0 && top.size() < size; i--) {
+            top.put(entries.get(i).getKey(), entries.get(i).getValue());
+        }
+        return top;
+    }
+
+    /**
+     * @return estimated count of the key
+     */
+    public long estimate(String key) {
+        int hash = key.hashCode();
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.get(row * width + slot(hash, row)));
+        }
+        return estimate;
+    }
+
+    private void trim() {
+        if (!trimLock.tryLock()) {
+            return;
+        }
+        try {
+            List<Map.Entry<String, Long>> entries = estimates();
+            if (entries.size() <= size) {
+                return;
+            }
+            int drop = entries.size() - size;
+            for (int i = 0; i < drop; i++) {
+                candidates.remove(entries.get(i).getKey());
+            }
+            threshold = entries.get(drop).getValue();
+        } finally {
+            trimLock.unlock();
+        }
+    }
+
+    /**
+     * @return the candidates with their current estimates, lowest first
+     */
+    private List<Map.Entry<String, Long>> estimates() {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(candidates.size());
+        for (String key : candidates) {
+            entries.add(new AbstractMap.SimpleImmutableEntry<>(key, estimate(key)));
+        }
+        entries.sort(Map.Entry.comparingByValue());
+        return entries;
+    }
+
+    private int slot(int hash, int row) {
+        int h = (hash ^ SEEDS[row]) * 0x5bd1e995;
+        h ^= h >>> 15;
+        return h & (width - 1);
+    }
+
+}
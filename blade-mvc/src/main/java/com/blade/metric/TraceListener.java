@@ -0,0 +1,15 @@
+package com.blade.metric;
+
+/**
+ * Told about every traced request once it is done.
+ * <p>
+ * Called on the thread that served the request, so it should be quick. The
+ * trace is reused by the next request of the connection, copy what you want
+ * to keep.
+ */
+@FunctionalInterface
+public interface TraceListener {
+
+    void onRequest(RequestTrace trace);
+
+}
@@ -6,25 +6,41 @@ import io.netty.channel.Channel;
 import io.netty.channel.group.DefaultChannelGroup;
 import io.netty.util.concurrent.GlobalEventExecutor;
 
-import java.io.FileOutputStream;
-import java.io.IOException;
-import java.io.ObjectOutputStream;
-import java.io.Serializable;
 import java.net.InetSocketAddress;
-import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-
-public class WebStatistics implements Serializable {
-
-    private static final long serialVersionUID = 1L;
-    private ConcurrentHashMap<String, Metric> ipRequests = CollectionKit.newConcurrentMap();
-    private ConcurrentHashMap<String, Long> redirects = CollectionKit.newConcurrentMap();
-    private List<Connection> connections = Collections.synchronizedList(CollectionKit.newArrayList());
-
-    private transient DefaultChannelGroup channels = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request metrics of the server, shown by the monitor.
+ * <p>
+ * Recording takes no lock: counters are {@link LongAdder}s, latencies go to a
+ * {@link LatencyHistogram} per route and client ips, uris and redirects are
+ * counted in bounded {@link TopN} sketches. When the monitor is disabled
+ * nothing is recorded at all.
+ */
+public class WebStatistics {
+
+    private static final int TOP_SIZE = 20;
+    private static final int MAX_CONNECTIONS = 16;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder inFlight = new LongAdder();
+    private final TopN ipRequests = new TopN(TOP_SIZE);
+    private final TopN uriRequests = new TopN(TOP_SIZE);
+    private final TopN redirects = new TopN(TOP_SIZE);
+    private final ConcurrentHashMap<String, RouteMetric> routes = CollectionKit.newConcurrentMap();
+    private final Deque<Connection> connections = new ConcurrentLinkedDeque<>();
+
+    private final DefaultChannelGroup channels = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
 
     private WebStatistics() {
     }
@@ -37,44 +53,90 @@ public class WebStatistics implements Serializable {
         return WebStatisticsHolder.INSTANCE;
     }
 
-    public synchronized long getNumberOfRequests() {
-        return ipRequests != null && ipRequests.size() != 0 ? ipRequests.reduceValues(1, Metric::count, Long::sum) : 0;
-    }
-
-    public synchronized void registerRequestFromIp(String ip, LocalDateTime localDateTime) {
-        if (ipRequests.containsKey(ip)) {
-            ipRequests.put(ip, ipRequests.get(ip).plus(1).time(localDateTime));
-        } else {
-            ipRequests.put(ip, new Metric(1L, localDateTime));
+    /**
+     * @param name route name, e.g. "GET /users/:id"
+     * @return the metric of the route, created on first use
+     */
+    public RouteMetric route(String name) {
+        RouteMetric metric = routes.get(name);
+        return null != metric ? metric : routes.computeIfAbsent(name, RouteMetric::new);
+    }
+
+    /**
+     * @return start time of the request, to pass on to {@link #requestCompleted}
+     */
+    public long requestStarted() {
+        inFlight.increment();
+        return System.nanoTime();
+    }
+
+    /**
+     * @param route  metric of the route handling the request
+     * @param ip     client ip
+     * @param uri    request uri
+     * @param status response status
+     * @param start  value returned by {@link #requestStarted()}
+     */
+    public void requestCompleted(RouteMetric route, String ip, String uri, int status, long start) {
+        long nanos = System.nanoTime() - start;
+        inFlight.decrement();
+        requests.increment();
+        if (status >= 500) {
+            errors.increment();
         }
+        route.record(status, nanos);
+        if (null != ip) {
+            ipRequests.add(ip);
+        }
+        uriRequests.add(uri);
     }
 
-    public synchronized void registerRedirect(String destinationUrl) {
-        if (redirects.containsKey(destinationUrl)) {
-            redirects.put(destinationUrl, redirects.get(destinationUrl) + 1);
-        } else {
-            redirects.put(destinationUrl, 1L);
-        }
+    public void registerRedirect(String destinationUrl) {
+        redirects.add(destinationUrl);
     }
 
     public static String getIpFromChannel(Channel channel) {
         return ((InetSocketAddress) channel.remoteAddress()).getAddress().getHostAddress().replaceFirst("^/", "");
     }
 
+    public long getNumberOfRequests() {
+        return requests.sum();
+    }
+
+    public long getNumberOfErrors() {
+        return errors.sum();
+    }
+
+    public long getRequestsInFlight() {
+        return inFlight.sum();
+    }
+
+    public Collection<RouteMetric> getRoutes() {
+        return routes.values();
+    }
+
     public List<List<String>> getIpRequestsAsStrings() {
-        List<List<String>> list = CollectionKit.newArrayList();
-        ipRequests.forEach((ip, info) -> {
-            List<String> s = Arrays.asList(ip, info.count() + "", DateKit.toString(info.time()));
-            list.add(s);
-        });
-        return list;
+        return asStrings(ipRequests.top());
+    }
+
+    public List<List<String>> getUriRequestsAsStrings() {
+        return asStrings(uriRequests.top());
     }
 
     public List<List<String>> getRedirectsAsStrings() {
+        return asStrings(redirects.top());
+    }
+
+    /**
+     * @return route, requests, errors, mean, p50, p90, p99 and max latency in milliseconds
+     */
+    public List<List<String>> getRoutesAsStrings() {
         List<List<String>> list = CollectionKit.newArrayList();
-        redirects.forEach((url, count) -> {
-            List<String> s = Arrays.asList(url, count.toString());
-            list.add(s);
+        routes.values().forEach(route -> {
+            LatencyHistogram latency = route.latency();
+            list.add(Arrays.asList(route.name(), route.count() + "", route.errors() + "",
+                    millis(latency.mean()), millis(latency.percentile(50)), millis(latency.percentile(90)),
+                    millis(latency.percentile(99)), millis(latency.max())));
         });
         return list;
     }
@@ -102,8 +164,34 @@ public class WebStatistics implements Serializable {
         return list;
     }
 
-    public long getNumberOfUniqueRequests() {
-        return ipRequests.size();
+    /**
+     * @return the metrics as maps and lists, for a machine readable endpoint
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("requests", getNumberOfRequests());
+        snapshot.put("errors", getNumberOfErrors());
+        snapshot.put("inFlight", getRequestsInFlight());
+        snapshot.put("connections", getConnectionCount());
+        List<Map<String, Object>> routeList = new ArrayList<>();
+        routes.values().forEach(route -> {
+            LatencyHistogram latency = route.latency();
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("route", route.name());
+            item.put("requests", route.count());
+            item.put("errors", route.errors());
+            item.put("meanMicros", Math.round(latency.mean()));
+            item.put("p50Micros", latency.percentile(50));
+            item.put("p90Micros", latency.percentile(90));
+            item.put("p99Micros", latency.percentile(99));
+            item.put("maxMicros", latency.max());
+            routeList.add(item);
+        });
+        snapshot.put("routes", routeList);
+        snapshot.put("topIps", ipRequests.top());
+        snapshot.put("topUris", uriRequests.top());
+        snapshot.put("redirects", redirects.top());
+        return snapshot;
     }
 
     public void addChannel(Channel c) {
@@ -114,55 +202,26 @@ public class WebStatistics implements Serializable {
         return channels.size();
     }
 
-    public synchronized void addConnectionInfo(Connection ci) {
-        /* Store no more than 16 entries */
-        if (connections.size() == 16) {
-            connections.remove(0);
+    public void addConnectionInfo(Connection ci) {
+        connections.addLast(ci);
+        // keep no more than 16 entries
+        while (connections.size() > MAX_CONNECTIONS) {
+            connections.pollFirst();
         }
-        connections.add(ci);
     }
 
-    public List<Connection> getConnections() {
+    public Collection<Connection> getConnections() {
         return connections;
     }
 
-    public void serialize() {
-        try (FileOutputStream fileOut = new FileOutputStream("WEB_STATISTICS.ser");
-             ObjectOutputStream out = new ObjectOutputStream(fileOut)) {
-            out.writeObject(this);
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-    }
-
-    @Override
-    public boolean equals(Object o) {
-        if (this == o)
-            return true;
-        if (o == null || getClass() != o.getClass())
-            return false;
-
-        WebStatistics that = (WebStatistics) o;
-
-        if (ipRequests != null ? !ipRequests.equals(that.ipRequests) : that.ipRequests != null)
-            return false;
-        if (redirects != null ? !redirects.equals(that.redirects) : that.redirects != null)
-            return false;
-        if (connections != null ? !connections.equals(that.connections) : that.connections != null)
-            return false;
-        if (channels != null ? !channels.equals(that.channels) : that.channels != null)
-            return false;
-
-        return true;
+    private static List<List<String>> asStrings(Map<String, Long> top) {
+        List<List<String>> list = CollectionKit.newArrayList();
+        top.forEach((key, count) -> list.add(Arrays.asList(key, count.toString())));
+        return list;
     }
 
-    @Override
-    public int hashCode() {
-        int result = ipRequests != null ? ipRequests.hashCode() : 0;
-        result = 31 * result + (redirects != null ? redirects.hashCode() : 0);
-        result = 31 * result + (connections != null ? connections.hashCode() : 0);
-        result = 31 * result + (channels != null ? channels.hashCode() : 0);
-        return result;
+    private static String millis(double micros) {
+        return String.format("%.3f", micros / 1000);
     }
 
 }
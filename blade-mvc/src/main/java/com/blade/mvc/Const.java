@@ -31,8 +31,11 @@ public interface Const {
     String ENV_KEY_DEV_MODE = "app.devMode";
     String ENV_KEY_APP_NAME = "app.name";
     String ENV_KEY_MONITOR_ENABLE = "app.monitor.enable";
+    String ENV_KEY_TRACE_ENABLE = "app.trace.enable";
+    String ENV_KEY_TRACE_SLOW_MILLIS = "app.trace.slowMillis";
 
     String ENV_KEY_GZIP_ENABLE = "http.gzip.enable";
+    String ENV_KEY_HTTP_MAX_CONTENT = "http.maxContent";
     String ENV_KEY_SESSION_KEY = "http.session.key";
     String ENV_KEY_SESSION_TIMEOUT = "http.session.timeout";
 
@@ -40,7 +43,22 @@ public interface Const {
     String ENV_KEY_PAGE_500 = "mvc.view.500";
     String ENV_KEY_STATIC_DIRS = "mvc.statics";
     String ENV_KEY_STATIC_LIST = "mvc.statics.list";
+    String ENV_KEY_STATIC_CACHE_ENABLE = "mvc.statics.cache.enable";
+    String ENV_KEY_STATIC_CACHE_SIZE = "mvc.statics.cache.size";
+    String ENV_KEY_STATIC_CACHE_ENTRIES = "mvc.statics.cache.entries";
+    String ENV_KEY_STATIC_CACHE_FILE_SIZE = "mvc.statics.cache.fileSize";
+    String ENV_KEY_STATIC_PRECOMPRESSED = "mvc.statics.precompressed";
+    String ENV_KEY_STATIC_COMPRESS_ENABLE = "mvc.statics.compress.enable";
+    String ENV_KEY_STATIC_COMPRESS_SIZE = "mvc.statics.compress.size";
+    String ENV_KEY_STATIC_COMPRESS_ENTRIES = "mvc.statics.compress.entries";
+    String ENV_KEY_STATIC_COMPRESS_FILE_SIZE = "mvc.statics.compress.fileSize";
+    String ENV_KEY_EXECUTOR_ENABLE = "mvc.executor.enable";
+    String ENV_KEY_EXECUTOR_THREADS = "mvc.executor.threads";
+    String ENV_KEY_EXECUTOR_QUEUE = "mvc.executor.queue";
+    String ENV_KEY_EXECUTOR_VIRTUAL = "mvc.executor.virtual";
     String ENV_KEY_TEMPLATE_PATH = "mvc.template.path";
+    String ENV_KEY_JSON_MAX_DEPTH = "mvc.json.maxDepth";
+    String ENV_KEY_JSON_MAX_SIZE = "mvc.json.maxSize";
 
     String ENV_KEY_SERVER_ADDRESS = "server.address";
     String ENV_KEY_SERVER_PORT = "server.port";
@@ -1,6 +1,8 @@
 package com.blade.mvc;
 
 import com.blade.Blade;
+import com.blade.metric.Phase;
+import com.blade.metric.RequestTrace;
 import com.blade.mvc.http.Request;
 import com.blade.mvc.http.Response;
 import io.netty.util.concurrent.FastThreadLocal;
@@ -21,12 +23,18 @@ public class WebContextHolder {
 
 	private Request request;
 	private Response response;
+	private RequestTrace trace;
 
 	public WebContextHolder(Request request, Response response) {
 		this.request = request;
 		this.response = response;
 	}
 
+	public WebContextHolder(Request request, Response response, RequestTrace trace) {
+		this(request, response);
+		this.trace = trace;
+	}
+
 	public static void set(WebContextHolder webContext) {
 		fastThreadLocal.set(webContext);
 	}
@@ -49,6 +57,16 @@ public class WebContextHolder {
 		return null != webContext ? webContext.response : null;
 	}
 
+	/**
+	 * Time the current request in the given phase, if it is traced
+	 *
+	 * @return the phase to go back to, null if the request is not traced
+	 */
+	public static Phase trace(Phase phase) {
+		WebContextHolder webContext = get();
+		return null != webContext && null != webContext.trace ? webContext.trace.enter(phase) : null;
+	}
+
 	public static void init(Blade blade_, String contextPath_, boolean ssl_) {
 		blade = blade_;
 		contextPath = contextPath_;
@@ -1,5 +1,7 @@
 package com.blade.mvc.annotation;
 
+import com.blade.mvc.route.Dispatch;
+
 import java.lang.annotation.*;
 
 /**
@@ -22,4 +24,9 @@ public @interface Path {
 
     boolean restful() default false;
 
+    /**
+     * @return where the routes of this controller are executed, DEFAULT follows {@code mvc.executor.enable}
+     */
+    Dispatch dispatch() default Dispatch.DEFAULT;
+
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.blade.mvc.annotation;
 
 import com.blade.mvc.http.HttpMethod;
+import com.blade.mvc.route.Dispatch;
 
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
@@ -40,4 +41,9 @@ public @interface Route {
 	 */
 	HttpMethod method() default HttpMethod.ALL;
 
+	/**
+	 * @return where the route is executed, DEFAULT follows the controller {@link Path}
+	 */
+	Dispatch dispatch() default Dispatch.DEFAULT;
+
 }
\ No newline at end of file
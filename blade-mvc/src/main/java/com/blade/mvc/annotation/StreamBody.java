@@ -0,0 +1,22 @@
+package com.blade.mvc.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * Stream the request body of a route instead of aggregating it in memory.
+ * <p>
+ * Multipart and form bodies are decoded while they arrive, other bodies are
+ * spooled to a temporary file once they outgrow a small memory buffer and can
+ * be read with {@link com.blade.mvc.http.Request#bodyStream()}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface StreamBody {
+
+    /**
+     * @return max body size in bytes, -1 for no limit
+     */
+    long maxSize() default -1;
+
+}
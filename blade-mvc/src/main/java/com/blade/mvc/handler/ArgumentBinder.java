@@ -0,0 +1,18 @@
+package com.blade.mvc.handler;
+
+import com.blade.mvc.http.Request;
+import com.blade.mvc.http.Response;
+
+/**
+ * Resolves one argument of a route method from the current request.
+ * <p>
+ * Binders are compiled by {@link MethodArgument#compile(java.lang.reflect.Method)}
+ * when the route is registered, with the parameter name, annotation values and
+ * conversion already looked up.
+ */
+@FunctionalInterface
+public interface ArgumentBinder {
+
+	Object bind(Request request, Response response) throws Exception;
+
+}
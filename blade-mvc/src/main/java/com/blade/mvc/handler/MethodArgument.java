@@ -2,6 +2,7 @@ package com.blade.mvc.handler;
 
 import com.blade.BladeException;
 import com.blade.kit.*;
+import com.blade.kit.ason.AsonReader;
 import com.blade.mvc.annotation.*;
 import com.blade.mvc.hook.Invoker;
 import com.blade.mvc.http.HttpSession;
@@ -11,188 +12,235 @@ import com.blade.mvc.http.Session;
 import com.blade.mvc.multipart.FileItem;
 import com.blade.mvc.ui.ModelAndView;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.lang.reflect.Parameter;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Optional;
 
+/**
+ * Resolves the arguments of route methods.
+ * <p>
+ * Each method is compiled once into an array of {@link ArgumentBinder}, one per
+ * parameter, so resolving the arguments of a request does no reflection.
+ */
 public final class MethodArgument {
 
+	private static final Logger log = LoggerFactory.getLogger(MethodArgument.class);
+
+	private static final ArgumentBinder[] NO_BINDERS = new ArgumentBinder[0];
+
+	private static final Map<Method, ArgumentBinder[]> BINDERS = CollectionKit.newConcurrentMap();
+
+	/**
+	 * Deepest nesting of a json {@link BodyParam}
+	 */
+	public static int BODY_MAX_DEPTH = AsonReader.DEFAULT_MAX_DEPTH;
+
+	/**
+	 * Largest json {@link BodyParam} in bytes
+	 */
+	public static int BODY_MAX_SIZE = 10 * 1024 * 1024;
+
 	public static Object[] getArgs(Request request, Response response, Method actionMethod) throws Exception {
-		actionMethod.setAccessible(true);
+		return getArgs(request, response, BINDERS.computeIfAbsent(actionMethod, MethodArgument::compile));
+	}
 
+	public static Object[] getArgs(Request request, Response response, ArgumentBinder[] binders) throws Exception {
+		Object[] args = new Object[binders.length];
+		for (int i = 0; i < binders.length; i++) {
+			args[i] = binders[i].bind(request, response);
+		}
+		return args;
+	}
+
+	/**
+	 * Compile the argument binders of a route method
+	 *
+	 * @param actionMethod route method
+	 * @return one binder per parameter
+	 */
+	public static ArgumentBinder[] compile(Method actionMethod) {
 		Parameter[] parameters = actionMethod.getParameters();
-		Object[] args = new Object[parameters.length];
-		String[] parameterNames = AsmKit.getMethodParamNames(actionMethod);
-
-		for (int i = 0, len = parameters.length; i < len; i++) {
-			Parameter parameter = parameters[i];
-			String paramName = parameterNames[i];
-			int annoLen = parameter.getAnnotations().length;
-			Class<?> argType = parameter.getType();
-			if (annoLen > 0) {
-				QueryParam queryParam = parameter.getAnnotation(QueryParam.class);
-				if (null != queryParam) {
-					args[i] = getQueryParam(argType, queryParam, paramName, request);
-				}
-				BodyParam bodyParam = parameter.getAnnotation(BodyParam.class);
-				if (null != bodyParam) {
-					args[i] = getBodyParam(argType, request);
-				}
-				PathParam pathParam = parameter.getAnnotation(PathParam.class);
-				if (null != pathParam) {
-					args[i] = getPathParam(argType, pathParam, paramName, request);
-					continue;
-				}
-				HeaderParam headerParam = parameter.getAnnotation(HeaderParam.class);
-				if (null != headerParam) {
-					args[i] = getHeader(argType, headerParam, paramName, request);
-					continue;
-				}
-				// cookie param
-				CookieParam cookieParam = parameter.getAnnotation(CookieParam.class);
-				if (null != cookieParam) {
-					args[i] = getCookie(argType, cookieParam, paramName, request);
-				}
-				// form multipart
-				MultipartParam multipartParam = parameter.getAnnotation(MultipartParam.class);
-				if (null != multipartParam && argType == FileItem.class) {
-					String name = StringKit.isBlank(multipartParam.value()) ? paramName : multipartParam.value();
-					args[i] = request.fileItem(name).orElse(null);
-				}
-			} else {
-				if (ClassKit.isPrimitive(argType)) {
-					args[i] = request.query(paramName);
-				} else {
-					if (argType == Invoker.class) {
-						args[i] = new Invoker(request, response);
-					} else if (argType == Request.class) {
-						args[i] = request;
-					} else if (argType == Response.class) {
-						args[i] = response;
-					} else if (argType == Session.class || argType == HttpSession.class) {
-						args[i] = request.session();
-					} else if (argType == FileItem.class) {
-						args[i] = new ArrayList<>(request.fileItems().values()).get(0);
-					} else if (argType == ModelAndView.class) {
-						args[i] = new ModelAndView();
-					} else if (argType == Map.class) {
-						args[i] = request.parameters();
-					} else {
-						args[i] = parseModel(argType, request, null);
-					}
-				}
+		if (parameters.length == 0) {
+			return NO_BINDERS;
+		}
+		actionMethod.setAccessible(true);
+		String[] parameterNames = parameterNames(actionMethod, parameters);
+		ArgumentBinder[] binders = new ArgumentBinder[parameters.length];
+		for (int i = 0; i < parameters.length; i++) {
+			binders[i] = binder(parameters[i], parameterNames[i]);
+		}
+		return binders;
+	}
+
+	/**
+	 * Parameter names from the -parameters metadata, else from the local variable table
+	 */
+	private static String[] parameterNames(Method actionMethod, Parameter[] parameters) {
+		String[] asmNames = null;
+		if (!parameters[0].isNamePresent()) {
+			try {
+				asmNames = AsmKit.getMethodParamNames(actionMethod);
+			} catch (IOException e) {
+				log.warn("Read parameter names of {} error", actionMethod, e);
 			}
 		}
-		return args;
+		String[] names = new String[parameters.length];
+		for (int i = 0; i < parameters.length; i++) {
+			names[i] = null != asmNames && null != asmNames[i] ? asmNames[i] : parameters[i].getName();
+		}
+		return names;
+	}
+
+	private static ArgumentBinder binder(Parameter parameter, String paramName) {
+		Class<?> argType = parameter.getType();
+		if (parameter.getAnnotations().length > 0) {
+			PathParam pathParam = parameter.getAnnotation(PathParam.class);
+			if (null != pathParam) {
+				return pathBinder(argType, pathParam, paramName);
+			}
+			HeaderParam headerParam = parameter.getAnnotation(HeaderParam.class);
+			if (null != headerParam) {
+				return headerBinder(argType, headerParam, paramName);
+			}
+			// form multipart
+			MultipartParam multipartParam = parameter.getAnnotation(MultipartParam.class);
+			if (null != multipartParam && argType == FileItem.class) {
+				String name = StringKit.isBlank(multipartParam.value()) ? paramName : multipartParam.value();
+				return (request, response) -> request.fileItem(name).orElse(null);
+			}
+			// cookie param
+			CookieParam cookieParam = parameter.getAnnotation(CookieParam.class);
+			if (null != cookieParam) {
+				return cookieBinder(argType, cookieParam, paramName);
+			}
+			BodyParam bodyParam = parameter.getAnnotation(BodyParam.class);
+			if (null != bodyParam) {
+				return bodyBinder(argType);
+			}
+			QueryParam queryParam = parameter.getAnnotation(QueryParam.class);
+			if (null != queryParam) {
+				return queryBinder(argType, queryParam, paramName);
+			}
+			return (request, response) -> null;
+		}
+
+		if (ClassKit.isPrimitive(argType)) {
+			return (request, response) -> getRequestParam(argType, request.query(paramName).orElse(null));
+		}
+		if (argType == Invoker.class) {
+			return Invoker::new;
+		} else if (argType == Request.class) {
+			return (request, response) -> request;
+		} else if (argType == Response.class) {
+			return (request, response) -> response;
+		} else if (argType == Session.class || argType == HttpSession.class) {
+			return (request, response) -> request.session();
+		} else if (argType == FileItem.class) {
+			return (request, response) -> request.fileItems().values().stream().findFirst().orElse(null);
+		} else if (argType == ModelAndView.class) {
+			return (request, response) -> new ModelAndView();
+		} else if (argType == Map.class) {
+			return (request, response) -> request.parameters();
+		}
+		return modelBinder(argType, null);
 	}
 
-	private static Object getBodyParam(Class<?> argType, Request request) throws BladeException {
+	private static ArgumentBinder bodyBinder(Class<?> argType) {
 		if (ClassKit.isPrimitive(argType)) {
-			return ClassKit.convert(argType, request.bodyToString());
-		} else {
-			String json = request.bodyToString();
-			return StringKit.isNotBlank(json) ? JsonKit.formJson(request.bodyToString(), argType) : null;
+			return (request, response) -> ClassKit.convert(argType, request.bodyToString());
 		}
+		return (request, response) -> AsonReader.read(request.body(), argType, BODY_MAX_DEPTH, BODY_MAX_SIZE);
 	}
 
-	private static Object getQueryParam(Class<?> argType, QueryParam queryParam, String paramName, Request request)
-			throws BladeException {
+	private static ArgumentBinder queryBinder(Class<?> argType, QueryParam queryParam, String paramName) {
 		String name = StringKit.isBlank(queryParam.name()) ? paramName : queryParam.name();
-
 		if (ClassKit.isPrimitive(argType)) {
-			Optional<String> val = request.query(name);
-			// boolean required = queryParam.required();
-			if (!val.isPresent()) {
-				val = Optional.of(queryParam.defaultValue());
-			}
-			return getRequestParam(argType, val.get());
+			String defaultValue = queryParam.defaultValue();
+			return (request, response) -> getRequestParam(argType, request.query(name).orElse(defaultValue));
 		}
-		return parseModel(argType, request, name);
+		return modelBinder(argType, name);
 	}
 
-	private static Object getCookie(Class<?> argType, CookieParam cookieParam, String paramName, Request request) {
+	private static ArgumentBinder cookieBinder(Class<?> argType, CookieParam cookieParam, String paramName) {
 		String cookieName = StringKit.isBlank(cookieParam.value()) ? paramName : cookieParam.value();
-		Optional<String> val = request.cookie(cookieName);
-		// boolean required = cookieParam.required();
-		if (!val.isPresent()) {
-			val = Optional.of(cookieParam.defaultValue());
-		}
-		return getRequestParam(argType, val.get());
+		String defaultValue = cookieParam.defaultValue();
+		return (request, response) -> getRequestParam(argType, request.cookie(cookieName).orElse(defaultValue));
 	}
 
-	private static Object getHeader(Class<?> argType, HeaderParam headerParam, String paramName, Request request) {
+	private static ArgumentBinder headerBinder(Class<?> argType, HeaderParam headerParam, String paramName) {
 		String key = StringKit.isBlank(headerParam.value()) ? paramName : headerParam.value();
-		String val = request.header(key);
+		String defaultValue = headerParam.defaultValue();
 		boolean required = headerParam.required();
-		if (StringKit.isBlank(val)) {
-			val = headerParam.defaultValue();
-		}
-		if (required && StringKit.isBlank(val)) {
-			throw new BladeException("header param [" + paramName + "] not is empty.");
-		}
-		return getRequestParam(argType, val);
+		return (request, response) -> {
+			String val = request.header(key);
+			if (StringKit.isBlank(val)) {
+				val = defaultValue;
+			}
+			if (required && StringKit.isBlank(val)) {
+				throw new BladeException("header param [" + key + "] not is empty.");
+			}
+			return getRequestParam(argType, val);
+		};
 	}
 
-	private static Object getPathParam(Class<?> argType, PathParam pathParam, String paramName, Request request) {
+	private static ArgumentBinder pathBinder(Class<?> argType, PathParam pathParam, String paramName) {
 		String name = StringKit.isBlank(pathParam.name()) ? paramName : pathParam.name();
-		String val = request.pathString(name);
-		if (StringKit.isBlank(val)) {
-			val = pathParam.defaultValue();
-		}
-		return getRequestParam(argType, val);
+		String defaultValue = pathParam.defaultValue();
+		return (request, response) -> {
+			String val = request.pathString(name);
+			if (StringKit.isBlank(val)) {
+				val = defaultValue;
+			}
+			return getRequestParam(argType, val);
+		};
 	}
 
-	private static Object parseModel(Class<?> argType, Request request, String name) {
-		try {
-			Field[] fields = argType.getDeclaredFields();
-			if (CollectionKit.isEmpty(fields)) {
-				return null;
-			}
-			Object obj = ClassKit.newInstance(argType);
-			boolean hasField = false;
-			for (Field field : fields) {
-				field.setAccessible(true);
-				if (field.getName().equals("serialVersionUID")) {
-					continue;
-				}
-				Optional<String> fieldValue = request.query(field.getName());
-				if (null != name) {
-					String fieldName = name + "[" + field.getName() + "]";
-					fieldValue = request.query(fieldName);
-				}
+	/**
+	 * Bind query parameters to the fields of a model, {@code name[field]} when the model is named
+	 */
+	private static ArgumentBinder modelBinder(Class<?> argType, String name) {
+		Field[] fields = Arrays.stream(argType.getDeclaredFields())
+				.filter(field -> !Modifier.isStatic(field.getModifiers()))
+				.toArray(Field[]::new);
+		if (fields.length == 0) {
+			return (request, response) -> null;
+		}
+		String[] keys = new String[fields.length];
+		for (int i = 0; i < fields.length; i++) {
+			fields[i].setAccessible(true);
+			keys[i] = null != name ? name + "[" + fields[i].getName() + "]" : fields[i].getName();
+		}
+		return (request, response) -> {
+			Object obj = null;
+			for (int i = 0; i < fields.length; i++) {
+				Optional<String> fieldValue = request.query(keys[i]);
 				if (fieldValue.isPresent()) {
-					Object value = ClassKit.convert(field.getType(), fieldValue.get());
-					field.set(obj, value);
-					hasField = true;
+					if (null == obj) {
+						obj = ClassKit.newInstance(argType);
+					}
+					fields[i].set(obj, ClassKit.convert(fields[i].getType(), fieldValue.get()));
 				}
 			}
-			return hasField ? obj : null;
-		} catch (Exception e) {
-			throw new BladeException(e);
-		}
+			return obj;
+		};
 	}
 
 	public static Object getRequestParam(Class<?> parameterType, String val) {
-		Object result = null;
 		if (parameterType.equals(String.class)) {
 			return val;
 		}
 		if (StringKit.isBlank(val)) {
-			if (parameterType.equals(int.class) || parameterType.equals(double.class)
-					|| parameterType.equals(long.class) || parameterType.equals(byte.class)
-					|| parameterType.equals(float.class)) {
-				result = 0;
-			}
-			if (parameterType.equals(boolean.class)) {
-				result = false;
-			}
-		} else {
-			result = ClassKit.convert(parameterType, val);
+			return ClassKit.defaultPrimitiveValue(parameterType);
 		}
-		return result;
+		return ClassKit.convert(parameterType, val);
 	}
 
 }
\ No newline at end of file
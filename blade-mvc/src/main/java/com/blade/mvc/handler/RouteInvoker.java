@@ -0,0 +1,102 @@
+package com.blade.mvc.handler;
+
+import com.blade.BladeException;
+import com.blade.mvc.annotation.JSON;
+import com.blade.mvc.annotation.Path;
+import com.blade.mvc.ui.ModelAndView;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Invokes a route method through a {@link MethodHandle} built at registration.
+ * <p>
+ * The handle is adapted once to {@code (Object target, Object[] args) -> Object},
+ * so a call is a single {@code invokeExact} the JIT can inline, without the
+ * access checks and argument copying of {@link Method#invoke}. How the return
+ * value is written to the response is decided at the same time.
+ */
+public final class RouteInvoker {
+
+	/**
+	 * How the return value of a route is written
+	 */
+	public enum Mode {
+		/**
+		 * {@link JSON} method or restful {@link Path}, serialized as json
+		 */
+		JSON,
+		/**
+		 * String return value, rendered as a view
+		 */
+		VIEW,
+		/**
+		 * {@link ModelAndView} return value, rendered
+		 */
+		MODEL_AND_VIEW,
+		/**
+		 * void or other return value, the route writes the response itself
+		 */
+		NONE
+	}
+
+	private final MethodHandle handle;
+	private final Mode mode;
+
+	/**
+	 * @param method         route method
+	 * @param controllerType class of the controller, read for {@link Path#restful()}
+	 */
+	public RouteInvoker(Method method, Class<?> controllerType) {
+		this.handle = spread(method);
+		this.mode = mode(method, controllerType);
+	}
+
+	/**
+	 * @param target controller, ignored for static methods
+	 * @param args   arguments, as many as the method has parameters
+	 * @return the return value, null for void methods
+	 */
+	public Object invoke(Object target, Object[] args) throws Throwable {
+		return (Object) handle.invokeExact(target, args);
+	}
+
+	public Mode mode() {
+		return mode;
+	}
+
+	private static MethodHandle spread(Method method) {
+		MethodHandle handle;
+		try {
+			method.setAccessible(true);
+			handle = MethodHandles.lookup().unreflect(method);
+		} catch (IllegalAccessException e) {
+			throw new BladeException(e);
+		}
+		if (Modifier.isStatic(method.getModifiers())) {
+			handle = MethodHandles.dropArguments(handle, 0, Object.class);
+		}
+		int parameterCount = method.getParameterCount();
+		return handle.asType(MethodType.genericMethodType(parameterCount + 1))
+				.asSpreader(Object[].class, parameterCount);
+	}
+
+	private static Mode mode(Method method, Class<?> controllerType) {
+		Path path = null != controllerType ? controllerType.getAnnotation(Path.class) : null;
+		if (null != method.getAnnotation(JSON.class) || (null != path && path.restful())) {
+			return Mode.JSON;
+		}
+		Class<?> returnType = method.getReturnType();
+		if (String.class == returnType) {
+			return Mode.VIEW;
+		}
+		if (ModelAndView.class == returnType) {
+			return Mode.MODEL_AND_VIEW;
+		}
+		return Mode.NONE;
+	}
+
+}
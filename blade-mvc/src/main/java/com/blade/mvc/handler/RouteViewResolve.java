@@ -3,17 +3,13 @@ package com.blade.mvc.handler;
 import com.blade.Blade;
 import com.blade.BladeException;
 import com.blade.ioc.Ioc;
-import com.blade.kit.ClassKit;
-import com.blade.mvc.annotation.JSON;
-import com.blade.mvc.annotation.Path;
+import com.blade.metric.Phase;
+import com.blade.mvc.WebContextHolder;
 import com.blade.mvc.http.Request;
 import com.blade.mvc.http.Response;
 import com.blade.mvc.route.RouteBean;
 import com.blade.mvc.ui.ModelAndView;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-
 public class RouteViewResolve {
 
     private Ioc ioc;
@@ -25,47 +21,34 @@ public class RouteViewResolve {
     }
 
     public boolean handle(Request request, Response response, RouteBean route) {
-        try {
-            Method actionMethod = route.getAction();
-            Object target = route.getTarget();
-            Class<?> returnType = actionMethod.getReturnType();
-
-            Path path = target.getClass().getAnnotation(Path.class);
-            JSON JSON = actionMethod.getAnnotation(JSON.class);
-            boolean isRestful = (null != JSON) || (null != path && path.restful());
-            if (isRestful && !request.userAgent().contains("MSIE")) {
-                response.contentType("application/json; charset=UTF-8");
-            }
-
-            int len = actionMethod.getParameterTypes().length;
-            Object[] args = len > 0 ? MethodArgument.getArgs(request, response, actionMethod) : new Object[]{};
-            Object returnParam = ClassKit.invokeMethod(target, actionMethod, args);
+        RouteInvoker invoker = invoker(route);
+        RouteInvoker.Mode mode = invoker.mode();
+        if (mode == RouteInvoker.Mode.JSON && !request.userAgent().contains("MSIE")) {
+            response.contentType("application/json; charset=UTF-8");
+        }
 
-            if (null != returnParam) {
-                if (isRestful) {
-                    response.json(returnParam);
-                } else if (String.class == returnType) {
-                    response.render(returnParam.toString());
-                } else if (ModelAndView.class == returnType) {
-                    response.render((ModelAndView) returnParam);
-                }
-                return true;
-            }
-        } catch (Exception e) {
-            Throwable t = e;
-            if (e instanceof InvocationTargetException) {
-                t = e.getCause();
-            }
-            if (t instanceof BladeException) {
-                throw (BladeException) t;
-            }
-            throw new BladeException(t);
+        Object returnParam = invoke(request, response, route, invoker, true);
+        if (null == returnParam) {
+            return false;
+        }
+        WebContextHolder.trace(Phase.RENDER);
+        switch (mode) {
+            case JSON:
+                response.json(returnParam);
+                break;
+            case VIEW:
+                response.render(returnParam.toString());
+                break;
+            case MODEL_AND_VIEW:
+                response.render((ModelAndView) returnParam);
+                break;
+            default:
+                break;
         }
-        return false;
+        return true;
     }
 
     public boolean invokeHook(Request request, Response response, RouteBean route) throws BladeException {
-        Method actionMethod = route.getAction();
         Object target = route.getTarget();
         if (null == target) {
             Class<?> clazz = route.getAction().getDeclaringClass();
@@ -74,21 +57,57 @@ public class RouteViewResolve {
         }
 
         // execute
-        int len = actionMethod.getParameterTypes().length;
-        try {
-            Object[] args = len > 0 ? MethodArgument.getArgs(request, response, actionMethod) : new Object[]{};
-            Object returnParam = ClassKit.invokeMethod(target, actionMethod, args);
+        Object returnParam = invoke(request, response, route, invoker(route), false);
+        if (returnParam instanceof Boolean) {
+            return (Boolean) returnParam;
+        }
+        return true;
+    }
 
-            if (null != returnParam) {
-                Class<?> returnType = returnParam.getClass();
-                if (returnType == Boolean.class || returnType == boolean.class) {
-                    return (Boolean) returnParam;
-                }
+    /**
+     * @param traced time binding and invoking apart, hooks are timed as a whole
+     */
+    private static Object invoke(Request request, Response response, RouteBean route, RouteInvoker invoker,
+                                 boolean traced) {
+        try {
+            if (traced) {
+                WebContextHolder.trace(Phase.BIND);
             }
-            return true;
-        } catch (Exception e) {
-            throw new BladeException(e);
+            Object[] args = MethodArgument.getArgs(request, response, binders(route));
+            if (traced) {
+                WebContextHolder.trace(Phase.INVOKE);
+            }
+            return invoker.invoke(route.getTarget(), args);
+        } catch (BladeException e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new BladeException(t);
+        }
+    }
+
+    /**
+     * Binders of routes not registered through RouteBuilder are compiled on first use
+     */
+    private static ArgumentBinder[] binders(RouteBean route) {
+        ArgumentBinder[] binders = route.getBinders();
+        if (null == binders) {
+            binders = MethodArgument.compile(route.getAction());
+            route.setBinders(binders);
+        }
+        return binders;
+    }
+
+    /**
+     * Invokers of routes not registered through RouteBuilder are built on first use
+     */
+    private static RouteInvoker invoker(RouteBean route) {
+        RouteInvoker invoker = route.getInvoker();
+        if (null == invoker) {
+            Class<?> controllerType = null != route.getTarget() ? route.getTarget().getClass() : route.getTargetType();
+            invoker = new RouteInvoker(route.getAction(), controllerType);
+            route.setInvoker(invoker);
         }
+        return invoker;
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,79 @@
+package com.blade.mvc.http;
+
+import io.netty.handler.codec.http.HttpHeaders;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * {@link java.util.Map} view of the Netty request headers, nothing is copied.
+ * Header names are case insensitive.
+ */
+final class HeaderMap extends AbstractMap<String, String> {
+
+    private final HttpHeaders headers;
+
+    HeaderMap(HttpHeaders headers) {
+        this.headers = headers;
+    }
+
+    @Override
+    public String get(Object name) {
+        return name instanceof CharSequence ? headers.get((CharSequence) name) : null;
+    }
+
+    @Override
+    public String getOrDefault(Object name, String defaultValue) {
+        String value = get(name);
+        return null != value ? value : defaultValue;
+    }
+
+    @Override
+    public boolean containsKey(Object name) {
+        return name instanceof CharSequence && headers.contains((CharSequence) name);
+    }
+
+    @Override
+    public String put(String name, String value) {
+        String old = headers.get(name);
+        headers.set(name, value);
+        return old;
+    }
+
+    @Override
+    public String remove(Object name) {
+        String old = get(name);
+        if (null != old) {
+            headers.remove((CharSequence) name);
+        }
+        return old;
+    }
+
+    @Override
+    public int size() {
+        return headers.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return headers.isEmpty();
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<Entry<String, String>>() {
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                return headers.iteratorAsString();
+            }
+
+            @Override
+            public int size() {
+                return headers.size();
+            }
+        };
+    }
+
+}
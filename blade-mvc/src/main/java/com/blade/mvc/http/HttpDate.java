@@ -0,0 +1,43 @@
+package com.blade.mvc.http;
+
+import com.blade.kit.DateKit;
+import io.netty.util.AsciiString;
+
+import java.util.Date;
+
+/**
+ * Value of the Date header, formatted at most once a second.
+ * <p>
+ * All threads, event loops as well as business threads, share the value of
+ * the current second: reading it is a single volatile read, and all responses
+ * of the same second reuse one {@link AsciiString}, which the encoder copies
+ * without converting chars. The second and its value are replaced together,
+ * so a reader never sees the value of another second.
+ */
+public final class HttpDate {
+
+    private static volatile HttpDate current = new HttpDate(-1, null);
+
+    private final long second;
+    private final AsciiString value;
+
+    private HttpDate(long second, AsciiString value) {
+        this.second = second;
+        this.value = value;
+    }
+
+    /**
+     * @return the current time, formatted for http headers
+     */
+    public static AsciiString now() {
+        long now = System.currentTimeMillis() / 1000;
+        HttpDate date = current;
+        if (date.second != now) {
+            // threads racing at the turn of a second format the same value
+            date = new HttpDate(now, new AsciiString(DateKit.gmtDate(new Date(now * 1000))));
+            current = date;
+        }
+        return date.value;
+    }
+
+}
@@ -5,20 +5,28 @@ import com.blade.kit.CollectionKit;
 import com.blade.kit.StringKit;
 import com.blade.mvc.multipart.FileItem;
 import com.blade.mvc.route.RouteBean;
+import com.blade.mvc.route.RouteMatch;
 import com.blade.server.SessionHandler;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.LastHttpContent;
 import io.netty.handler.codec.http.QueryStringDecoder;
 import io.netty.handler.codec.http.cookie.ServerCookieDecoder;
 import io.netty.handler.codec.http.multipart.*;
 import io.netty.util.CharsetUtil;
 
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketAddress;
 import java.net.URLConnection;
-import java.nio.file.Files;
 import java.util.*;
 
 /**
@@ -41,46 +49,135 @@ public class HttpRequest implements Request {
         DiskAttribute.baseDirectory = null; // system temp directory
     }
 
-    // private HttpPostRequestDecoder decoder;
     private SessionHandler sessionHandler;
+    private Session session;
     private RouteBean route;
 
+    private io.netty.handler.codec.http.HttpRequest nettyRequest;
+    private QueryStringDecoder queryDecoder;
+    private HttpPostRequestDecoder decoder;
+    // aggregated request whose form body is decoded on first access
+    private FullHttpRequest undecoded;
+    // streamed body which is not a form, spooled to disk when large
+    private Attribute bodyData;
+
     private ByteBuf body;
 
+    private SocketAddress remoteAddress;
     private String host;
     private String uri;
     private String url;
-    private String protocol;
     private String method;
-    // private String contextPath;
     private boolean keepAlive;
 
-    private Map<String, String> headers = CollectionKit.newHashMap();
-    private Map<String, Object> attrs = CollectionKit.newHashMap();
-    private Map<String, List<String>> parameters = CollectionKit.newHashMap();
-    private Map<String, String> pathParams = CollectionKit.newHashMap();
-    private Map<String, Cookie> cookies = CollectionKit.newHashMap();
-    private Map<String, FileItem> fileItems = CollectionKit.newHashMap();
+    // materialized on first access
+    private Map<String, String> headers;
+    private Map<String, Object> attrs;
+    private Map<String, List<String>> parameters;
+    private Map<String, String> pathParams = Collections.emptyMap();
+    private Map<String, Cookie> cookies;
+    private Map<String, FileItem> fileItems;
 
     private void init(FullHttpRequest fullHttpRequest) {
-        // headers
-        fullHttpRequest.headers().forEach((header) -> headers.put(header.getKey(), header.getValue()));
+        // body content, valid while the request is handled
+        this.body = fullHttpRequest.content();
+        if (isForm(fullHttpRequest) || HttpPostRequestDecoder.isMultipart(fullHttpRequest)) {
+            this.undecoded = fullHttpRequest;
+        }
+    }
 
-        // body content
-        this.body = fullHttpRequest.content().copy();
+    private Map<String, List<String>> queryParameters() {
+        if (null == parameters) {
+            parameters = CollectionKit.newHashMap();
+            parameters.putAll(queryDecoder.parameters());
+        }
+        return parameters;
+    }
+
+    private Map<String, FileItem> uploadedFiles() {
+        if (null == fileItems) {
+            fileItems = CollectionKit.newHashMap();
+        }
+        return fileItems;
+    }
+
+    /**
+     * Decode the form or multipart body of an aggregated request
+     */
+    private void decodeBody() {
+        if (null != undecoded) {
+            FullHttpRequest fullHttpRequest = this.undecoded;
+            this.undecoded = null;
+            this.decoder = new HttpPostRequestDecoder(HTTP_DATA_FACTORY, fullHttpRequest);
+            readDecodedData();
+        }
+    }
+
+    private Map<String, Cookie> parsedCookies() {
+        if (null == cookies) {
+            cookies = CollectionKit.newHashMap();
+            String cookie = nettyRequest.headers().get(HttpHeaderNames.COOKIE);
+            if (StringKit.isNotBlank(cookie)) {
+                ServerCookieDecoder.LAX.decode(cookie).forEach(this::parseCookie);
+            }
+        }
+        return cookies;
+    }
 
-        // request query parameters
-        this.parameters.putAll(new QueryStringDecoder(fullHttpRequest.uri(), CharsetUtil.UTF_8).parameters());
+    /**
+     * Feed a chunk of a streamed request body.
+     * Multipart and form bodies are decoded as they arrive, other bodies are
+     * kept in memory up to 16KB and spooled to a temporary file beyond.
+     *
+     * @param content body chunk, not retained
+     */
+    public void offer(HttpContent content) {
+        boolean last = content instanceof LastHttpContent;
+        if (null != decoder) {
+            decoder.offer(content);
+            readDecodedData();
+            return;
+        }
+        try {
+            if (null == bodyData) {
+                bodyData = HTTP_DATA_FACTORY.createAttribute(nettyRequest, "body");
+            }
+            bodyData.addContent(content.content().retain(), last);
+        } catch (IOException e) {
+            throw new BladeException(e);
+        }
+    }
 
-        if (!fullHttpRequest.method().name().equals("GET")) {
-            HttpPostRequestDecoder decoder = new HttpPostRequestDecoder(HTTP_DATA_FACTORY, fullHttpRequest);
-            decoder.getBodyHttpDatas().stream().forEach(this::parseData);
+    /**
+     * Write back the session, release the decoded body data and delete temporary files
+     */
+    public void destroy() {
+        if (null != session) {
+            sessionHandler.commit(session);
+            session = null;
+        }
+        undecoded = null;
+        if (null != fileItems) {
+            fileItems.values().forEach(FileItem::release);
+        }
+        if (null != decoder) {
+            decoder.destroy();
+            decoder = null;
+        }
+        if (null != bodyData) {
+            HTTP_DATA_FACTORY.cleanRequestHttpData(nettyRequest);
+            bodyData = null;
+            body = null;
         }
+    }
 
-        // cookies
-        String cookie = HttpHeaderNames.COOKIE.toString();
-        if (StringKit.isNotBlank(header(cookie))) {
-            ServerCookieDecoder.LAX.decode(header(cookie)).forEach(this::parseCookie);
+    private void readDecodedData() {
+        try {
+            while (decoder.hasNext()) {
+                parseData(decoder.next());
+            }
+        } catch (HttpPostRequestDecoder.EndOfDataDecoderException e) {
+            // all data decoded
         }
     }
 
@@ -91,7 +188,7 @@ public class HttpRequest implements Request {
                     Attribute attribute = (Attribute) data;
                     String name = attribute.getName();
                     String value = attribute.getValue();
-                    this.parameters.put(name, Arrays.asList(value));
+                    queryParameters().put(name, Arrays.asList(value));
                     break;
                 case FileUpload:
                     FileUpload fileUpload = (FileUpload) data;
@@ -107,24 +204,18 @@ public class HttpRequest implements Request {
         }
     }
 
-    private void parseFileUpload(FileUpload fileUpload) throws IOException {
+    private void parseFileUpload(FileUpload fileUpload) {
         if (fileUpload.isCompleted()) {
             String filename = fileUpload.getFilename();
             String contentType = StringKit.mimeType(filename);
             if (null == contentType) {
                 contentType = URLConnection.guessContentTypeFromName(filename);
             }
-            if (fileUpload.isInMemory()) {
-                FileItem fileItem = new FileItem(fileUpload.getName(), filename, contentType,
-                        fileUpload.length());
-                fileItem.data(fileUpload.getByteBuf().array());
-                fileItems.put(fileItem.name(), fileItem);
-            } else {
-                FileItem fileItem = new FileItem(fileUpload.getName(), filename, contentType,
-                        fileUpload.length());
-                byte[] bytes = Files.readAllBytes(fileUpload.getFile().toPath());
-                fileItem.data(bytes);
-                fileItems.put(fileItem.name(), fileItem);
+            // the item keeps the upload in its buffer or temporary file until the request is done
+            FileItem fileItem = new FileItem(fileUpload.getName(), filename, contentType, fileUpload);
+            FileItem old = uploadedFiles().put(fileItem.name(), fileItem);
+            if (null != old) {
+                old.release();
             }
         }
     }
@@ -146,10 +237,9 @@ public class HttpRequest implements Request {
     }
 
     @Override
-    public Request initPathParams(RouteBean route) {
-        this.route = route;
-        if (null != route.getPathParams())
-            this.pathParams = route.getPathParams();
+    public Request initPathParams(RouteMatch routeMatch) {
+        this.route = routeMatch.route();
+        this.pathParams = routeMatch.pathParams();
         return this;
     }
 
@@ -160,6 +250,10 @@ public class HttpRequest implements Request {
 
     @Override
     public String host() {
+        if (null == this.host) {
+            String remoteAddr = null != remoteAddress ? remoteAddress.toString() : null;
+            this.host = StringKit.isNotBlank(remoteAddr) ? remoteAddr.substring(1) : "Unknown";
+        }
         return this.host;
     }
 
@@ -175,7 +269,7 @@ public class HttpRequest implements Request {
 
     @Override
     public String protocol() {
-        return this.protocol;
+        return nettyRequest.protocolVersion().text();
     }
 
     @Override
@@ -190,6 +284,8 @@ public class HttpRequest implements Request {
 
     @Override
     public Map<String, List<String>> parameters() {
+        Map<String, List<String>> parameters = queryParameters();
+        decodeBody();
         return parameters;
     }
 
@@ -205,7 +301,10 @@ public class HttpRequest implements Request {
 
     @Override
     public Session session() {
-        return sessionHandler.createSession(this);
+        if (null == session) {
+            session = sessionHandler.createSession(this);
+        }
+        return session;
     }
 
     @Override
@@ -221,27 +320,36 @@ public class HttpRequest implements Request {
 
     @Override
     public Map<String, String> cookies() {
+        Map<String, Cookie> cookies = parsedCookies();
         Map<String, String> map = new HashMap<>(cookies.size());
-        this.cookies.forEach((name, cookie) -> map.put(name, cookie.value()));
+        cookies.forEach((name, cookie) -> map.put(name, cookie.value()));
         return map;
     }
 
     @Override
     public Optional<Cookie> cookieRaw(String name) {
-        return Optional.ofNullable(this.cookies.get(name));
+        return Optional.ofNullable(parsedCookies().get(name));
     }
 
     @Override
     public Request cookie(Cookie cookie) {
-        this.cookies.put(cookie.name(), cookie);
+        parsedCookies().put(cookie.name(), cookie);
         return this;
     }
 
     @Override
     public Map<String, String> headers() {
+        if (null == this.headers) {
+            this.headers = new HeaderMap(nettyRequest.headers());
+        }
         return this.headers;
     }
 
+    @Override
+    public String header(String name) {
+        return nettyRequest.headers().get(name, "");
+    }
+
     @Override
     public boolean keepAlive() {
         return this.keepAlive;
@@ -249,37 +357,90 @@ public class HttpRequest implements Request {
 
     @Override
     public Map<String, Object> attributes() {
+        if (null == this.attrs) {
+            this.attrs = CollectionKit.newHashMap();
+        }
         return this.attrs;
     }
 
     @Override
     public Map<String, FileItem> fileItems() {
-        return fileItems;
+        decodeBody();
+        return uploadedFiles();
     }
 
     @Override
     public ByteBuf body() {
+        if (null == this.body) {
+            try {
+                this.body = null != bodyData ? bodyData.getByteBuf() : Unpooled.EMPTY_BUFFER;
+            } catch (IOException e) {
+                throw new BladeException(e);
+            }
+        }
         return this.body;
     }
 
+    @Override
+    public InputStream bodyStream() {
+        if (null != bodyData && !bodyData.isInMemory()) {
+            try {
+                return new FileInputStream(bodyData.getFile());
+            } catch (IOException e) {
+                throw new BladeException(e);
+            }
+        }
+        return new ByteBufInputStream(body().duplicate());
+    }
+
     @Override
     public String bodyToString() {
-        return this.body.toString(CharsetUtil.UTF_8);
+        return body().toString(CharsetUtil.UTF_8);
     }
 
     public static HttpRequest build(ChannelHandlerContext ctx, FullHttpRequest fullHttpRequest,
                                     SessionHandler sessionHandler) {
+        HttpRequest httpRequest = create(ctx, fullHttpRequest, sessionHandler);
+        httpRequest.init(fullHttpRequest);
+        return httpRequest;
+    }
+
+    /**
+     * Build a request whose body is streamed, the body has to be fed with {@link #offer(HttpContent)}
+     *
+     * @param ctx            channel context
+     * @param nettyRequest   request line and headers
+     * @param sessionHandler session handler
+     * @return request without body
+     */
+    public static HttpRequest build(ChannelHandlerContext ctx, io.netty.handler.codec.http.HttpRequest nettyRequest,
+                                    SessionHandler sessionHandler) {
+        HttpRequest httpRequest = create(ctx, nettyRequest, sessionHandler);
+        if (HttpPostRequestDecoder.isMultipart(nettyRequest) || isForm(nettyRequest)) {
+            httpRequest.decoder = new HttpPostRequestDecoder(HTTP_DATA_FACTORY, nettyRequest);
+        }
+        return httpRequest;
+    }
+
+    private static HttpRequest create(ChannelHandlerContext ctx, io.netty.handler.codec.http.HttpRequest nettyRequest,
+                                      SessionHandler sessionHandler) {
         HttpRequest httpRequest = new HttpRequest();
         httpRequest.sessionHandler = sessionHandler;
-        httpRequest.keepAlive = HttpUtil.isKeepAlive(fullHttpRequest);
-        String remoteAddr = ctx.channel().remoteAddress().toString();
-        httpRequest.host = StringKit.isNotBlank(remoteAddr) ? remoteAddr.substring(1) : "Unknown";
-        httpRequest.uri = new QueryStringDecoder(fullHttpRequest.uri(), CharsetUtil.UTF_8).path();
-        httpRequest.url = new QueryStringDecoder(fullHttpRequest.uri(), CharsetUtil.UTF_8).uri();
-        httpRequest.protocol = fullHttpRequest.protocolVersion().text();
-        httpRequest.method = fullHttpRequest.method().name();
-        httpRequest.init(fullHttpRequest);
+        httpRequest.nettyRequest = nettyRequest;
+        httpRequest.keepAlive = HttpUtil.isKeepAlive(nettyRequest);
+        httpRequest.remoteAddress = ctx.channel().remoteAddress();
+        httpRequest.queryDecoder = new QueryStringDecoder(nettyRequest.uri(), CharsetUtil.UTF_8);
+        httpRequest.uri = httpRequest.queryDecoder.path();
+        httpRequest.url = nettyRequest.uri();
+        httpRequest.method = nettyRequest.method().name();
         return httpRequest;
     }
 
-}
\ No newline at end of file
+    private static boolean isForm(io.netty.handler.codec.http.HttpRequest nettyRequest) {
+        String contentType = nettyRequest.headers().get(HttpHeaderNames.CONTENT_TYPE);
+        return null != contentType && contentType.regionMatches(true, 0,
+                HttpHeaderValues.APPLICATION_X_WWW_FORM_URLENCODED.toString(), 0,
+                HttpHeaderValues.APPLICATION_X_WWW_FORM_URLENCODED.length());
+    }
+
+}
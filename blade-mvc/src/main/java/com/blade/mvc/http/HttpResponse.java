@@ -4,26 +4,27 @@ import com.blade.BladeException;
 import com.blade.kit.CollectionKit;
 import com.blade.kit.DateKit;
 import com.blade.kit.StringKit;
+import com.blade.kit.ason.AsonWriter;
+import com.blade.metric.Phase;
 import com.blade.metric.WebStatistics;
 import com.blade.mvc.Const;
 import com.blade.mvc.WebContextHolder;
 import com.blade.mvc.ui.ModelAndView;
 import com.blade.mvc.ui.template.TemplateEngine;
-import com.blade.server.ProgressiveFutureListener;
+import com.blade.server.FileSender;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.channel.DefaultFileRegion;
 import io.netty.handler.codec.http.*;
 import io.netty.handler.codec.http.cookie.Cookie;
 import io.netty.handler.codec.http.cookie.DefaultCookie;
 import io.netty.handler.codec.http.cookie.ServerCookieEncoder;
+import io.netty.util.AsciiString;
 
 import java.io.File;
-import java.io.RandomAccessFile;
-import java.io.StringWriter;
+import java.util.Date;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -39,6 +40,11 @@ import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
  */
 public class HttpResponse implements Response {
 
+    private static final AsciiString SERVER = new AsciiString("blade/" + Const.VERSION);
+    private static final AsciiString CONTENT_TYPE_HTML = new AsciiString(Const.CONTENT_TYPE_HTML);
+    private static final AsciiString CONTENT_TYPE_JSON = new AsciiString(Const.CONTENT_TYPE_JSON);
+    private static final AsciiString CONTENT_TYPE_TEXT = new AsciiString(Const.CONTENT_TYPE_TEXT);
+
     // private static final Logger log =
     // LoggerFactory.getLogger(HttpResponse.class);
 
@@ -47,8 +53,9 @@ public class HttpResponse implements Response {
     private String contentType = Const.CONTENT_TYPE_HTML;
     // private HttpResponseStatus status = HttpResponseStatus.OK;
     // private Object content = Unpooled.EMPTY_BUFFER;
-    private HttpHeaders headers = new DefaultHttpHeaders();
-    private Set<Cookie> cookies = CollectionKit.newHashSet();
+    // created when the first one is set
+    private HttpHeaders headers;
+    private Set<Cookie> cookies;
 
     private int statusCode = 200;
     private boolean isCommit;
@@ -82,6 +89,9 @@ public class HttpResponse implements Response {
 
     @Override
     public Map<String, String> headers() {
+        if (null == this.headers) {
+            return CollectionKit.newHashMap();
+        }
         Map<String, String> map = CollectionKit.newHashMap(this.headers.size());
         this.headers.forEach(header -> map.put(header.getKey(), header.getValue()));
         return map;
@@ -89,6 +99,9 @@ public class HttpResponse implements Response {
 
     @Override
     public Response header(String name, String value) {
+        if (null == this.headers) {
+            this.headers = new DefaultHttpHeaders();
+        }
         this.headers.set(name, value);
         return this;
     }
@@ -104,13 +117,13 @@ public class HttpResponse implements Response {
         }
         nettyCookie.setPath(cookie.path());
         nettyCookie.setHttpOnly(cookie.httpOnly());
-        this.cookies.add(nettyCookie);
+        this.cookieSet().add(nettyCookie);
         return this;
     }
 
     @Override
     public Response cookie(String name, String value) {
-        this.cookies.add(new io.netty.handler.codec.http.cookie.DefaultCookie(name, value));
+        this.cookieSet().add(new io.netty.handler.codec.http.cookie.DefaultCookie(name, value));
         return this;
     }
 
@@ -119,7 +132,7 @@ public class HttpResponse implements Response {
         Cookie nettyCookie = new DefaultCookie(name, value);
         nettyCookie.setPath("/");
         nettyCookie.setMaxAge(maxAge);
-        this.cookies.add(nettyCookie);
+        this.cookieSet().add(nettyCookie);
         return this;
     }
 
@@ -129,7 +142,7 @@ public class HttpResponse implements Response {
         nettyCookie.setPath("/");
         nettyCookie.setMaxAge(maxAge);
         nettyCookie.setSecure(secured);
-        this.cookies.add(nettyCookie);
+        this.cookieSet().add(nettyCookie);
         return this;
     }
 
@@ -139,12 +152,15 @@ public class HttpResponse implements Response {
         nettyCookie.setMaxAge(maxAge);
         nettyCookie.setSecure(secured);
         nettyCookie.setPath(path);
-        this.cookies.add(nettyCookie);
+        this.cookieSet().add(nettyCookie);
         return this;
     }
 
     @Override
     public Response removeCookie(String name) {
+        if (null == this.cookies) {
+            return this;
+        }
         Optional<Cookie> cookieOpt = this.cookies.stream().filter(cookie -> cookie.name().equals(name)).findFirst();
         cookieOpt.ifPresent(cookie -> {
             cookie.setValue("");
@@ -156,7 +172,9 @@ public class HttpResponse implements Response {
     @Override
     public Map<String, String> cookies() {
         Map<String, String> map = CollectionKit.newHashMap();
-        this.cookies.forEach(cookie -> map.put(cookie.name(), cookie.value()));
+        if (null != this.cookies) {
+            this.cookies.forEach(cookie -> map.put(cookie.name(), cookie.value()));
+        }
         return map;
     }
 
@@ -165,31 +183,25 @@ public class HttpResponse implements Response {
         if (null == file || !file.exists() || !file.isFile()) {
             throw new BladeException("please check the file is effective!");
         }
-        RandomAccessFile raf = new RandomAccessFile(file, "r");
-        long fileLength = raf.length();
         this.contentType = StringKit.mimeType(file.getName());
 
         io.netty.handler.codec.http.HttpResponse httpResponse = new DefaultHttpResponse(HTTP_1_1, OK);
-        HttpHeaders httpHeaders = httpResponse.headers().add(getDefaultHeader());
+        HttpHeaders httpHeaders = httpResponse.headers();
+        this.writeHeaders(httpHeaders);
 
-        boolean keepAlive = WebContextHolder.request().keepAlive();
+        Request request = WebContextHolder.request();
+        boolean keepAlive = request.keepAlive();
         if (keepAlive) {
             httpResponse.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
         }
         httpHeaders.set(HttpHeaderNames.CONTENT_TYPE, this.contentType);
         httpHeaders.set("Content-Disposition",
                 "attachment; filename=" + new String(fileName.getBytes("UTF-8"), "ISO8859_1"));
-        httpHeaders.set(HttpHeaderNames.CONTENT_LENGTH, fileLength);
-
-        // Write the initial line and the header.
-        ctx.write(httpResponse);
+        httpHeaders.set(HttpHeaderNames.LAST_MODIFIED, DateKit.gmtDate(new Date(file.lastModified())));
 
-        ChannelFuture sendFileFuture = ctx.write(new DefaultFileRegion(raf.getChannel(), 0, fileLength),
-                ctx.newProgressivePromise());
-        // Write the end marker.
-        ChannelFuture lastContentFuture = ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+        // Write the file, or the requested ranges of it
+        ChannelFuture lastContentFuture = FileSender.send(ctx, request, httpResponse, file, null);
 
-        sendFileFuture.addListener(ProgressiveFutureListener.build(raf));
         // Decide whether to close the connection or not.
         if (!keepAlive) {
             lastContentFuture.addListener(ChannelFutureListener.CLOSE);
@@ -199,9 +211,16 @@ public class HttpResponse implements Response {
 
     @Override
     public void render(ModelAndView modelAndView) {
-        StringWriter sw = new StringWriter();
-        templateEngine.render(modelAndView, sw);
-        ByteBuf buffer = Unpooled.wrappedBuffer(sw.toString().getBytes());
+        Phase previous = WebContextHolder.trace(Phase.RENDER);
+        ByteBuf buffer = ctx.alloc().buffer();
+        try {
+            templateEngine.render(modelAndView, buffer);
+        } catch (RuntimeException e) {
+            buffer.release();
+            throw e;
+        } finally {
+            WebContextHolder.trace(previous);
+        }
         FullHttpResponse response = new DefaultFullHttpResponse(Const.HTTP_VERSION,
                 HttpResponseStatus.valueOf(statusCode), buffer);
         this.send(response);
@@ -217,14 +236,46 @@ public class HttpResponse implements Response {
         }
     }
 
+    /**
+     * Stream the bean as json into a pooled buffer, without building a String first
+     */
+    @Override
+    public void json(Object bean) {
+        Phase previous = WebContextHolder.trace(Phase.RENDER);
+        ByteBuf content = ctx.alloc().buffer();
+        try {
+            AsonWriter.write(content, bean);
+        } catch (RuntimeException e) {
+            content.release();
+            throw e;
+        } finally {
+            WebContextHolder.trace(previous);
+        }
+        FullHttpResponse response = new DefaultFullHttpResponse(Const.HTTP_VERSION,
+                HttpResponseStatus.valueOf(statusCode()), content);
+        if (!WebContextHolder.request().isIE()) {
+            this.contentType(Const.CONTENT_TYPE_JSON);
+        }
+        this.send(response);
+    }
+
     @Override
     public boolean isCommit() {
         return isCommit;
     }
 
+    /**
+     * Encode the text straight into a pooled buffer
+     */
+    @Override
+    public void body(String data) {
+        this.body(ByteBufUtil.writeUtf8(ctx.alloc(), data));
+    }
+
     @Override
     public void send(FullHttpResponse response) {
-        response.headers().add(getDefaultHeader());
+        Phase previous = WebContextHolder.trace(Phase.WRITE);
+        this.writeHeaders(response.headers());
         boolean keepAlive = WebContextHolder.request().keepAlive();
         // Add 'Content-Length' header only for a keep-alive connection.
         response.headers().set(HttpHeaderNames.CONTENT_LENGTH, response.content().readableBytes());
@@ -235,14 +286,42 @@ public class HttpResponse implements Response {
             ctx.write(response);
         }
         isCommit = true;
+        WebContextHolder.trace(previous);
+    }
+
+    /**
+     * Headers set by the route, then the default ones, from cached values where possible
+     */
+    private void writeHeaders(HttpHeaders out) {
+        if (null != this.headers) {
+            out.add(this.headers);
+        }
+        out.set(HttpHeaderNames.DATE, HttpDate.now());
+        out.set(HttpHeaderNames.CONTENT_TYPE, contentTypeValue(this.contentType));
+        out.set(HttpHeaderNames.SERVER, SERVER);
+        if (null != this.cookies) {
+            this.cookies.forEach(cookie -> out.add(HttpHeaderNames.SET_COOKIE, ServerCookieEncoder.LAX.encode(cookie)));
+        }
     }
 
-    private HttpHeaders getDefaultHeader() {
-        headers.set(HttpHeaderNames.DATE, DateKit.gmtDate());
-        headers.set(HttpHeaderNames.CONTENT_TYPE, this.contentType);
-        headers.set(HttpHeaderNames.SERVER, "blade/" + Const.VERSION);
-        this.cookies.forEach(cookie -> headers.add(HttpHeaderNames.SET_COOKIE, ServerCookieEncoder.LAX.encode(cookie)));
-        return headers;
+    private static CharSequence contentTypeValue(String contentType) {
+        if (Const.CONTENT_TYPE_HTML.equals(contentType)) {
+            return CONTENT_TYPE_HTML;
+        }
+        if (Const.CONTENT_TYPE_JSON.equals(contentType)) {
+            return CONTENT_TYPE_JSON;
+        }
+        if (Const.CONTENT_TYPE_TEXT.equals(contentType)) {
+            return CONTENT_TYPE_TEXT;
+        }
+        return contentType;
+    }
+
+    private Set<Cookie> cookieSet() {
+        if (null == this.cookies) {
+            this.cookies = CollectionKit.newHashSet();
+        }
+        return this.cookies;
     }
 
     public static HttpResponse build(ChannelHandlerContext ctx, TemplateEngine templateEngine) {
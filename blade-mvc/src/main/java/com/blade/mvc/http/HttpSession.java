@@ -1,19 +1,34 @@
 package com.blade.mvc.http;
 
+import com.blade.kit.CollectionKit;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
+ * Session with thread-safe attributes. Stores that keep copies serialize it,
+ * attribute values then have to be {@link Serializable} as well.
+ *
  * @author biezhi 2017/5/31
  */
-public class HttpSession implements Session {
+public class HttpSession implements Session, Serializable {
+
+	private static final long serialVersionUID = 1L;
 
-	private Map<String, Object> attrs = new HashMap<>();
+	// written as plain entries, a serialized ConcurrentHashMap is around a kilobyte
+	private transient Map<String, Object> attrs = CollectionKit.newConcurrentMap();
 	private String id;
 	private String ip;
 	private long created;
 	private long expired;
 
+	// attributes changed since the session was loaded, see SessionManager#commit
+	private transient volatile boolean dirty;
+
 	public HttpSession(String id) {
 		this.id = id;
 	}
@@ -37,6 +52,7 @@ public class HttpSession implements Session {
 
 	public void setExpired(long expired) {
 		this.expired = expired;
+		this.dirty = true;
 	}
 
 	@SuppressWarnings("unchecked")
@@ -46,11 +62,23 @@ public class HttpSession implements Session {
 		return null != object ? (T) object : null;
 	}
 
+	/**
+	 * Set an attribute, a null value removes it
+	 */
 	@Override
 	public void attribute(String name, Object value) {
-		this.attrs.put(name, value);
+		if (null == value) {
+			this.attrs.remove(name);
+		} else {
+			this.attrs.put(name, value);
+		}
+		this.dirty = true;
 	}
 
+	/**
+	 * @return the live attributes, changes made through the map are not
+	 * written back to stores that keep copies
+	 */
 	@Override
 	public Map<String, Object> attributes() {
 		return attrs;
@@ -59,6 +87,7 @@ public class HttpSession implements Session {
 	@Override
 	public void removeAttribute(String name) {
 		this.attrs.remove(name);
+		this.dirty = true;
 	}
 
 	@Override
@@ -70,4 +99,30 @@ public class HttpSession implements Session {
 	public long expired() {
 		return this.expired;
 	}
+
+	public boolean isDirty() {
+		return dirty;
+	}
+
+	public void setDirty(boolean dirty) {
+		this.dirty = dirty;
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		Map<String, Object> attrs = new HashMap<>(this.attrs);
+		out.writeInt(attrs.size());
+		for (Map.Entry<String, Object> entry : attrs.entrySet()) {
+			out.writeUTF(entry.getKey());
+			out.writeObject(entry.getValue());
+		}
+	}
+
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		this.attrs = CollectionKit.newConcurrentMap();
+		for (int i = in.readInt(); i > 0; i--) {
+			this.attrs.put(in.readUTF(), in.readObject());
+		}
+	}
 }
@@ -1,5 +1,6 @@
 package com.blade.mvc.http;
 
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -9,8 +10,10 @@ import com.blade.kit.WebKit;
 import com.blade.mvc.WebContextHolder;
 import com.blade.mvc.multipart.FileItem;
 import com.blade.mvc.route.RouteBean;
+import com.blade.mvc.route.RouteMatch;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
 import io.netty.handler.codec.http.HttpHeaderNames;
 
 /**
@@ -21,9 +24,9 @@ import io.netty.handler.codec.http.HttpHeaderNames;
 public interface Request {
 
 	/**
-	 * init request path parameters
+	 * init request route and path parameters
 	 */
-	Request initPathParams(RouteBean route);
+	Request initPathParams(RouteMatch routeMatch);
 
 	RouteBean route();
 
@@ -401,6 +404,13 @@ public interface Request {
 	 */
 	ByteBuf body();
 
+	/**
+	 * @return Return request body as a stream
+	 */
+	default InputStream bodyStream() {
+		return new ByteBufInputStream(body().duplicate());
+	}
+
 	/**
 	 * @return return request body to string
 	 */
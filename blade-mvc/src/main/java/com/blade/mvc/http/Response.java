@@ -149,10 +149,8 @@ public interface Response {
      * @return Return Response
      */
     default void text(String text) {
-        FullHttpResponse response = new DefaultFullHttpResponse(Const.HTTP_VERSION,
-                HttpResponseStatus.valueOf(statusCode()), Unpooled.wrappedBuffer(text.getBytes(CharsetUtil.UTF_8)));
         this.contentType(Const.CONTENT_TYPE_TEXT);
-        this.send(response);
+        this.body(text);
     }
 
     /**
@@ -162,10 +160,8 @@ public interface Response {
      * @return Return Response
      */
     default void html(String html) {
-        FullHttpResponse response = new DefaultFullHttpResponse(Const.HTTP_VERSION,
-                HttpResponseStatus.valueOf(statusCode()), Unpooled.wrappedBuffer(html.getBytes(CharsetUtil.UTF_8)));
         this.contentType(Const.CONTENT_TYPE_HTML);
-        this.send(response);
+        this.body(html);
     }
 
     /**
@@ -175,12 +171,10 @@ public interface Response {
      * @return Return Response
      */
     default void json(String json) {
-        FullHttpResponse response = new DefaultFullHttpResponse(Const.HTTP_VERSION,
-                HttpResponseStatus.valueOf(statusCode()), Unpooled.wrappedBuffer(json.getBytes(CharsetUtil.UTF_8)));
         if (!WebContextHolder.request().isIE()) {
             this.contentType(Const.CONTENT_TYPE_JSON);
         }
-        this.send(response);
+        this.body(json);
     }
 
     /**
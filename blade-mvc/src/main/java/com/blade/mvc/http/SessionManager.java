@@ -1,38 +1,181 @@
 package com.blade.mvc.http;
 
 import com.blade.kit.CollectionKit;
+import com.blade.mvc.http.session.MemorySessionStore;
+import com.blade.mvc.http.session.SessionStore;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timer;
+import io.netty.util.concurrent.DefaultThreadFactory;
 
+import java.time.Instant;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
+ * Creates, finds and expires the sessions kept in a {@link SessionStore}.
+ * <p>
+ * Every session added is scheduled on a hashed timer wheel at its expiry, so
+ * abandoned sessions are removed even if their client never comes back;
+ * a session found expired on access is removed right away. Sessions the
+ * store evicts to make room are told to the expiry listener as well.
+ *
  * @author biezhi
  *         2017/6/3
  */
 public class SessionManager {
 
-    private Map<String, Session> sessionMap;
+    private final SessionStore store;
+    private volatile Consumer<Session> expiredListener;
+    private volatile Timer sweeper;
 
     public SessionManager() {
-        this.sessionMap = CollectionKit.newConcurrentMap();
+        this(new MemorySessionStore());
     }
 
+    public SessionManager(SessionStore store) {
+        this.store = store;
+        store.onEvicted(this::destroyed);
+        // sessions restored by a persistent store
+        if (store.size() > 0) {
+            for (String id : store.ids()) {
+                Session session = store.get(id);
+                if (null != session) {
+                    schedule(session);
+                }
+            }
+        }
+    }
+
+    public SessionStore store() {
+        return store;
+    }
+
+    /**
+     * @return a snapshot of the sessions in the store
+     */
     public Map<String, Session> getSessions() {
-        return sessionMap;
+        Map<String, Session> sessions = CollectionKit.newHashMap(store.size());
+        for (String id : store.ids()) {
+            Session session = store.get(id);
+            if (null != session) {
+                sessions.put(id, session);
+            }
+        }
+        return sessions;
     }
 
+    /**
+     * @param id session id
+     * @return the session, null if there is none or it expired
+     */
     public Session getSession(String id) {
-        return sessionMap.get(id);
+        Session session = store.get(id);
+        if (null != session && isExpired(session)) {
+            expire(session);
+            return null;
+        }
+        return session;
     }
 
     public void addSession(Session session) {
-        sessionMap.put(session.id(), session);
+        if (session instanceof HttpSession) {
+            ((HttpSession) session).setDirty(false);
+        }
+        store.save(session);
+        schedule(session);
+    }
+
+    /**
+     * Write back a session whose attributes changed during the request,
+     * for stores that keep copies
+     */
+    public void commit(Session session) {
+        if (session instanceof HttpSession) {
+            HttpSession httpSession = (HttpSession) session;
+            if (httpSession.isDirty() && !isExpired(session)) {
+                httpSession.setDirty(false);
+                store.save(session);
+            }
+        }
+    }
+
+    /**
+     * @param listener called with each session removed because it expired or was evicted
+     */
+    public void onExpired(Consumer<Session> listener) {
+        this.expiredListener = listener;
     }
 
     public void clear() {
-        sessionMap.clear();
+        store.clear();
     }
 
     public void remove(Session session) {
-        sessionMap.remove(session.id());
+        store.remove(session.id());
+    }
+
+    /**
+     * Stop the sweeper and close the store
+     */
+    public void close() {
+        Timer timer = this.sweeper;
+        if (null != timer) {
+            this.sweeper = null;
+            timer.stop();
+        }
+        store.close();
+    }
+
+    private void schedule(Session session) {
+        String id = session.id();
+        long delay = Math.max(session.expired() - Instant.now().getEpochSecond(), 0) + 1;
+        sweeper().newTimeout(timeout -> sweep(id), delay, TimeUnit.SECONDS);
     }
+
+    private void sweep(String id) {
+        Session session = store.get(id);
+        if (null == session) {
+            return;
+        }
+        if (isExpired(session)) {
+            expire(session);
+        } else {
+            // expiry was moved
+            schedule(session);
+        }
+    }
+
+    private void expire(Session session) {
+        store.remove(session.id());
+        destroyed(session);
+    }
+
+    private void destroyed(Session session) {
+        session.attributes().clear();
+        Consumer<Session> listener = this.expiredListener;
+        if (null != listener) {
+            listener.accept(session);
+        }
+    }
+
+    private boolean isExpired(Session session) {
+        return session.expired() <= Instant.now().getEpochSecond();
+    }
+
+    private Timer sweeper() {
+        Timer timer = this.sweeper;
+        if (null == timer) {
+            synchronized (this) {
+                timer = this.sweeper;
+                if (null == timer) {
+                    timer = new HashedWheelTimer(new DefaultThreadFactory("blade-session-sweeper", true),
+                            1, TimeUnit.SECONDS, 512);
+                    this.sweeper = timer;
+                }
+            }
+        }
+        return timer;
+    }
+
 }
@@ -0,0 +1,61 @@
+package com.blade.mvc.http.session;
+
+import com.blade.kit.CollectionKit;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-process stand-in for a shared {@link SessionBackend}.
+ * <p>
+ * Values are copied in and out like over the network, and dropped once they
+ * expire, so several {@link SharedSessionStore}s on one backend behave like
+ * nodes sharing a remote one. Meant for tests and single node setups.
+ */
+public class LocalSessionBackend implements SessionBackend {
+
+    private final Map<String, Entry> entries = CollectionKit.newConcurrentMap();
+
+    @Override
+    public byte[] get(String key) {
+        Entry entry = entries.get(key);
+        if (null == entry) {
+            return null;
+        }
+        if (entry.expireAt <= Instant.now().getEpochSecond()) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return Arrays.copyOf(entry.value, entry.value.length);
+    }
+
+    @Override
+    public void put(String key, byte[] value, long expireAt) {
+        entries.put(key, new Entry(Arrays.copyOf(value, value.length), expireAt));
+    }
+
+    @Override
+    public void remove(String key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public Set<String> keys() {
+        return Collections.unmodifiableSet(entries.keySet());
+    }
+
+    private static final class Entry {
+
+        private final byte[] value;
+        private final long expireAt;
+
+        private Entry(byte[] value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+
+}
@@ -0,0 +1,289 @@
+package com.blade.mvc.http.session;
+
+import com.blade.BladeException;
+import com.blade.kit.CollectionKit;
+import com.blade.mvc.http.Session;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Keeps serialized sessions off the heap in a memory-mapped file, so they
+ * survive a restart and do not add to the garbage collector's work.
+ * <p>
+ * The file is split in fixed size slots, one per session, each holding the
+ * length, the expiry and the serialized session. Only the id to slot index
+ * lives on the heap; it is rebuilt from the file on open, expired sessions
+ * are dropped then. When all slots are taken the oldest session is evicted.
+ * A session that does not fit in a slot is rejected.
+ */
+public class MappedSessionStore implements SessionStore {
+
+    public static final int DEFAULT_MAX_SESSIONS = 10000;
+    public static final int DEFAULT_SLOT_SIZE = 4096;
+
+    private static final int MAGIC = 0x626c6164;
+    private static final int HEADER_SIZE = 16;
+    // length, expiry
+    private static final int SLOT_HEADER_SIZE = 12;
+    private static final int LOCK_STRIPES = 64;
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final int maxSessions;
+    private final int slotSize;
+
+    private final Map<String, Integer> index = CollectionKit.newConcurrentMap();
+    private final Queue<String> order = new ConcurrentLinkedQueue<>();
+    // ids in the order queue, a session saved again after its removal keeps its place
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+    // ids in the order queue whose session was removed, purged once they outnumber the slots
+    private final AtomicInteger stale = new AtomicInteger();
+    private final Queue<Integer> free = new ConcurrentLinkedQueue<>();
+    private final Object[] locks = new Object[LOCK_STRIPES];
+    private volatile Consumer<Session> evictedListener;
+
+    public MappedSessionStore(String path) {
+        this(new File(path), DEFAULT_MAX_SESSIONS, DEFAULT_SLOT_SIZE);
+    }
+
+    /**
+     * Open or create a store
+     *
+     * @param file        backing file, reopened with the same layout after a restart
+     * @param maxSessions number of slots
+     * @param slotSize    bytes per slot, bounds the size of a serialized session
+     */
+    public MappedSessionStore(File file, int maxSessions, int slotSize) {
+        if ((long) maxSessions * slotSize + HEADER_SIZE > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A mapped session store is limited to 2GB");
+        }
+        this.maxSessions = maxSessions;
+        this.slotSize = slotSize;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        try {
+            this.file = new RandomAccessFile(file, "rw");
+            this.buffer = this.file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADER_SIZE + (long) maxSessions * slotSize);
+        } catch (IOException e) {
+            throw new BladeException("Can not map session store " + file, e);
+        }
+        if (buffer.getInt(0) == MAGIC) {
+            restore(file);
+        } else {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, maxSessions);
+            buffer.putInt(8, slotSize);
+            for (int slot = 0; slot < maxSessions; slot++) {
+                free.offer(slot);
+            }
+        }
+    }
+
+    private void restore(File file) {
+        if (buffer.getInt(4) != maxSessions || buffer.getInt(8) != slotSize) {
+            throw new BladeException("Session store " + file + " was created with " + buffer.getInt(4)
+                    + " slots of " + buffer.getInt(8) + " bytes");
+        }
+        long now = Instant.now().getEpochSecond();
+        List<Session> sessions = new ArrayList<>();
+        for (int slot = 0; slot < maxSessions; slot++) {
+            int base = base(slot);
+            int length = buffer.getInt(base);
+            Session session = null;
+            if (length > 0 && buffer.getLong(base + 4) > now) {
+                try {
+                    session = SessionCodec.decode(read(base, length));
+                } catch (BladeException e) {
+                    // classes of the attributes changed, drop the session
+                }
+            }
+            if (null == session) {
+                buffer.putInt(base, 0);
+                free.offer(slot);
+            } else {
+                index.put(session.id(), slot);
+                sessions.add(session);
+            }
+        }
+        sessions.sort(Comparator.comparingLong(Session::expired));
+        sessions.forEach(session -> {
+            order.offer(session.id());
+            queued.add(session.id());
+        });
+    }
+
+    @Override
+    public Session get(String id) {
+        Integer slot = index.get(id);
+        if (null == slot) {
+            return null;
+        }
+        byte[] data;
+        int base = base(slot);
+        synchronized (lock(slot)) {
+            int length = buffer.getInt(base);
+            if (length == 0) {
+                return null;
+            }
+            data = read(base, length);
+        }
+        Session session = SessionCodec.decode(data);
+        // the slot may have been handed to another session in the meantime
+        return id.equals(session.id()) ? session : null;
+    }
+
+    @Override
+    public void save(Session session) {
+        byte[] data = SessionCodec.encode(session);
+        if (data.length > slotSize - SLOT_HEADER_SIZE) {
+            throw new BladeException("Session " + session.id() + " takes " + data.length
+                    + " bytes, more than a slot of " + slotSize + " holds");
+        }
+        String id = session.id();
+        for (;;) {
+            Integer slot = index.get(id);
+            if (null == slot) {
+                slot = allocate(id);
+            }
+            int base = base(slot);
+            synchronized (lock(slot)) {
+                // the slot may have been freed and handed to another session since the lookup
+                if (!slot.equals(index.get(id))) {
+                    continue;
+                }
+                ByteBuffer target = buffer.duplicate();
+                target.position(base + SLOT_HEADER_SIZE);
+                target.put(data);
+                buffer.putLong(base + 4, session.expired());
+                buffer.putInt(base, data.length);
+                return;
+            }
+        }
+    }
+
+    private synchronized Integer allocate(String id) {
+        Integer slot = index.get(id);
+        if (null != slot) {
+            return slot;
+        }
+        while (null == (slot = free.poll())) {
+            String eldest = order.poll();
+            if (null == eldest) {
+                throw new BladeException("No free slot in the session store");
+            }
+            queued.remove(eldest);
+            evict(eldest);
+        }
+        index.put(id, slot);
+        if (queued.add(id)) {
+            order.offer(id);
+        }
+        return slot;
+    }
+
+    private void evict(String id) {
+        Consumer<Session> listener = this.evictedListener;
+        Session session = null;
+        if (null != listener) {
+            try {
+                session = get(id);
+            } catch (BladeException e) {
+                // classes of the attributes changed, nothing to tell
+            }
+        }
+        remove(id);
+        if (null != session) {
+            listener.accept(session);
+        }
+    }
+
+    @Override
+    public void remove(String id) {
+        Integer slot = index.remove(id);
+        if (null == slot) {
+            return;
+        }
+        synchronized (lock(slot)) {
+            buffer.putInt(base(slot), 0);
+        }
+        free.offer(slot);
+        if (stale.incrementAndGet() > maxSessions) {
+            purge();
+        }
+    }
+
+    private synchronized void purge() {
+        stale.set(0);
+        order.removeIf(id -> !index.containsKey(id) && queued.remove(id));
+    }
+
+    @Override
+    public void onEvicted(Consumer<Session> listener) {
+        this.evictedListener = listener;
+    }
+
+    @Override
+    public Set<String> ids() {
+        return Collections.unmodifiableSet(index.keySet());
+    }
+
+    @Override
+    public int size() {
+        return index.size();
+    }
+
+    @Override
+    public void clear() {
+        new ArrayList<>(index.keySet()).forEach(this::remove);
+    }
+
+    /**
+     * Flush the mapped file to disk. The mapping itself is released when the
+     * store is garbage collected.
+     */
+    @Override
+    public void close() {
+        buffer.force();
+        try {
+            file.close();
+        } catch (IOException e) {
+            throw new BladeException(e);
+        }
+    }
+
+    private byte[] read(int base, int length) {
+        byte[] data = new byte[length];
+        ByteBuffer source = buffer.duplicate();
+        source.position(base + SLOT_HEADER_SIZE);
+        source.get(data);
+        return data;
+    }
+
+    private int base(int slot) {
+        return HEADER_SIZE + slot * slotSize;
+    }
+
+    private Object lock(int slot) {
+        return locks[slot % LOCK_STRIPES];
+    }
+
+}
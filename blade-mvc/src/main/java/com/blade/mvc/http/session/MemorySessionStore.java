@@ -0,0 +1,93 @@
+package com.blade.mvc.http.session;
+
+import com.blade.kit.CollectionKit;
+import com.blade.mvc.http.Session;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the live session objects on the heap, the default store.
+ * <p>
+ * When the store is full the oldest session is evicted. Sessions are queued
+ * in the order they are added, which with a fixed timeout is also the order
+ * they expire in; ids of sessions removed in the meantime are dropped when
+ * they reach the head of the queue.
+ */
+public class MemorySessionStore implements SessionStore {
+
+    private final Map<String, Session> sessions = CollectionKit.newConcurrentMap();
+    private final Queue<String> order = new ConcurrentLinkedQueue<>();
+    private final int maxSessions;
+    private volatile Consumer<Session> evictedListener;
+
+    public MemorySessionStore() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param maxSessions most sessions kept
+     */
+    public MemorySessionStore(int maxSessions) {
+        this.maxSessions = maxSessions;
+    }
+
+    @Override
+    public Session get(String id) {
+        return sessions.get(id);
+    }
+
+    @Override
+    public void save(Session session) {
+        if (null == sessions.put(session.id(), session)) {
+            order.offer(session.id());
+            while (sessions.size() > maxSessions) {
+                String eldest = order.poll();
+                if (null == eldest) {
+                    break;
+                }
+                Session evicted = sessions.remove(eldest);
+                Consumer<Session> listener = this.evictedListener;
+                if (null != evicted && null != listener) {
+                    listener.accept(evicted);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onEvicted(Consumer<Session> listener) {
+        this.evictedListener = listener;
+    }
+
+    @Override
+    public void remove(String id) {
+        sessions.remove(id);
+        // drop ids of removed sessions at the head, keeps the queue as short as the store
+        String head;
+        while (null != (head = order.peek()) && !sessions.containsKey(head)) {
+            order.remove(head);
+        }
+    }
+
+    @Override
+    public Set<String> ids() {
+        return Collections.unmodifiableSet(sessions.keySet());
+    }
+
+    @Override
+    public int size() {
+        return sessions.size();
+    }
+
+    @Override
+    public void clear() {
+        sessions.clear();
+        order.clear();
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.blade.mvc.http.session;
+
+import java.util.Set;
+
+/**
+ * Key-value storage shared by the nodes of a cluster, e.g. a Redis or
+ * Memcached client, which the {@link SharedSessionStore} keeps serialized
+ * sessions in.
+ *
+ * @see LocalSessionBackend
+ */
+public interface SessionBackend {
+
+    /**
+     * @param key session id
+     * @return the stored value, null if there is none or it expired
+     */
+    byte[] get(String key);
+
+    /**
+     * @param key      session id
+     * @param value    serialized session
+     * @param expireAt epoch second after which the backend may drop the value
+     */
+    void put(String key, byte[] value, long expireAt);
+
+    void remove(String key);
+
+    /**
+     * @return keys of the values stored
+     */
+    Set<String> keys();
+
+}
@@ -0,0 +1,43 @@
+package com.blade.mvc.http.session;
+
+import com.blade.BladeException;
+import com.blade.mvc.http.Session;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+/**
+ * Java serialization of sessions for the stores that keep copies,
+ * attribute values have to be {@link Serializable}
+ */
+final class SessionCodec {
+
+    private SessionCodec() {
+    }
+
+    static byte[] encode(Session session) {
+        if (!(session instanceof Serializable)) {
+            throw new BladeException("Session " + session.getClass().getName() + " is not serializable");
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream oos = new ObjectOutputStream(out)) {
+            oos.writeObject(session);
+        } catch (IOException e) {
+            throw new BladeException(e);
+        }
+        return out.toByteArray();
+    }
+
+    static Session decode(byte[] data) {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            return (Session) ois.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new BladeException(e);
+        }
+    }
+
+}
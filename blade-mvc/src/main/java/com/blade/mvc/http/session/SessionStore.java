@@ -0,0 +1,59 @@
+package com.blade.mvc.http.session;
+
+import com.blade.mvc.http.Session;
+import com.blade.mvc.http.SessionManager;
+
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Where the {@link SessionManager} keeps its sessions.
+ * <p>
+ * Stores are bounded and evict on their own; expired sessions are removed by
+ * the manager. A store that keeps copies rather than the live objects, e.g.
+ * off-heap or on another node, gets changed sessions back through
+ * {@link #save(Session)} when the request ends.
+ *
+ * @see MemorySessionStore
+ * @see MappedSessionStore
+ * @see SharedSessionStore
+ */
+public interface SessionStore {
+
+    /**
+     * @param id session id
+     * @return the session, null if there is none
+     */
+    Session get(String id);
+
+    /**
+     * Add a session or write back a changed one
+     *
+     * @param session session
+     */
+    void save(Session session);
+
+    void remove(String id);
+
+    /**
+     * @return ids of the sessions in the store
+     */
+    Set<String> ids();
+
+    int size();
+
+    void clear();
+
+    /**
+     * @param listener called with each session the store evicts to make room
+     */
+    default void onEvicted(Consumer<Session> listener) {
+    }
+
+    /**
+     * Release the resources of the store, it is not used afterwards
+     */
+    default void close() {
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.blade.mvc.http.session;
+
+import com.blade.mvc.http.Session;
+
+import java.util.ArrayList;
+import java.util.Set;
+
+/**
+ * Keeps serialized sessions in a {@link SessionBackend} shared by several
+ * nodes, so a client can be served by any of them. The backend bounds and
+ * expires the entries itself.
+ */
+public class SharedSessionStore implements SessionStore {
+
+    private final SessionBackend backend;
+
+    public SharedSessionStore(SessionBackend backend) {
+        this.backend = backend;
+    }
+
+    @Override
+    public Session get(String id) {
+        byte[] data = backend.get(id);
+        return null != data ? SessionCodec.decode(data) : null;
+    }
+
+    @Override
+    public void save(Session session) {
+        backend.put(session.id(), SessionCodec.encode(session), session.expired());
+    }
+
+    @Override
+    public void remove(String id) {
+        backend.remove(id);
+    }
+
+    @Override
+    public Set<String> ids() {
+        return backend.keys();
+    }
+
+    @Override
+    public int size() {
+        return backend.keys().size();
+    }
+
+    @Override
+    public void clear() {
+        new ArrayList<>(backend.keys()).forEach(backend::remove);
+    }
+
+}
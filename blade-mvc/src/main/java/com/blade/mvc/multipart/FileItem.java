@@ -1,9 +1,29 @@
 package com.blade.mvc.multipart;
 
+import com.blade.BladeException;
 import com.blade.kit.ason.AsonIgnore;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.multipart.FileUpload;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 /**
  * HTTP multipart/form-data Request
+ * <p>
+ * An uploaded file stays where the decoder put it: in a buffer for small
+ * uploads, in a temporary file for large ones. It is only read into the heap
+ * when {@link #data()} is called, and is released when the request is done.
  *
  * @author <a href="mailto:biezhi.me@gmail.com" target="_blank">biezhi</a>
  * @since 1.5
@@ -18,6 +38,9 @@ public class FileItem {
     @AsonIgnore
     private byte[] data;
 
+    @AsonIgnore
+    private FileUpload upload;
+
     public FileItem(String name, String fileName, String contentType, long length) {
         this.name = name;
         this.fileName = fileName;
@@ -25,6 +48,14 @@ public class FileItem {
         this.length = length;
     }
 
+    /**
+     * @param upload decoded upload, retained by this item until {@link #release()}
+     */
+    public FileItem(String name, String fileName, String contentType, FileUpload upload) {
+        this(name, fileName, contentType, upload.length());
+        this.upload = upload.retain();
+    }
+
     public String name() {
         return name;
     }
@@ -41,7 +72,20 @@ public class FileItem {
         return length;
     }
 
+    /**
+     * Read the whole file into a byte array, prefer {@link #inputStream()},
+     * {@link #moveTo(Path)} or {@link #transferTo(WritableByteChannel)} for large files
+     *
+     * @return file content
+     */
     public byte[] data() {
+        if (null == data && null != upload) {
+            try {
+                data = upload.isInMemory() ? ByteBufUtil.getBytes(upload.getByteBuf()) : upload.get();
+            } catch (IOException e) {
+                throw new BladeException(e);
+            }
+        }
         return data;
     }
 
@@ -49,6 +93,107 @@ public class FileItem {
         this.data = data;
     }
 
+    /**
+     * @return whether the content is held in memory
+     */
+    public boolean isInMemory() {
+        return null == upload || upload.isInMemory();
+    }
+
+    /**
+     * @return the temporary file holding the content, null if it is held in memory
+     */
+    public File file() {
+        if (isInMemory()) {
+            return null;
+        }
+        try {
+            return upload.getFile();
+        } catch (IOException e) {
+            throw new BladeException(e);
+        }
+    }
+
+    /**
+     * @return the buffer holding the content, valid until the request is done
+     */
+    public ByteBuf byteBuf() throws IOException {
+        if (null == upload) {
+            return null != data ? Unpooled.wrappedBuffer(data) : null;
+        }
+        return upload.getByteBuf();
+    }
+
+    /**
+     * @return a stream over the content, read from the temporary file for large uploads
+     */
+    public InputStream inputStream() throws IOException {
+        if (!isInMemory()) {
+            return new FileInputStream(upload.getFile());
+        }
+        ByteBuf content = byteBuf();
+        return null != content ? new ByteBufInputStream(content.duplicate()) : null;
+    }
+
+    /**
+     * Move the content to a file. A temporary file is renamed when possible,
+     * a buffer is written with a file channel.
+     *
+     * @param target target file, replaced if it exists
+     */
+    public void moveTo(Path target) throws IOException {
+        if (null == upload) {
+            try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                transferTo(channel);
+            }
+            return;
+        }
+        if (!upload.renameTo(target.toFile())) {
+            throw new IOException("can not move upload " + fileName + " to " + target);
+        }
+    }
+
+    /**
+     * Write the content to a channel, a temporary file is transferred without
+     * passing through the heap
+     *
+     * @param target target channel
+     * @return bytes written
+     */
+    public long transferTo(WritableByteChannel target) throws IOException {
+        if (!isInMemory()) {
+            try (FileChannel channel = FileChannel.open(upload.getFile().toPath(), StandardOpenOption.READ)) {
+                long size = channel.size(), position = 0;
+                while (position < size) {
+                    position += channel.transferTo(position, size - position, target);
+                }
+                return position;
+            }
+        }
+        ByteBuf content = byteBuf();
+        if (null == content) {
+            return 0;
+        }
+        long written = 0;
+        for (ByteBuffer buffer : content.nioBuffers()) {
+            while (buffer.hasRemaining()) {
+                written += target.write(buffer);
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Release the upload, its temporary file is deleted unless it was moved
+     */
+    public void release() {
+        if (null != upload) {
+            upload.release();
+            upload = null;
+        }
+    }
+
     @Override
     public String toString() {
         long kb = length / 1024;
@@ -58,4 +203,4 @@ public class FileItem {
                 ", contentType='" + contentType + '\'' +
                 ", size=" + (kb < 1 ? 1 : kb) + "KB)";
     }
-}
\ No newline at end of file
+}
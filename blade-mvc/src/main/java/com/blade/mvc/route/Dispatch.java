@@ -0,0 +1,23 @@
+package com.blade.mvc.route;
+
+/**
+ * Where a route is executed
+ */
+public enum Dispatch {
+
+    /**
+     * Follow the global setting {@code mvc.executor.enable}
+     */
+    DEFAULT,
+
+    /**
+     * On the netty event loop that read the request, for handlers that never block
+     */
+    EVENT_LOOP,
+
+    /**
+     * On the business executor, for handlers that block on IO, locks or templates
+     */
+    EXECUTOR
+
+}
@@ -0,0 +1,145 @@
+package com.blade.mvc.route;
+
+import com.blade.kit.CollectionKit;
+import com.blade.kit.PathKit;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Ordered before/after hook chains of one hook type, resolved once.
+ * <p>
+ * Hook paths are compiled when the index is built, the chain of every
+ * registered route path is resolved up front, and chains of other request
+ * paths (parameterized routes, 404s) land in a small cache, emptied when it
+ * fills up so that it follows the paths currently requested.
+ */
+final class HookIndex {
+
+    static final RouteBean[] EMPTY = new RouteBean[0];
+
+    private static final int CACHE_SIZE = 1024;
+
+    private final RouteBean[] hooks;
+    private final PathRule[] rules;
+    private final boolean matchAll;
+
+    private final Map<String, RouteBean[]> index = CollectionKit.newHashMap();
+    private final ConcurrentHashMap<String, RouteBean[]> cache = CollectionKit.newConcurrentMap();
+
+    /**
+     * @param hooks      hooks sorted by execution order
+     * @param routePaths paths of the registered routes to resolve up front
+     */
+    HookIndex(List<RouteBean> hooks, Collection<String> routePaths) {
+        this.hooks = hooks.toArray(new RouteBean[hooks.size()]);
+        this.rules = new PathRule[this.hooks.length];
+        boolean all = true;
+        for (int i = 0; i < rules.length; i++) {
+            rules[i] = new PathRule(this.hooks[i].getPath());
+            all &= rules[i].matchAll;
+        }
+        this.matchAll = all;
+        if (!matchAll) {
+            routePaths.forEach(path -> index.put(path, resolve(path)));
+        }
+    }
+
+    /**
+     * Find the hooks to run for a request path, in execution order
+     *
+     * @param path request path
+     * @return hook chain, never null, must not be modified
+     */
+    RouteBean[] find(String path) {
+        if (matchAll) {
+            return hooks;
+        }
+        String cleanPath = PathKit.fixPath(path);
+        RouteBean[] chain = index.get(cleanPath);
+        if (null != chain) {
+            return chain;
+        }
+        chain = cache.get(cleanPath);
+        if (null != chain) {
+            return chain;
+        }
+        chain = resolve(cleanPath);
+        if (cache.size() >= CACHE_SIZE) {
+            cache.clear();
+        }
+        cache.put(cleanPath, chain);
+        return chain;
+    }
+
+    private RouteBean[] resolve(String path) {
+        List<RouteBean> chain = CollectionKit.newArrayList(hooks.length);
+        for (int i = 0; i < hooks.length; i++) {
+            if (rules[i].matches(path)) {
+                chain.add(hooks[i]);
+            }
+        }
+        return chain.isEmpty() ? EMPTY : chain.toArray(new RouteBean[chain.size()]);
+    }
+
+    /**
+     * Compiled hook path, matched case insensitively like the former
+     * {@code "(?i)" + routePath} regex. Plain paths and "prefix/.*" paths
+     * skip the regex engine.
+     */
+    private static final class PathRule {
+
+        private static final String WILDCARD = "/.*";
+
+        private final boolean matchAll;
+        private final String exact;
+        private final String prefix;
+        private final Pattern pattern;
+
+        PathRule(String routePath) {
+            String exact = null, prefix = null;
+            Pattern pattern = null;
+            if (WILDCARD.equals(routePath)) {
+                // every request path starts with a slash
+            } else if (isPlain(routePath)) {
+                exact = routePath;
+            } else if (routePath.endsWith(WILDCARD) && isPlain(routePath.substring(0, routePath.length() - 2))) {
+                prefix = routePath.substring(0, routePath.length() - 2);
+            } else {
+                String regex = routePath.replaceAll(PathKit.VAR_REGEXP, PathKit.VAR_REPLACE);
+                pattern = Pattern.compile(regex, Pattern.CASE_INSENSITIVE);
+            }
+            this.matchAll = null == exact && null == prefix && null == pattern;
+            this.exact = exact;
+            this.prefix = prefix;
+            this.pattern = pattern;
+        }
+
+        boolean matches(String path) {
+            if (matchAll) {
+                return true;
+            }
+            if (null != exact) {
+                return exact.equalsIgnoreCase(path);
+            }
+            if (null != prefix) {
+                return path.regionMatches(true, 0, prefix, 0, prefix.length());
+            }
+            return pattern.matcher(path).matches();
+        }
+
+        private static boolean isPlain(String path) {
+            for (int i = 0; i < path.length(); i++) {
+                if ("\\.[]{}()*+?^$|:".indexOf(path.charAt(i)) >= 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+    }
+
+}
@@ -1,11 +1,12 @@
 package com.blade.mvc.route;
 
-import com.blade.kit.CollectionKit;
 import com.blade.kit.PathKit;
+import com.blade.metric.RouteMetric;
+import com.blade.mvc.handler.ArgumentBinder;
+import com.blade.mvc.handler.RouteInvoker;
 import com.blade.mvc.http.HttpMethod;
 
 import java.lang.reflect.Method;
-import java.util.Map;
 
 public class RouteBean {
 
@@ -37,9 +38,34 @@ public class RouteBean {
 	private int sort = Integer.MAX_VALUE;
 
 	/**
-	 * Url path params
+	 * Whether the request body is streamed instead of aggregated
 	 */
-	private Map<String, String> pathParams = CollectionKit.newHashMap();
+	private boolean streamBody;
+
+	/**
+	 * Max streamed body size, -1 for no limit
+	 */
+	private long maxBodySize = -1;
+
+	/**
+	 * Where the route is executed
+	 */
+	private Dispatch dispatch = Dispatch.DEFAULT;
+
+	/**
+	 * Argument binders of the action, compiled on registration
+	 */
+	private ArgumentBinder[] binders;
+
+	/**
+	 * Invoker of the action, built on registration
+	 */
+	private RouteInvoker invoker;
+
+	/**
+	 * Request metrics of the route, looked up on its first request when the monitor is enabled
+	 */
+	private RouteMetric metric;
 
 	public RouteBean() {
 	}
@@ -89,14 +115,6 @@ public class RouteBean {
 		return targetType;
 	}
 
-	public Map<String, String> getPathParams() {
-		return pathParams;
-	}
-
-	public void setPathParams(Map<String, String> pathParams) {
-		this.pathParams = pathParams;
-	}
-
 	public int getSort() {
 		return sort;
 	}
@@ -105,6 +123,54 @@ public class RouteBean {
 		this.sort = sort;
 	}
 
+	public boolean isStreamBody() {
+		return streamBody;
+	}
+
+	public void setStreamBody(boolean streamBody) {
+		this.streamBody = streamBody;
+	}
+
+	public long getMaxBodySize() {
+		return maxBodySize;
+	}
+
+	public void setMaxBodySize(long maxBodySize) {
+		this.maxBodySize = maxBodySize;
+	}
+
+	public Dispatch getDispatch() {
+		return dispatch;
+	}
+
+	public void setDispatch(Dispatch dispatch) {
+		this.dispatch = dispatch;
+	}
+
+	public ArgumentBinder[] getBinders() {
+		return binders;
+	}
+
+	public void setBinders(ArgumentBinder[] binders) {
+		this.binders = binders;
+	}
+
+	public RouteInvoker getInvoker() {
+		return invoker;
+	}
+
+	public void setInvoker(RouteInvoker invoker) {
+		this.invoker = invoker;
+	}
+
+	public RouteMetric getMetric() {
+		return metric;
+	}
+
+	public void setMetric(RouteMetric metric) {
+		this.metric = metric;
+	}
+
 	@Override
 	public boolean equals(Object o) {
 		if (this == o)
@@ -126,8 +192,6 @@ public class RouteBean {
 			return false;
 		if (action != null ? !action.equals(route.action) : route.action != null)
 			return false;
-		if (pathParams != null ? !pathParams.equals(route.pathParams) : route.pathParams != null)
-			return false;
 
 		return true;
 	}
@@ -140,7 +204,6 @@ public class RouteBean {
 		result = 31 * result + (targetType != null ? targetType.hashCode() : 0);
 		result = 31 * result + (action != null ? action.hashCode() : 0);
 		result = 31 * result + sort;
-		result = 31 * result + (pathParams != null ? pathParams.hashCode() : 0);
 		return result;
 	}
 
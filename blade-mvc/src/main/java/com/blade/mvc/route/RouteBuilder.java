@@ -4,6 +4,9 @@ import com.blade.kit.CollectionKit;
 import com.blade.kit.ClassKit;
 import com.blade.mvc.annotation.Path;
 import com.blade.mvc.annotation.Route;
+import com.blade.mvc.annotation.StreamBody;
+import com.blade.mvc.handler.MethodArgument;
+import com.blade.mvc.handler.RouteInvoker;
 import com.blade.mvc.hook.Invoker;
 import com.blade.mvc.http.HttpMethod;
 import org.slf4j.Logger;
@@ -47,11 +50,13 @@ public class RouteBuilder {
 			return;
 
 		String nameSpace = null, suffix = null;
+		Dispatch dispatch = Dispatch.DEFAULT;
 
 		Path pathAnnotation = router.getAnnotation(Path.class);
 		if (null != pathAnnotation) {
 			nameSpace = pathAnnotation.value();
 			suffix = pathAnnotation.suffix();
+			dispatch = pathAnnotation.dispatch();
 		}
 
 		if (null == nameSpace) {
@@ -64,10 +69,16 @@ public class RouteBuilder {
 			if (null == mapping)
 				continue;
 			HttpMethod methodType = mapping.method();
+			StreamBody streamBody = method.getAnnotation(StreamBody.class);
 			String[] paths = mapping.values();
 			for (String path : paths) {
 				String pathV = getRoutePath(path, nameSpace, suffix);
-				this.buildRoute(router, controller, method, pathV, methodType);
+				RouteBean route = this.buildRoute(router, controller, method, pathV, methodType);
+				route.setDispatch(mapping.dispatch() != Dispatch.DEFAULT ? mapping.dispatch() : dispatch);
+				if (null != streamBody) {
+					route.setStreamBody(true);
+					route.setMaxBodySize(streamBody.maxSize());
+				}
 			}
 		}
 	}
@@ -93,9 +104,13 @@ public class RouteBuilder {
 	 *            route path
 	 * @param method
 	 *            route httpmethod
+	 * @return the route
 	 */
-	private void buildRoute(Class<?> clazz, Object controller, Method execMethod, String path, HttpMethod method) {
-		routeMatcher.addRoute(method, path, controller, clazz, execMethod);
+	private RouteBean buildRoute(Class<?> clazz, Object controller, Method execMethod, String path, HttpMethod method) {
+		RouteBean route = routeMatcher.addRoute(method, path, controller, clazz, execMethod);
+		route.setBinders(MethodArgument.compile(execMethod));
+		route.setInvoker(new RouteInvoker(execMethod, clazz));
+		return route;
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.blade.mvc.route;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Result of a route lookup, created for every request.
+ * <p>
+ * The {@link RouteBean} is shared by all requests of the route, so the path
+ * parameters of a request live here and never on the route itself.
+ */
+public final class RouteMatch {
+
+    private final RouteBean route;
+    private final Map<String, String> pathParams;
+
+    public RouteMatch(RouteBean route) {
+        this(route, Collections.emptyMap());
+    }
+
+    public RouteMatch(RouteBean route, Map<String, String> pathParams) {
+        this.route = route;
+        this.pathParams = pathParams;
+    }
+
+    public RouteBean route() {
+        return route;
+    }
+
+    /**
+     * @return path parameters of the request, in path order
+     */
+    public Map<String, String> pathParams() {
+        return pathParams;
+    }
+
+    @Override
+    public String toString() {
+        return route + "\t" + pathParams;
+    }
+
+}
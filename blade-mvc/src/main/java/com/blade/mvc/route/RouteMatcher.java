@@ -1,27 +1,21 @@
 package com.blade.mvc.route;
 
-import com.blade.BladeException;
 import com.blade.ioc.annotation.Order;
 import com.blade.kit.BladeKit;
 import com.blade.kit.ClassKit;
 import com.blade.kit.CollectionKit;
-import com.blade.kit.PathKit;
 import com.blade.mvc.hook.Invoker;
 import com.blade.mvc.hook.WebHook;
 import com.blade.mvc.http.HttpMethod;
 import com.blade.mvc.http.Request;
 import com.blade.mvc.http.Response;
+import io.netty.util.concurrent.FastThreadLocal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Method;
-import java.net.URI;
-import java.net.URISyntaxException;
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public class RouteMatcher {
 
@@ -29,6 +23,14 @@ public class RouteMatcher {
 
     private static final String METHOD_NAME = "handle";
 
+    // reusable parameter offsets of the current worker thread
+    private static final FastThreadLocal<int[]> PARAM_OFFSETS = new FastThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[16];
+        }
+    };
+
     // Storage URL and route
     private Map<String, RouteBean> routes = CollectionKit.newHashMap();
     private Map<String, List<RouteBean>> hooks = CollectionKit.newHashMap();
@@ -37,15 +39,12 @@ public class RouteMatcher {
     private Map<String, Method[]> classMethodsPool = CollectionKit.newConcurrentMap();
     private Map<Class<?>, Object> controllerPool = CollectionKit.newConcurrentMap();
 
-    private static final Pattern PATH_VARIABLE_PATTERN = Pattern.compile(":(\\w+)");
-    private static final String PATH_VARIABLE_REPLACE = "([^/]+)";
-
-    private Map<HttpMethod, Map<Integer, FastRouteMappingInfo>> regexRoutes = CollectionKit.newHashMap();
-
-    private Map<String, RouteBean> staticRoutes = CollectionKit.newHashMap();
-    private Map<HttpMethod, Pattern> regexRoutePatterns = CollectionKit.newHashMap();
-    private Map<HttpMethod, Integer> indexes = CollectionKit.newHashMap();
-    private Map<HttpMethod, StringBuilder> patternBuilders = CollectionKit.newHashMap();
+    // compiled by register(), replaced as a whole and never modified afterwards
+    private volatile RouteTrie routeTrie = RouteTrie.builder().build();
+    private volatile HookIndex beforeIndex = new HookIndex(Collections.emptyList(), Collections.emptyList());
+    private volatile HookIndex afterIndex = new HookIndex(Collections.emptyList(), Collections.emptyList());
+    private volatile boolean streamRoutes;
+    private volatile boolean executorRoutes;
 
     private RouteBean addRoute(HttpMethod httpMethod, String path, RouteHandler handler, String methodName)
             throws NoSuchMethodException {
@@ -96,86 +95,62 @@ public class RouteMatcher {
         }
     }
 
-    public RouteBean lookupRoute(String httpMethod, String path) {
-        path = parsePath(path);
-        String routeKey = path + '#' + httpMethod.toUpperCase();
-        RouteBean route = staticRoutes.get(routeKey);
-        if (null != route) {
-            return route;
-        }
-        route = staticRoutes.get(path + "#ALL");
-        if (null != route) {
-            return route;
+    /**
+     * Find the route of a request
+     *
+     * @param httpMethod request method
+     * @param path       request path
+     * @return the route and the path parameters of this request, null if not found
+     */
+    public RouteMatch lookupRoute(String httpMethod, String path) {
+        HttpMethod requestMethod;
+        try {
+            requestMethod = HttpMethod.valueOf(httpMethod.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
         }
 
-        Map<String, String> uriVariables = new LinkedHashMap<>();
-        HttpMethod requestMethod = HttpMethod.valueOf(httpMethod);
-        try {
-            Pattern pattern = regexRoutePatterns.get(requestMethod);
-            if (null == pattern) {
-                return null;
-            }
-            Matcher matcher = pattern.matcher(path);
-            boolean matched = matcher.matches();
-            if (!matched) {
-                requestMethod = HttpMethod.ALL;
-                pattern = regexRoutePatterns.get(requestMethod);
-                if (null == pattern) {
-                    return null;
-                }
-                matcher = pattern.matcher(path);
-                matched = matcher.matches();
-            }
-            if (matched) {
-                int i;
-                for (i = 1; matcher.group(i) == null; i++)
-                    ;
-                FastRouteMappingInfo mappingInfo = regexRoutes.get(requestMethod).get(i);
-                route = mappingInfo.getRoute();
+        RouteTrie trie = this.routeTrie;
+        int[] offsets = PARAM_OFFSETS.get();
+        if (offsets.length < trie.maxParams() * 2) {
+            offsets = new int[trie.maxParams() * 2];
+            PARAM_OFFSETS.set(offsets);
+        }
 
-                // find path variable
-                String uriVariable;
-                int j = 0;
-                while (++i <= matcher.groupCount() && (uriVariable = matcher.group(i)) != null) {
-                    uriVariables.put(mappingInfo.getVariableNames().get(j++), uriVariable);
-                }
-                route.setPathParams(uriVariables);
-                log.trace("lookup path: " + path + " uri variables: " + uriVariables);
-            }
-            return route;
-        } catch (Exception e) {
-            throw new BladeException(e);
+        RouteTrie.Endpoint endpoint = trie.match(requestMethod, path, offsets);
+        if (null == endpoint) {
+            return null;
+        }
+        String[] paramNames = endpoint.paramNames();
+        if (paramNames.length == 0) {
+            return new RouteMatch(endpoint.route());
+        }
+        Map<String, String> uriVariables = new LinkedHashMap<>(paramNames.length * 2);
+        for (int i = 0; i < paramNames.length; i++) {
+            uriVariables.put(paramNames[i], path.substring(offsets[i * 2], offsets[i * 2 + 1]));
         }
+        log.trace("lookup path: {} uri variables: {}", path, uriVariables);
+        return new RouteMatch(endpoint.route(), uriVariables);
     }
 
     /**
      * Find all in before of the hook
      *
      * @param path request path
+     * @return hooks in execution order, must not be modified
      */
-    public List<RouteBean> getBefore(String path) {
-        return get(path, HttpMethod.BEFORE);
+    public RouteBean[] getBefore(String path) {
+        return beforeIndex.find(path);
     }
 
     /**
      * Find all in after of the hooks
      *
      * @param path request path
+     * @return hooks in execution order, must not be modified
      */
-    public List<RouteBean> getAfter(String path) {
-        return get(path, HttpMethod.AFTER);
-    }
-
-    private List<RouteBean> get(String path, HttpMethod httpMethod) {
-        String cleanPath = parsePath(path);
-
-        List<RouteBean> routBeanList = hooks.values().stream().flatMap(routes -> routes.stream())
-                .sorted(Comparator.comparingInt(route -> route.getSort()))
-                .filter(route -> route.getHttpMethod() == httpMethod && matchesPath(route.getPath(), cleanPath))
-                .collect(Collectors.toList());
-
-        this.giveMatch(path, routBeanList);
-        return routBeanList;
+    public RouteBean[] getAfter(String path) {
+        return afterIndex.find(path);
     }
 
     public List<RouteBean> getMiddlewares() {
@@ -183,95 +158,42 @@ public class RouteMatcher {
     }
 
     /**
-     * Sort of path
-     *
-     * @param uri    request uri
-     * @param routes route list
-     */
-    private void giveMatch(final String uri, List<RouteBean> routes) {
-        routes.stream().sorted((o1, o2) -> {
-            if (o2.getPath().equals(uri)) {
-                return o2.getPath().indexOf(uri);
-            }
-            return -1;
-        });
-    }
-
-    /**
-     * Matching path
-     *
-     * @param routePath   route path
-     * @param pathToMatch match path
-     * @return return match is success
+     * @return whether a registered route streams its request body
      */
-    private boolean matchesPath(String routePath, String pathToMatch) {
-        routePath = routePath.replaceAll(PathKit.VAR_REGEXP, PathKit.VAR_REPLACE);
-        return pathToMatch.matches("(?i)" + routePath);
+    public boolean hasStreamRoutes() {
+        return streamRoutes;
     }
 
     /**
-     * Parse PathKit
-     *
-     * @param path route path
-     * @return return parsed path
+     * @return whether a registered route asks to be executed on the business executor
      */
-    private String parsePath(String path) {
-        path = PathKit.fixPath(path);
-        try {
-            URI uri = new URI(path);
-            return uri.getPath();
-        } catch (URISyntaxException e) {
-            log.error("parse [" + path + "] error", e);
-            return null;
-        }
+    public boolean hasExecutorRoutes() {
+        return executorRoutes;
     }
 
-    // a bad way
     public void register() {
         routes.values().forEach(route -> log.info("Add route => {}", route));
         hooks.values().forEach(route -> log.info("Add hook  => {}", route));
 
-        List<RouteBean> routeHandlers = CollectionKit.newArrayList(routes.values());
-        routeHandlers.addAll(hooks.values().stream().findAny().orElse(CollectionKit.newArrayList()));
+        RouteTrie.Builder builder = RouteTrie.builder();
+        routes.values().forEach(builder::add);
+        this.routeTrie = builder.build();
+        this.streamRoutes = routes.values().stream().anyMatch(RouteBean::isStreamBody);
+        this.executorRoutes = routes.values().stream().anyMatch(route -> route.getDispatch() == Dispatch.EXECUTOR);
+        log.debug("Route trie compiled with {} routes", routeTrie.size());
 
-        Stream.of(routes.values(), hooks.values().stream().findAny().orElse(CollectionKit.newArrayList())).flatMap(c -> c.stream())
-                .forEach(this::registerRoute);
-
-        patternBuilders.keySet().stream().filter(BladeKit::notIsWebHook).forEach(httpMethod -> {
-            StringBuilder patternBuilder = patternBuilders.get(httpMethod);
-            if (patternBuilder.length() > 1) {
-                patternBuilder.setCharAt(patternBuilder.length() - 1, '$');
-            }
-            log.debug("Fast Route Method: {}, regex: {}", httpMethod, patternBuilder);
-            regexRoutePatterns.put(httpMethod, Pattern.compile(patternBuilder.toString()));
-        });
+        List<String> staticPaths = routes.values().stream().map(RouteBean::getPath)
+                .filter(path -> path.indexOf(':') < 0 && path.indexOf('*') < 0)
+                .distinct().collect(Collectors.toList());
+        this.beforeIndex = new HookIndex(sortedHooks(HttpMethod.BEFORE), staticPaths);
+        this.afterIndex = new HookIndex(sortedHooks(HttpMethod.AFTER), staticPaths);
     }
 
-    public void registerRoute(RouteBean route) {
-        String path = parsePath(route.getPath());
-        Matcher matcher = PATH_VARIABLE_PATTERN.matcher(path);
-        boolean find = false;
-        List<String> uriVariableNames = CollectionKit.newArrayList();
-        while (matcher.find()) {
-            find = true;
-            String group = matcher.group(0);
-            uriVariableNames.add(group.substring(1)); // {id} -> id
-        }
-        HttpMethod httpMethod = route.getHttpMethod();
-        if (find || BladeKit.isWebHook(httpMethod)) {
-            if (regexRoutes.get(httpMethod) == null) {
-                regexRoutes.put(httpMethod, CollectionKit.newHashMap());
-                patternBuilders.put(httpMethod, new StringBuilder("^"));
-                indexes.put(httpMethod, 1);
-            }
-            int i = indexes.get(httpMethod);
-            regexRoutes.get(httpMethod).put(i, new FastRouteMappingInfo(route, uriVariableNames));
-            indexes.put(httpMethod, i + uriVariableNames.size() + 1);
-            patternBuilders.get(httpMethod).append("(").append(matcher.replaceAll(PATH_VARIABLE_REPLACE)).append(")|");
-        } else {
-            String routeKey = path + '#' + httpMethod.toString();
-            staticRoutes.putIfAbsent(routeKey, route);
-        }
+    private List<RouteBean> sortedHooks(HttpMethod httpMethod) {
+        return hooks.values().stream().flatMap(Collection::stream)
+                .filter(route -> route.getHttpMethod() == httpMethod)
+                .sorted(Comparator.comparingInt(RouteBean::getSort))
+                .collect(Collectors.toList());
     }
 
     public void clear() {
@@ -279,11 +201,11 @@ public class RouteMatcher {
         this.hooks.clear();
         this.classMethodsPool.clear();
         this.controllerPool.clear();
-        this.regexRoutePatterns.clear();
-        this.staticRoutes.clear();
-        this.regexRoutes.clear();
-        this.indexes.clear();
-        this.patternBuilders.clear();
+        this.routeTrie = RouteTrie.builder().build();
+        this.streamRoutes = false;
+        this.executorRoutes = false;
+        this.beforeIndex = new HookIndex(Collections.emptyList(), Collections.emptyList());
+        this.afterIndex = new HookIndex(Collections.emptyList(), Collections.emptyList());
     }
 
     public void initMiddlewares(List<WebHook> hooks) {
@@ -293,22 +215,4 @@ public class RouteMatcher {
         }).collect(Collectors.toList());
     }
 
-    private class FastRouteMappingInfo {
-        RouteBean route;
-        List<String> variableNames;
-
-        public FastRouteMappingInfo(RouteBean route, List<String> variableNames) {
-            this.route = route;
-            this.variableNames = variableNames;
-        }
-
-        public RouteBean getRoute() {
-            return route;
-        }
-
-        public List<String> getVariableNames() {
-            return variableNames;
-        }
-    }
-
 }
\ No newline at end of file
@@ -0,0 +1,321 @@
+package com.blade.mvc.route;
+
+import com.blade.BladeException;
+import com.blade.kit.CollectionKit;
+import com.blade.mvc.http.HttpMethod;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled prefix tree of routes, one node per path segment.
+ * <p>
+ * A segment is either static ({@code users}), a parameter with an optional
+ * literal prefix/suffix ({@code :id}, {@code :id.html}) or a wildcard
+ * ({@code .*}, {@code *}) which swallows the rest of the path.
+ * Static segments win over parameters, parameters over wildcards, and on every
+ * node the requested method wins over {@link HttpMethod#ALL}.
+ * <p>
+ * The tree is immutable once built, so it can be read by every worker thread
+ * without locking. Matching walks the path once and records parameter values as
+ * offsets into the path, nothing is allocated on a miss.
+ */
+public final class RouteTrie {
+
+    private static final int METHODS = HttpMethod.values().length;
+
+    private final Node root;
+    private final int maxParams;
+    private final int size;
+
+    private RouteTrie(Node root, int maxParams, int size) {
+        this.root = root;
+        this.maxParams = maxParams;
+        this.size = size;
+    }
+
+    /**
+     * @return the biggest number of path parameters of any route
+     */
+    public int maxParams() {
+        return maxParams;
+    }
+
+    /**
+     * @return number of routes in this tree
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Find the route of the path
+     *
+     * @param httpMethod request method
+     * @param path       request path, the query string is ignored
+     * @param offsets    receives start/end offsets of each parameter value,
+     *                   at least {@code maxParams() * 2} long
+     * @return matched endpoint, null if not found
+     */
+    public Endpoint match(HttpMethod httpMethod, String path, int[] offsets) {
+        int end = path.length();
+        for (int i = 0; i < end; i++) {
+            char c = path.charAt(i);
+            if (c == '?' || c == '#') {
+                end = i;
+                break;
+            }
+        }
+        return match(root, path, 0, end, httpMethod.ordinal(), offsets, 0);
+    }
+
+    private static Endpoint match(Node node, String path, int start, int end, int method, int[] offsets, int paramIndex) {
+        while (start < end && path.charAt(start) == '/') {
+            start++;
+        }
+        if (start >= end) {
+            Endpoint endpoint = node.endpoint(method);
+            if (null == endpoint && null != node.wildcard) {
+                endpoint = node.wildcard.endpoint(method);
+            }
+            return endpoint;
+        }
+
+        int segEnd = path.indexOf('/', start);
+        if (segEnd < 0 || segEnd > end) {
+            segEnd = end;
+        }
+
+        Node child = node.findStatic(path, start, segEnd);
+        if (null != child) {
+            Endpoint endpoint = match(child, path, segEnd, end, method, offsets, paramIndex);
+            if (null != endpoint) {
+                return endpoint;
+            }
+        }
+
+        for (Node param : node.params) {
+            int valueStart = start + param.prefix.length();
+            int valueEnd = segEnd - param.suffix.length();
+            if (valueStart >= valueEnd
+                    || !path.regionMatches(start, param.prefix, 0, param.prefix.length())
+                    || !path.regionMatches(valueEnd, param.suffix, 0, param.suffix.length())) {
+                continue;
+            }
+            offsets[paramIndex * 2] = valueStart;
+            offsets[paramIndex * 2 + 1] = valueEnd;
+            Endpoint endpoint = match(param, path, segEnd, end, method, offsets, paramIndex + 1);
+            if (null != endpoint) {
+                return endpoint;
+            }
+        }
+
+        if (null != node.wildcard) {
+            return node.wildcard.endpoint(method);
+        }
+        return null;
+    }
+
+    static int hash(String s, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + s.charAt(i);
+        }
+        return h;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * A route bound to a node, with the parameter names in path order
+     */
+    public static final class Endpoint {
+
+        private final RouteBean route;
+        private final String[] paramNames;
+
+        Endpoint(RouteBean route, String[] paramNames) {
+            this.route = route;
+            this.paramNames = paramNames;
+        }
+
+        public RouteBean route() {
+            return route;
+        }
+
+        public String[] paramNames() {
+            return paramNames;
+        }
+
+    }
+
+    private static final class Node {
+
+        private static final Node[] EMPTY = new Node[0];
+
+        private final String prefix;
+        private final String suffix;
+
+        // static children, sorted by segment hash
+        private int[] hashes;
+        private String[] segments;
+        private Node[] children;
+
+        private Node[] params = EMPTY;
+        private Node wildcard;
+        private Endpoint[] endpoints;
+
+        Node(String prefix, String suffix) {
+            this.prefix = prefix;
+            this.suffix = suffix;
+        }
+
+        Node findStatic(String path, int start, int end) {
+            if (null == hashes) {
+                return null;
+            }
+            int len = end - start;
+            int h = hash(path, start, end);
+            int i = Arrays.binarySearch(hashes, h);
+            if (i < 0) {
+                return null;
+            }
+            while (i > 0 && hashes[i - 1] == h) {
+                i--;
+            }
+            for (; i < hashes.length && hashes[i] == h; i++) {
+                String segment = segments[i];
+                if (segment.length() == len && path.regionMatches(start, segment, 0, len)) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Endpoint endpoint(int method) {
+            if (null == endpoints) {
+                return null;
+            }
+            Endpoint endpoint = endpoints[method];
+            return null != endpoint ? endpoint : endpoints[HttpMethod.ALL.ordinal()];
+        }
+
+    }
+
+    /**
+     * Collects routes and compiles them into a {@link RouteTrie}
+     */
+    public static final class Builder {
+
+        private final BuildNode root = new BuildNode("", "");
+        private int maxParams;
+        private int size;
+
+        private Builder() {
+        }
+
+        public Builder add(RouteBean route) {
+            return add(route.getHttpMethod(), route.getPath(), route);
+        }
+
+        public Builder add(HttpMethod httpMethod, String path, RouteBean route) {
+            BuildNode node = root;
+            List<String> paramNames = CollectionKit.newArrayList();
+            for (String segment : path.split("/")) {
+                if (segment.isEmpty()) {
+                    continue;
+                }
+                if (isWildcard(segment)) {
+                    if (null == node.wildcard) {
+                        node.wildcard = new BuildNode("", "");
+                    }
+                    node = node.wildcard;
+                    break;
+                }
+                int colon = segment.indexOf(':');
+                if (colon < 0) {
+                    node = node.statics.computeIfAbsent(segment, s -> new BuildNode("", ""));
+                    continue;
+                }
+                int nameEnd = colon + 1;
+                while (nameEnd < segment.length() && isWordChar(segment.charAt(nameEnd))) {
+                    nameEnd++;
+                }
+                if (nameEnd == colon + 1 || segment.indexOf(':', nameEnd) >= 0) {
+                    throw new BladeException("unsupported route path [" + path + "]");
+                }
+                String prefix = segment.substring(0, colon);
+                String suffix = segment.substring(nameEnd);
+                paramNames.add(segment.substring(colon + 1, nameEnd));
+                node = node.params.computeIfAbsent(prefix + ':' + suffix, k -> new BuildNode(prefix, suffix));
+            }
+            if (null == node.endpoints) {
+                node.endpoints = new Endpoint[METHODS];
+            }
+            node.endpoints[httpMethod.ordinal()] = new Endpoint(route, paramNames.toArray(new String[paramNames.size()]));
+            maxParams = Math.max(maxParams, paramNames.size());
+            size++;
+            return this;
+        }
+
+        public RouteTrie build() {
+            return new RouteTrie(compile(root), maxParams, size);
+        }
+
+        private static Node compile(BuildNode buildNode) {
+            Node node = new Node(buildNode.prefix, buildNode.suffix);
+            node.endpoints = buildNode.endpoints;
+            if (null != buildNode.wildcard) {
+                node.wildcard = compile(buildNode.wildcard);
+            }
+            if (!buildNode.params.isEmpty()) {
+                // longest literal first, so that ":id.json" is tried before ":id"
+                node.params = buildNode.params.values().stream()
+                        .sorted((a, b) -> (b.prefix.length() + b.suffix.length()) - (a.prefix.length() + a.suffix.length()))
+                        .map(Builder::compile).toArray(Node[]::new);
+            }
+            int size = buildNode.statics.size();
+            if (size > 0) {
+                String[] segments = buildNode.statics.keySet().toArray(new String[size]);
+                Arrays.sort(segments, (a, b) -> Integer.compare(a.hashCode(), b.hashCode()));
+                node.hashes = new int[size];
+                node.segments = segments;
+                node.children = new Node[size];
+                for (int i = 0; i < size; i++) {
+                    node.hashes[i] = segments[i].hashCode();
+                    node.children[i] = compile(buildNode.statics.get(segments[i]));
+                }
+            }
+            return node;
+        }
+
+        private static boolean isWildcard(String segment) {
+            return "*".equals(segment) || ".*".equals(segment) || "**".equals(segment);
+        }
+
+        private static boolean isWordChar(char c) {
+            return c == '_' || Character.isLetterOrDigit(c);
+        }
+
+    }
+
+    private static final class BuildNode {
+
+        private final String prefix;
+        private final String suffix;
+        private final Map<String, BuildNode> statics = CollectionKit.newHashMap();
+        private final Map<String, BuildNode> params = CollectionKit.newHashMap();
+        private BuildNode wildcard;
+        private Endpoint[] endpoints;
+
+        BuildNode(String prefix, String suffix) {
+            this.prefix = prefix;
+            this.suffix = suffix;
+        }
+
+    }
+
+}
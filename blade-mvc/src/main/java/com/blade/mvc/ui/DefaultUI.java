@@ -40,7 +40,8 @@ public interface DefaultUI {
         open_connections, requests, last_request,
         ip, no_completed_requests, dest_url, redirect_num,
         redirects, no_redirects, connections,
-        established, closed, sent, received, speed
+        established, closed, sent, received, speed,
+        errors, in_flight, routes, route, latency_ms, top_uris
     }
 
 
@@ -59,21 +60,50 @@ public interface DefaultUI {
             htmlCreator.startP().addBold(getKey(MonitorEnum.total_requests))
                     .add("：" + webStatistics.getNumberOfRequests()).endP();
 
-            htmlCreator.startP().addBold(getKey(MonitorEnum.unique_requests))
-                    .add("：" + webStatistics.getNumberOfUniqueRequests()).endP();
+            htmlCreator.startP().addBold(getKey(MonitorEnum.errors))
+                    .add("：" + webStatistics.getNumberOfErrors()).endP();
+
+            htmlCreator.startP().addBold(getKey(MonitorEnum.in_flight))
+                    .add("：" + webStatistics.getRequestsInFlight()).endP();
 
             htmlCreator.startP().addBold(getKey(MonitorEnum.open_connections))
                     .add("：" + webStatistics.getConnectionCount()).endP();
 
+            htmlCreator.hr();
+            htmlCreator.h2(getKey(MonitorEnum.routes));
+            List<List<String>> routes = webStatistics.getRoutesAsStrings();
+            if (routes.size() == 0) {
+                htmlCreator.paragraph(getKey(MonitorEnum.no_completed_requests));
+            } else {
+                String latency = getKey(MonitorEnum.latency_ms);
+                List<String> routesTableHeaders = Arrays.asList(getKey(MonitorEnum.route), getKey(MonitorEnum.requests),
+                        getKey(MonitorEnum.errors), latency + " mean", latency + " p50", latency + " p90",
+                        latency + " p99", latency + " max");
+                htmlCreator.addTableWithHeaders(routesTableHeaders);
+                routes.forEach(htmlCreator::addRowToTable);
+                htmlCreator.endTable();
+            }
+
             htmlCreator.hr();
             htmlCreator.h2(getKey(MonitorEnum.requests));
-            if (webStatistics.getIpRequestsAsStrings().size() == 0) {
+            List<List<String>> ipRequests = webStatistics.getIpRequestsAsStrings();
+            if (ipRequests.size() == 0) {
                 htmlCreator.paragraph(getKey(MonitorEnum.no_completed_requests));
             } else {
-                List<String> requestsTableHeaders = Arrays.asList(getKey(MonitorEnum.ip), getKey(MonitorEnum.requests),
-                        getKey(MonitorEnum.last_request));
+                List<String> requestsTableHeaders = Arrays.asList(getKey(MonitorEnum.ip), getKey(MonitorEnum.requests));
                 htmlCreator.addTableWithHeaders(requestsTableHeaders);
-                webStatistics.getIpRequestsAsStrings().forEach(htmlCreator::addRowToTable);
+                ipRequests.forEach(htmlCreator::addRowToTable);
+                htmlCreator.endTable();
+            }
+
+            htmlCreator.hr();
+            htmlCreator.h2(getKey(MonitorEnum.top_uris));
+            List<List<String>> uriRequests = webStatistics.getUriRequestsAsStrings();
+            if (uriRequests.size() == 0) {
+                htmlCreator.paragraph(getKey(MonitorEnum.no_completed_requests));
+            } else {
+                htmlCreator.addTableWithHeaders(Arrays.asList("URI", getKey(MonitorEnum.requests)));
+                uriRequests.forEach(htmlCreator::addRowToTable);
                 htmlCreator.endTable();
             }
 
@@ -103,6 +133,7 @@ public interface DefaultUI {
 
             response.html(htmlCreator.html());
         }));
+        blade.get("/blade/monitor.json", ((request, response) -> response.json(webStatistics.snapshot())));
     }
 
     String[] banner = {
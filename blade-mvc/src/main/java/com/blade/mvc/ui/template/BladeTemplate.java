@@ -3,10 +3,10 @@ package com.blade.mvc.ui.template;
 import com.blade.kit.CollectionKit;
 
 import java.io.IOException;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.nio.charset.Charset;
 import java.nio.file.Paths;
+import java.util.List;
 import java.util.Map;
 
 import static java.lang.Character.isDigit;
@@ -118,11 +118,17 @@ public class BladeTemplate {
         return this;
     }
 
+    public String fmt() {
+        return compile().render(arguments::get);
+    }
+
     /**
+     * Parse the template once, to render it many times
      */
-    public String fmt() {
+    public CompiledTemplate compile() {
 
-        final StringBuilder result = new StringBuilder(str.length());
+        final List<CompiledTemplate.Segment> segments = CollectionKit.newArrayList();
+        final StringBuilder text = new StringBuilder(str.length());
         final StringBuilder param = new StringBuilder(16);
 
         State state = State.FREE_TEXT;
@@ -134,9 +140,9 @@ public class BladeTemplate {
             state = nextState(state, i);
             switch (state) {
                 // In this state we just add the character to the
-                // resulting buffer. No need to perform any processing.
+                // current literal chunk. No need to perform any processing.
                 case FREE_TEXT: {
-                    result.append(chr);
+                    text.append(chr);
                     break;
                 }
                 // We identify '#'. We skip the following '{'.
@@ -150,9 +156,13 @@ public class BladeTemplate {
                     param.append(chr);
                     break;
                 }
-                // We append and replace the param with the correct value
+                // The literal chunk ends here, followed by the param
                 case PARAM_END: {
-                    appendParamValue(param, result);
+                    if (text.length() != 0) {
+                        segments.add(new CompiledTemplate.Literal(text.toString()));
+                        text.setLength(0);
+                    }
+                    segments.add(compileParam(param));
                     break;
                 }
                 // Escape character
@@ -161,8 +171,10 @@ public class BladeTemplate {
             }
             i++;
         }
-
-        return result.toString();
+        if (text.length() != 0) {
+            segments.add(new CompiledTemplate.Literal(text.toString()));
+        }
+        return new CompiledTemplate(segments);
     }
 
     // The method that is used to change the states depending on the index
@@ -185,39 +197,23 @@ public class BladeTemplate {
         }
     }
 
-    // This methods gets called when we want to obtain the value of the parameter
-    //
     // - The parameter can be a simple argument "#{intVal}" and in this case
-    // it is obtained directly from the arguments map.
+    // it is obtained directly from the arguments.
     //
     // - The parameter can be a method chain argument: "#{address.getLine1.getNumber}"
-    // in this case it is obtained by calling recursively the methods on the last obtained object
-    private void appendParamValue(StringBuilder param, StringBuilder result) {
-
-        if (param == null)
-            throw UncheckedTemplateException.invalidArgumentName(param);
-
-        // Object name is the parameter that should be found in the map.
+    // in this case it is obtained by calling the methods on the last obtained object
+    private static CompiledTemplate.Param compileParam(StringBuilder param) {
+        // Object name is the parameter that should be found in the arguments.
         // If it's followed by points, the points remain in the "param" buffer.
         final String objectName = takeUntilDotOrEnd(param);
-        final Object objectValue = arguments.get(objectName);
-
-
-        Object toAppend;
-        if (param.length() != 0) {
-            // If this is a chain object.method1.method2.method3
-            // we recurse
-            toAppend = valueInChain(objectValue, param);
-        } else {
-            // We evaluate if the obejct is an array
-            // If it's an array we print it nicely
-            toAppend = evaluateIfArray(objectValue);
+        final List<String> chain = CollectionKit.newArrayList();
+        while (param.length() != 0) {
+            chain.add(takeUntilDotOrEnd(param));
         }
-
-        result.append(toAppend);
+        return new CompiledTemplate.Param(objectName, chain);
     }
 
-    private static Object evaluateIfArray(Object o) {
+    static Object evaluateIfArray(Object o) {
         if (null != o && o.getClass().isArray())
             return arrayToString(o);
         return o;
@@ -260,34 +256,6 @@ public class BladeTemplate {
         return result;
     }
 
-    // Recursively obtain the value from the method chain by invoking the methods
-    // using reflection on the last object obtained.
-    private static Object valueInChain(Object object, StringBuilder paramBuffer) {
-
-        // When last obtained is null or when there are no more methods in the chain
-        // we stop
-        if (object == null || paramBuffer.length() == 0) {
-            return evaluateIfArray(object);
-        }
-
-        final String methodName = takeUntilDotOrEnd(paramBuffer);
-
-        Object newObject;
-        try {
-            // Try with the given method or with the getter as a fallback
-            Method method = getMethodOrGetter(object, methodName);
-
-            if (null == method)
-                return null;
-
-            newObject = method.invoke(object);
-            return valueInChain(newObject, paramBuffer);
-        } catch (IllegalAccessException | InvocationTargetException e) {
-            // Couldn't invoke the method
-            return null;
-        }
-    }
-
     public static Method getMethodOrGetter(Object object, String methodName) {
         Method method;
         try {
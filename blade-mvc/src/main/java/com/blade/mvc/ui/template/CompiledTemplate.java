@@ -0,0 +1,152 @@
+package com.blade.mvc.ui.template;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A {@link BladeTemplate} parsed once into literal chunks, kept encoded as
+ * UTF-8, and parameters. The getters of ${a.b} chains are looked up on first
+ * use and cached per class, so rendering neither parses nor searches methods.
+ * <p>
+ * Immutable apart from those caches, it is safe to share between threads.
+ */
+public class CompiledTemplate {
+
+    private final Segment[] segments;
+    private final int length;
+
+    CompiledTemplate(List<Segment> segments) {
+        this.segments = segments.toArray(new Segment[segments.size()]);
+        int length = 0;
+        for (Segment segment : segments) {
+            if (segment instanceof Literal) {
+                length += ((Literal) segment).text.length();
+            }
+        }
+        this.length = length;
+    }
+
+    public static CompiledTemplate compile(String template) {
+        return BladeTemplate.template(template).compile();
+    }
+
+    /**
+     * @param arguments value of a parameter name, e.g. a map's get
+     */
+    public String render(Function<String, Object> arguments) {
+        StringBuilder result = new StringBuilder(length + 16 * segments.length);
+        for (Segment segment : segments) {
+            segment.appendTo(result, arguments);
+        }
+        return result.toString();
+    }
+
+    /**
+     * Render as UTF-8 straight into the buffer
+     */
+    public void render(Function<String, Object> arguments, ByteBuf out) {
+        for (Segment segment : segments) {
+            segment.writeTo(out, arguments);
+        }
+    }
+
+    interface Segment {
+
+        void appendTo(StringBuilder result, Function<String, Object> arguments);
+
+        void writeTo(ByteBuf out, Function<String, Object> arguments);
+
+    }
+
+    static final class Literal implements Segment {
+
+        private final String text;
+        private final byte[] bytes;
+
+        Literal(String text) {
+            this.text = text;
+            this.bytes = text.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void appendTo(StringBuilder result, Function<String, Object> arguments) {
+            result.append(text);
+        }
+
+        @Override
+        public void writeTo(ByteBuf out, Function<String, Object> arguments) {
+            out.writeBytes(bytes);
+        }
+
+    }
+
+    static final class Param implements Segment {
+
+        private final String name;
+        private final String[] chain;
+        // last class seen at each step of the chain, with its getter
+        private final Accessor[] accessors;
+
+        Param(String name, List<String> chain) {
+            this.name = name;
+            this.chain = chain.toArray(new String[chain.size()]);
+            this.accessors = new Accessor[this.chain.length];
+        }
+
+        @Override
+        public void appendTo(StringBuilder result, Function<String, Object> arguments) {
+            result.append(value(arguments));
+        }
+
+        @Override
+        public void writeTo(ByteBuf out, Function<String, Object> arguments) {
+            Object value = value(arguments);
+            ByteBufUtil.writeUtf8(out, value instanceof CharSequence ? (CharSequence) value : String.valueOf(value));
+        }
+
+        private Object value(Function<String, Object> arguments) {
+            Object value = arguments.apply(name);
+            for (int i = 0; i < chain.length && null != value; i++) {
+                value = invoke(i, value);
+            }
+            return BladeTemplate.evaluateIfArray(value);
+        }
+
+        private Object invoke(int step, Object target) {
+            Accessor accessor = accessors[step];
+            if (null == accessor || accessor.type != target.getClass()) {
+                accessor = new Accessor(target.getClass(), BladeTemplate.getMethodOrGetter(target, chain[step]));
+                accessors[step] = accessor;
+            }
+            if (null == accessor.method) {
+                return null;
+            }
+            try {
+                return accessor.method.invoke(target);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                // Couldn't invoke the method
+                return null;
+            }
+        }
+
+    }
+
+    private static final class Accessor {
+
+        private final Class<?> type;
+        private final Method method;
+
+        Accessor(Class<?> type, Method method) {
+            this.type = type;
+            this.method = method;
+        }
+
+    }
+
+}
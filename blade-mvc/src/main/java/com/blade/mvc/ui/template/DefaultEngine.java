@@ -1,8 +1,13 @@
 package com.blade.mvc.ui.template;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.Writer;
-import java.util.Map;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 import com.blade.BladeException;
 import com.blade.kit.CollectionKit;
@@ -12,9 +17,14 @@ import com.blade.mvc.WebContextHolder;
 import com.blade.mvc.http.Request;
 import com.blade.mvc.http.Session;
 import com.blade.mvc.ui.ModelAndView;
+import io.netty.buffer.ByteBuf;
 
 /**
  * default template implment
+ * <p>
+ * Templates are read and compiled once, then rendered from the cache. With
+ * {@link #RELOAD} on, as in dev mode, a template whose file changed is
+ * compiled again.
  *
  * @author biezhi
  *         2017/5/31
@@ -22,28 +32,69 @@ import com.blade.mvc.ui.ModelAndView;
 public class DefaultEngine implements TemplateEngine {
 
     public static String TEMPLATE_PATH = "templates";
+    public static boolean RELOAD = true;
+
+    private final ConcurrentHashMap<String, Cached> templates = CollectionKit.newConcurrentMap();
 
     @Override
     public void render(ModelAndView modelAndView, Writer writer) {
-        String view = modelAndView.getView();
-        String viewPath = Const.CLASSPATH + TEMPLATE_PATH + File.separator + view;
-        viewPath = viewPath.replace("//", "/");
         try {
-            Request request = WebContextHolder.request();
-            String body = IOKit.readToString(viewPath);
-
-            Map<String, Object> attrs = CollectionKit.newHashMap();
-            attrs.putAll(request.attributes());
-            Session session = request.session();
-            if (null != session) {
-                attrs.putAll(session.attributes());
-            }
-            String result = BladeTemplate.template(body, attrs).fmt();
-            writer.write(result);
-        } catch (Exception e) {
+            writer.write(template(modelAndView.getView()).render(arguments()));
+        } catch (IOException e) {
             throw new BladeException(e);
         } finally {
             IOKit.closeQuietly(writer);
         }
     }
+
+    @Override
+    public void render(ModelAndView modelAndView, ByteBuf out) {
+        template(modelAndView.getView()).render(arguments(), out);
+    }
+
+    /**
+     * Session attributes hide request attributes of the same name
+     */
+    private static Function<String, Object> arguments() {
+        Request request = WebContextHolder.request();
+        Session session = request.session();
+        if (null == session) {
+            return request::attribute;
+        }
+        return name -> {
+            Object value = session.attribute(name);
+            return null != value ? value : request.attribute(name);
+        };
+    }
+
+    private CompiledTemplate template(String view) {
+        String viewPath = Const.CLASSPATH + TEMPLATE_PATH + File.separator + view;
+        viewPath = viewPath.replace("//", "/");
+        Cached cached = templates.get(viewPath);
+        if (null != cached && (!RELOAD || cached.lastModified == new File(viewPath).lastModified())) {
+            return cached.template;
+        }
+        try {
+            long lastModified = new File(viewPath).lastModified();
+            String body = new String(Files.readAllBytes(Paths.get(viewPath)), StandardCharsets.UTF_8);
+            cached = new Cached(CompiledTemplate.compile(body), lastModified);
+            templates.put(viewPath, cached);
+            return cached.template;
+        } catch (IOException e) {
+            throw new BladeException(e);
+        }
+    }
+
+    private static final class Cached {
+
+        private final CompiledTemplate template;
+        private final long lastModified;
+
+        Cached(CompiledTemplate template, long lastModified) {
+            this.template = template;
+            this.lastModified = lastModified;
+        }
+
+    }
+
 }
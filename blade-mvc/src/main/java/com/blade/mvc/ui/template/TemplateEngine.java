@@ -1,7 +1,10 @@
 package com.blade.mvc.ui.template;
 
 import com.blade.mvc.ui.ModelAndView;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 
+import java.io.StringWriter;
 import java.io.Writer;
 
 /**
@@ -14,4 +17,14 @@ public interface TemplateEngine {
 
     void render(ModelAndView modelAndView, Writer writer);
 
+    /**
+     * Render as UTF-8 into the response buffer. Engines able to write bytes
+     * directly should override this, by default it goes through a String.
+     */
+    default void render(ModelAndView modelAndView, ByteBuf out) {
+        StringWriter writer = new StringWriter();
+        this.render(modelAndView, writer);
+        ByteBufUtil.writeUtf8(out, writer.getBuffer());
+    }
+
 }
\ No newline at end of file
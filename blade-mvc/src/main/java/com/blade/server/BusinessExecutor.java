@@ -0,0 +1,149 @@
+package com.blade.server;
+
+import com.blade.Environment;
+import com.blade.mvc.Const;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the executor that runs blocking routes off the netty event loop.
+ * <p>
+ * On a JDK with virtual threads every task gets its own virtual thread, and
+ * the number of tasks in flight is capped by a semaphore. Otherwise a fixed
+ * pool with a bounded queue is used. In both cases a full executor rejects
+ * the task, and the request is answered with a 503.
+ */
+public final class BusinessExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(BusinessExecutor.class);
+
+    public static final int DEFAULT_THREADS = 200;
+    public static final int DEFAULT_QUEUE = 1024;
+
+    private BusinessExecutor() {
+    }
+
+    /**
+     * @param environment blade environment, read for mvc.executor.*
+     * @return a new bounded executor
+     */
+    public static ExecutorService create(Environment environment) {
+        int threads = environment.getInt(Const.ENV_KEY_EXECUTOR_THREADS, DEFAULT_THREADS);
+        int queue = environment.getInt(Const.ENV_KEY_EXECUTOR_QUEUE, DEFAULT_QUEUE);
+
+        if (environment.getBoolean(Const.ENV_KEY_EXECUTOR_VIRTUAL, true)) {
+            ExecutorService virtual = virtualThreadExecutor();
+            if (null != virtual) {
+                log.info("⬢ Business executor: virtual threads, max {} requests in flight", threads + queue);
+                return new Bounded(virtual, threads + queue);
+            }
+        }
+        log.info("⬢ Business executor: {} threads, queue {}", threads, queue);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queue)), new NamedThreadFactory("blade-worker-"));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * @return {@code Executors.newVirtualThreadPerTaskExecutor()}, null when the JDK has no virtual threads
+     */
+    static ExecutorService virtualThreadExecutor() {
+        try {
+            Method factory = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Caps the number of tasks running or waiting on an unbounded executor
+     */
+    static final class Bounded extends AbstractExecutorService {
+
+        private final ExecutorService delegate;
+        private final Semaphore permits;
+
+        Bounded(ExecutorService delegate, int maxTasks) {
+            this.delegate = delegate;
+            this.permits = new Semaphore(maxTasks);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            if (!permits.tryAcquire()) {
+                throw new RejectedExecutionException("business executor is full");
+            }
+            try {
+                delegate.execute(() -> {
+                    try {
+                        command.run();
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+
+    }
+
+    static final class NamedThreadFactory implements ThreadFactory {
+
+        private final String prefix;
+        private final AtomicInteger counter = new AtomicInteger();
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+
+    }
+
+}
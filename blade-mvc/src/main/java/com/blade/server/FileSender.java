@@ -0,0 +1,213 @@
+package com.blade.server;
+
+import com.blade.kit.CollectionKit;
+import com.blade.kit.StringKit;
+import com.blade.mvc.http.Request;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.DefaultFileRegion;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.ssl.SslHandler;
+import io.netty.handler.stream.ChunkedFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+
+/**
+ * Writes a file to the client, honoring the Range and If-Range request headers.
+ * <p>
+ * A satisfiable single range is answered with a 206 and the requested slice,
+ * several ranges with a 206 multipart/byteranges body. File content goes out as
+ * {@link DefaultFileRegion} (zero-copy), or as {@link ChunkedFile} when the
+ * channel is encrypted.
+ */
+public final class FileSender {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    /**
+     * More ranges than this are answered with the whole file
+     */
+    private static final int MAX_RANGES = 16;
+
+    private static final String BYTES_UNIT = "bytes=";
+
+    private FileSender() {
+    }
+
+    /**
+     * Write a file
+     *
+     * @param ctx          channel context
+     * @param request      current request
+     * @param httpResponse response head with status 200 and all headers but the content length
+     * @param file         file to write
+     * @param etag         entity tag of the file, null if unknown
+     * @return future of the last write
+     */
+    public static ChannelFuture send(ChannelHandlerContext ctx, Request request, HttpResponse httpResponse,
+                                     File file, String etag) throws IOException {
+        long length = file.length();
+        HttpHeaders headers = httpResponse.headers();
+        headers.set(HttpHeaderNames.ACCEPT_RANGES, HttpHeaderValues.BYTES);
+
+        List<long[]> ranges = null;
+        String range = StaticFileHandler.header(request, HttpHeaderNames.RANGE);
+        if (StringKit.isNotBlank(range) && ifRange(request, headers, etag)) {
+            ranges = parseRanges(range, length);
+        }
+
+        if (null == ranges) {
+            headers.set(HttpHeaderNames.CONTENT_LENGTH, length);
+            ctx.write(httpResponse);
+            if (length > 0) {
+                writeRegion(ctx, file, 0, length);
+            }
+            return ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+        }
+
+        if (ranges.isEmpty()) {
+            DefaultFullHttpResponse notSatisfiable = new DefaultFullHttpResponse(HTTP_1_1,
+                    HttpResponseStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+            notSatisfiable.headers().set(HttpHeaderNames.CONTENT_RANGE, "bytes */" + length);
+            notSatisfiable.headers().set(HttpHeaderNames.CONTENT_LENGTH, 0);
+            return ctx.writeAndFlush(notSatisfiable);
+        }
+
+        httpResponse.setStatus(HttpResponseStatus.PARTIAL_CONTENT);
+        if (ranges.size() == 1) {
+            long[] r = ranges.get(0);
+            headers.set(HttpHeaderNames.CONTENT_RANGE, contentRange(r, length));
+            headers.set(HttpHeaderNames.CONTENT_LENGTH, r[1] - r[0] + 1);
+            ctx.write(httpResponse);
+            writeRegion(ctx, file, r[0], r[1] - r[0] + 1);
+            return ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+        }
+
+        String boundary = "BLADE_" + Long.toHexString(ThreadLocalRandom.current().nextLong());
+        String contentType = headers.get(HttpHeaderNames.CONTENT_TYPE);
+        String[] partHeads = new String[ranges.size()];
+        long contentLength = 0;
+        for (int i = 0; i < partHeads.length; i++) {
+            long[] r = ranges.get(i);
+            StringBuilder partHead = new StringBuilder();
+            if (i > 0) {
+                partHead.append("\r\n");
+            }
+            partHead.append("--").append(boundary).append("\r\n");
+            if (null != contentType) {
+                partHead.append("Content-Type: ").append(contentType).append("\r\n");
+            }
+            partHead.append("Content-Range: ").append(contentRange(r, length)).append("\r\n\r\n");
+            partHeads[i] = partHead.toString();
+            contentLength += partHeads[i].length() + r[1] - r[0] + 1;
+        }
+        String end = "\r\n--" + boundary + "--\r\n";
+        contentLength += end.length();
+
+        headers.set(HttpHeaderNames.CONTENT_TYPE, "multipart/byteranges; boundary=" + boundary);
+        headers.set(HttpHeaderNames.CONTENT_LENGTH, contentLength);
+        ctx.write(httpResponse);
+        for (int i = 0; i < partHeads.length; i++) {
+            long[] r = ranges.get(i);
+            ctx.write(ascii(ctx, partHeads[i]));
+            writeRegion(ctx, file, r[0], r[1] - r[0] + 1);
+        }
+        ctx.write(ascii(ctx, end));
+        return ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+    }
+
+    /**
+     * Parse a Range header
+     *
+     * @param range  header value
+     * @param length file length
+     * @return the satisfiable ranges as inclusive [first, last] pairs, empty if none is satisfiable,
+     * null if the header is invalid or asks for too many ranges and should be ignored
+     */
+    static List<long[]> parseRanges(String range, long length) {
+        if (!range.regionMatches(true, 0, BYTES_UNIT, 0, BYTES_UNIT.length())) {
+            return null;
+        }
+        String[] specs = range.substring(BYTES_UNIT.length()).split(",");
+        if (specs.length > MAX_RANGES) {
+            return null;
+        }
+        List<long[]> ranges = CollectionKit.newArrayList(specs.length);
+        for (String spec : specs) {
+            spec = spec.trim();
+            int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            long first, last;
+            try {
+                if (dash == 0) {
+                    long suffix = Long.parseLong(spec.substring(1));
+                    if (suffix <= 0) {
+                        continue;
+                    }
+                    first = Math.max(0, length - suffix);
+                    last = length - 1;
+                } else {
+                    first = Long.parseLong(spec.substring(0, dash));
+                    last = dash == spec.length() - 1 ? Long.MAX_VALUE : Long.parseLong(spec.substring(dash + 1));
+                    if (last < first) {
+                        return null;
+                    }
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            if (first >= length) {
+                continue;
+            }
+            ranges.add(new long[]{first, Math.min(last, length - 1)});
+        }
+        return ranges;
+    }
+
+    /**
+     * @return whether the Range header applies: no If-Range, or one matching the ETag or Last-Modified
+     */
+    private static boolean ifRange(Request request, HttpHeaders headers, String etag) {
+        String ifRange = StaticFileHandler.header(request, HttpHeaderNames.IF_RANGE);
+        if (StringKit.isBlank(ifRange)) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(etag);
+        }
+        return ifRange.equals(headers.get(HttpHeaderNames.LAST_MODIFIED));
+    }
+
+    private static String contentRange(long[] range, long length) {
+        return "bytes " + range[0] + "-" + range[1] + "/" + length;
+    }
+
+    private static ByteBuf ascii(ChannelHandlerContext ctx, String value) {
+        return ByteBufUtil.writeAscii(ctx.alloc(), value);
+    }
+
+    private static void writeRegion(ChannelHandlerContext ctx, File file, long position, long count) throws IOException {
+        if (ctx.pipeline().get(SslHandler.class) == null) {
+            ctx.write(new DefaultFileRegion(file, position, count));
+        } else {
+            ctx.write(new ChunkedFile(new RandomAccessFile(file, "r"), position, count, CHUNK_SIZE));
+        }
+    }
+
+}
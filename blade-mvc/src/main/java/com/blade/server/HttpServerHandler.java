@@ -4,6 +4,10 @@ import com.blade.Blade;
 import com.blade.BladeException;
 import com.blade.kit.CollectionKit;
 import com.blade.metric.Connection;
+import com.blade.metric.Phase;
+import com.blade.metric.RequestTrace;
+import com.blade.metric.RequestTracer;
+import com.blade.metric.RouteMetric;
 import com.blade.metric.WebStatistics;
 import com.blade.mvc.WebContextHolder;
 import com.blade.mvc.handler.RouteViewResolve;
@@ -13,8 +17,10 @@ import com.blade.mvc.http.HttpRequest;
 import com.blade.mvc.http.HttpResponse;
 import com.blade.mvc.http.Request;
 import com.blade.mvc.http.Response;
+import com.blade.mvc.route.Dispatch;
 import com.blade.mvc.route.RouteBean;
 import com.blade.mvc.route.RouteHandler;
+import com.blade.mvc.route.RouteMatch;
 import com.blade.mvc.route.RouteMatcher;
 import com.blade.mvc.ui.DefaultUI;
 import io.netty.buffer.Unpooled;
@@ -23,17 +29,21 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.ReferenceCountUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.time.LocalDateTime;
+import java.util.ArrayDeque;
 import java.util.List;
-import java.util.Optional;
-import java.util.Set;
+import java.util.Queue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 
 import static com.blade.mvc.Const.*;
 import static io.netty.handler.codec.http.HttpUtil.is100ContinueExpected;
@@ -42,14 +52,19 @@ import static io.netty.handler.codec.http.HttpUtil.is100ContinueExpected;
  * @author biezhi 2017/5/31
  */
 @ChannelHandler.Sharable
-public class HttpServerHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+public class HttpServerHandler extends SimpleChannelInboundHandler<Object> {
 
 	public static final Logger log = LoggerFactory.getLogger(HttpServerHandler.class);
 
+	/**
+	 * Metric names of the requests not served by a route
+	 */
+	private static final String STATIC_ROUTE = "static";
+	private static final String NOT_FOUND_ROUTE = "404";
+
 	private final Blade blade;
 	private final RouteMatcher routeMatcher;
 	private final RouteViewResolve routeViewResolve;
-	private final Set<String> statics;
 
 	private final StaticFileHandler staticFileHandler;
 	private final SessionHandler sessionHandler;
@@ -59,9 +74,28 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 
 	private String page404, page500;
 
+	private final ExecutorService executor;
+	private final boolean executorDefault;
+
+	/**
+	 * Phase timings of the request being served, started over for each request
+	 */
+	private final RequestTrace trace = new RequestTrace();
+
 	public HttpServerHandler(Blade blade, Connection conn) {
+		this(blade, conn, new StaticFileHandler(blade));
+	}
+
+	public HttpServerHandler(Blade blade, Connection conn, StaticFileHandler staticFileHandler) {
+		this(blade, conn, staticFileHandler, null);
+	}
+
+	/**
+	 * @param executor business executor for blocking routes, null to run every route on the event loop
+	 */
+	public HttpServerHandler(Blade blade, Connection conn, StaticFileHandler staticFileHandler,
+							 ExecutorService executor) {
 		this.blade = blade;
-		this.statics = blade.getStatics();
 
 		this.conn = conn;
 		this.openMonitor = blade.environment().getBoolean(ENV_KEY_MONITOR_ENABLE, true);
@@ -70,8 +104,10 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 
 		this.routeMatcher = blade.routeMatcher();
 		this.routeViewResolve = new RouteViewResolve(blade);
-		this.staticFileHandler = new StaticFileHandler(blade);
+		this.staticFileHandler = staticFileHandler;
 		this.sessionHandler = blade.sessionManager() != null ? new SessionHandler(blade) : null;
+		this.executor = executor;
+		this.executorDefault = null != executor && blade.environment().getBoolean(ENV_KEY_EXECUTOR_ENABLE, false);
 	}
 
 	@Override
@@ -82,40 +118,198 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 		}
 	}
 
-	private FullHttpRequest fullHttpRequest;
+	/**
+	 * Requests read while another one runs on the business executor, answered in order
+	 */
+	private final Queue<Object> pending = new ArrayDeque<>();
+	private boolean busy;
 
 	@Override
-	protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest fullHttpRequest) throws Exception {
+	public boolean acceptInboundMessage(Object msg) throws Exception {
+		return msg instanceof FullHttpRequest || msg instanceof HttpRequest;
+	}
+
+	@Override
+	protected void channelRead0(ChannelHandlerContext ctx, Object msg) throws Exception {
+		if (busy) {
+			pending.add(ReferenceCountUtil.retain(msg));
+			return;
+		}
+		this.dispatch(ctx, msg);
+	}
+
+	private void dispatch(ChannelHandlerContext ctx, Object msg) throws Exception {
+		if (RequestTracer.isEnabled()) {
+			trace.start();
+		}
+		HttpRequest request;
+		if (msg instanceof FullHttpRequest) {
+			FullHttpRequest fullHttpRequest = (FullHttpRequest) msg;
+			if (is100ContinueExpected(fullHttpRequest)) {
+				ctx.write(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.CONTINUE));
+			}
+			request = HttpRequest.build(ctx, fullHttpRequest, sessionHandler);
+		} else {
+			// body already streamed by StreamBodyHandler
+			request = (HttpRequest) msg;
+		}
+
+		String uri = request.uri();
+		RouteMatch routeMatch = isStaticFile(uri) ? null : routeMatcher.lookupRoute(request.method(), uri);
+		if (null != routeMatch && useExecutor(routeMatch.route())) {
+			this.submit(ctx, msg, request, routeMatch);
+			return;
+		}
+		try {
+			this.handle(ctx, request, routeMatch);
+		} finally {
+			request.destroy();
+		}
+	}
+
+	private boolean useExecutor(RouteBean route) {
+		if (null == executor) {
+			return false;
+		}
+		Dispatch dispatch = route.getDispatch();
+		return dispatch == Dispatch.EXECUTOR || (dispatch == Dispatch.DEFAULT && executorDefault);
+	}
 
-		this.fullHttpRequest = fullHttpRequest;
+	/**
+	 * Run the request on the business executor. The channel stops reading
+	 * until it is done, its response is written back through the event loop.
+	 */
+	private void submit(ChannelHandlerContext ctx, Object msg, HttpRequest request, RouteMatch routeMatch) {
+		// the body is decoded lazily, keep it alive after channelRead0 returns
+		Object retained = ReferenceCountUtil.retain(msg);
+		trace.enter(Phase.QUEUE);
+		this.busy = true;
+		ctx.channel().config().setAutoRead(false);
+		try {
+			executor.execute(() -> {
+				try {
+					this.handle(ctx, request, routeMatch);
+				} catch (Throwable cause) {
+					this.handleError(ctx, cause);
+				} finally {
+					WebContextHolder.remove();
+					request.destroy();
+					ReferenceCountUtil.release(retained);
+					ctx.executor().execute(() -> this.resume(ctx));
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			log.warn("Business executor is full, reject {}", request.uri());
+			this.traceCompleted(request, routeMatch, 503);
+			request.destroy();
+			ReferenceCountUtil.release(retained);
+			FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1,
+					HttpResponseStatus.SERVICE_UNAVAILABLE);
+			response.headers().set(HttpHeaderNames.CONTENT_LENGTH, 0);
+			ctx.write(response);
+			this.resume(ctx);
+		}
+	}
 
-		if (is100ContinueExpected(fullHttpRequest)) {
-			ctx.write(new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.CONTINUE));
+	/**
+	 * Back on the event loop: flush the response, then serve the requests read meanwhile
+	 */
+	private void resume(ChannelHandlerContext ctx) {
+		this.busy = false;
+		Object next;
+		while (!busy && null != (next = pending.poll())) {
+			try {
+				this.dispatch(ctx, next);
+			} catch (Throwable cause) {
+				this.handleError(ctx, cause);
+			} finally {
+				ReferenceCountUtil.release(next);
+			}
+		}
+		ctx.flush();
+		if (!busy) {
+			ctx.channel().config().setAutoRead(true);
+		}
+	}
+
+	private void handleError(ChannelHandlerContext ctx, Throwable cause) {
+		try {
+			this.exceptionCaught(ctx, cause);
+		} catch (Exception e) {
+			log.error("error", e);
 		}
+	}
 
-		Request request = HttpRequest.build(ctx, fullHttpRequest, sessionHandler);
+	private void handle(ChannelHandlerContext ctx, Request request, RouteMatch routeMatch) throws Exception {
 		Response response = HttpResponse.build(ctx, blade.templateEngine());
+		if (!openMonitor && !trace.isActive()) {
+			this.handle(ctx, request, response, routeMatch);
+			return;
+		}
+		long start = openMonitor ? WebStatistics.me().requestStarted() : 0;
+		boolean failed = true;
+		try {
+			this.handle(ctx, request, response, routeMatch);
+			failed = false;
+		} finally {
+			int status = failed ? 500 : response.statusCode();
+			if (openMonitor) {
+				String uri = request.uri();
+				WebStatistics.me().requestCompleted(routeMetric(uri, routeMatch), null != conn ? conn.getIp() : null,
+						uri, status, start);
+				if (null != conn) {
+					conn.addUri(uri);
+				}
+			}
+			this.traceCompleted(request, routeMatch, status);
+		}
+	}
+
+	private void traceCompleted(Request request, RouteMatch routeMatch, int status) {
+		if (!trace.isActive()) {
+			return;
+		}
+		trace.finish(status);
+		trace.request(request.method(), request.uri(), null != routeMatch ? routeMatch.route().getPath() : null);
+		RequestTracer.completed(trace);
+	}
 
+	private RouteMetric routeMetric(String uri, RouteMatch routeMatch) {
+		if (null == routeMatch) {
+			return WebStatistics.me().route(isStaticFile(uri) ? STATIC_ROUTE : NOT_FOUND_ROUTE);
+		}
+		RouteBean route = routeMatch.route();
+		RouteMetric metric = route.getMetric();
+		if (null == metric) {
+			metric = WebStatistics.me().route(route.getHttpMethod() + " " + route.getPath());
+			route.setMetric(metric);
+		}
+		return metric;
+	}
+
+	private void handle(ChannelHandlerContext ctx, Request request, Response response, RouteMatch routeMatch)
+			throws Exception {
 		// reuqest uri
 		String uri = request.uri();
 		log.debug("{}\t{}\t{}", request.protocol(), request.method(), uri);
 
 		if (isStaticFile(uri)) {
+			trace.enter(Phase.WRITE);
 			staticFileHandler.handle(ctx, request, response);
 			return;
 		}
 
 		// write session
-		WebContextHolder.set(new WebContextHolder(request, response));
+		WebContextHolder.set(new WebContextHolder(request, response, trace));
 
 		// web hook
+		trace.enter(Phase.BEFORE);
 		if (!invokeHook(routeMatcher.getBefore(uri), request, response)) {
 			this.sendFinish(response);
 			return;
 		}
 
-		RouteBean route = routeMatcher.lookupRoute(request.method(), uri);
-		if (null == route) {
+		if (null == routeMatch) {
 			// 404
 			response.notFound();
 			String html = String.format(DefaultUI.VIEW_404, uri);
@@ -126,17 +320,21 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 			}
 			return;
 		}
-		request.initPathParams(route);
+		request.initPathParams(routeMatch);
+		RouteBean route = routeMatch.route();
 
 		// middlewares
+		trace.enter(Phase.MIDDLEWARE);
 		if (!invokeMiddlewares(routeMatcher.getMiddlewares(), request, response)) {
 			this.sendFinish(response);
 			return;
 		}
 
 		// execute
+		trace.enter(Phase.INVOKE);
 		this.routeHandle(request, response, route);
 
+		trace.enter(Phase.AFTER);
 		invokeHook(routeMatcher.getAfter(uri), request, response);
 
 		this.sendFinish(response);
@@ -146,19 +344,15 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 	@Override
 	public void channelReadComplete(ChannelHandlerContext ctx) {
 		ctx.flush();
-		if (openMonitor) {
-			WebStatistics.me().registerRequestFromIp(WebStatistics.getIpFromChannel(ctx.channel()),
-					LocalDateTime.now());
-			if (fullHttpRequest != null) {
-				conn.addUri(fullHttpRequest.uri());
-			}
-		}
 	}
 
 	@Override
 	public void channelInactive(ChannelHandlerContext ctx) throws Exception {
 		super.channelInactive(ctx);
-		fullHttpRequest = null;
+		Object next;
+		while (null != (next = pending.poll())) {
+			ReferenceCountUtil.release(next);
+		}
 	}
 
 	@Override
@@ -200,8 +394,7 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 	}
 
 	private boolean isStaticFile(String uri) {
-		Optional<String> result = statics.stream().filter(s -> s.equals(uri) || uri.startsWith(s)).findFirst();
-		return result.isPresent();
+		return staticFileHandler.isStatic(uri);
 	}
 
 	/**
@@ -246,7 +439,7 @@ public class HttpServerHandler extends SimpleChannelInboundHandler<FullHttpReque
 	/**
 	 * invoke hooks
 	 */
-	private boolean invokeHook(List<RouteBean> hooks, Request request, Response response) {
+	private boolean invokeHook(RouteBean[] hooks, Request request, Response response) {
 		for (RouteBean route : hooks) {
 			if (route.getTargetType() == RouteHandler.class) {
 				RouteHandler routeHandler = (RouteHandler) route.getTarget();
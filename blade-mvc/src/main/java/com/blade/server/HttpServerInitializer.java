@@ -16,6 +16,7 @@ import io.netty.handler.ssl.SslContext;
 import io.netty.handler.stream.ChunkedWriteHandler;
 
 import java.time.LocalDateTime;
+import java.util.concurrent.ExecutorService;
 
 /**
  * HttpServerInitializer
@@ -25,11 +26,24 @@ public class HttpServerInitializer extends ChannelInitializer<SocketChannel> {
 	private final Blade blade;
 	private final Environment environment;
 	private final SslContext sslCtx;
+	private final StaticFileHandler staticFileHandler;
+	private final int maxContentLength;
+	private final ExecutorService executor;
 
 	public HttpServerInitializer(Blade blade, SslContext sslCtx) {
+		this(blade, sslCtx, null);
+	}
+
+	/**
+	 * @param executor business executor for blocking routes, null to run every route on the event loop
+	 */
+	public HttpServerInitializer(Blade blade, SslContext sslCtx, ExecutorService executor) {
 		this.blade = blade;
 		this.environment = blade.environment();
 		this.sslCtx = null;
+		this.staticFileHandler = new StaticFileHandler(blade);
+		this.maxContentLength = environment.getInt(Const.ENV_KEY_HTTP_MAX_CONTENT, 10 * 1024 * 1024);
+		this.executor = executor;
 	}
 
 	@Override
@@ -56,8 +70,11 @@ public class HttpServerInitializer extends ChannelInitializer<SocketChannel> {
 
 		p.addLast(new HttpServerCodec());
 		p.addLast(new HttpServerExpectContinueHandler());
-		p.addLast(new HttpObjectAggregator(Integer.MAX_VALUE));
+		if (blade.routeMatcher().hasStreamRoutes()) {
+			p.addLast(new StreamBodyHandler(blade));
+		}
+		p.addLast(new HttpObjectAggregator(maxContentLength));
 		p.addLast(new ChunkedWriteHandler());
-		p.addLast(new HttpServerHandler(blade, ci));
+		p.addLast(new HttpServerHandler(blade, ci, staticFileHandler, executor));
 	}
 }
@@ -0,0 +1,71 @@
+package com.blade.server;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Character trie over the static folder prefixes.
+ * <p>
+ * Tells whether a request uri starts with one of the prefixes by walking the
+ * uri once, instead of testing every prefix with {@code startsWith}.
+ */
+final class PrefixIndex {
+
+    private final Node root = new Node();
+
+    PrefixIndex(Collection<String> prefixes) {
+        prefixes.forEach(this::add);
+    }
+
+    private void add(String prefix) {
+        Node node = root;
+        for (int i = 0; i < prefix.length(); i++) {
+            node = node.child(prefix.charAt(i), true);
+        }
+        node.terminal = true;
+    }
+
+    /**
+     * @param uri request uri
+     * @return whether the uri starts with (or equals) one of the prefixes
+     */
+    boolean matches(String uri) {
+        Node node = root;
+        for (int i = 0, len = uri.length(); i < len; i++) {
+            node = node.child(uri.charAt(i), false);
+            if (null == node) {
+                return false;
+            }
+            if (node.terminal) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Node {
+
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private boolean terminal;
+
+        Node child(char c, boolean create) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == c) {
+                    return children[i];
+                }
+            }
+            if (!create) {
+                return null;
+            }
+            Node node = new Node();
+            keys = Arrays.copyOf(keys, keys.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            keys[keys.length - 1] = c;
+            children[children.length - 1] = node;
+            return node;
+        }
+
+    }
+
+}
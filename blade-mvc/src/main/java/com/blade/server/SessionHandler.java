@@ -37,17 +37,19 @@ public class SessionHandler {
 
     public Session createSession(Request request) {
         Session session = getSession(request);
-        Response response = WebContextHolder.response();
         if (null == session) {
-            return createSession(request, response);
-        } else {
-            if (session.expired() < Instant.now().getEpochSecond()) {
-                removeSession(session, response);
-            }
+            return createSession(request, WebContextHolder.response());
         }
         return session;
     }
 
+    /**
+     * Write back the session used by a request once it is handled
+     */
+    public void commit(Session session) {
+        sessionManager.commit(session);
+    }
+
     private Session createSession(Request request, Response response) {
 
         long now = Instant.now().getEpochSecond();
@@ -72,12 +74,6 @@ public class SessionHandler {
         return session;
     }
 
-    private void removeSession(Session session, Response response) {
-        session.attributes().clear();
-        sessionManager.remove(session);
-        eventManager.fireEvent(EventType.SESSION_DESTROY, blade);
-    }
-
     private Session getSession(Request request) {
         Optional<String> cookieHeader = request.cookie(sessionKey);
         if (!cookieHeader.isPresent()) {
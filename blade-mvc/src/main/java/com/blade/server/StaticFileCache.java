@@ -0,0 +1,252 @@
+package com.blade.server;
+
+import com.blade.kit.CollectionKit;
+import com.blade.kit.DateKit;
+import io.netty.buffer.ByteBuf;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Bounded in-memory cache of small, frequently served static files.
+ * <p>
+ * Contents are kept in pooled direct buffers and served as retained
+ * duplicates, so a hit neither touches the disk nor copies the bytes. A
+ * removed file releases its content once no request is taking a view of it,
+ * the views being written keep their own reference. The
+ * response headers that only depend on the file are computed when it is loaded.
+ * The modification time of a cached file is checked at most once a second,
+ * a changed file is dropped and reloaded by the next request.
+ * The least recently used files are evicted when the entry or byte limits are exceeded.
+ */
+public class StaticFileCache {
+
+    private static final Logger log = LoggerFactory.getLogger(StaticFileCache.class);
+
+    private static final long RECHECK_MILLIS = 1000;
+
+    private final long maxSize;
+    private final int maxEntries;
+    private final long maxFileSize;
+
+    private final ConcurrentHashMap<String, CachedFile> files = CollectionKit.newConcurrentMap();
+    private final AtomicLong size = new AtomicLong();
+
+    /**
+     * @param maxSize     max bytes held by the cache
+     * @param maxEntries  max number of cached files
+     * @param maxFileSize files bigger than this are never cached
+     */
+    public StaticFileCache(long maxSize, int maxEntries, long maxFileSize) {
+        this.maxSize = maxSize;
+        this.maxEntries = maxEntries;
+        this.maxFileSize = Math.min(maxFileSize, maxSize);
+    }
+
+    /**
+     * @param length file length
+     * @return whether a file of this length may be cached
+     */
+    public boolean cacheable(long length) {
+        return length <= maxFileSize && maxEntries > 0;
+    }
+
+    /**
+     * Get a cached file
+     *
+     * @param key  cache key, the request uri
+     * @param file file on disk used to validate the entry, null for classpath resources
+     * @return the cached file, null if absent or stale
+     */
+    public CachedFile get(String key, File file) {
+        CachedFile cached = files.get(key);
+        if (null == cached) {
+            return null;
+        }
+        if (null != file && cached.isStale(file)) {
+            log.debug("Static file {} changed, drop it from cache", key);
+            remove(key, cached);
+            return null;
+        }
+        cached.lastAccess = System.nanoTime();
+        return cached;
+    }
+
+    /**
+     * Put a file into the cache, the cache takes over the content buffer.
+     * When another request cached the key first, the content is released
+     * and the file already cached is returned.
+     *
+     * @param key          cache key, the request uri
+     * @param contentType  response content type
+     * @param lastModified file modification time, -1 if unknown
+     * @param content      file content
+     * @return the file cached under the key
+     */
+    public CachedFile put(String key, String contentType, long lastModified, ByteBuf content) {
+        return put(key, contentType, null, lastModified, content.readableBytes(), content);
+    }
+
+    /**
+     * Put an encoded variant of a file into the cache, the cache takes over the content buffer.
+     * When another request cached the key first, the content is released
+     * and the file already cached is returned.
+     *
+     * @param key             cache key
+     * @param contentType     response content type
+     * @param contentEncoding response content encoding, null for the file itself
+     * @param lastModified    source file modification time, -1 if unknown
+     * @param sourceLength    source file length, used to validate the entry
+     * @param content         encoded content
+     * @return the file cached under the key
+     */
+    public CachedFile put(String key, String contentType, String contentEncoding, long lastModified, long sourceLength, ByteBuf content) {
+        CachedFile cached = new CachedFile(contentType, contentEncoding, lastModified, sourceLength, content);
+        CachedFile existing = files.putIfAbsent(key, cached);
+        if (null != existing) {
+            cached.release();
+            return existing;
+        }
+        size.addAndGet(cached.length);
+        evict();
+        return cached;
+    }
+
+    public int entries() {
+        return files.size();
+    }
+
+    public long size() {
+        return size.get();
+    }
+
+    public void clear() {
+        files.forEach(this::remove);
+    }
+
+    private void remove(String key, CachedFile cached) {
+        if (files.remove(key, cached)) {
+            size.addAndGet(-cached.length);
+            cached.release();
+        }
+    }
+
+    private void evict() {
+        while (files.size() > maxEntries || size.get() > maxSize) {
+            Map.Entry<String, CachedFile> eldest = null;
+            for (Map.Entry<String, CachedFile> entry : files.entrySet()) {
+                if (null == eldest || entry.getValue().lastAccess < eldest.getValue().lastAccess) {
+                    eldest = entry;
+                }
+            }
+            if (null == eldest) {
+                return;
+            }
+            remove(eldest.getKey(), eldest.getValue());
+        }
+    }
+
+    /**
+     * A cached static file with its precomputed headers
+     */
+    public static final class CachedFile {
+
+        private final ByteBuf content;
+        private final long length;
+        private final long lastModified;
+        private final long sourceLength;
+        private final String contentType;
+        private final String contentEncoding;
+        private final String lastModifiedHeader;
+        private final String etag;
+
+        // the reference of the cache plus the requests taking a view, the content is released at zero
+        private final AtomicInteger refs = new AtomicInteger(1);
+
+        private volatile long lastAccess = System.nanoTime();
+        private volatile long checkedAt = System.currentTimeMillis();
+
+        CachedFile(String contentType, String contentEncoding, long lastModified, long sourceLength, ByteBuf content) {
+            this.content = content;
+            this.length = content.readableBytes();
+            this.lastModified = lastModified;
+            this.sourceLength = sourceLength;
+            this.contentType = contentType;
+            this.contentEncoding = contentEncoding;
+            this.lastModifiedHeader = lastModified > 0 ? DateKit.gmtDate(new Date(lastModified)) : null;
+
+            CRC32 crc32 = new CRC32();
+            crc32.update(content.nioBuffer());
+            this.etag = "\"" + Long.toHexString(crc32.getValue()) + "-" + Long.toHexString(length) + "\"";
+        }
+
+        boolean isStale(File file) {
+            long now = System.currentTimeMillis();
+            if (now - checkedAt < RECHECK_MILLIS) {
+                return false;
+            }
+            checkedAt = now;
+            return file.lastModified() != lastModified || file.length() != sourceLength;
+        }
+
+        /**
+         * @return a retained view of the content to write, null if the file was evicted meanwhile
+         */
+        public ByteBuf retainedContent() {
+            int count;
+            do {
+                count = refs.get();
+                if (count == 0) {
+                    return null;
+                }
+            } while (!refs.compareAndSet(count, count + 1));
+            try {
+                return content.retainedDuplicate();
+            } finally {
+                release();
+            }
+        }
+
+        private void release() {
+            if (refs.decrementAndGet() == 0) {
+                content.release();
+            }
+        }
+
+        public long length() {
+            return length;
+        }
+
+        public long lastModified() {
+            return lastModified;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        /**
+         * @return content encoding, null for the file itself
+         */
+        public String contentEncoding() {
+            return contentEncoding;
+        }
+
+        public String lastModifiedHeader() {
+            return lastModifiedHeader;
+        }
+
+        public String etag() {
+            return etag;
+        }
+
+    }
+
+}
@@ -8,47 +8,59 @@ import static io.netty.handler.codec.http.HttpResponseStatus.OK;
 import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
 
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.RandomAccessFile;
+import java.io.OutputStream;
 import java.net.URLConnection;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.Date;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.blade.Blade;
+import com.blade.Environment;
+import com.blade.kit.CollectionKit;
 import com.blade.kit.DateKit;
-import com.blade.kit.IOKit;
 import com.blade.kit.StringKit;
 import com.blade.mvc.Const;
+import com.blade.mvc.http.HttpDate;
 import com.blade.mvc.http.Request;
 import com.blade.mvc.http.Response;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufOutputStream;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.channel.DefaultFileRegion;
 import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.http.FullHttpResponse;
-import io.netty.handler.codec.http.HttpChunkedInput;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpResponse;
 import io.netty.handler.codec.http.HttpResponseStatus;
-import io.netty.handler.codec.http.LastHttpContent;
-import io.netty.handler.ssl.SslHandler;
-import io.netty.handler.stream.ChunkedFile;
+import io.netty.util.AsciiString;
 import io.netty.util.CharsetUtil;
 
 //import static io.netty.handler.codec.http.HttpHeaders.Names.*;
@@ -62,10 +74,77 @@ public class StaticFileHandler implements RequestHandler<Boolean> {
 
     private boolean showFileList;
 
+    private final PrefixIndex statics;
+    private final StaticFileCache fileCache;
+    private final StaticFileCache gzipCache;
+    private final ExecutorService compressor;
+    private final Set<String> compressing = ConcurrentHashMap.newKeySet();
+    private final boolean precompressed;
+    private final Map<String, Siblings> siblings = CollectionKit.newConcurrentMap();
+
     public static final int HTTP_CACHE_SECONDS = 60;
 
+    /**
+     * Files smaller than this are not worth compressing
+     */
+    private static final int MIN_COMPRESS_SIZE = 1024;
+
+    /**
+     * Max number of files waiting to be compressed
+     */
+    private static final int MAX_PENDING_COMPRESSIONS = 64;
+
+    /**
+     * Max number of files whose precompressed siblings are remembered
+     */
+    private static final int MAX_SIBLINGS = 1024;
+    private static final long RECHECK_MILLIS = 1000;
+
+    private static final int ENCODING_BR = 1;
+    private static final int ENCODING_GZIP = 2;
+
+    /**
+     * Content encodings served from sibling files, in order of preference
+     */
+    private static final int[] PRECOMPRESSED_ENCODINGS = {ENCODING_BR, ENCODING_GZIP};
+    private static final String[] PRECOMPRESSED_NAMES = {"br", "gzip"};
+    private static final String[] PRECOMPRESSED_SUFFIXES = {".br", ".gz"};
+
     public StaticFileHandler(Blade blade) {
-        this.showFileList = blade.environment().getBoolean(Const.ENV_KEY_STATIC_LIST, false);
+        Environment environment = blade.environment();
+        this.showFileList = environment.getBoolean(Const.ENV_KEY_STATIC_LIST, false);
+        this.statics = new PrefixIndex(blade.getStatics());
+        if (environment.getBoolean(Const.ENV_KEY_STATIC_CACHE_ENABLE, false)) {
+            this.fileCache = new StaticFileCache(
+                    environment.getLong(Const.ENV_KEY_STATIC_CACHE_SIZE, 32 * 1024 * 1024),
+                    environment.getInt(Const.ENV_KEY_STATIC_CACHE_ENTRIES, 512),
+                    environment.getLong(Const.ENV_KEY_STATIC_CACHE_FILE_SIZE, 256 * 1024));
+        } else {
+            this.fileCache = null;
+        }
+        this.precompressed = environment.getBoolean(Const.ENV_KEY_STATIC_PRECOMPRESSED, false);
+        if (environment.getBoolean(Const.ENV_KEY_STATIC_COMPRESS_ENABLE, false)) {
+            this.gzipCache = new StaticFileCache(
+                    environment.getLong(Const.ENV_KEY_STATIC_COMPRESS_SIZE, 16 * 1024 * 1024),
+                    environment.getInt(Const.ENV_KEY_STATIC_COMPRESS_ENTRIES, 512),
+                    environment.getLong(Const.ENV_KEY_STATIC_COMPRESS_FILE_SIZE, 1024 * 1024));
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(MAX_PENDING_COMPRESSIONS),
+                    new BusinessExecutor.NamedThreadFactory("blade-compress-"));
+            executor.allowCoreThreadTimeOut(true);
+            this.compressor = executor;
+        } else {
+            this.gzipCache = null;
+            this.compressor = null;
+        }
+    }
+
+    /**
+     * @param uri request uri
+     * @return whether the uri is under one of the static folders
+     */
+    public boolean isStatic(String uri) {
+        return statics.matches(uri);
     }
 
     /**
@@ -81,22 +160,32 @@ public class StaticFileHandler implements RequestHandler<Boolean> {
         String uri = request.uri();
 
         if (uri.startsWith(Const.WEB_JARS)) {
+            if (null != fileCache) {
+                StaticFileCache.CachedFile cached = fileCache.get(uri, null);
+                if (null != cached && sendCached(ctx, request, cached, false)) {
+                    return false;
+                }
+            }
             InputStream input = StaticFileHandler.class.getResourceAsStream("/META-INF/resources" + uri);
             if (null == input) {
                 sendError(ctx, NOT_FOUND);
             } else {
                 if (http304(ctx, request, -1)) {
+                    input.close();
                     return false;
                 }
-                String content = IOKit.readToString(input);
-                FullHttpResponse httpResponse = new DefaultFullHttpResponse(Const.HTTP_VERSION, OK,
-                        Unpooled.copiedBuffer(content, CharsetUtil.UTF_8));
-                setDateAndCacheHeaders(httpResponse, null);
+                ByteBuf content = readResource(ctx, input);
                 String contentType = StringKit.mimeType(uri);
+                if (null != fileCache && fileCache.cacheable(content.readableBytes())
+                        && sendCached(ctx, request, fileCache.put(uri, contentType, -1, content), false)) {
+                    return false;
+                }
+                FullHttpResponse httpResponse = new DefaultFullHttpResponse(Const.HTTP_VERSION, OK, content);
+                setDateAndCacheHeaders(httpResponse, (String) null);
                 HttpHeaders headers = httpResponse.headers();
                 if (null != contentType)
                     headers.set(HttpHeaderNames.CONTENT_TYPE, contentType);
-                headers.set(HttpHeaderNames.CONTENT_LENGTH, content.length());
+                headers.set(HttpHeaderNames.CONTENT_LENGTH, content.readableBytes());
                 if (request.keepAlive()) {
                     headers.set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
                 }
@@ -113,6 +202,12 @@ public class StaticFileHandler implements RequestHandler<Boolean> {
         }
 
         File file = new File(path);
+        int encodings = acceptedEncodings(request);
+        if ((null != fileCache || null != gzipCache) && null == header(request, HttpHeaderNames.RANGE)
+                && sendCachedVariant(ctx, request, uri, path, file, encodings)) {
+            return false;
+        }
+
         if (file.isHidden() || !file.exists()) {
             sendError(ctx, NOT_FOUND);
             return false;
@@ -137,56 +232,344 @@ public class StaticFileHandler implements RequestHandler<Boolean> {
             return false;
         }
 
-        RandomAccessFile raf;
-        try {
-            raf = new RandomAccessFile(file, "r");
-        } catch (FileNotFoundException ignore) {
-            sendError(ctx, NOT_FOUND);
+        String contentType = contentType(file.getName());
+        if (precompressed && encodings != 0) {
+            int found = siblings(uri, path);
+            for (int i = 0; i < PRECOMPRESSED_ENCODINGS.length; i++) {
+                if ((encodings & found & PRECOMPRESSED_ENCODINGS[i]) != 0) {
+                    sendFile(ctx, request, variantKey(uri, PRECOMPRESSED_NAMES[i]),
+                            new File(path + PRECOMPRESSED_SUFFIXES[i]), contentType, PRECOMPRESSED_NAMES[i]);
+                    return false;
+                }
+            }
+        }
+
+        if (null != gzipCache && (encodings & ENCODING_GZIP) != 0 && null == header(request, HttpHeaderNames.RANGE)
+                && isCompressible(contentType)
+                && file.length() >= MIN_COMPRESS_SIZE && gzipCache.cacheable(file.length())) {
+            StaticFileCache.CachedFile cached = gzipCache.get(uri, file);
+            if (null == cached) {
+                // the file itself is sent until the compressed copy is cached
+                compressLater(ctx.alloc(), uri, file, contentType);
+            } else if (sendCached(ctx, request, cached, false)) {
+                return false;
+            }
+        }
+
+        sendFile(ctx, request, uri, file, contentType, null);
+        return false;
+    }
+
+    /**
+     * Write the representation chosen for the accepted encodings from memory,
+     * without touching the disk
+     *
+     * @param encodings accepted encodings
+     * @return false when it is not cached, or when the slow path has to find or compress a variant
+     */
+    private boolean sendCachedVariant(ChannelHandlerContext ctx, Request request, String uri, String path,
+                                      File file, int encodings) {
+        if (precompressed && encodings != 0) {
+            Siblings known = siblings.get(uri);
+            if (null == known || known.isStale()) {
+                return false;
+            }
+            for (int i = 0; i < PRECOMPRESSED_ENCODINGS.length; i++) {
+                if ((encodings & known.encodings & PRECOMPRESSED_ENCODINGS[i]) != 0) {
+                    File variant = new File(path + PRECOMPRESSED_SUFFIXES[i]);
+                    StaticFileCache.CachedFile cached = null == fileCache ? null
+                            : fileCache.get(variantKey(uri, PRECOMPRESSED_NAMES[i]), variant);
+                    return null != cached && sendCached(ctx, request, cached, true);
+                }
+            }
+        }
+        boolean gzip = null != gzipCache && (encodings & ENCODING_GZIP) != 0;
+        if (gzip) {
+            StaticFileCache.CachedFile cached = gzipCache.get(uri, file);
+            if (null != cached) {
+                return sendCached(ctx, request, cached, false);
+            }
+        }
+        StaticFileCache.CachedFile cached = null == fileCache ? null : fileCache.get(uri, file);
+        if (null == cached) {
             return false;
         }
+        if (gzip && isCompressible(cached.contentType()) && cached.length() >= MIN_COMPRESS_SIZE
+                && gzipCache.cacheable(cached.length())) {
+            compressLater(ctx.alloc(), uri, file, cached.contentType());
+        }
+        return sendCached(ctx, request, cached, true);
+    }
 
-        long fileLength = raf.length();
+    /**
+     * Compress a file into the gzip cache on the compressor thread, at most
+     * once at a time per uri. Nothing is done when too many files wait.
+     */
+    private void compressLater(ByteBufAllocator alloc, String uri, File file, String contentType) {
+        if (!compressing.add(uri)) {
+            return;
+        }
+        try {
+            compressor.execute(() -> {
+                try {
+                    long lastModified = file.lastModified();
+                    long length = file.length();
+                    gzipCache.put(uri, contentType, "gzip", lastModified, length, gzip(alloc, file));
+                } catch (IOException e) {
+                    log.warn("Compress static file {} failed", file, e);
+                } finally {
+                    compressing.remove(uri);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            compressing.remove(uri);
+        }
+    }
+
+    /**
+     * Precompressed siblings of a file, looked up on the disk at most once a second
+     *
+     * @return bit set of ENCODING_BR and ENCODING_GZIP
+     */
+    private int siblings(String uri, String path) {
+        Siblings known = siblings.get(uri);
+        if (null == known || known.isStale()) {
+            int found = 0;
+            for (int i = 0; i < PRECOMPRESSED_ENCODINGS.length; i++) {
+                if (new File(path + PRECOMPRESSED_SUFFIXES[i]).isFile()) {
+                    found |= PRECOMPRESSED_ENCODINGS[i];
+                }
+            }
+            if (siblings.size() >= MAX_SIBLINGS) {
+                siblings.clear();
+            }
+            known = new Siblings(found);
+            siblings.put(uri, known);
+        }
+        return known.encodings;
+    }
+
+    /**
+     * Write a file, from the hot-file cache when it is small enough
+     *
+     * @param key             cache key
+     * @param file            file to write
+     * @param contentType     content type of the requested file
+     * @param contentEncoding content encoding of the file, null if it is the requested file itself
+     */
+    private void sendFile(ChannelHandlerContext ctx, Request request, String key, File file,
+                          String contentType, String contentEncoding) throws IOException {
+        // Small files are served from memory, the others with zero-copy file transfer.
+        // Range requests always take the file path.
+        boolean rangeRequest = null != header(request, HttpHeaderNames.RANGE);
+        String etag = null;
+        if (null != fileCache && fileCache.cacheable(file.length())) {
+            StaticFileCache.CachedFile cached = fileCache.get(key, file);
+            if (!rangeRequest) {
+                if (null == cached) {
+                    long lastModified = file.lastModified();
+                    long length = file.length();
+                    cached = fileCache.put(key, contentType, contentEncoding, lastModified, length, readFile(ctx, file));
+                }
+                if (sendCached(ctx, request, cached, true)) {
+                    return;
+                }
+            } else if (null != cached) {
+                etag = cached.etag();
+            }
+        }
+
+        if (!file.canRead()) {
+            sendError(ctx, NOT_FOUND);
+            return;
+        }
 
         HttpResponse httpResponse = new DefaultHttpResponse(HTTP_1_1, OK);
-        setContentTypeHeader(httpResponse, file);
+        if (null != contentType) {
+            httpResponse.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType);
+        }
+        setEncodingHeaders(httpResponse, contentEncoding);
         setDateAndCacheHeaders(httpResponse, file);
-        httpResponse.headers().set(HttpHeaderNames.CONTENT_LENGTH, fileLength);
         if (request.keepAlive()) {
             httpResponse.headers().set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
         }
 
-        // Write the initial line and the header.
-        ctx.write(httpResponse);
+        ChannelFuture lastContentFuture = FileSender.send(ctx, request, httpResponse, file, etag);
+
+        // Decide whether to close the connection or not.
+        if (!request.keepAlive()) {
+            lastContentFuture.addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+    /**
+     * Cache key of an encoded variant, apart from the key of a direct request for the sibling file
+     */
+    private static String variantKey(String uri, String contentEncoding) {
+        return uri + '\0' + contentEncoding;
+    }
+
+    /**
+     * Parse the Accept-Encoding header into the encodings this handler may serve
+     *
+     * @return bit set of ENCODING_BR and ENCODING_GZIP
+     */
+    private int acceptedEncodings(Request request) {
+        if (!precompressed && null == gzipCache) {
+            return 0;
+        }
+        String acceptEncoding = header(request, HttpHeaderNames.ACCEPT_ENCODING);
+        if (StringKit.isBlank(acceptEncoding)) {
+            return 0;
+        }
+        int encodings = 0;
+        for (String coding : acceptEncoding.split(",")) {
+            String name = coding.trim();
+            int pos = name.indexOf(';');
+            if (pos >= 0) {
+                if (isZeroQuality(name.substring(pos + 1))) {
+                    continue;
+                }
+                name = name.substring(0, pos).trim();
+            }
+            if ("br".equalsIgnoreCase(name)) {
+                encodings |= ENCODING_BR;
+            } else if ("gzip".equalsIgnoreCase(name) || "x-gzip".equalsIgnoreCase(name)) {
+                encodings |= ENCODING_GZIP;
+            } else if ("*".equals(name)) {
+                encodings |= ENCODING_BR | ENCODING_GZIP;
+            }
+        }
+        return encodings;
+    }
+
+    private static boolean isZeroQuality(String params) {
+        String param = params.trim();
+        if (!param.startsWith("q=")) {
+            return false;
+        }
+        try {
+            return Double.parseDouble(param.substring(2).trim()) <= 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static boolean isCompressible(String contentType) {
+        if (null == contentType) {
+            return false;
+        }
+        return contentType.startsWith("text/") || contentType.contains("javascript")
+                || contentType.contains("json") || contentType.contains("xml") || contentType.contains("svg");
+    }
 
-        // Write the content.
-        ChannelFuture sendFileFuture;
-        ChannelFuture lastContentFuture;
-        if (ctx.pipeline().get(SslHandler.class) == null) {
-            sendFileFuture = ctx.write(new DefaultFileRegion(raf.getChannel(), 0, fileLength),
-                    ctx.newProgressivePromise());
-            // Write the end marker.
-            lastContentFuture = ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+    private void setEncodingHeaders(HttpResponse response, String contentEncoding) {
+        if (null != contentEncoding) {
+            response.headers().set(HttpHeaderNames.CONTENT_ENCODING, contentEncoding);
+        }
+        if (precompressed || null != gzipCache) {
+            response.headers().set(HttpHeaderNames.VARY, HttpHeaderNames.ACCEPT_ENCODING);
+        }
+    }
+
+    /**
+     * Write a cached file
+     *
+     * @param acceptRanges whether a Range request for the same uri would be answered from the file
+     * @return false if the file was evicted before it could be written
+     */
+    private boolean sendCached(ChannelHandlerContext ctx, Request request, StaticFileCache.CachedFile cached,
+                               boolean acceptRanges) {
+        String ifNoneMatch = header(request, HttpHeaderNames.IF_NONE_MATCH);
+        if (StringKit.isNotBlank(ifNoneMatch)) {
+            if (ifNoneMatch.equals(cached.etag())) {
+                sendNotModified(ctx);
+                return true;
+            }
+        } else if (http304(ctx, request, cached.lastModified())) {
+            return true;
+        }
 
+        ByteBuf content = cached.retainedContent();
+        if (null == content) {
+            return false;
+        }
+        FullHttpResponse httpResponse = new DefaultFullHttpResponse(HTTP_1_1, OK, content);
+        setDateAndCacheHeaders(httpResponse, cached.lastModifiedHeader());
+        HttpHeaders headers = httpResponse.headers();
+        if (null != cached.contentType()) {
+            headers.set(HttpHeaderNames.CONTENT_TYPE, cached.contentType());
+        }
+        setEncodingHeaders(httpResponse, cached.contentEncoding());
+        headers.set(HttpHeaderNames.CONTENT_LENGTH, cached.length());
+        headers.set(HttpHeaderNames.ETAG, cached.etag());
+        if (acceptRanges) {
+            headers.set(HttpHeaderNames.ACCEPT_RANGES, HttpHeaderValues.BYTES);
+        }
+        if (request.keepAlive()) {
+            headers.set(HttpHeaderNames.CONNECTION, HttpHeaderValues.KEEP_ALIVE);
+            ctx.writeAndFlush(httpResponse);
         } else {
-            sendFileFuture = ctx.writeAndFlush(new HttpChunkedInput(new ChunkedFile(raf, 0, fileLength, 8192)),
-                    ctx.newProgressivePromise());
-            // HttpChunkedInput will write the end marker (LastHttpContent) for
-            // us.
-            lastContentFuture = sendFileFuture;
+            ctx.writeAndFlush(httpResponse).addListener(ChannelFutureListener.CLOSE);
         }
+        return true;
+    }
 
-        sendFileFuture.addListener(ProgressiveFutureListener.build(raf));
+    /**
+     * @return header value, null if absent
+     */
+    static String header(Request request, AsciiString name) {
+        return request.headers().get(name);
+    }
 
-        // Decide whether to close the connection or not.
-        if (!request.keepAlive()) {
-            lastContentFuture.addListener(ChannelFutureListener.CLOSE);
+    private static ByteBuf readFile(ChannelHandlerContext ctx, File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            int length = (int) channel.size();
+            ByteBuf content = ctx.alloc().directBuffer(length, length);
+            try {
+                long position = 0;
+                while (content.isWritable()) {
+                    int read = content.writeBytes(channel, position, content.writableBytes());
+                    if (read < 0) {
+                        break;
+                    }
+                    position += read;
+                }
+            } catch (IOException e) {
+                content.release();
+                throw e;
+            }
+            return content;
         }
-        return false;
+    }
+
+    private static ByteBuf gzip(ByteBufAllocator alloc, File file) throws IOException {
+        ByteBuf content = alloc.directBuffer();
+        try (OutputStream out = new GZIPOutputStream(new ByteBufOutputStream(content), 8192)) {
+            Files.copy(file.toPath(), out);
+        } catch (IOException e) {
+            content.release();
+            throw e;
+        }
+        return content;
+    }
+
+    private static ByteBuf readResource(ChannelHandlerContext ctx, InputStream input) throws IOException {
+        ByteBuf content = ctx.alloc().directBuffer();
+        try (InputStream in = input) {
+            while (content.writeBytes(in, 8192) > 0) {
+                // read until the end of stream
+            }
+        } catch (IOException e) {
+            content.release();
+            throw e;
+        }
+        return content;
     }
 
     private boolean http304(ChannelHandlerContext ctx, Request request, long lastModified) {
         // Cache Validation
-        String ifMdf = request.header(HttpHeaderNames.IF_MODIFIED_SINCE.toString());
+        String ifMdf = header(request, HttpHeaderNames.IF_MODIFIED_SINCE);
         if (StringKit.isBlank(ifMdf)) {
             return false;
         }
@@ -275,7 +658,7 @@ public class StaticFileHandler implements RequestHandler<Boolean> {
      * @param response HTTP response
      */
     private static void setDateHeader(FullHttpResponse response) {
-        response.headers().set(HttpHeaderNames.DATE, DateKit.gmtDate());
+        response.headers().set(HttpHeaderNames.DATE, HttpDate.now());
     }
 
     private static final Pattern INSECURE_URI = Pattern.compile(".*[<>&\"].*");
@@ -303,35 +686,52 @@ public class StaticFileHandler implements RequestHandler<Boolean> {
      * @param fileToCache file to extract content type
      */
     private static void setDateAndCacheHeaders(HttpResponse response, File fileToCache) {
+        setDateAndCacheHeaders(response, null != fileToCache ? DateKit.gmtDate(new Date(fileToCache.lastModified())) : null);
+    }
+
+    /**
+     * Sets the Date and Cache headers for the HTTP Response
+     *
+     * @param response     HTTP response
+     * @param lastModified Last-Modified header value, the current date if null
+     */
+    private static void setDateAndCacheHeaders(HttpResponse response, String lastModified) {
         // Date header
-        LocalDateTime localTime = LocalDateTime.now();
-        String date = DateKit.gmtDate(localTime);
+        CharSequence date = HttpDate.now();
         response.headers().set(HttpHeaderNames.DATE, date);
-        String lastModifed = date;
-        LocalDateTime newTime = localTime.plusSeconds(HTTP_CACHE_SECONDS);
-        date = DateKit.gmtDate(newTime);
+        CharSequence lastModifed = null != lastModified ? lastModified : date;
+        String expires = DateKit.gmtDate(new Date(System.currentTimeMillis() + HTTP_CACHE_SECONDS * 1000L));
 
         // Add cache headers
-        response.headers().set(HttpHeaderNames.EXPIRES, date);
+        response.headers().set(HttpHeaderNames.EXPIRES, expires);
         response.headers().set(HttpHeaderNames.CACHE_CONTROL, "private, max-age=" + HTTP_CACHE_SECONDS);
-        if (null != fileToCache) {
-            lastModifed = DateKit.gmtDate(new Date(fileToCache.lastModified()));
-        }
         response.headers().set(HttpHeaderNames.LAST_MODIFIED, lastModifed);
     }
 
+    private static String contentType(String fileName) {
+        String contentType = StringKit.mimeType(fileName);
+        if (null == contentType) {
+            contentType = URLConnection.guessContentTypeFromName(fileName);
+        }
+        return contentType;
+    }
+
     /**
-     * Sets the content type header for the HTTP Response
-     *
-     * @param response HTTP response
-     * @param file     file to extract content type
+     * Precompressed siblings found next to a file
      */
-    private static void setContentTypeHeader(HttpResponse response, File file) {
-        String contentType = StringKit.mimeType(file.getName());
-        if (null == contentType) {
-            contentType = URLConnection.guessContentTypeFromName(file.getName());
+    private static final class Siblings {
+
+        private final int encodings;
+        private final long checkedAt = System.currentTimeMillis();
+
+        Siblings(int encodings) {
+            this.encodings = encodings;
         }
-        response.headers().set(HttpHeaderNames.CONTENT_TYPE, contentType);
+
+        boolean isStale() {
+            return System.currentTimeMillis() - checkedAt >= RECHECK_MILLIS;
+        }
+
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,133 @@
+package com.blade.server;
+
+import com.blade.Blade;
+import com.blade.mvc.annotation.StreamBody;
+import com.blade.mvc.http.HttpRequest;
+import com.blade.mvc.route.RouteBean;
+import com.blade.mvc.route.RouteMatch;
+import com.blade.mvc.route.RouteMatcher;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.util.ReferenceCountUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static io.netty.handler.codec.http.HttpVersion.HTTP_1_1;
+
+/**
+ * Feeds the body of {@link StreamBody} routes to the request chunk by chunk.
+ * <p>
+ * Sits in front of the {@link HttpObjectAggregator}: requests of other routes
+ * pass through and are aggregated, streamed requests are handed on as a
+ * {@link HttpRequest} once their last chunk arrived.
+ */
+public class StreamBodyHandler extends ChannelInboundHandlerAdapter {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamBodyHandler.class);
+
+    private final RouteMatcher routeMatcher;
+    private final SessionHandler sessionHandler;
+
+    private HttpRequest request;
+    private long maxSize;
+    private long received;
+
+    public StreamBodyHandler(Blade blade) {
+        this.routeMatcher = blade.routeMatcher();
+        this.sessionHandler = blade.sessionManager() != null ? new SessionHandler(blade) : null;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof io.netty.handler.codec.http.HttpRequest) {
+            io.netty.handler.codec.http.HttpRequest head = (io.netty.handler.codec.http.HttpRequest) msg;
+            RouteBean route = streamRoute(head);
+            if (null == route) {
+                ctx.fireChannelRead(msg);
+                return;
+            }
+            ReferenceCountUtil.release(msg);
+            this.maxSize = route.getMaxBodySize();
+            if (maxSize >= 0 && HttpUtil.getContentLength(head, -1L) > maxSize) {
+                sendError(ctx, HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE);
+                return;
+            }
+            this.request = HttpRequest.build(ctx, head, sessionHandler);
+            this.received = 0;
+            return;
+        }
+
+        if (msg instanceof HttpContent && null != request) {
+            HttpContent content = (HttpContent) msg;
+            try {
+                received += content.content().readableBytes();
+                if (maxSize >= 0 && received > maxSize) {
+                    reset();
+                    sendError(ctx, HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE);
+                    return;
+                }
+                request.offer(content);
+            } catch (Exception e) {
+                log.warn("Decode request body error", e);
+                reset();
+                sendError(ctx, HttpResponseStatus.BAD_REQUEST);
+                return;
+            } finally {
+                content.release();
+            }
+            if (content instanceof LastHttpContent) {
+                HttpRequest complete = this.request;
+                this.request = null;
+                ctx.fireChannelRead(complete);
+            }
+            return;
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        reset();
+        super.channelInactive(ctx);
+    }
+
+    private RouteBean streamRoute(io.netty.handler.codec.http.HttpRequest head) {
+        if (head instanceof FullHttpRequest || !routeMatcher.hasStreamRoutes()) {
+            return null;
+        }
+        if (!HttpUtil.isTransferEncodingChunked(head) && HttpUtil.getContentLength(head, 0L) <= 0) {
+            return null;
+        }
+        String path = new QueryStringDecoder(head.uri()).path();
+        RouteMatch routeMatch = routeMatcher.lookupRoute(head.method().name(), path);
+        return null != routeMatch && routeMatch.route().isStreamBody() ? routeMatch.route() : null;
+    }
+
+    private void reset() {
+        if (null != request) {
+            request.destroy();
+            request = null;
+        }
+    }
+
+    /**
+     * Reply with an error and close the connection, the rest of the body is not read
+     */
+    private static void sendError(ChannelHandlerContext ctx, HttpResponseStatus status) {
+        FullHttpResponse response = new DefaultFullHttpResponse(HTTP_1_1, status);
+        response.headers().set(HttpHeaderNames.CONTENT_LENGTH, 0);
+        ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+    }
+
+}
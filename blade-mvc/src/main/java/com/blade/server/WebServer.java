@@ -13,9 +13,12 @@ import com.blade.kit.BladeKit;
 import com.blade.kit.ClassKit;
 import com.blade.kit.CollectionKit;
 import com.blade.kit.StringKit;
+import com.blade.kit.ason.AsonReader;
+import com.blade.metric.RequestTracer;
 import com.blade.mvc.Const;
 import com.blade.mvc.WebContextHolder;
 import com.blade.mvc.annotation.Path;
+import com.blade.mvc.handler.MethodArgument;
 import com.blade.mvc.hook.WebHook;
 import com.blade.mvc.route.RouteBuilder;
 import com.blade.mvc.route.RouteMatcher;
@@ -34,6 +37,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 import static com.blade.mvc.Const.CLASSPATH;
@@ -49,6 +54,7 @@ public class WebServer {
     private Environment environment;
 
     private EventLoopGroup bossGroup, workerGroup;
+    private ExecutorService businessExecutor;
     private Channel channel;
 
     private RouteBuilder routeBuilder;
@@ -114,11 +120,18 @@ public class WebServer {
         this.bossGroup = new NioEventLoopGroup(1);
         this.workerGroup = new NioEventLoopGroup();
 
+        ExecutorService executor = blade.executor();
+        if (null == executor && (environment.getBoolean(Const.ENV_KEY_EXECUTOR_ENABLE, false)
+                || blade.routeMatcher().hasExecutorRoutes())) {
+            this.businessExecutor = BusinessExecutor.create(environment);
+            executor = businessExecutor;
+        }
+
         ServerBootstrap b = new ServerBootstrap();
         b.option(ChannelOption.SO_BACKLOG, 1024);
 
         b.group(bossGroup, workerGroup).channel(NioServerSocketChannel.class)
-                .handler(new LoggingHandler(LogLevel.DEBUG)).childHandler(new HttpServerInitializer(blade, sslCtx));
+                .handler(new LoggingHandler(LogLevel.DEBUG)).childHandler(new HttpServerInitializer(blade, sslCtx, executor));
 
         String address = environment.get(Const.ENV_KEY_SERVER_ADDRESS, Const.DEFAULT_SERVER_ADDRESS);
         int port = environment.getInt(Const.ENV_KEY_SERVER_PORT, Const.DEFAULT_SERVER_PORT);
@@ -200,6 +213,24 @@ public class WebServer {
             templatePath = templatePath.substring(0, templatePath.length() - 1);
         }
         DefaultEngine.TEMPLATE_PATH = templatePath;
+        DefaultEngine.RELOAD = blade.devMode();
+
+        if (null != blade.sessionManager()) {
+            blade.sessionManager().onExpired(session ->
+                    blade.eventManager().fireEvent(EventType.SESSION_DESTROY, blade));
+        }
+
+        if (environment.getBoolean(Const.ENV_KEY_TRACE_ENABLE, false)) {
+            RequestTracer.enable(true);
+        }
+        long slowMillis = environment.getLong(Const.ENV_KEY_TRACE_SLOW_MILLIS, 0L);
+        if (slowMillis > 0) {
+            RequestTracer.slowThreshold(slowMillis, TimeUnit.MILLISECONDS);
+        }
+
+        MethodArgument.BODY_MAX_DEPTH = environment.getInt(Const.ENV_KEY_JSON_MAX_DEPTH, AsonReader.DEFAULT_MAX_DEPTH);
+        MethodArgument.BODY_MAX_SIZE = environment.getInt(Const.ENV_KEY_JSON_MAX_SIZE,
+                environment.getInt(Const.ENV_KEY_HTTP_MAX_CONTENT, 10 * 1024 * 1024));
     }
 
     public void stop() {
@@ -209,6 +240,12 @@ public class WebServer {
         if (this.workerGroup != null) {
             this.workerGroup.shutdownGracefully();
         }
+        if (this.businessExecutor != null) {
+            this.businessExecutor.shutdown();
+        }
+        if (this.blade != null && this.blade.sessionManager() != null) {
+            this.blade.sessionManager().close();
+        }
     }
 
     public void join() throws InterruptedException {
@@ -1,15 +1,21 @@
 package com.blade.test;
 
+import com.blade.mvc.ui.template.CompiledTemplate;
 import com.blade.mvc.ui.template.UncheckedTemplateException;
 import com.blade.test.model.Person;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import org.junit.Test;
 
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import static com.blade.mvc.ui.template.BladeTemplate.fromFile;
@@ -21,6 +27,18 @@ import static org.junit.Assert.assertTrue;
  */
 public class DefaultTemplateTest {
 
+	public static class Employee extends Person {
+
+		public Employee(String name, String text, int age) {
+			super(name, text, age);
+		}
+
+		@Override
+		public String getName() {
+			return "E";
+		}
+	}
+
 	@Test
 	public void testFormatSimpleArguments() throws Exception {
 		String result = template("${int3}-${int2}").arg("int3", 5).arg("int2", 7).fmt();
@@ -122,6 +140,24 @@ public class DefaultTemplateTest {
 		assertTrue("A/B/20".equals(result));
 	}
 
+	@Test
+	public void testCompiledTemplate() throws Exception {
+		CompiledTemplate compiled = template("${p.name} 你好 ${p.age}`${x}").compile();
+		Map<String, Object> args = new HashMap<>();
+		args.put("p", new Person("A", "B", 20));
+		assertTrue("A 你好 20${x}".equals(compiled.render(args::get)));
+
+		// another class behind the same param
+		args.put("p", new Employee("C", "D", 30));
+		assertTrue("E 你好 30${x}".equals(compiled.render(args::get)));
+
+		args.put("p", "no getters");
+		ByteBuf out = Unpooled.buffer();
+		compiled.render(args::get, out);
+		assertTrue("null 你好 null${x}".equals(out.toString(StandardCharsets.UTF_8)));
+		out.release();
+	}
+
 	@Test
 	public void test() {
 		System.out.println(HttpHeaderNames.COOKIE.toString());
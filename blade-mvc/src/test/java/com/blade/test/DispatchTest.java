@@ -0,0 +1,58 @@
+package com.blade.test;
+
+import com.blade.mvc.http.HttpMethod;
+import com.blade.mvc.route.Dispatch;
+import com.blade.mvc.route.RouteHandler;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+
+/**
+ * Routes executed on the business executor
+ */
+public class DispatchTest extends BaseTestCase {
+
+    private RouteHandler THREAD_HANDLER = (req, res) -> res.text(Thread.currentThread().getName());
+
+    @Test
+    public void testExecutorRoute() throws Exception {
+        app.routeMatcher().addRoute("/blocking", THREAD_HANDLER, HttpMethod.GET).setDispatch(Dispatch.EXECUTOR);
+        app.get("/fast", THREAD_HANDLER);
+        start(app);
+
+        assertThat(bodyToString("/blocking"), startsWith("blade-worker-"));
+        assertThat(bodyToString("/fast"), startsWith("nioEventLoopGroup"));
+    }
+
+    @Test
+    public void testGlobalExecutor() throws Exception {
+        app.post("/form", (req, res) -> res.text(Thread.currentThread().getName() + ":" + req.query("name", "none")));
+        app.routeMatcher().addRoute("/fast", THREAD_HANDLER, HttpMethod.GET).setDispatch(Dispatch.EVENT_LOOP);
+        start(app.useExecutor(true));
+
+        assertThat(post("/form").form("name", "blade").body(), startsWith("blade-worker-"));
+        assertThat(post("/form").form("name", "blade").body().endsWith(":blade"), is(true));
+        assertThat(bodyToString("/fast"), startsWith("nioEventLoopGroup"));
+    }
+
+    @Test
+    public void testCustomExecutor() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "custom-worker"));
+        try {
+            app.get("/blocking", THREAD_HANDLER);
+            start(app.useExecutor(true).executor(executor));
+
+            for (int i = 0; i < 3; i++) {
+                assertThat(bodyToString("/blocking"), is("custom-worker"));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
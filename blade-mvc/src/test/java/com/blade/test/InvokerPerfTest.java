@@ -0,0 +1,102 @@
+package com.blade.test;
+
+import com.blade.kit.ClassKit;
+import com.blade.mvc.handler.RouteInvoker;
+
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.lang.System.out;
+
+/**
+ * Compares route method dispatch through {@link RouteInvoker} with the former
+ * reflective {@link ClassKit#invokeMethod}, for handlers of 0, 2 and 6 arguments.
+ */
+public class InvokerPerfTest {
+
+	private static final int CALLS = 5_000_000;
+	private static final int ROUNDS = 5;
+
+	private static Map<Integer, Long> reflectTimes = new LinkedHashMap<>();
+	private static Map<Integer, Long> invokerTimes = new LinkedHashMap<>();
+
+	private static volatile Object sink;
+
+	public static class Controller {
+
+		private long counter;
+
+		public String zero() {
+			return "OK";
+		}
+
+		public String two(String name, int age) {
+			counter += age;
+			return name;
+		}
+
+		public String six(String name, int age, long id, double ratio, boolean flag, String text) {
+			counter += age + id;
+			return flag ? name : text;
+		}
+
+	}
+
+	private static Method method(String name) {
+		for (Method method : Controller.class.getMethods()) {
+			if (method.getName().equals(name)) {
+				return method;
+			}
+		}
+		throw new IllegalArgumentException(name);
+	}
+
+	private static long reflect(Controller controller, Method method, Object[] args) throws Exception {
+		long start = System.nanoTime();
+		for (int i = 0; i < CALLS; i++) {
+			sink = ClassKit.invokeMethod(controller, method, args);
+		}
+		return System.nanoTime() - start;
+	}
+
+	private static long invoker(Controller controller, RouteInvoker invoker, Object[] args) throws Throwable {
+		long start = System.nanoTime();
+		for (int i = 0; i < CALLS; i++) {
+			sink = invoker.invoke(controller, args);
+		}
+		return System.nanoTime() - start;
+	}
+
+	private static void test(String name, Object[] args) throws Throwable {
+		Controller controller = new Controller();
+		Method method = method(name);
+		method.setAccessible(true);
+		RouteInvoker invoker = new RouteInvoker(method, Controller.class);
+
+		// warm up
+		reflect(controller, method, args);
+		invoker(controller, invoker, args);
+
+		long reflectTime = Long.MAX_VALUE, invokerTime = Long.MAX_VALUE;
+		for (int round = 0; round < ROUNDS; round++) {
+			reflectTime = Math.min(reflectTime, reflect(controller, method, args));
+			invokerTime = Math.min(invokerTime, invoker(controller, invoker, args));
+		}
+		reflectTimes.put(args.length, reflectTime);
+		invokerTimes.put(args.length, invokerTime);
+	}
+
+	public static void main(String[] args) throws Throwable {
+		out.println("Benchmarking " + CALLS + " calls, best of " + ROUNDS + " rounds, please wait...");
+		test("zero", new Object[0]);
+		test("two", new Object[]{"blade", 18});
+		test("six", new Object[]{"blade", 18, 20L, 0.5d, true, "text"});
+
+		out.println("\nDISPATCH (ns/call)...\nArgs | Method.invoke | RouteInvoker:");
+		for (Integer count : reflectTimes.keySet()) {
+			out.printf("%d | %.1f | %.1f%n", count, reflectTimes.get(count) / (double) CALLS,
+					invokerTimes.get(count) / (double) CALLS);
+		}
+	}
+}
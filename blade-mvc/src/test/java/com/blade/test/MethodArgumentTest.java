@@ -0,0 +1,90 @@
+package com.blade.test;
+
+import com.blade.kit.AsmKit;
+import com.blade.mvc.annotation.BodyParam;
+import com.blade.mvc.annotation.HeaderParam;
+import com.blade.mvc.annotation.PathParam;
+import com.blade.mvc.annotation.QueryParam;
+import com.blade.mvc.handler.ArgumentBinder;
+import com.blade.mvc.handler.MethodArgument;
+import com.blade.mvc.handler.RouteInvoker;
+import com.blade.mvc.http.Response;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Route method argument binding
+ */
+public class MethodArgumentTest {
+
+    public static class User {
+        private String name;
+        private int age;
+    }
+
+    public static class ArgsController {
+
+        public void args(@PathParam int id, @HeaderParam("X-Token") String token, long since, double ratio,
+                         @QueryParam String name, Response response) {
+            response.text(id + ":" + token + ":" + since + ":" + ratio + ":" + name);
+        }
+
+        public void model(@QueryParam User user, Response response) {
+            response.text(null == user ? "none" : user.name + ":" + user.age);
+        }
+
+        public void body(@BodyParam User user, Response response) {
+            response.text(null == user ? "none" : user.name + ":" + user.age);
+        }
+
+        public void none() {
+        }
+
+        public static String wide(long a, String b, double c, int d) {
+            return b;
+        }
+
+    }
+
+    static Method method(String name) {
+        for (Method method : ArgsController.class.getMethods()) {
+            if (method.getName().equals(name)) {
+                return method;
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    @Test
+    public void testParamNames() throws Exception {
+        assertThat(AsmKit.getMethodParamNames(method("args")),
+                arrayContaining("id", "token", "since", "ratio", "name", "response"));
+        // static method, long and double take two local variable slots
+        assertThat(AsmKit.getMethodParamNames(method("wide")), arrayContaining("a", "b", "c", "d"));
+    }
+
+    @Test
+    public void testCompile() {
+        ArgumentBinder[] binders = MethodArgument.compile(method("args"));
+        assertThat(binders.length, is(6));
+        assertThat(MethodArgument.compile(method("toString")).length, is(0));
+    }
+
+    @Test
+    public void testInvoker() throws Throwable {
+        RouteInvoker wide = new RouteInvoker(method("wide"), ArgsController.class);
+        assertThat(wide.invoke(null, new Object[]{1L, "b", 2d, 3}), is("b"));
+        assertThat(wide.mode(), is(RouteInvoker.Mode.VIEW));
+
+        RouteInvoker none = new RouteInvoker(method("none"), ArgsController.class);
+        assertThat(none.invoke(new ArgsController(), new Object[0]), is(nullValue()));
+        assertThat(none.mode(), is(RouteInvoker.Mode.NONE));
+    }
+
+}
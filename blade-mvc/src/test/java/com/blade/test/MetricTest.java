@@ -0,0 +1,80 @@
+package com.blade.test;
+
+import com.blade.Blade;
+import com.blade.kit.ason.Ason;
+import com.blade.metric.LatencyHistogram;
+import com.blade.metric.TopN;
+import com.github.kevinsawicki.http.HttpRequest;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Request metrics
+ */
+public class MetricTest {
+
+    @Test
+    public void testHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertThat(histogram.percentile(99), is(0L));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        assertThat(histogram.count(), is(1000L));
+        assertThat(histogram.max(), is(1000_000L));
+        assertThat(histogram.mean(), closeTo(500_500, 1));
+        // at most one sub-bucket, 12.5%, above the exact value
+        assertThat(histogram.percentile(50), allOf(greaterThanOrEqualTo(500_000L), lessThan(562_500L)));
+        assertThat(histogram.percentile(99), allOf(greaterThanOrEqualTo(990_000L), lessThanOrEqualTo(1000_000L)));
+    }
+
+    @Test
+    public void testTopN() {
+        TopN top = new TopN(3, 256);
+        for (int i = 0; i < 10_000; i++) {
+            top.add("key" + i);
+            if (i % 10 == 0) {
+                top.add("hot");
+            }
+            if (i % 20 == 0) {
+                top.add("warm");
+            }
+        }
+        Map<String, Long> result = top.top();
+        assertThat(result.size(), is(3));
+        assertThat(result.keySet().iterator().next(), is("hot"));
+        assertThat(result, hasKey("warm"));
+        assertThat(result.get("hot"), greaterThanOrEqualTo(1000L));
+    }
+
+    @Test
+    public void testMonitorJson() throws Exception {
+        Blade app = Blade.me().get("/metric/:id", (req, res) -> res.text("OK")).get("/metric/fail", (req, res) -> {
+            throw new IllegalStateException("fail");
+        });
+        app.listen(9011).start().await();
+        try {
+            HttpRequest.get("http://127.0.0.1:9011/metric/1").body();
+            HttpRequest.get("http://127.0.0.1:9011/metric/2").body();
+            HttpRequest.get("http://127.0.0.1:9011/metric/fail").code();
+
+            Ason snapshot = new Ason(HttpRequest.get("http://127.0.0.1:9011/blade/monitor.json").body());
+            assertThat(Long.parseLong(snapshot.get("requests").toString()), greaterThanOrEqualTo(3L));
+            assertThat(snapshot.get("inFlight").toString(), is("1"));
+            String routes = snapshot.get("routes").toString();
+            assertThat(routes, containsString("GET /metric/:id"));
+            assertThat(routes, containsString("p99Micros"));
+            assertThat(snapshot.get("topUris").toString(), containsString("/metric/1"));
+            assertThat(HttpRequest.get("http://127.0.0.1:9011/blade/monitor").body(), containsString("/metric/:id"));
+        } finally {
+            app.stop();
+            app.await();
+        }
+    }
+
+}
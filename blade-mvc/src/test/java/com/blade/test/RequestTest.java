@@ -3,11 +3,15 @@ package com.blade.test;
 import com.blade.kit.Assert;
 import com.blade.kit.ason.Ason;
 import com.blade.mvc.Const;
+import com.blade.mvc.http.HttpMethod;
+import com.blade.mvc.multipart.FileItem;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
 import org.junit.Test;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
@@ -237,11 +241,56 @@ public class RequestTest extends BaseTestCase {
 
 		String body = post("/upload1").part("file1", "a.txt", new File(Const.CLASSPATH + "log_config.txt")).body();
 		assertThat(body, is(
-				"{\"file1\":{\"fileName\":\"a.txt\",\"name\":\"file1\",\"length\":1551,\"contentType\":\"text/plain\"}}"));
+				"{\"file1\":{\"name\":\"file1\",\"fileName\":\"a.txt\",\"contentType\":\"text/plain\",\"length\":1551}}"));
 
 		body = post("/upload2").part("file1", "a.txt", new File(Const.CLASSPATH + "log_config.txt")).body();
 		assertThat(body,
-				is("{\"fileName\":\"a.txt\",\"name\":\"file1\",\"length\":1551,\"contentType\":\"text/plain\"}"));
+				is("{\"name\":\"file1\",\"fileName\":\"a.txt\",\"contentType\":\"text/plain\",\"length\":1551}"));
+	}
+
+	@Test
+	public void testFileItemMoveTo() throws Exception {
+		File target = File.createTempFile("blade-upload", ".txt");
+		start(app.post("/move", (request, response) -> {
+			FileItem fileItem = request.fileItem("file1").get();
+			try {
+				fileItem.moveTo(target.toPath());
+			} catch (IOException e) {
+				throw new RuntimeException(e);
+			}
+			response.text(fileItem.isInMemory() + ":" + target.length());
+		}));
+
+		try {
+			assertThat(post("/move").part("file1", "a.txt", "text/plain", "hello").body(), is("true:5"));
+
+			char[] chars = new char[64 * 1024];
+			Arrays.fill(chars, 'a');
+			assertThat(post("/move").part("file1", "b.txt", "text/plain", new String(chars)).body(),
+					is("false:" + chars.length));
+		} finally {
+			target.delete();
+		}
+	}
+
+	@Test
+	public void testMethodArguments() throws Exception {
+		MethodArgumentTest.ArgsController controller = new MethodArgumentTest.ArgsController();
+		app.routeMatcher().addRoute(HttpMethod.GET, "/args/:id", controller, MethodArgumentTest.ArgsController.class,
+				MethodArgumentTest.method("args"));
+		app.routeMatcher().addRoute(HttpMethod.GET, "/model", controller, MethodArgumentTest.ArgsController.class,
+				MethodArgumentTest.method("model"));
+		app.routeMatcher().addRoute(HttpMethod.POST, "/body", controller, MethodArgumentTest.ArgsController.class,
+				MethodArgumentTest.method("body"));
+		start(app);
+
+		assertThat(get("/args/7?since=12&ratio=0.5&name=blade").header("X-Token", "abc").body(),
+				is("7:abc:12:0.5:blade"));
+		assertThat(get("/args/7").body(), is("7::0:0.0:"));
+		assertThat(bodyToString("/model?user[name]=jack&user[age]=20"), is("jack:20"));
+		assertThat(bodyToString("/model"), is("none"));
+		assertThat(post("/body").send("{\"name\":\"rose\",\"age\":18}").body(), is("rose:18"));
+		assertThat(post("/body").body(), is("none"));
 	}
 
 }
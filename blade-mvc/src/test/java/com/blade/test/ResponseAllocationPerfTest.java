@@ -0,0 +1,76 @@
+package com.blade.test;
+
+import com.blade.mvc.WebContextHolder;
+import com.blade.mvc.http.HttpRequest;
+import com.blade.mvc.http.HttpResponse;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseEncoder;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.ReferenceCountUtil;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static java.lang.System.out;
+
+/**
+ * Measures the time and the bytes allocated to write a response, through the
+ * http encoder of an embedded channel. Allocated bytes are only reported on
+ * JVMs exposing them per thread.
+ */
+public class ResponseAllocationPerfTest {
+
+	private static final int WARMUP = 20_000;
+	private static final int ROUNDS = 50_000;
+
+	private static void respond(EmbeddedChannel channel, ChannelHandlerContext ctx) {
+		HttpResponse.build(ctx, null).text("Hello blade");
+		channel.flushOutbound();
+		Object msg;
+		while (null != (msg = channel.readOutbound())) {
+			ReferenceCountUtil.release(msg);
+		}
+	}
+
+	private static long allocatedBytes(ThreadMXBean threads) {
+		if (threads instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return -1;
+	}
+
+	public static void main(String[] args) {
+		EmbeddedChannel channel = new EmbeddedChannel(new HttpResponseEncoder(), new ChannelInboundHandlerAdapter());
+		ChannelHandlerContext ctx = channel.pipeline().lastContext();
+		HttpRequest request = HttpRequest.build(ctx,
+				new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/hello"), null);
+		WebContextHolder.set(new WebContextHolder(request, null));
+		try {
+			out.println("Benchmarking " + ROUNDS + " responses, please wait...");
+			for (int i = 0; i < WARMUP; i++) {
+				respond(channel, ctx);
+			}
+			ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+			long before = allocatedBytes(threads);
+			long start = System.nanoTime();
+			for (int i = 0; i < ROUNDS; i++) {
+				respond(channel, ctx);
+			}
+			long nanos = System.nanoTime() - start;
+			long after = allocatedBytes(threads);
+
+			out.println("Time per response (ns): " + nanos / ROUNDS);
+			if (before >= 0) {
+				out.println("Allocated bytes per response: " + (after - before) / ROUNDS);
+			}
+		} finally {
+			WebContextHolder.remove();
+			channel.finishAndReleaseAll();
+		}
+	}
+
+}
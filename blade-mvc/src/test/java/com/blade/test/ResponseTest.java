@@ -3,6 +3,10 @@ package com.blade.test;
 import com.blade.mvc.Const;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Arrays;
 
 import static org.junit.Assert.assertEquals;
@@ -151,6 +155,28 @@ public class ResponseTest extends BaseTestCase {
         assertEquals(Const.CONTENT_TYPE_HTML, contentType);
     }
 
+    @Test
+    public void testRenderReload() throws Exception {
+        Path view = Paths.get(Const.CLASSPATH, "templates", "reload.html");
+        Files.write(view, "v1 ${user}".getBytes(StandardCharsets.UTF_8));
+        try {
+            start(
+                    app.get("/", ((request, response) -> {
+                        request.attribute("user", "biezhi");
+                        response.render("reload.html");
+                    }))
+            );
+            assertEquals("v1 biezhi", bodyToString("/"));
+            assertEquals("v1 biezhi", bodyToString("/"));
+
+            Files.write(view, "v2\n${user}".getBytes(StandardCharsets.UTF_8));
+            view.toFile().setLastModified(System.currentTimeMillis() + 2000);
+            assertEquals("v2\nbiezhi", bodyToString("/"));
+        } finally {
+            Files.delete(view);
+        }
+    }
+
     @Test
     public void testRedirect() throws Exception {
         start(
@@ -0,0 +1,148 @@
+package com.blade.test;
+
+import com.blade.mvc.http.HttpMethod;
+import com.blade.mvc.route.RouteBean;
+import com.blade.mvc.route.RouteHandler;
+import com.blade.mvc.route.RouteMatch;
+import com.blade.mvc.route.RouteMatcher;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * RouteMatcher TestCase
+ */
+public class RouteMatcherTest {
+
+    private RouteHandler handler = (req, res) -> res.text("OK");
+    private RouteMatcher routeMatcher;
+
+    @Before
+    public void setup() {
+        routeMatcher = new RouteMatcher();
+    }
+
+    private RouteBean lookup(String method, String path) {
+        RouteMatch routeMatch = routeMatcher.lookupRoute(method, path);
+        return null != routeMatch ? routeMatch.route() : null;
+    }
+
+    private Map<String, String> pathParams(String method, String path) {
+        return routeMatcher.lookupRoute(method, path).pathParams();
+    }
+
+    @Test
+    public void testStaticRoute() {
+        routeMatcher.addRoute("/", handler, HttpMethod.GET);
+        routeMatcher.addRoute("/users", handler, HttpMethod.GET);
+        routeMatcher.addRoute("/users/list", handler, HttpMethod.POST);
+        routeMatcher.register();
+
+        assertThat(lookup("GET", "/").getPath(), is("/"));
+        assertThat(lookup("GET", "/users").getPath(), is("/users"));
+        assertThat(lookup("GET", "/users/").getPath(), is("/users"));
+        assertThat(lookup("GET", "/users?name=jack").getPath(), is("/users"));
+        assertThat(lookup("POST", "/users/list").getPath(), is("/users/list"));
+        assertThat(lookup("GET", "/users/list"), nullValue());
+        assertThat(lookup("GET", "/Users"), nullValue());
+        assertThat(lookup("GET", "/none"), nullValue());
+    }
+
+    @Test
+    public void testPathParams() {
+        routeMatcher.addRoute("/users/:id", handler, HttpMethod.GET);
+        routeMatcher.addRoute("/users/:name/:age", handler, HttpMethod.GET);
+        routeMatcher.addRoute("/posts/:id.html", handler, HttpMethod.GET);
+        routeMatcher.register();
+
+        assertThat(lookup("GET", "/users/10").getPath(), is("/users/:id"));
+        assertThat(pathParams("GET", "/users/10").get("id"), is("10"));
+
+        assertThat(lookup("GET", "/users/biezhi/20").getPath(), is("/users/:name/:age"));
+        Map<String, String> params = pathParams("GET", "/users/biezhi/20");
+        assertThat(params.get("name"), is("biezhi"));
+        assertThat(params.get("age"), is("20"));
+
+        assertThat(pathParams("GET", "/posts/hello.html").get("id"), is("hello"));
+        assertThat(lookup("GET", "/posts/hello"), nullValue());
+    }
+
+    @Test
+    public void testStaticBeforeParam() {
+        routeMatcher.addRoute("/users/:id", handler, HttpMethod.GET);
+        routeMatcher.addRoute("/users/me", handler, HttpMethod.GET);
+        routeMatcher.addRoute("/users/:id/posts", handler, HttpMethod.GET);
+        routeMatcher.addRoute("/users/me/friends", handler, HttpMethod.GET);
+        routeMatcher.register();
+
+        assertThat(lookup("GET", "/users/me").getPath(), is("/users/me"));
+        assertThat(lookup("GET", "/users/12").getPath(), is("/users/:id"));
+        // falls back to the parameter branch when the static branch has no match
+        assertThat(lookup("GET", "/users/me/posts").getPath(), is("/users/:id/posts"));
+        assertThat(pathParams("GET", "/users/me/posts").get("id"), is("me"));
+    }
+
+    @Test
+    public void testWildcard() {
+        routeMatcher.addRoute("/static/*", handler, HttpMethod.GET);
+        routeMatcher.addRoute("/static/a.txt", handler, HttpMethod.GET);
+        routeMatcher.addRoute("/api/**", handler, HttpMethod.ALL);
+        routeMatcher.register();
+
+        assertThat(lookup("GET", "/static/a.txt").getPath(), is("/static/a.txt"));
+        assertThat(lookup("GET", "/static/css/app.css").getPath(), is("/static/.*"));
+        assertThat(lookup("DELETE", "/api/users/1").getPath(), is("/api/.*"));
+        assertThat(lookup("POST", "/static/css/app.css"), nullValue());
+    }
+
+    @Test
+    public void testMethodFallback() {
+        routeMatcher.addRoute("/hello", handler, HttpMethod.ALL);
+        routeMatcher.addRoute("/hello", handler, HttpMethod.POST);
+        routeMatcher.register();
+
+        assertThat(lookup("GET", "/hello").getHttpMethod(), is(HttpMethod.ALL));
+        assertThat(lookup("POST", "/hello").getHttpMethod(), is(HttpMethod.POST));
+        assertThat(lookup("NONE", "/hello"), nullValue());
+    }
+
+    @Test
+    public void testPathParamsPerRequest() {
+        routeMatcher.addRoute("/users", handler, HttpMethod.GET);
+        routeMatcher.addRoute("/users/:id", handler, HttpMethod.GET);
+        routeMatcher.register();
+
+        RouteMatch first = routeMatcher.lookupRoute("GET", "/users/1");
+        RouteMatch second = routeMatcher.lookupRoute("GET", "/users/2");
+        assertThat(first.route(), sameInstance(second.route()));
+        assertThat(first.pathParams().get("id"), is("1"));
+        assertThat(second.pathParams().get("id"), is("2"));
+        assertThat(routeMatcher.lookupRoute("GET", "/users").pathParams().isEmpty(), is(true));
+    }
+
+    @Test
+    public void testHooks() {
+        routeMatcher.addRoute("/users/:id", handler, HttpMethod.GET);
+        routeMatcher.addRoute("/admin", handler, HttpMethod.GET);
+        RouteBean all = routeMatcher.addRoute("/*", handler, HttpMethod.BEFORE);
+        RouteBean users = routeMatcher.addRoute("/users/*", handler, HttpMethod.BEFORE);
+        RouteBean user = routeMatcher.addRoute("/users/:id", handler, HttpMethod.BEFORE);
+        RouteBean admin = routeMatcher.addRoute("/admin", handler, HttpMethod.BEFORE);
+        RouteBean after = routeMatcher.addRoute("/admin", handler, HttpMethod.AFTER);
+        routeMatcher.register();
+
+        assertThat(Arrays.asList(routeMatcher.getBefore("/admin")), containsInAnyOrder(all, admin));
+        assertThat(Arrays.asList(routeMatcher.getBefore("/ADMIN/")), containsInAnyOrder(all, admin));
+        assertThat(Arrays.asList(routeMatcher.getBefore("/users/12")), containsInAnyOrder(all, users, user));
+        assertThat(Arrays.asList(routeMatcher.getBefore("/users/12/posts")), containsInAnyOrder(all, users));
+        assertThat(Arrays.asList(routeMatcher.getBefore("/none")), contains(all));
+        assertThat(Arrays.asList(routeMatcher.getAfter("/admin")), contains(after));
+        assertThat(routeMatcher.getAfter("/users/12").length, is(0));
+    }
+
+}
@@ -0,0 +1,121 @@
+package com.blade.test;
+
+import com.blade.mvc.http.HttpMethod;
+import com.blade.mvc.route.RouteHandler;
+import com.blade.mvc.route.RouteMatcher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.lang.System.out;
+
+/**
+ * Compares the route trie with the former one-regex-per-method matcher.
+ */
+public class RoutePerfTest {
+
+	private static final int LOOKUPS = 200_000;
+
+	private static final RouteHandler HANDLER = (req, res) -> res.text("OK");
+
+	private static Map<Integer, Long> regexTimes = new TreeMap<>();
+	private static Map<Integer, Long> trieTimes = new TreeMap<>();
+
+	/**
+	 * The matcher used before the trie: every parameterized route is an
+	 * alternation group of one big regex, the hit is found by scanning groups.
+	 */
+	private static class RegexMatcher {
+
+		private final List<List<String>> variableNames = new ArrayList<>();
+		private final List<Integer> groupIndexes = new ArrayList<>();
+		private final StringBuilder patternBuilder = new StringBuilder("^");
+		private int index = 1;
+		private Pattern pattern;
+
+		void add(String path) {
+			Matcher matcher = Pattern.compile(":(\\w+)").matcher(path);
+			List<String> names = new ArrayList<>();
+			while (matcher.find()) {
+				names.add(matcher.group(1));
+			}
+			variableNames.add(names);
+			groupIndexes.add(index);
+			index += names.size() + 1;
+			patternBuilder.append("(").append(matcher.replaceAll("([^/]+)")).append(")|");
+		}
+
+		void compile() {
+			patternBuilder.setCharAt(patternBuilder.length() - 1, '$');
+			pattern = Pattern.compile(patternBuilder.toString());
+		}
+
+		Map<String, String> lookup(String path) {
+			Matcher matcher = pattern.matcher(path);
+			if (!matcher.matches()) {
+				return null;
+			}
+			int i;
+			for (i = 1; matcher.group(i) == null; i++)
+				;
+			List<String> names = variableNames.get(groupIndexes.indexOf(i));
+			Map<String, String> uriVariables = new java.util.LinkedHashMap<>();
+			String uriVariable;
+			int j = 0;
+			while (++i <= matcher.groupCount() && (uriVariable = matcher.group(i)) != null) {
+				uriVariables.put(names.get(j++), uriVariable);
+			}
+			return uriVariables;
+		}
+	}
+
+	private static void test(int routes) {
+		RegexMatcher regexMatcher = new RegexMatcher();
+		RouteMatcher routeMatcher = new RouteMatcher();
+		String[] paths = new String[routes];
+		for (int i = 0; i < routes; i++) {
+			String route = "/api/resource" + i + "/:id/items/:item";
+			regexMatcher.add(route);
+			routeMatcher.addRoute(route, HANDLER, HttpMethod.GET);
+			paths[i] = "/api/resource" + i + "/" + i + "/items/" + (i * 7);
+		}
+		regexMatcher.compile();
+		routeMatcher.register();
+
+		// warm up
+		for (int i = 0; i < LOOKUPS / 10; i++) {
+			regexMatcher.lookup(paths[i % routes]);
+			routeMatcher.lookupRoute("GET", paths[i % routes]);
+		}
+
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < LOOKUPS; i++) {
+			regexMatcher.lookup(paths[i % routes]);
+		}
+		regexTimes.put(routes, System.currentTimeMillis() - start);
+
+		start = System.currentTimeMillis();
+		for (int i = 0; i < LOOKUPS; i++) {
+			routeMatcher.lookupRoute("GET", paths[i % routes]);
+		}
+		trieTimes.put(routes, System.currentTimeMillis() - start);
+	}
+
+	public static void main(String[] args) {
+		out.println("Benchmarking " + LOOKUPS + " lookups, please wait...");
+		for (int routes : new int[] { 10, 100, 1000 }) {
+			out.print(routes + " ");
+			test(routes);
+		}
+		out.println();
+
+		out.println("\nLOOKUP (ms)...\nRoutes | Regex | Trie:");
+		for (Integer routes : regexTimes.keySet()) {
+			out.println(routes + " | " + regexTimes.get(routes) + " | " + trieTimes.get(routes));
+		}
+	}
+}
@@ -0,0 +1,179 @@
+package com.blade.test;
+
+import com.blade.BladeException;
+import com.blade.mvc.http.HttpSession;
+import com.blade.mvc.http.Session;
+import com.blade.mvc.http.SessionManager;
+import com.blade.mvc.http.session.LocalSessionBackend;
+import com.blade.mvc.http.session.MappedSessionStore;
+import com.blade.mvc.http.session.MemorySessionStore;
+import com.blade.mvc.http.session.SharedSessionStore;
+import org.junit.Test;
+
+import java.io.File;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Session stores and expiry
+ */
+public class SessionStoreTest {
+
+    private static HttpSession session(String id, long ttl) {
+        HttpSession session = new HttpSession(id);
+        long now = Instant.now().getEpochSecond();
+        session.setCreated(now);
+        session.setExpired(now + ttl);
+        return session;
+    }
+
+    @Test
+    public void testMemoryEviction() {
+        MemorySessionStore store = new MemorySessionStore(2);
+        store.save(session("a", 60));
+        store.save(session("b", 60));
+        store.save(session("c", 60));
+        assertThat(store.size(), is(2));
+        assertThat(store.get("a"), nullValue());
+        store.remove("b");
+        store.save(session("d", 60));
+        assertThat(store.ids().size(), is(2));
+        assertThat(store.get("c"), notNullValue());
+    }
+
+    @Test
+    public void testMappedSurvivesReopen() throws Exception {
+        File file = File.createTempFile("sessions", ".db");
+        file.deleteOnExit();
+        MappedSessionStore store = new MappedSessionStore(file, 2, 1024);
+        HttpSession session = session("a", 60);
+        session.attribute("user", "jack");
+        store.save(session);
+        store.save(session("b", 60));
+        store.save(session("c", 120));
+        assertThat(store.get("a"), nullValue());
+        store.close();
+
+        store = new MappedSessionStore(file, 2, 1024);
+        assertThat(store.size(), is(2));
+        Session restored = store.get("b");
+        assertThat(restored.id(), is("b"));
+        store.save(session("d", 60));
+        assertThat(store.get("b"), nullValue());
+        assertThat(store.get("c"), notNullValue());
+
+        HttpSession large = session("e", 60);
+        large.attribute("data", new byte[2048]);
+        try {
+            store.save(large);
+            throw new AssertionError("session larger than a slot");
+        } catch (BladeException e) {
+            assertThat(store.get("e"), nullValue());
+        }
+        store.close();
+    }
+
+    @Test
+    public void testMappedConcurrentEviction() throws Exception {
+        File file = File.createTempFile("sessions", ".db");
+        file.deleteOnExit();
+        MappedSessionStore store = new MappedSessionStore(file, 4, 1024);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            String prefix = "t" + t + "-";
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    store.save(session(prefix + (i % 8), 60));
+                    if (i % 3 == 0) {
+                        store.remove(prefix + ((i + 4) % 8));
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // no slot was written by a session other than the one it is indexed for
+        for (String id : store.ids()) {
+            assertThat(store.get(id), notNullValue());
+        }
+        store.close();
+    }
+
+    @Test
+    public void testEvictionTold() throws Exception {
+        File file = File.createTempFile("sessions", ".db");
+        file.deleteOnExit();
+        SessionManager manager = new SessionManager(new MappedSessionStore(file, 2, 1024));
+        List<String> destroyed = new ArrayList<>();
+        manager.onExpired(session -> destroyed.add(session.id()));
+        try {
+            manager.addSession(session("a", 60));
+            manager.addSession(session("b", 60));
+            // saved again after its removal, it keeps its place in the eviction order
+            manager.remove(manager.getSession("a"));
+            manager.addSession(session("a", 60));
+            manager.addSession(session("c", 60));
+            assertThat(destroyed, is(Collections.singletonList("a")));
+            manager.addSession(session("d", 60));
+            assertThat(destroyed, is(Arrays.asList("a", "b")));
+            assertThat(manager.store().size(), is(2));
+        } finally {
+            manager.close();
+        }
+
+        MemorySessionStore store = new MemorySessionStore(1);
+        destroyed.clear();
+        store.onEvicted(session -> destroyed.add(session.id()));
+        store.save(session("a", 60));
+        store.save(session("b", 60));
+        assertThat(destroyed, is(Collections.singletonList("a")));
+    }
+
+    @Test
+    public void testSharedBetweenNodes() {
+        LocalSessionBackend backend = new LocalSessionBackend();
+        SessionManager node1 = new SessionManager(new SharedSessionStore(backend));
+        SessionManager node2 = new SessionManager(new SharedSessionStore(backend));
+        try {
+            node1.addSession(session("a", 60));
+            HttpSession session = (HttpSession) node2.getSession("a");
+            session.attribute("user", "jack");
+            node2.commit(session);
+            assertThat(node1.getSession("a").attribute("user"), is("jack"));
+            node1.remove(session);
+            assertThat(node2.getSession("a"), nullValue());
+        } finally {
+            node1.close();
+            node2.close();
+        }
+    }
+
+    @Test
+    public void testSweeper() throws Exception {
+        SessionManager manager = new SessionManager();
+        CountDownLatch expired = new CountDownLatch(1);
+        manager.onExpired(session -> expired.countDown());
+        try {
+            manager.addSession(session("a", 1));
+            manager.addSession(session("b", 60));
+            assertThat(expired.await(5, TimeUnit.SECONDS), is(true));
+            assertThat(manager.store().get("a"), nullValue());
+            assertThat(manager.getSession("b"), notNullValue());
+        } finally {
+            manager.close();
+        }
+    }
+
+}
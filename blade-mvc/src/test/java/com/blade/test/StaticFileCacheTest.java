@@ -0,0 +1,53 @@
+package com.blade.test;
+
+import com.blade.server.StaticFileCache;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Lifetime of the contents held by the static file cache
+ */
+public class StaticFileCacheTest {
+
+    private static ByteBuf content(String text) {
+        return Unpooled.directBuffer().writeBytes(text.getBytes(CharsetUtil.UTF_8));
+    }
+
+    @Test
+    public void testRemovedWhileWritten() {
+        StaticFileCache cache = new StaticFileCache(1024, 8, 1024);
+        ByteBuf content = content("hello");
+        StaticFileCache.CachedFile cached = cache.put("/a.txt", "text/plain", -1, content);
+
+        ByteBuf view = cached.retainedContent();
+        cache.clear();
+        assertThat(cache.size(), is(0L));
+        // the view being written keeps the removed content alive
+        assertThat(content.refCnt(), is(1));
+        assertThat(view.toString(CharsetUtil.UTF_8), is("hello"));
+        view.release();
+        assertThat(content.refCnt(), is(0));
+
+        // a request still holding the removed entry falls back to the disk
+        assertThat(cached.retainedContent(), nullValue());
+    }
+
+    @Test
+    public void testFirstPutWins() {
+        StaticFileCache cache = new StaticFileCache(1024, 8, 1024);
+        StaticFileCache.CachedFile first = cache.put("/a.txt", "text/plain", -1, content("first"));
+        ByteBuf second = content("second");
+        // a concurrent miss sends the file cached first, its own content is released
+        assertThat(cache.put("/a.txt", "text/plain", -1, second), is(first));
+        assertThat(second.refCnt(), is(0));
+        assertThat(cache.size(), is(5L));
+        cache.clear();
+    }
+
+}
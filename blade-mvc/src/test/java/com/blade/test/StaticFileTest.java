@@ -1,9 +1,18 @@
 package com.blade.test;
 
+import com.blade.mvc.Const;
 import org.junit.Test;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPOutputStream;
+
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 
 /**
  * Created by wugy on 2017/6/7 20:26
@@ -18,6 +27,113 @@ public class StaticFileTest extends BaseTestCase {
         assertThat(bodyToString("/static/a.txt"), is("hello blade"));
     }
 
+    @Test
+    public void testCachedFile() throws Exception {
+        start(
+                app.disableSession().staticCache(true)
+        );
+        assertThat(bodyToString("/static/a.txt"), is("hello blade"));
+        String etag = get("/static/a.txt").eTag();
+        assertThat(bodyToString("/static/a.txt"), is("hello blade"));
+        assertThat(get("/static/a.txt").ifNoneMatch(etag).code(), is(304));
+    }
+
+    @Test
+    public void testPrecompressedFile() throws Exception {
+        File gz = new File(new File(getClass().getResource("/static/a.txt").toURI()).getPath() + ".gz");
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(gz))) {
+            out.write("hello gzip".getBytes(StandardCharsets.UTF_8));
+        }
+        try {
+            start(
+                    app.disableSession().environment(Const.ENV_KEY_STATIC_PRECOMPRESSED, true)
+            );
+            assertThat(get("/static/a.txt").acceptGzipEncoding().contentEncoding(), is("gzip"));
+            assertThat(get("/static/a.txt").acceptGzipEncoding().uncompress(true).body(), is("hello gzip"));
+            assertThat(bodyToString("/static/a.txt"), is("hello blade"));
+        } finally {
+            gz.delete();
+        }
+    }
+
+    @Test
+    public void testCachedPrecompressedFile() throws Exception {
+        File gz = new File(new File(getClass().getResource("/static/a.txt").toURI()).getPath() + ".gz");
+        try (OutputStream out = new GZIPOutputStream(new FileOutputStream(gz))) {
+            out.write("hello gzip".getBytes(StandardCharsets.UTF_8));
+        }
+        try {
+            start(
+                    app.disableSession().staticCache(true).environment(Const.ENV_KEY_STATIC_PRECOMPRESSED, true)
+            );
+            assertThat(get("/static/a.txt").acceptGzipEncoding().contentEncoding(), is("gzip"));
+            // the sibling requested directly is cached apart from the variant
+            com.github.kevinsawicki.http.HttpRequest direct = get("/static/a.txt.gz").acceptGzipEncoding();
+            assertThat(direct.contentEncoding(), nullValue());
+            assertThat(direct.bytes().length, is((int) gz.length()));
+            assertThat(get("/static/a.txt").acceptGzipEncoding().uncompress(true).body(), is("hello gzip"));
+        } finally {
+            gz.delete();
+        }
+    }
+
+    @Test
+    public void testCompressedVariant() throws Exception {
+        File css = new File(new File(getClass().getResource("/static/a.txt").toURI()).getParent(), "variant.css");
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            content.append(".item-").append(i).append(" { color: red; }\n");
+        }
+        Files.write(css.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+        try {
+            start(
+                    app.disableSession().environment(Const.ENV_KEY_STATIC_COMPRESS_ENABLE, true)
+            );
+            // the file itself is sent until the compressed copy is cached
+            assertThat(get("/static/variant.css").acceptGzipEncoding().uncompress(true).body(), is(content.toString()));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (!"gzip".equals(get("/static/variant.css").acceptGzipEncoding().contentEncoding())) {
+                assertThat(System.currentTimeMillis() < deadline, is(true));
+                Thread.sleep(10);
+            }
+            assertThat(get("/static/variant.css").acceptGzipEncoding().uncompress(true).body(), is(content.toString()));
+            assertThat(bodyToString("/static/variant.css"), is(content.toString()));
+        } finally {
+            css.delete();
+        }
+    }
+
+    @Test
+    public void testRange() throws Exception {
+        start(
+                app.disableSession()
+        );
+        com.github.kevinsawicki.http.HttpRequest request = get("/static/a.txt").header("Range", "bytes=0-4");
+        assertThat(request.code(), is(206));
+        assertThat(request.header("Content-Range"), is("bytes 0-4/11"));
+        assertThat(request.body(), is("hello"));
+
+        assertThat(get("/static/a.txt").header("Range", "bytes=-5").body(), is("blade"));
+        assertThat(get("/static/a.txt").header("Range", "bytes=20-").code(), is(416));
+
+        request = get("/static/a.txt").header("Range", "bytes=0-4").header("If-Range", "\"stale\"");
+        assertThat(request.code(), is(200));
+        assertThat(request.body(), is("hello blade"));
+    }
+
+    @Test
+    public void testMultiRange() throws Exception {
+        start(
+                app.disableSession()
+        );
+        com.github.kevinsawicki.http.HttpRequest request = get("/static/a.txt").header("Range", "bytes=0-4,6-");
+        assertThat(request.code(), is(206));
+        assertThat(request.contentType().startsWith("multipart/byteranges; boundary="), is(true));
+        String body = request.body();
+        assertThat(body.contains("Content-Range: bytes 0-4/11\r\n\r\nhello\r\n"), is(true));
+        assertThat(body.contains("Content-Range: bytes 6-10/11\r\n\r\nblade\r\n"), is(true));
+    }
+
     @Test
     public void test401() throws Exception {
         start(
@@ -0,0 +1,81 @@
+package com.blade.test;
+
+import com.blade.mvc.Const;
+import com.blade.mvc.http.HttpMethod;
+import com.blade.mvc.route.RouteBean;
+import com.blade.mvc.route.RouteHandler;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Streamed request bodies and the aggregated body limit
+ */
+public class StreamBodyTest extends BaseTestCase {
+
+    private RouteBean streamRoute(String path, RouteHandler handler) {
+        RouteBean route = app.routeMatcher().addRoute(path, handler, HttpMethod.POST);
+        route.setStreamBody(true);
+        return route;
+    }
+
+    @Test
+    public void testStreamBody() throws Exception {
+        streamRoute("/upload", (request, response) -> {
+            int length = 0;
+            try (InputStream in = request.bodyStream()) {
+                byte[] buf = new byte[4096];
+                int read;
+                while ((read = in.read(buf)) != -1) {
+                    length += read;
+                }
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+            response.text(String.valueOf(length));
+        });
+        start(app.disableSession());
+
+        byte[] body = new byte[100 * 1024];
+        Arrays.fill(body, (byte) 'a');
+        assertThat(post("/upload").contentType("application/octet-stream").send(body).body(), is(String.valueOf(body.length)));
+        assertThat(post("/upload").contentType("application/octet-stream").send("hello").body(), is("5"));
+    }
+
+    @Test
+    public void testStreamForm() throws Exception {
+        streamRoute("/form", (request, response) -> response.text(request.query("name", "none")
+                + ":" + request.fileItem("file").map(fileItem -> fileItem.fileName()).orElse("none")));
+        start(app.disableSession());
+
+        assertThat(post("/form").form("name", "blade").body(), is("blade:none"));
+        assertThat(post("/form").part("name", "blade").part("file", "a.txt", "text/plain", "hello").body(),
+                is("blade:a.txt"));
+    }
+
+    @Test
+    public void testStreamBodyTooLarge() throws Exception {
+        streamRoute("/small", (request, response) -> response.text(request.bodyToString()))
+                .setMaxBodySize(10);
+        start(app.disableSession());
+
+        assertThat(post("/small").contentType("application/octet-stream").send("hello").body(), is("hello"));
+        assertThat(post("/small").contentType("application/octet-stream").send("hello blade stream").code(), is(413));
+    }
+
+    @Test
+    public void testMaxContent() throws Exception {
+        start(app.disableSession().environment(Const.ENV_KEY_HTTP_MAX_CONTENT, 1024)
+                .post("/aggregate", (request, response) -> response.text(request.bodyToString())));
+
+        assertThat(post("/aggregate").send("hello").body(), is("hello"));
+        byte[] body = new byte[2048];
+        Arrays.fill(body, (byte) 'a');
+        assertThat(post("/aggregate").send(body).code(), is(413));
+    }
+
+}
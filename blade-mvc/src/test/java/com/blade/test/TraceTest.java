@@ -0,0 +1,74 @@
+package com.blade.test;
+
+import com.blade.metric.Phase;
+import com.blade.metric.RequestTrace;
+import com.blade.metric.RequestTracer;
+import com.blade.metric.TraceListener;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+/**
+ * Phase timings of requests
+ */
+public class TraceTest extends BaseTestCase {
+
+    private Map<String, String> traces = new ConcurrentHashMap<>();
+    private Map<String, Long> invokeNanos = new ConcurrentHashMap<>();
+
+    private TraceListener listener = trace -> {
+        long sum = 0;
+        for (Phase phase : Phase.values()) {
+            sum += trace.nanos(phase);
+        }
+        assertThat(sum, is(trace.total()));
+        traces.put(trace.uri(), trace.toString());
+        invokeNanos.put(trace.uri(), trace.nanos(Phase.INVOKE));
+    };
+
+    @After
+    public void removeListener() {
+        RequestTracer.removeListener(listener);
+        RequestTracer.enable(false);
+    }
+
+    @Test
+    public void testPhases() throws Exception {
+        RequestTrace idle = new RequestTrace();
+        assertThat(idle.enter(Phase.INVOKE), nullValue());
+        idle.start();
+        assertThat(idle.enter(Phase.INVOKE), is(Phase.ROUTE));
+        assertThat(idle.enter(Phase.WRITE), is(Phase.INVOKE));
+        idle.finish(200);
+        assertThat(idle.isActive(), is(false));
+
+        app.traceListener(listener).before("/slow", (req, res) -> req.attribute("before", true)).get("/slow/:id", (req, res) -> {
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            res.text("OK");
+        });
+        start(app);
+
+        assertThat(bodyToString("/slow/1"), is("OK"));
+        get("/missing").code();
+
+        assertThat(traces.get("/slow/1"), startsWith("GET /slow/1 (/slow/:id) 200 "));
+        assertThat(traces.get("/slow/1"), containsString("write="));
+        assertThat(invokeNanos.get("/slow/1"), greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(20)));
+        assertThat(traces.get("/missing"), startsWith("GET /missing 404 "));
+
+        RequestTracer.enable(false);
+        bodyToString("/slow/2");
+        assertThat(traces, not(hasKey("/slow/2")));
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.blade.test.kit.json;
+
+import com.blade.kit.ason.Ason;
+import com.blade.kit.ason.AsonName;
+import com.blade.kit.ason.AsonReader;
+import com.blade.kit.ason.AsonWriter;
+import com.blade.kit.ason.InvalidJsonException;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Streaming json binding
+ */
+public class AsonReaderTest {
+
+	enum Level {
+		LOW, HIGH
+	}
+
+	static class Order {
+		@AsonName(name = "order_id")
+		long id;
+		String note;
+		int count;
+		double total;
+		BigDecimal amount;
+		boolean paid;
+		Level level;
+		int[] codes;
+		List<Integer> quantities;
+		Map<String, Object> extra;
+		Ason raw;
+	}
+
+	private static ByteBuf buf(String json) {
+		return Unpooled.copiedBuffer(json, CharsetUtil.UTF_8);
+	}
+
+	@Test
+	public void test_read_object() {
+		ByteBuf json = buf("{ \"note\" : \"a\\\"b\\u4e2d\", \"order_id\": 9007199254740993, \"count\": 3,"
+				+ "\"unknown\": {\"x\": [1, {\"y\": null}]}, \"total\": 1.5e2, \"amount\": 0.10, \"paid\": true,"
+				+ "\"level\": \"HIGH\", \"codes\": [1, 2], \"quantities\": [4, 5], \"extra\": {\"k\": [1, 2.5]},"
+				+ "\"raw\": {\"a\": 1}}");
+		Order order = AsonReader.read(json, Order.class);
+		assertEquals(0, json.readerIndex());
+		assertEquals(9007199254740993L, order.id);
+		assertEquals("a\"b中", order.note);
+		assertEquals(3, order.count);
+		assertEquals(150d, order.total, 0);
+		assertEquals(new BigDecimal("0.10"), order.amount);
+		assertTrue(order.paid);
+		assertEquals(Level.HIGH, order.level);
+		assertArrayEquals(new int[]{1, 2}, order.codes);
+		assertEquals(Arrays.asList(4, 5), order.quantities);
+		assertEquals(Arrays.asList(1, 2.5), order.extra.get("k"));
+		assertEquals(1, order.raw.getInt("a"));
+	}
+
+	@Test
+	public void test_read_same_as_ason() {
+		Person person = new Person(1, "Aidan Follestad", 1995);
+		person.relationshipList.add(new Relationship(2, "Waverly Moua", "girlfriend"));
+		String json = AsonWriter.toString(person);
+		Person expected = Ason.deserialize(json, Person.class);
+		Person actual = AsonReader.read(buf(json), Person.class);
+		assertEquals(AsonWriter.toString(expected), AsonWriter.toString(actual));
+		assertEquals("Waverly Moua", actual.relationshipList.get(0).name);
+	}
+
+	@Test
+	public void test_read_empty() {
+		assertNull(AsonReader.read(buf("  "), Order.class));
+		assertNull(AsonReader.read(buf("null"), Order.class));
+		assertEquals(0, AsonReader.read(buf("{}"), Order.class).count);
+	}
+
+	@Test
+	public void test_read_limits() {
+		String nested = "{\"a\":{\"a\":{\"a\":{}}}}";
+		assertNotNull(AsonReader.read(buf(nested), Map.class, 4, 1024));
+		try {
+			AsonReader.read(buf(nested), Map.class, 3, 1024);
+			fail();
+		} catch (InvalidJsonException e) {
+			assertTrue(e.getMessage().contains("nesting"));
+		}
+		try {
+			AsonReader.read(buf(nested), Map.class, 4, 8);
+			fail();
+		} catch (InvalidJsonException e) {
+			assertTrue(e.getMessage().contains("exceeds"));
+		}
+	}
+
+	@Test
+	public void test_read_malformed() {
+		for (String json : new String[]{"{\"count\": 1", "{\"count\" 1}", "{\"count\": 1} x", "[1,]", "\"open",
+				"{\"count\": \"many\"}"}) {
+			try {
+				AsonReader.read(buf(json), Order.class);
+				fail(json);
+			} catch (InvalidJsonException e) {
+				// expected
+			}
+		}
+	}
+
+}
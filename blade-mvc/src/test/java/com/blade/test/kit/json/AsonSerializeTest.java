@@ -9,6 +9,10 @@ import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.Assert.*;
 
@@ -625,6 +629,30 @@ public class AsonSerializeTest {
 		}
 	}
 
+	@Test
+	public void test_concurrent_plans() throws Exception {
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		try {
+			List<Callable<Boolean>> tasks = new ArrayList<>();
+			for (int i = 0; i < 64; i++) {
+				final int id = i;
+				tasks.add(() -> {
+					Person3 person = new Person3(id);
+					person.family.add(new Person3(id + 1));
+					Ason ason = Ason.serialize(person);
+					Person3 back = Ason.deserialize(ason, Person3.class);
+					return back.id == id && back.family.size() == 1 && back.family.get(0).id == id + 1
+							&& ason.has("_id") && !ason.has("id");
+				});
+			}
+			for (Future<Boolean> result : pool.invokeAll(tasks)) {
+				assertTrue(result.get());
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
 	static class Person3 {
 
 		@AsonName(name = "_id")
@@ -0,0 +1,94 @@
+package com.blade.test.kit.json;
+
+import com.blade.kit.ason.Ason;
+import com.blade.kit.ason.AsonIgnore;
+import com.blade.kit.ason.AsonName;
+import com.blade.kit.ason.AsonWriter;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Streaming json output
+ */
+public class AsonWriterTest {
+
+	static class Item {
+		static final String TYPE = "item";
+
+		private long id;
+		@AsonName(name = "title")
+		private String name;
+		@AsonIgnore
+		private String secret = "secret";
+		private Double price;
+		private int[] tags = {1, 2};
+
+		Item(long id, String name, Double price) {
+			this.id = id;
+			this.name = name;
+			this.price = price;
+		}
+	}
+
+	@Test
+	public void test_write_object() {
+		assertEquals("{\"id\":1,\"title\":\"apple\",\"price\":2.5,\"tags\":[1,2]}",
+				AsonWriter.toString(new Item(1, "apple", 2.5)));
+		assertEquals("{\"id\":-2,\"title\":null,\"price\":null,\"tags\":[1,2]}",
+				AsonWriter.toString(new Item(-2, null, null)));
+	}
+
+	@Test
+	public void test_write_same_as_ason() {
+		Person person = new Person(1, "Aidan Follestad", 1995);
+		person.relationshipList.add(new Relationship(2, "Waverly Moua", "girlfriend"));
+		Ason expected = Ason.serialize(person);
+		Ason actual = new Ason(AsonWriter.toString(person));
+		assertEquals(expected.toString(), actual.toString());
+	}
+
+	@Test
+	public void test_write_collections() {
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("list", Arrays.asList(1, "a", null));
+		map.put("empty", Collections.emptyList());
+		map.put("array", new String[]{"x"});
+		map.put("nested", Collections.singletonMap("b", true));
+		assertEquals("{\"list\":[1,\"a\",null],\"empty\":[],\"array\":[\"x\"],\"nested\":{\"b\":true}}",
+				AsonWriter.toString(map));
+	}
+
+	@Test
+	public void test_write_numbers() {
+		assertEquals("[1,0.5,-12,9223372036854775807,-9223372036854775808,null,1.5E-7,100]",
+				AsonWriter.toString(new Object[]{1.0, 0.5f, -12, Long.MAX_VALUE, Long.MIN_VALUE, Double.NaN,
+						1.5e-7, (short) 100}));
+	}
+
+	@Test
+	public void test_write_escaped() {
+		assertEquals("\"a\\\"b\\\\c\\n<\\/d\\u2028\"", AsonWriter.toString("a\"b\\c\n</d\u2028"));
+		assertEquals("\"中文 ✓\"", AsonWriter.toString("中文 ✓"));
+	}
+
+	@Test
+	public void test_write_pooled() {
+		ByteBuf buf = PooledByteBufAllocator.DEFAULT.buffer(4);
+		try {
+			AsonWriter.write(buf, Collections.singletonMap("名字", "值"));
+			assertEquals("{\"名字\":\"值\"}", buf.toString(CharsetUtil.UTF_8));
+		} finally {
+			buf.release();
+		}
+	}
+
+}